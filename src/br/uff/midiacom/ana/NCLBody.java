@@ -54,9 +54,12 @@ import br.uff.midiacom.ana.reuse.NCLImport;
 import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.xml.XMLStreamLoader;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.ArrayList;
 
 
 /**
@@ -145,29 +148,25 @@ public class NCLBody<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";        
+        space = indent(ident);        
         
         // <body> element and attributes declaration
-        content = space + "<body";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<body");
+        out.append(parseAttributes());
+        out.append(">\n");
         
         // <body> element content
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
         
         // <body> element end declaration
-        content += space + "</body>\n";
-        
-        return content;
+        out.append(space).append("</body>\n");
     }
 
 
@@ -187,33 +186,74 @@ public class NCLBody<T extends NCLElement,
         }
 
         try{
-            // create the child nodes (except ports and links)
+            ArrayList<Element> postponed = new ArrayList<Element>();
+
+            // create the child nodes in a single pass, postponing the
+            // ports and links
+            startLoadTasks();
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadProperties(el);
-                    loadMetas(el);
-                    loadMetadatas(el);
-                    loadMedia(el);
-                    loadContext(el);
-                    loadSwitch(el);
-                }
+                if(nd instanceof Element)
+                    loadChild((Element) nd, postponed);
             }
+            
+            // load the child contexts and switches, in parallel if the
+            // document is loaded by a pool
+            runLoadTasks();
 
             // create the child nodes (ports and links)
-            nl = element.getChildNodes();
-            for(int i=0; i < nl.getLength(); i++){
-                Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+            for(Element el : postponed)
+                loadChild(el, null);
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("Body > " + ex.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Reads the XML code representing the body from a stream of XML events. The
+     * child contexts are also loaded from the stream, while the other children
+     * are loaded as DOM elements. Ports and links are loaded after the nodes,
+     * since they refer to them.
+     * 
+     * @param loader
+     *          stream loader positioned in the start of the element.
+     * @throws NCLParsingException 
+     *          if an error occur while parsing the element.
+     */
+    public void load(XMLStreamLoader loader) throws NCLParsingException {
+        Element element;
+        ArrayList<Element> postponed = new ArrayList<Element>();
 
-                    loadPorts(el);
-                    loadLinks(el);
+        try{
+            element = loader.readAttributes();
+            
+            loadId(element);
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("Body:\n" + ex.getMessage());
+        }
+
+        try{
+            // create the child nodes (except ports and links)
+            while(loader.nextChild()){
+                String ch_name = loader.getTagName();
+                
+                if(ch_name.equals(NCLElementAttributes.CONTEXT.toString())){
+                    En inst = createContext();
+                    addNode(inst);
+                    ((NCLContext) inst).load(loader);
+                    continue;
                 }
+                
+                loadChild(loader.readElement(), postponed);
             }
+
+            // create the child nodes (ports and links)
+            for(Element el : postponed)
+                loadChild(el, null);
         }
         catch(XMLException ex){
             throw new NCLParsingException("Body > " + ex.getMessage());
@@ -221,6 +261,58 @@ public class NCLBody<T extends NCLElement,
     }
     
     
+    /**
+     * Creates the child element given. If a list of postponed elements is given,
+     * the ports and links are added to the list instead of being created, since
+     * they refer to other children.
+     *
+     * @param element
+     *          child element.
+     * @param postponed
+     *          list of postponed elements or <i>null</i>.
+     * @throws XMLException
+     *          if an error occur while creating the child element.
+     */
+    protected void loadChild(Element element, ArrayList<Element> postponed) throws XMLException {
+        NCLElementAttributes ch = NCLElementAttributes.getEnumType(element.getTagName());
+        if(ch == null)
+            return;
+
+        switch(ch){
+            case PROPERTY:
+                loadProperties(element);
+                break;
+            case META:
+                loadMetas(element);
+                break;
+            case METADATA:
+                loadMetadatas(element);
+                break;
+            case MEDIA:
+                loadMedia(element);
+                break;
+            case CONTEXT:
+                loadContext(element);
+                break;
+            case SWITCH:
+                loadSwitch(element);
+                break;
+            case PORT:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadPorts(element);
+                break;
+            case LINK:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadLinks(element);
+                break;
+        }
+    }
+    
+    
     protected String parseAttributes() {
         String content = "";
         
@@ -230,24 +322,20 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseMetas(ident);
-        content += parseMetadatas(ident);
-        content += parsePorts(ident);
-        content += parseProperties(ident);
-        content += parseNodes(ident);
-        content += parseLinks(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeMetas(out, ident);
+        writeMetadatas(out, ident);
+        writePorts(out, ident);
+        writeProperties(out, ident);
+        writeNodes(out, ident);
+        writeLinks(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -263,155 +351,119 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseMetas(int ident) {
+    protected void writeMetas(Appendable out, int ident) throws IOException {
         if(!hasMeta())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : metas)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMetas(Element element) throws XMLException {
         // create the meta
-        if(element.getTagName().equals(NCLElementAttributes.META.toString())){
-            Em inst = createMeta();
-            addMeta(inst);
-            inst.load(element);
-        }
+        Em inst = createMeta();
+        addMeta(inst);
+        inst.load(element);
     }
     
     
-    protected String parseMetadatas(int ident) {
+    protected void writeMetadatas(Appendable out, int ident) throws IOException {
         if(!hasMetadata())
-            return "";
+            return;
         
-        String content = "";
         for(Emt aux : metadatas)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMetadatas(Element element) throws XMLException {
         // create the metadata
-        if(element.getTagName().equals(NCLElementAttributes.METADATA.toString())){
-            Emt inst = createMetadata();
-            addMetadata(inst);
-            inst.load(element);
-        }
+        Emt inst = createMetadata();
+        addMetadata(inst);
+        inst.load(element);
     }
     
     
-    protected String parsePorts(int ident) {
+    protected void writePorts(Appendable out, int ident) throws IOException {
         if(!hasPort())
-            return "";
+            return;
         
-        String content = "";
         for(Ept aux : ports)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadPorts(Element element) throws XMLException {
         //create the port
-        if(element.getTagName().equals(NCLElementAttributes.PORT.toString())){
-            Ept inst = createPort();
-            addPort(inst);
-            inst.load(element);
-        }
+        Ept inst = createPort();
+        addPort(inst);
+        inst.load(element);
     }
     
     
-    protected String parseProperties(int ident) {
+    protected void writeProperties(Appendable out, int ident) throws IOException {
         if(!hasProperty())
-            return "";
+            return;
         
-        String content = "";
         for(Epp aux : properties)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadProperties(Element element) throws XMLException {
         // create the property
-        if(element.getTagName().equals(NCLElementAttributes.PROPERTY.toString())){
-            Epp inst = createProperty();
-            addProperty(inst);
-            inst.load(element);
-        }
+        Epp inst = createProperty();
+        addProperty(inst);
+        inst.load(element);
     }
     
     
-    protected String parseNodes(int ident) {
+    protected void writeNodes(Appendable out, int ident) throws IOException {
         if(!hasNode())
-            return "";
+            return;
         
-        String content = "";
         for(En aux : nodes)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMedia(Element element) throws XMLException {
         // create the media
-        if(element.getTagName().equals(NCLElementAttributes.MEDIA.toString())){
-            En inst = createMedia();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createMedia();
+        addNode(inst);
+        inst.load(element);
     }
     
     
     protected void loadContext(Element element) throws XMLException {
         // create the context
-        if(element.getTagName().equals(NCLElementAttributes.CONTEXT.toString())){
-            En inst = createContext();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createContext();
+        loadNode(inst, element);
     }
     
     
     protected void loadSwitch(Element element) throws XMLException {
         // create the switch
-        if(element.getTagName().equals(NCLElementAttributes.SWITCH.toString())){
-            En inst = createSwitch();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createSwitch();
+        loadNode(inst, element);
     }
     
     
-    protected String parseLinks(int ident) {
+    protected void writeLinks(Appendable out, int ident) throws IOException {
         if(!hasLink())
-            return "";
+            return;
         
-        String content = "";
         for(El aux : links)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadLinks(Element element) throws XMLException {
         // create the link
-        if(element.getTagName().equals(NCLElementAttributes.LINK.toString())){
-            El inst = createLink();
-            addLink(inst);
-            inst.load(element);
-        }
+        El inst = createLink();
+        addLink(inst);
+        inst.load(element);
     }
 
     
@@ -438,6 +490,11 @@ public class NCLBody<T extends NCLElement,
         if(result != null)
             return result;
         
+        // search in the document index
+        Object indexed = findIndexed(id);
+        if(indexed instanceof NCLInterface)
+            return (Ei) indexed;
+        
         // search in inner nodes
         for(En node : nodes){
             result = (Ei) node.findInterface(id);
@@ -465,6 +522,11 @@ public class NCLBody<T extends NCLElement,
         if(getId() != null && getId().equals(id))
             return (En) this;
         
+        // search in the document index
+        Object indexed = findIndexed(id);
+        if(indexed instanceof NCLNode)
+            return (En) indexed;
+        
         for(En node : nodes){
             result = (En) node.findNode(id);
             if(result != null)
@@ -495,6 +557,37 @@ public class NCLBody<T extends NCLElement,
     }
     
     
+    /**
+     * Searches for a node inside the body and its descendants or, if an alias
+     * is given, inside the body of the document imported with that alias.
+     * 
+     * @param alias
+     *          alias of the importNCL that imports the node or <i>null</i> if
+     *          the node is in this document.
+     * @param id
+     *          id of the node to be found.
+     * @return 
+     *          node, reference to the imported node or <i>null</i> if no node
+     *          was found.
+     * @throws XMLException 
+     *          if an error occur while searching the node.
+     */
+    public Object findNode(String alias, String id) throws XMLException {
+        if(alias == null)
+            return findNode(id);
+        
+        NCLDoc doc = (NCLDoc) getParent();
+        if(doc == null || doc.getHead() == null)
+            return null;
+        
+        NCLImportedDocumentBase ib = (NCLImportedDocumentBase) ((NCLHead) doc.getHead()).getImportedDocumentBase();
+        if(ib == null)
+            return null;
+        
+        return ib.findNode(alias, id);
+    }
+    
+    
     public NCLNode findNodeReference(NCLDoc doc, String id) throws XMLException {
         NCLBody body = (NCLBody) doc.getBody();
         
@@ -37,22 +37,43 @@
  *******************************************************************************/
 package br.uff.midiacom.ana;
 
+import br.uff.midiacom.ana.reuse.NCLDocumentCache;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.enums.NCLNamespace;
+import br.uff.midiacom.ana.util.ncl.NCLElementIndex;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLSymbolTable;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.modification.NCLChangeSet;
+import br.uff.midiacom.ana.util.modification.NCLInvalidationListener;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
+import br.uff.midiacom.ana.util.xml.ByteBufferInputStream;
+import br.uff.midiacom.ana.util.xml.XMLParserPool;
+import br.uff.midiacom.ana.util.xml.XMLStreamLoader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 
@@ -99,8 +120,22 @@ public class NCLDoc<T extends NCLElement,
     
     protected String location;
     protected String fileName;
+    protected URI baseURI;
+    protected NCLDocumentCache documentCache;
+    protected NCLModificationNotifier modificationNotifier;
     protected ElementList<Ev> globalVariables;
-    protected ArrayList<PostReferenceElement> references;
+    protected LinkedHashSet<PostReferenceElement> references;
+    protected NCLElementIndex elementIndex;
+    protected transient ForkJoinPool loadPool;
+    protected boolean fragmentCaching;
+    protected NCLSymbolTable symbolTable;
+    protected volatile boolean readOnly;
+    protected transient CopyOnWriteArrayList<NCLInvalidationListener> invalidationListeners;
+    protected transient volatile NCLChangeSet transaction;
+    private transient int transactionDepth;
+    
+    private static final AtomicInteger invalidationListenerCount = new AtomicInteger();
+    private static final AtomicInteger transactionCount = new AtomicInteger();
 
 
     /**
@@ -112,7 +147,8 @@ public class NCLDoc<T extends NCLElement,
     public NCLDoc() {
         super();
         globalVariables = new ElementList<Ev>();
-        references = new ArrayList<PostReferenceElement>();
+        references = new LinkedHashSet<PostReferenceElement>();
+        elementIndex = new NCLElementIndex(this);
     }
     
     
@@ -291,6 +327,400 @@ public class NCLDoc<T extends NCLElement,
     public String getFileName() {
         return fileName;
     }
+    
+    
+    /**
+     * Returns the URI against which the relative references of the document,
+     * like the <i>documentURI</i> of an import, are resolved. This URI is set
+     * while parsing a document from a file or given explicitly when parsing it
+     * from a stream or a buffer.
+     * 
+     * @return 
+     *          URI used to resolve the document relative references or
+     *          <i>null</i> if it is not known.
+     */
+    public URI getBaseURI() {
+        return baseURI;
+    }
+    
+    
+    /**
+     * Sets the cache consulted when loading the documents imported by this
+     * document. The same cache may be set to many documents. Set the cache to
+     * <i>null</i> to read every imported document.
+     * 
+     * @param documentCache 
+     *          cache of imported documents or <i>null</i>.
+     */
+    public void setDocumentCache(NCLDocumentCache documentCache) {
+        this.documentCache = documentCache;
+    }
+    
+    
+    /**
+     * Returns the cache consulted when loading the documents imported by this
+     * document or <i>null</i> if there is no cache.
+     * 
+     * @return 
+     *          cache of imported documents or <i>null</i>.
+     */
+    public NCLDocumentCache getDocumentCache() {
+        return documentCache;
+    }
+    
+    
+    /**
+     * Marks the document as read-only. A read-only document, like a document
+     * shared by a document cache, is used by many importing documents at the
+     * same time: it can not be attached to them, its global variables are not
+     * merged with theirs and its elements do not record the elements of other
+     * documents referring to them. A document can not be made writable again.
+     */
+    public void setReadOnly() {
+        readOnly = true;
+    }
+    
+    
+    /**
+     * Verifies if the document is read-only.
+     * 
+     * @return 
+     *          true if the document is read-only.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    
+    /**
+     * Sets the symbol table that keeps the ids, names and values of the
+     * elements of the document. The strings read while loading the document
+     * are replaced by the instances kept by the table, so the documents that
+     * share a table share the strings they repeat. The documents imported by
+     * this document use the same table. Set the table to <i>null</i> to keep
+     * the strings as read.
+     * 
+     * @param symbolTable 
+     *          symbol table of the document or <i>null</i>.
+     */
+    public void setSymbolTable(NCLSymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+    
+    
+    /**
+     * Returns the symbol table that keeps the ids, names and values of the
+     * elements of the document or <i>null</i> if the document has no table.
+     * 
+     * @return 
+     *          symbol table of the document or <i>null</i>.
+     */
+    public NCLSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+    
+    
+    /**
+     * Sets the pool used to load the document body in parallel. When a pool
+     * is set, the child contexts and switches of the body, and of each
+     * context and switch, are created in the order they appear in the
+     * document and then loaded at the same time by the pool. The references
+     * between the elements are resolved after the whole body is loaded, so
+     * the document loaded is the same as the one loaded sequentially, as long
+     * as the ids of the document elements are unique.
+     * 
+     * <br/>
+     * 
+     * Only the methods that load the document from a DOM tree use the pool.
+     * The documents read as a stream of XML events are loaded sequentially.
+     * 
+     * @param loadPool 
+     *          fork-join pool or <i>null</i> to load the document sequentially.
+     */
+    public void setLoadPool(ForkJoinPool loadPool) {
+        this.loadPool = loadPool;
+    }
+    
+    
+    /**
+     * Returns the pool used to load the document body in parallel.
+     * 
+     * @return 
+     *          fork-join pool or <i>null</i> if the document is loaded
+     *          sequentially.
+     */
+    public ForkJoinPool getLoadPool() {
+        return loadPool;
+    }
+    
+    
+    /**
+     * Sets if the elements of the document keep their serialized XML code.
+     * When set, each element keeps the code generated by the last call to
+     * <i>parse</i>, and discards it, together with the code kept by its
+     * ancestors, when it is modified. Parsing the document again after a small
+     * modification only generates the code of the elements modified and of
+     * their ancestors.
+     * 
+     * <br/>
+     * 
+     * The elements are modified through their methods, which are the ones that
+     * notify the modifications. Values such as times changed directly are not
+     * noticed.
+     * 
+     * @param fragmentCaching 
+     *          true to keep the code of the elements.
+     */
+    public void setFragmentCaching(boolean fragmentCaching) {
+        this.fragmentCaching = fragmentCaching;
+    }
+    
+    
+    /**
+     * Verifies if the elements of the document keep their serialized XML code.
+     * 
+     * @return 
+     *          true if the elements keep their code.
+     */
+    public boolean isFragmentCaching() {
+        return fragmentCaching;
+    }
+    
+    
+    /**
+     * Sets the notifier used to send the modifications of the document
+     * elements to the listeners. The same notifier may be set to many
+     * documents, for instance the documents edited in the same session.
+     * 
+     * @param modificationNotifier 
+     *          modification notifier or <i>null</i> to use the global notifier.
+     */
+    public void setModificationNotifier(NCLModificationNotifier modificationNotifier) {
+        this.modificationNotifier = modificationNotifier;
+    }
+    
+    
+    /**
+     * Returns the notifier used to send the modifications of the document
+     * elements to the listeners. If the document does not have a notifier, a
+     * new one is created, so the modifications of this document are no longer
+     * sent to the global notifier.
+     * 
+     * @return 
+     *          modification notifier of the document.
+     */
+    public NCLModificationNotifier getModificationNotifier() {
+        if(modificationNotifier == null)
+            modificationNotifier = new NCLModificationNotifier();
+        
+        return modificationNotifier;
+    }
+    
+    
+    /**
+     * Adds a listener called whenever an element of the document is modified,
+     * by the thread that modifies it. See <i>NCLInvalidationListener</i>.
+     * 
+     * @param listener 
+     *          invalidation listener.
+     * @return 
+     *          true if the listener was added.
+     */
+    public synchronized boolean addInvalidationListener(NCLInvalidationListener listener) {
+        if(listener == null)
+            throw new NullPointerException("Null listener.");
+        
+        if(invalidationListeners == null)
+            invalidationListeners = new CopyOnWriteArrayList<NCLInvalidationListener>();
+        if(!invalidationListeners.addIfAbsent(listener))
+            return false;
+        
+        invalidationListenerCount.incrementAndGet();
+        return true;
+    }
+    
+    
+    /**
+     * Removes a listener called whenever an element of the document is
+     * modified.
+     * 
+     * @param listener 
+     *          invalidation listener.
+     * @return 
+     *          true if the listener was removed.
+     */
+    public synchronized boolean removeInvalidationListener(NCLInvalidationListener listener) {
+        if(invalidationListeners == null || !invalidationListeners.remove(listener))
+            return false;
+        
+        invalidationListenerCount.decrementAndGet();
+        return true;
+    }
+    
+    
+    /**
+     * Calls the invalidation listeners of the document. It is called by the
+     * elements of the document when they are modified.
+     * 
+     * @param element 
+     *          element modified.
+     */
+    @Deprecated
+    public void notifyInvalidated(NCLElement element) {
+        CopyOnWriteArrayList<NCLInvalidationListener> aux = invalidationListeners;
+        if(aux == null)
+            return;
+        
+        for(NCLInvalidationListener listener : aux)
+            listener.invalidated(element);
+    }
+    
+    
+    /**
+     * Verifies if any document has an invalidation listener, so the elements
+     * do not need to look for their document when none has.
+     * 
+     * @return 
+     *          true if a document has an invalidation listener.
+     */
+    @Deprecated
+    public static boolean hasInvalidationListeners() {
+        return invalidationListenerCount.get() > 0;
+    }
+    
+    
+    /**
+     * Starts a bulk edit of the document. The modifications made until
+     * <i>commitTransaction</i> is called are delivered to the listeners at once
+     * as a coalesced change set. Transactions may be nested.
+     * 
+     * <br/>
+     * 
+     * The transaction belongs to the document and only collects the
+     * modifications of its elements, whatever the thread that makes them. The
+     * other documents, even if they share the notifier of this one, keep
+     * delivering their modifications one by one.
+     */
+    public synchronized void beginTransaction() {
+        if(transactionDepth++ == 0){
+            transaction = new NCLChangeSet();
+            transactionCount.incrementAndGet();
+        }
+    }
+    
+    
+    /**
+     * Ends a bulk edit of the document started by <i>beginTransaction</i>. If
+     * it is the outermost transaction, the change set is delivered to the
+     * listeners of the document notifier.
+     * 
+     * @return 
+     *          change set with the modifications made inside the transaction,
+     *          collected even if there are no listeners, or <i>null</i> if it
+     *          is a nested transaction.
+     * @throws IllegalStateException 
+     *          if there is no transaction in progress.
+     */
+    public NCLChangeSet commitTransaction() {
+        NCLChangeSet aux;
+        
+        synchronized(this){
+            if(transactionDepth == 0)
+                throw new IllegalStateException("No transaction in progress.");
+            
+            if(--transactionDepth > 0)
+                return null;
+            
+            aux = transaction;
+            transaction = null;
+            transactionCount.decrementAndGet();
+        }
+        
+        getNotifier().addChangeSet(aux);
+        return aux;
+    }
+    
+    
+    /**
+     * Verifies if there is a transaction of the document in progress.
+     * 
+     * @return 
+     *          true if there is a transaction in progress.
+     */
+    public boolean inTransaction() {
+        return transaction != null;
+    }
+    
+    
+    /**
+     * Returns the change set of the transaction of the document in progress.
+     * The elements of the document add their modifications to it.
+     * 
+     * @return 
+     *          change set of the transaction or <i>null</i> if there is no
+     *          transaction in progress.
+     */
+    @Deprecated
+    public NCLChangeSet getTransaction() {
+        return transaction;
+    }
+    
+    
+    /**
+     * Verifies if any document has a transaction in progress, so the elements
+     * do not need to look for their document when none has and there are no
+     * listeners.
+     * 
+     * @return 
+     *          true if a document has a transaction in progress.
+     */
+    @Deprecated
+    public static boolean hasTransactions() {
+        return transactionCount.get() > 0;
+    }
+    
+    
+    @Override
+    protected NCLModificationNotifier getNotifier() {
+        if(modificationNotifier != null)
+            return modificationNotifier;
+        
+        return NCLModificationNotifier.getInstance();
+    }
+    
+    
+    /**
+     * Returns the element of the document with the id given. The elements are
+     * kept in an index, updated when an element with an id is added to or
+     * removed from the document or when its id changes. The ids of a subtree
+     * built outside the document are kept by its root and moved to the index
+     * when the subtree is attached, so attaching an element does not visit
+     * its descendants. The elements removed are dropped from the index when
+     * they are found there.
+     * 
+     * <br/>
+     * 
+     * If more than one element has the same id, the first one added to the
+     * document is returned.
+     * 
+     * @param id
+     *          string representing the id of the element.
+     * @return 
+     *          element with the id given or <i>null</i> if there is no element
+     *          with that id in the document.
+     */
+    public NCLElement getElementById(String id) {
+        if(id == null)
+            return null;
+        
+        return elementIndex.get(id);
+    }
+    
+    
+    @Override
+    protected NCLElementIndex getElementIndex() {
+        return elementIndex;
+    }
 
 
     /**
@@ -466,34 +896,30 @@ public class NCLDoc<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
         // XML document start declaration
-        content = space + "<?xml version='1.0' encoding='ISO-8859-1'?>\n";
+        out.append(space).append("<?xml version='1.0' encoding='ISO-8859-1'?>\n");
 
-        content += space + "<!-- Generated with aNa - API for NCL Authoring -->\n\n";
+        out.append(space).append("<!-- Generated with aNa - API for NCL Authoring -->\n\n");
 
         // <ncl> element and attributes declaration
-        content += space + "<ncl";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<ncl");
+        out.append(parseAttributes());
+        out.append(">\n");
 
         // <ncl> element content
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
 
         // <ncl> element end declaration
-        content += space + "</ncl>\n";
-
-        return content;
+        out.append(space).append("</ncl>\n");
     }
 
 
@@ -511,9 +937,86 @@ public class NCLDoc<T extends NCLElement,
         }
 
         try{
-            loadHead(element);
+            Element body = null;
+            
+            // create the head and find the body in a single pass
+            NodeList nl = element.getChildNodes();
+            for(int i=0; i < nl.getLength(); i++){
+                Node nd = nl.item(i);
+                if(!(nd instanceof Element))
+                    continue;
+                
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+                
+                switch(ch){
+                    case HEAD:
+                        if(getHead() == null)
+                            loadHead(el);
+                        break;
+                    case BODY:
+                        if(body == null)
+                            body = el;
+                        break;
+                }
+            }
+            
+            // the body is loaded after the head, since it refers to the head
+            if(body != null)
+                loadBody(body);
+
+            // fix the references needed
+            fixReferences();
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("Error pasring " + ex.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Reads the XML code representing the document from a stream of XML events.
+     * The head is loaded as a DOM element, while the body is loaded as its
+     * children are read.
+     * 
+     * @param loader
+     *          stream loader positioned in the start of the <i>ncl</i> element.
+     * @throws NCLParsingException 
+     *          if an error occur while parsing the document.
+     */
+    public void load(XMLStreamLoader loader) throws NCLParsingException {
+        Element element;
+        
+        try{
+            element = loader.readAttributes();
+            
+            loadId(element);
+
+            loadTitle(element);
+
+            loadXmlns(element);
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("NCLDocument:\n" + ex.getMessage());
+        }
 
-            loadBody(element);
+        try{
+            while(loader.nextChild()){
+                String ch_name = loader.getTagName();
+                
+                if(ch_name.equals(NCLElementAttributes.BODY.toString()) && getBody() == null){
+                    Eb inst = createBody();
+                    setBody(inst);
+                    inst.load(loader);
+                }
+                else{
+                    Element el = loader.readElement();
+                    if(ch_name.equals(NCLElementAttributes.HEAD.toString()) && getHead() == null)
+                        loadHead(el);
+                }
+            }
 
             // fix the references needed
             fixReferences();
@@ -535,20 +1038,16 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseHead(ident);
-        content += parseBody(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeHead(out, ident);
+        writeBody(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -567,7 +1066,7 @@ public class NCLDoc<T extends NCLElement,
     protected String parseTitle() {
         String aux = getTitle();
         if(aux != null)
-            return " title='" + aux + "'";
+            return attribute(NCLElementAttributes.TITLE, aux);
         else
             return "";
     }
@@ -586,7 +1085,7 @@ public class NCLDoc<T extends NCLElement,
     protected String parseXmlns() {
         NCLNamespace aux = getXmlns();
         if(aux != null)
-            return " xmlns='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.XMLNS, aux.toString());
         else
             return "";
     }
@@ -602,51 +1101,33 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
-    protected String parseHead(int ident) {
+    protected void writeHead(Appendable out, int ident) throws IOException {
         Eh aux = getHead();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadHead(Element element) throws XMLException {
-        String ch_name;
-        Element el;
-        
         // create the head
-        ch_name = NCLElementAttributes.HEAD.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
-        if(el != null){
-            Eh inst = createHead();
-            setHead(inst);
-            inst.load(el);
-        }
+        Eh inst = createHead();
+        setHead(inst);
+        inst.load(element);
     }
     
     
-    protected String parseBody(int ident) {
+    protected void writeBody(Appendable out, int ident) throws IOException {
         Eb aux = getBody();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadBody(Element element) throws XMLException {
-        String ch_name;
-        Element el;
-        
         // create the body
-        ch_name = NCLElementAttributes.BODY.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
-        if(el != null){
-            Eb inst = createBody();
-            setBody(inst);
-            inst.load(el);
-        }
+        Eb inst = createBody();
+        setBody(inst);
+        inst.load(element);
     }
 
 
@@ -662,11 +1143,56 @@ public class NCLDoc<T extends NCLElement,
         // Store the file name and location
         location = xmlFile.getParent();
         fileName = xmlFile.getName();
+        baseURI = xmlFile.getAbsoluteFile().toURI();
+        
+        try{
+            Document doc;
+            DocumentBuilder parser = XMLParserPool.getDocumentBuilder();
+            try{
+                doc = parser.parse(xmlFile);
+            }finally{
+                XMLParserPool.releaseDocumentBuilder(parser);
+            }
+            load(doc.getDocumentElement());
+        }catch(SAXException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }catch(ParserConfigurationException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }catch(IOException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }
+    }
+
+
+    /**
+     * Loads the objects structure representing an NCL document from a stream.
+     * The stream is read until the end of the document but it is not closed.
+     *
+     * @param input
+     *          stream with the NCL document content.
+     * @param baseURI
+     *          URI used to resolve the document relative references, usually
+     *          the URI the document was retrieved from. May be <i>null</i> if
+     *          the document has no relative references.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXML(InputStream input, URI baseURI) throws XMLException {
+        location = null;
+        fileName = null;
+        this.baseURI = baseURI;
         
         try{
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder parser = factory.newDocumentBuilder();
-            Document doc = parser.parse(xmlFile);
+            Document doc;
+            DocumentBuilder parser = XMLParserPool.getDocumentBuilder();
+            try{
+                if(baseURI != null)
+                    doc = parser.parse(input, baseURI.toString());
+                else
+                    doc = parser.parse(input);
+            }finally{
+                XMLParserPool.releaseDocumentBuilder(parser);
+            }
             load(doc.getDocumentElement());
         }catch(SAXException e){
             throw new NCLParsingException(e.fillInStackTrace());
@@ -676,9 +1202,184 @@ public class NCLDoc<T extends NCLElement,
             throw new NCLParsingException(e.fillInStackTrace());
         }
     }
+
+
+    /**
+     * Loads the objects structure representing an NCL document from an array
+     * of bytes. The array is read in place, without being copied.
+     *
+     * @param content
+     *          array with the NCL document content.
+     * @param baseURI
+     *          URI used to resolve the document relative references. May be
+     *          <i>null</i> if the document has no relative references.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXML(byte[] content, URI baseURI) throws XMLException {
+        if(content == null)
+            throw new NCLParsingException("Null content.");
+        
+        loadXML(new ByteArrayInputStream(content), baseURI);
+    }
+
+
+    /**
+     * Loads the objects structure representing an NCL document from a byte
+     * buffer. The content between the buffer position and its limit is read
+     * in place, without being copied, and the buffer position is not changed.
+     * The buffer may be a direct or a memory mapped buffer.
+     *
+     * @param content
+     *          buffer with the NCL document content.
+     * @param baseURI
+     *          URI used to resolve the document relative references. May be
+     *          <i>null</i> if the document has no relative references.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXML(ByteBuffer content, URI baseURI) throws XMLException {
+        if(content == null)
+            throw new NCLParsingException("Null content.");
+        
+        loadXML(new ByteBufferInputStream(content), baseURI);
+    }
+
+
+    /**
+     * Loads the objects structure representing an NCL document from the
+     * document URI. Documents with the <i>file</i> scheme, or a relative URI,
+     * are read from the file system, while other documents are read from a
+     * stream opened from the URI.
+     *
+     * @param uri
+     *          URI of the NCL document.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXML(URI uri) throws XMLException {
+        if(uri == null)
+            throw new NCLParsingException("Null URI.");
+        
+        if(!uri.isAbsolute()){
+            loadXML(new File(uri.getPath()));
+            return;
+        }
+        if("file".equals(uri.getScheme())){
+            loadXML(new File(uri));
+            return;
+        }
+        
+        InputStream input = null;
+        try{
+            input = new BufferedInputStream(uri.toURL().openStream());
+            loadXML(input, uri);
+        }catch(IOException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }finally{
+            try{
+                if(input != null)
+                    input.close();
+            }catch(IOException e){}
+        }
+    }
+
+
+    /**
+     * Loads the objects structure representing an NCL document from an XML file
+     * mapped in memory. The file content is not copied into the heap, which
+     * is indicated for large documents.
+     *
+     * @param xmlFile
+     *          file with the NCL document content.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXMLMapped(File xmlFile) throws XMLException {
+        FileInputStream input = null;
+        try{
+            input = new FileInputStream(xmlFile);
+            FileChannel channel = input.getChannel();
+            ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            loadXML(content, xmlFile.getAbsoluteFile().toURI());
+        }catch(IOException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }finally{
+            try{
+                if(input != null)
+                    input.close();
+            }catch(IOException e){}
+        }
+        
+        // Store the file name and location
+        location = xmlFile.getParent();
+        fileName = xmlFile.getName();
+    }
+
+
+    /**
+     * Loads the objects structure representing an NCL document from an XML file
+     * without building the DOM tree of the whole document. The document is read
+     * as a stream of events and the elements are created as they are read.
+     *
+     * @param xmlFile
+     *          file with the NCL document content.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXMLStream(File xmlFile) throws XMLException {
+        InputStream input = null;
+        try{
+            input = new BufferedInputStream(new FileInputStream(xmlFile));
+            loadXMLStream(input, xmlFile.getAbsoluteFile().toURI());
+        }catch(IOException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }finally{
+            try{
+                if(input != null)
+                    input.close();
+            }catch(IOException e){}
+        }
+        
+        // Store the file name and location
+        location = xmlFile.getParent();
+        fileName = xmlFile.getName();
+    }
+
+
+    /**
+     * Loads the objects structure representing an NCL document from a stream
+     * without building the DOM tree of the whole document. The stream is not
+     * closed.
+     *
+     * @param input
+     *          stream with the NCL document content.
+     * @param baseURI
+     *          URI used to resolve the document relative references. May be
+     *          <i>null</i> if the document has no relative references.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXMLStream(InputStream input, URI baseURI) throws XMLException {
+        location = null;
+        fileName = null;
+        this.baseURI = baseURI;
+        
+        XMLStreamLoader loader = new XMLStreamLoader(input, baseURI != null ? baseURI.toString() : null);
+        try{
+            load(loader);
+        }finally{
+            try{
+                loader.close();
+            }catch(XMLException e){}
+        }
+    }
     
     
     public void mergeGlobalVariables(NCLDoc other) throws XMLException {
+        if(other.isReadOnly())
+            throw new XMLException("The variables of a read-only document can not be merged.");
+        
         ElementList<Ev> other_vars = other.getGlobalVariables();
         if(other_vars.isEmpty())
             return;
@@ -698,14 +1399,49 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
+    /**
+     * Registers an element that has references to be resolved after the
+     * document tree is built. The element keeps the identifiers it refers to
+     * and an element is registered only once, no matter how many references
+     * it has pending.
+     * 
+     * @param element 
+     *          element with references waiting to be resolved.
+     */
     public void waitReference(PostReferenceElement element) {
-        references.add(element);
+        synchronized(references){
+            references.add(element);
+        }
     }
     
     
+    /**
+     * Resolves, in a single pass, the references of all the elements waiting
+     * for it. The references that can not be resolved are reported all at
+     * once after the pass.
+     * 
+     * @throws XMLException 
+     *          if any reference could not be resolved.
+     */
     public void fixReferences() throws XMLException {
-        for(PostReferenceElement el : references)
-            el.fixReference();
+        StringBuilder errors = null;
+        
+        for(PostReferenceElement el : references){
+            try{
+                el.fixReference();
+            }
+            catch(XMLException ex){
+                if(errors == null)
+                    errors = new StringBuilder();
+                else
+                    errors.append('\n');
+                errors.append(ex.getMessage());
+            }
+        }
+        references.clear();
+        
+        if(errors != null)
+            throw new NCLParsingException("Could not resolve references:\n" + errors);
     }
 
     
@@ -724,10 +1460,15 @@ public class NCLDoc<T extends NCLElement,
         body = null;
         location = null;
         fileName = null;
+        baseURI = null;
+        documentCache = null;
+        modificationNotifier = null;
         
         references.clear();
         references = null;
         
+        elementIndex.clear();
+        
         for(Ev g : globalVariables)
             g.clean();
     }
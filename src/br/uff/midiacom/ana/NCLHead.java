@@ -53,6 +53,8 @@ import br.uff.midiacom.ana.util.ElementList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.ArrayList;
 
 
 /**
@@ -647,14 +649,7 @@ public class NCLHead<T extends NCLElement,
             result &= el.compare(((NCLHead) other).getTransitionBase());
         
         ElementList<Erb> otherrb = ((NCLHead) other).getRegionBases();
-        result &= regionBases.size() == otherrb.size();
-        for (Erb aux : regionBases) {
-            try {
-                result &= otherrb.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= regionBases.compare(otherrb);
         
         if((el = (T) getDescriptorBase()) != null)
             result &= el.compare(((NCLHead) other).getDescriptorBase());
@@ -662,78 +657,104 @@ public class NCLHead<T extends NCLElement,
             result &= el.compare(((NCLHead) other).getConnectorBase());
         
         ElementList<Em> othermet = ((NCLHead) other).getMetas();
-        result &= metas.size() == othermet.size();
-        for (Em aux : metas) {
-            try {
-                result &= othermet.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metas.compare(othermet);
         
         ElementList<Emt> othermtd = ((NCLHead) other).getMetadatas();
-        result &= metadatas.size() == othermtd.size();
-        for (Emt aux : metadatas) {
-            try {
-                result &= othermtd.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metadatas.compare(othermtd);
         
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
                 
-        content = space + "<head>\n";
-        
-        content += parseElements(ident + 1);
+        out.append(space).append("<head>\n");
         
-        content += space + "</head>\n";
+        writeElements(out, ident + 1);
         
-        return content;
+        out.append(space).append("</head>\n");
     }
 
 
     @Override
     public void load(Element element) throws NCLParsingException {
-        Element el;
+        Element importBase = null, ruleBase = null, transitionBase = null;
+        Element descriptorBase = null, connectorBase = null;
+        ArrayList<Element> regionBases = new ArrayList<Element>();
 
         try{
-            loadImportedDocumentBase(element);
-
-            loadRuleBase(element);
-
-            loadTransitionBase(element);
-
-            // create the child nodes (regionBases, metas and metadatas)
+            // create the child nodes (metas and metadatas) and find the bases
+            // in a single pass
             NodeList nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    el = (Element) nl.item(i);
-
-                    loadRegionBases(el);
-                    loadMetas(el);
-                    loadMetadatas(el);
+                if(!(nd instanceof Element))
+                    continue;
+                
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+                
+                switch(ch){
+                    case IMPORTEDDOCUMENTBASE:
+                        if(importBase == null)
+                            importBase = el;
+                        break;
+                    case RULEBASE:
+                        if(ruleBase == null)
+                            ruleBase = el;
+                        break;
+                    case TRANSITIONBASE:
+                        if(transitionBase == null)
+                            transitionBase = el;
+                        break;
+                    case DESCRIPTORBASE:
+                        if(descriptorBase == null)
+                            descriptorBase = el;
+                        break;
+                    case CONNECTORBASE:
+                        if(connectorBase == null)
+                            connectorBase = el;
+                        break;
+                    case REGIONBASE:
+                        regionBases.add(el);
+                        break;
+                    case META:
+                        loadMetas(el);
+                        break;
+                    case METADATA:
+                        loadMetadatas(el);
+                        break;
                 }
             }
 
-            loadDescriptorBase(element);
+            // the bases are loaded in the order they refer to each other
+            if(importBase != null)
+                loadImportedDocumentBase(importBase);
+
+            if(ruleBase != null)
+                loadRuleBase(ruleBase);
 
-            loadConnectorBase(element);
+            if(transitionBase != null)
+                loadTransitionBase(transitionBase);
+
+            for(Element el : regionBases)
+                loadRegionBases(el);
+
+            if(descriptorBase != null)
+                loadDescriptorBase(descriptorBase);
+
+            if(connectorBase != null)
+                loadConnectorBase(connectorBase);
         }
         catch(XMLException ex){
             throw new NCLParsingException("Head > " + ex.getMessage());
@@ -741,205 +762,141 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportedDocumentBase(ident);
-        content += parseRuleBase(ident);
-        content += parseTransitionBase(ident);
-        content += parseRegionBases(ident);
-        content += parseDescriptorBase(ident);
-        content += parseConnectorBase(ident);
-        content += parseMetas(ident);
-        content += parseMetadatas(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportedDocumentBase(out, ident);
+        writeRuleBase(out, ident);
+        writeTransitionBase(out, ident);
+        writeRegionBases(out, ident);
+        writeDescriptorBase(out, ident);
+        writeConnectorBase(out, ident);
+        writeMetas(out, ident);
+        writeMetadatas(out, ident);
     }
     
     
-    protected String parseImportedDocumentBase(int ident) {
+    protected void writeImportedDocumentBase(Appendable out, int ident) throws IOException {
         Eib aux = getImportedDocumentBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadImportedDocumentBase(Element element) throws XMLException {
-        String ch_name;
-        Element el;
-        
         // create the importedDocumentBase
-        ch_name = NCLElementAttributes.IMPORTEDDOCUMENTBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
-        if(el != null){
-            Eib inst = createImportedDocumentBase();
-            setImportedDocumentBase(inst);
-            inst.load(el);
-        }
+        Eib inst = createImportedDocumentBase();
+        setImportedDocumentBase(inst);
+        inst.load(element);
     }
     
     
-    protected String parseRuleBase(int ident) {
+    protected void writeRuleBase(Appendable out, int ident) throws IOException {
         Erl aux = getRuleBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadRuleBase(Element element) throws XMLException {
-        String ch_name;
-        Element el;
-        
         // create the ruleBase
-        ch_name = NCLElementAttributes.RULEBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
-        if(el != null){
-            Erl inst = createRuleBase();
-            setRuleBase(inst);
-            inst.load(el);
-        }
+        Erl inst = createRuleBase();
+        setRuleBase(inst);
+        inst.load(element);
     }
     
     
-    protected String parseTransitionBase(int ident) {
+    protected void writeTransitionBase(Appendable out, int ident) throws IOException {
         Etb aux = getTransitionBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadTransitionBase(Element element) throws XMLException {
-        String ch_name;
-        Element el;
-        
         // create the transitionBase
-        ch_name = NCLElementAttributes.TRANSITIONBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
-        if(el != null){
-            Etb inst = createTransitionBase();
-            setTransitionBase(inst);
-            inst.load(el);
-        }
+        Etb inst = createTransitionBase();
+        setTransitionBase(inst);
+        inst.load(element);
     }
     
     
-    protected String parseRegionBases(int ident) {
+    protected void writeRegionBases(Appendable out, int ident) throws IOException {
         if(!hasRegionBase())
-            return "";
+            return;
         
-        String content = "";
         for(Erb aux : regionBases)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadRegionBases(Element element) throws XMLException {
         // create the regionBase
-        if(element.getTagName().equals(NCLElementAttributes.REGIONBASE.toString())){
-            Erb inst = createRegionBase();
-            addRegionBase(inst);
-            inst.load(element);
-        }
+        Erb inst = createRegionBase();
+        addRegionBase(inst);
+        inst.load(element);
     }
     
     
-    protected String parseDescriptorBase(int ident) {
+    protected void writeDescriptorBase(Appendable out, int ident) throws IOException {
         Edb aux = getDescriptorBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadDescriptorBase(Element element) throws XMLException {
-        String ch_name;
-        Element el;
-        
         // create the descriptorBase
-        ch_name = NCLElementAttributes.DESCRIPTORBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
-        if(el != null){
-            Edb inst = createDescriptorBase();
-            setDescriptorBase(inst);
-            inst.load(el);
-        }
+        Edb inst = createDescriptorBase();
+        setDescriptorBase(inst);
+        inst.load(element);
     }
     
     
-    protected String parseConnectorBase(int ident) {
+    protected void writeConnectorBase(Appendable out, int ident) throws IOException {
         Ecb aux = getConnectorBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadConnectorBase(Element element) throws XMLException {
-        String ch_name;
-        Element el;
-        
         // create the connectorBase
-        ch_name = NCLElementAttributes.CONNECTORBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
-        if(el != null){
-            Ecb inst = createConnectorBase();
-            setConnectorBase(inst);
-            inst.load(el);
-        }
+        Ecb inst = createConnectorBase();
+        setConnectorBase(inst);
+        inst.load(element);
     }
     
     
-    protected String parseMetas(int ident) {
+    protected void writeMetas(Appendable out, int ident) throws IOException {
         if(!hasMeta())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : metas)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMetas(Element element) throws XMLException {
         // create the meta
-        if(element.getTagName().equals(NCLElementAttributes.META.toString())){
-            Em inst = createMeta();
-            addMeta(inst);
-            inst.load(element);
-        }
+        Em inst = createMeta();
+        addMeta(inst);
+        inst.load(element);
     }
     
     
-    protected String parseMetadatas(int ident) {
+    protected void writeMetadatas(Appendable out, int ident) throws IOException {
         if(!hasMetadata())
-            return "";
+            return;
         
-        String content = "";
         for(Emt aux : metadatas)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMetadatas(Element element) throws XMLException {
         // create the metadata
-        if(element.getTagName().equals(NCLElementAttributes.METADATA.toString())){
-            Emt inst = createMetadata();
-            addMetadata(inst);
-            inst.load(element);
-        }
+        Emt inst = createMetadata();
+        addMetadata(inst);
+        inst.load(element);
     }
 
     
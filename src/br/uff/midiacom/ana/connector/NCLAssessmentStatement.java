@@ -49,6 +49,7 @@ import java.util.Iterator;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -358,26 +359,22 @@ public class NCLAssessmentStatement<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<assessmentStatement";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<assessmentStatement");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
         
-        content += space + "</assessmentStatement>\n";
-
-        return content;
+        out.append(space).append("</assessmentStatement>\n");
     }
 
 
@@ -397,11 +394,21 @@ public class NCLAssessmentStatement<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
 
-                    loadValueAssessment(el);
-                    loadAttributeAssessments(el);
+                switch(ch){
+                    case VALUEASSESSMENT:
+                        loadValueAssessment(el);
+                        break;
+                    case ATTRIBUTEASSESSMENT:
+                        loadAttributeAssessments(el);
+                        break;
                 }
             }
         }
@@ -420,20 +427,16 @@ public class NCLAssessmentStatement<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseAttributeAssessments(ident);
-        content += parseValueAssessment(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeAttributeAssessments(out, ident);
+        writeValueAssessment(out, ident);
     }
     
     
     protected String parseComparator() {
         NCLComparator aux = getComparator();
         if(aux != null)
-            return " comparator='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.COMPARATOR, aux.toString());
         else
             return "";
     }
@@ -451,70 +454,59 @@ public class NCLAssessmentStatement<T extends NCLElement,
     }
     
     
-    protected String parseAttributeAssessments(int ident) {
+    protected void writeAttributeAssessments(Appendable out, int ident) throws IOException {
         if(!hasAttributeAssessment())
-            return "";
+            return;
         
-        String content = "";
         for(Ea aux : attributeAssessments)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadAttributeAssessments(Element element) throws XMLException {
         // create the attribute assessments
-        if(element.getTagName().equals(NCLElementAttributes.ATTRIBUTEASSESSMENT.toString())){
-            Ea inst = createAttributeAssessment();
-            addAttributeAssessment(inst);
-            inst.load(element);
-        }
+        Ea inst = createAttributeAssessment();
+        addAttributeAssessment(inst);
+        inst.load(element);
     }
     
     
-    protected String parseValueAssessment(int ident) {
+    protected void writeValueAssessment(Appendable out, int ident) throws IOException {
         Object aux = getValueAssessment();
         if(aux == null)
-            return "";
+            return;
         
-        String space, content;
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<valueAssessment";
+        out.append(space).append("<valueAssessment");
         if(aux instanceof NCLConnectorParam)
-            content += " value='$" + ((Ep) aux).getName() + "'";
+            out.append(" value='$").append(((Ep) aux).getName()).append("'");
         else
-            content += " value='" + aux.toString() + "'";
-        content += "/>\n";
-
-        return content;
+            out.append(" value='").append(aux.toString()).append("'");
+        out.append("/>\n");
     }
     
     
     protected void loadValueAssessment(Element element) throws XMLException {
         //create the valueAssessment
-        if(element.getTagName().equals(NCLElementAttributes.VALUEASSESSMENT.toString())){
-            String att_name, att_var;
+        String att_name, att_var;
 
-            try{
-                // set the value (required)
-                att_name = NCLElementAttributes.VALUE.toString();
-                if(!(att_var = element.getAttribute(att_name)).isEmpty())
-                    setValueAssessment(att_var);
-                else
-                    throw new NCLParsingException("Could not find " + att_name + " attribute.");
-            }
-            catch(XMLException ex){
-                throw new NCLParsingException("ValueAssessment:\n" + ex.getMessage());
-            }
+        try{
+            // set the value (required)
+            att_name = NCLElementAttributes.VALUE.toString();
+            if(!(att_var = element.getAttribute(att_name)).isEmpty())
+                setValueAssessment(att_var);
+            else
+                throw new NCLParsingException("Could not find " + att_name + " attribute.");
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("ValueAssessment:\n" + ex.getMessage());
         }
     }
     
@@ -45,8 +45,11 @@ import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.util.enums.NCLKey;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -97,7 +100,6 @@ public class NCLAttributeAssessment<T extends NCLElement,
      */
     public NCLAttributeAssessment() {
         super();
-        references = new ArrayList<Eb>();
     }
 
 
@@ -421,22 +423,18 @@ public class NCLAttributeAssessment<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident< 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<attributeAssessment";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<attributeAssessment");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -471,7 +469,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
     protected String parseRole() {
         String aux = getRole();
         if(aux != null)
-            return " role='" + aux + "'";
+            return attribute(NCLElementAttributes.ROLE, aux);
         else
             return "";
     }
@@ -492,7 +490,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
     protected String parseEventType() {
         NCLEventType aux = getEventType();
         if(aux != null)
-            return " eventType='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.EVENTTYPE, aux.toString());
         else
             return "";
     }
@@ -516,9 +514,9 @@ public class NCLAttributeAssessment<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " key='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.KEY, "$" + ((Ep) aux).getName());
         else
-            return " key='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.KEY, aux.toString());
     }
     
     
@@ -535,7 +533,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
     protected String parseAttributeType() {
         NCLAttributeType aux = getAttributeType();
         if(aux != null)
-            return " attributeType='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.ATTRIBUTETYPE, aux.toString());
         else
             return "";
     }
@@ -557,9 +555,9 @@ public class NCLAttributeAssessment<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " offset='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.OFFSET, "$" + ((Ep) aux).getName());
         else
-            return " offset='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.OFFSET, aux.toString());
     }
     
     
@@ -583,20 +581,24 @@ public class NCLAttributeAssessment<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Eb>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -38,6 +38,8 @@
 package br.uff.midiacom.ana.connector;
 
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
@@ -51,6 +53,7 @@ import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -113,14 +116,12 @@ public class NCLCausalConnector<T extends NCLElement,
     public NCLCausalConnector() {
         super();
         conn_params = new ElementList<Ep>();
-        references = new ArrayList<El>();
     }
     
     
     public NCLCausalConnector(String id) throws XMLException {
         super();
         conn_params = new ElementList<Ep>();
-        references = new ArrayList<El>();
         setId(id);
     }
     
@@ -400,40 +401,29 @@ public class NCLCausalConnector<T extends NCLElement,
             result &= el.compare(((NCLCausalConnector) other).getAction());
 
         ElementList<Ep> otherpar = ((NCLCausalConnector) other).getConnectorParams();
-        result &= conn_params.size() == otherpar.size();
-        for (Ep par : conn_params) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= conn_params.compare(otherpar);
 
         return result;
     }
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<causalConnector";
-        content += parseAttributes();
-        content += ">\n";
+        space = indent(ident);
 
-        content += parseElements(ident + 1);
+        out.append(space).append("<causalConnector");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</causalConnector>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</causalConnector>\n");
     }
 
 
@@ -455,21 +445,20 @@ public class NCLCausalConnector<T extends NCLElement,
         }
 
         try{
-            loadConnectorParams(element);
+            ArrayList<Element> postponed = new ArrayList<Element>();
 
-            // create the child nodes
+            // create the child nodes in a single pass, postponing the
+            // conditions and actions, since they refer to the connectorParams
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadSimpleConditions(el);
-                    loadCompoundConditions(el);
-                    loadSimpleActions(el);
-                    loadCompoundActions(el);
-                }
+                if(nd instanceof Element)
+                    loadChild((Element) nd, postponed);
             }
+
+            // create the child nodes (conditions and actions)
+            for(Element el : postponed)
+                loadChild(el, null);
         }
         catch(XMLException ex){
             String aux = getId();
@@ -483,6 +472,55 @@ public class NCLCausalConnector<T extends NCLElement,
     }
     
     
+    /**
+     * Creates the child element given. If a list of postponed elements is given,
+     * the conditions and actions are added to the list instead of being created,
+     * since they refer to the connectorParams.
+     *
+     * @param element
+     *          child element.
+     * @param postponed
+     *          list of postponed elements or <i>null</i>.
+     * @throws XMLException
+     *          if an error occur while creating the child element.
+     */
+    protected void loadChild(Element element, ArrayList<Element> postponed) throws XMLException {
+        NCLElementAttributes ch = NCLElementAttributes.getEnumType(element.getTagName());
+        if(ch == null)
+            return;
+
+        switch(ch){
+            case CONNECTORPARAM:
+                loadConnectorParams(element);
+                break;
+            case SIMPLECONDITION:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadSimpleConditions(element);
+                break;
+            case COMPOUNDCONDITION:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadCompoundConditions(element);
+                break;
+            case SIMPLEACTION:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadSimpleActions(element);
+                break;
+            case COMPOUNDACTION:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadCompoundActions(element);
+                break;
+        }
+    }
+    
+    
     protected String parseAttributes() {
         String content = "";
         
@@ -492,21 +530,17 @@ public class NCLCausalConnector<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseConnectorParams(ident);
-        content += parseCondition(ident);
-        content += parseAction(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeConnectorParams(out, ident);
+        writeCondition(out, ident);
+        writeAction(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -524,89 +558,66 @@ public class NCLCausalConnector<T extends NCLElement,
     }
     
     
-    protected String parseConnectorParams(int ident) {
+    protected void writeConnectorParams(Appendable out, int ident) throws IOException {
         if(!hasConnectorParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : conn_params)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadConnectorParams(Element element) throws XMLException {
-        String ch_name;
-        NodeList nl;
-        
-        // create the connectorParam nodes
-        ch_name = NCLElementAttributes.CONNECTORPARAM.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
-            Ep inst = createConnectorParam();
-            addConnectorParam(inst);
-            inst.load(el);
-        }
+        // create the connectorParam
+        Ep inst = createConnectorParam();
+        addConnectorParam(inst);
+        inst.load(element);
     }
     
     
-    protected String parseCondition(int ident) {
+    protected void writeCondition(Appendable out, int ident) throws IOException {
         Ec aux = getCondition();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadSimpleConditions(Element element) throws XMLException {
         //create the simpleCondition
-        if(element.getTagName().equals(NCLElementAttributes.SIMPLECONDITION.toString())){
-            Ec inst = createSimpleCondition();
-            setCondition(inst);
-            inst.load(element);
-        }
+        Ec inst = createSimpleCondition();
+        setCondition(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompoundConditions(Element element) throws XMLException {
         // create the compoundCondition
-        if(element.getTagName().equals(NCLElementAttributes.COMPOUNDCONDITION.toString())){
-            Ec inst = createCompoundCondition();
-            setCondition(inst);
-            inst.load(element);
-        }
+        Ec inst = createCompoundCondition();
+        setCondition(inst);
+        inst.load(element);
     }
     
     
-    protected String parseAction(int ident) {
+    protected void writeAction(Appendable out, int ident) throws IOException {
         Ea aux = getAction();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadSimpleActions(Element element) throws XMLException {
         //create the simpleAction
-        if(element.getTagName().equals(NCLElementAttributes.SIMPLEACTION.toString())){
-            Ea inst = createSimpleAction();
-            setAction(inst);
-            inst.load(element);
-        }
+        Ea inst = createSimpleAction();
+        setAction(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompoundActions(Element element) throws XMLException {
         // create the compoundAction
-        if(element.getTagName().equals(NCLElementAttributes.COMPOUNDACTION.toString())){
-            Ea inst = createCompoundAction();
-            setAction(inst);
-            inst.load(element);
-        }
+        Ea inst = createCompoundAction();
+        setAction(inst);
+        inst.load(element);
     }
     
     
@@ -706,19 +717,23 @@ public class NCLCausalConnector<T extends NCLElement,
     
     
     @Override
-    public boolean addReference(El reference) throws XMLException {
+    public synchronized boolean addReference(El reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<El>();
         return references.add(reference);
     }
     
     
     @Override
-    public boolean removeReference(El reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(El reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 }
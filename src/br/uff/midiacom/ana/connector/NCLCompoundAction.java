@@ -49,6 +49,7 @@ import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -328,40 +329,29 @@ public class NCLCompoundAction<T extends NCLElement,
         comp &= this_act.equals(other_act);
 
         ElementList<Ea> otherlist = ((NCLCompoundAction) other).getActions();
-        comp &= actions.size() == otherlist.size();
-        for (Ea aux : actions) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= actions.compare(otherlist);
         
         return comp;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<compoundAction";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<compoundAction");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
 
-        content += space + "</compoundAction>\n";
-
-        return content;
+        out.append(space).append("</compoundAction>\n");
     }
 
 
@@ -383,11 +373,21 @@ public class NCLCompoundAction<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadSimpleActions(el);
-                    loadCompoundActions(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case SIMPLEACTION:
+                        loadSimpleActions(el);
+                        break;
+                    case COMPOUNDACTION:
+                        loadCompoundActions(el);
+                        break;
                 }
             }
         }
@@ -407,19 +407,15 @@ public class NCLCompoundAction<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseActions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeActions(out, ident);
     }
     
     
     protected String parseOperator() {
         NCLActionOperator aux = getOperator();
         if(aux != null)
-            return " operator='" + aux + "'";
+            return attribute(NCLElementAttributes.OPERATOR, aux);
         else
             return "";
     }
@@ -443,9 +439,9 @@ public class NCLCompoundAction<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " delay='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.DELAY, "$" + ((Ep) aux).getName());
         else
-            return " delay='" + aux.toString() + "s'";
+            return attribute(NCLElementAttributes.DELAY, aux.toString() + "s");
     }
     
     
@@ -459,35 +455,28 @@ public class NCLCompoundAction<T extends NCLElement,
     }
 
 
-    protected String parseActions(int ident) {
+    protected void writeActions(Appendable out, int ident) throws IOException {
         if(!hasAction())
-            return "";
+            return;
         
-        String content = "";
         for(Ea aux : actions)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadSimpleActions(Element element) throws XMLException {
         //create the simpleAction
-        if(element.getTagName().equals(NCLElementAttributes.SIMPLEACTION.toString())){
-            Ea inst = createSimpleAction();
-            addAction(inst);
-            inst.load(element);
-        }
+        Ea inst = createSimpleAction();
+        addAction(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompoundActions(Element element) throws XMLException {
         // create the compoundAction
-        if(element.getTagName().equals(NCLElementAttributes.COMPOUNDACTION.toString())){
-            Ea inst = createCompoundAction();
-            addAction(inst);
-            inst.load(element);
-        }
+        Ea inst = createCompoundAction();
+        addAction(inst);
+        inst.load(element);
     }
     
     
@@ -49,6 +49,7 @@ import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -425,50 +426,32 @@ public class NCLCompoundCondition<T extends NCLElement,
         comp &= this_cond.equals(other_cond);
 
         ElementList otherlist = ((NCLCompoundCondition) other).getConditions();
-        comp &= conditions.size() == otherlist.size();
-        for (Ec aux : conditions) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= conditions.compare(otherlist);
 
         otherlist = ((NCLCompoundCondition) other).getStatements();
-        comp &= statements.size() == otherlist.size();
-        for (Es aux : statements) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= statements.compare(otherlist);
 
         return comp;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<compoundCondition";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<compoundCondition");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
 
-        content += space + "</compoundCondition>\n";
-
-        return content;
+        out.append(space).append("</compoundCondition>\n");
     }
 
 
@@ -489,13 +472,27 @@ public class NCLCompoundCondition<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadSimpleConditions(el);
-                    loadCompoundConditions(el);
-                    loadAssessmentStatements(el);
-                    loadCompoundStatements(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case SIMPLECONDITION:
+                        loadSimpleConditions(el);
+                        break;
+                    case COMPOUNDCONDITION:
+                        loadCompoundConditions(el);
+                        break;
+                    case ASSESSMENTSTATEMENT:
+                        loadAssessmentStatements(el);
+                        break;
+                    case COMPOUNDSTATEMENT:
+                        loadCompoundStatements(el);
+                        break;
                 }
             }
         }
@@ -515,20 +512,16 @@ public class NCLCompoundCondition<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseConditions(ident);
-        content += parseStatements(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeConditions(out, ident);
+        writeStatements(out, ident);
     }
     
     
     protected String parseOperator() {
         NCLConditionOperator aux = getOperator();
         if(aux != null)
-            return " operator='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.OPERATOR, aux.toString());
         else
             return "";
     }
@@ -552,9 +545,9 @@ public class NCLCompoundCondition<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " delay='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.DELAY, "$" + ((Ep) aux).getName());
         else
-            return " delay='" + aux.toString() + "s'";
+            return attribute(NCLElementAttributes.DELAY, aux.toString() + "s");
     }
     
     
@@ -568,67 +561,53 @@ public class NCLCompoundCondition<T extends NCLElement,
     }
 
 
-    protected String parseConditions(int ident) {
+    protected void writeConditions(Appendable out, int ident) throws IOException {
         if(!hasCondition())
-            return "";
+            return;
         
-        String content = "";
         for(Ec aux : conditions)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadSimpleConditions(Element element) throws XMLException {
         //create the simpleCondition
-        if(element.getTagName().equals(NCLElementAttributes.SIMPLECONDITION.toString())){
-            Ec inst = createSimpleCondition();
-            addCondition(inst);
-            inst.load(element);
-        }
+        Ec inst = createSimpleCondition();
+        addCondition(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompoundConditions(Element element) throws XMLException {
         // create the compoundCondition
-        if(element.getTagName().equals(NCLElementAttributes.COMPOUNDCONDITION.toString())){
-            Ec inst = createCompoundCondition();
-            addCondition(inst);
-            inst.load(element);
-        }
+        Ec inst = createCompoundCondition();
+        addCondition(inst);
+        inst.load(element);
     }
     
     
-    protected String parseStatements(int ident) {
+    protected void writeStatements(Appendable out, int ident) throws IOException {
         if(!hasStatement())
-            return "";
+            return;
         
-        String content = "";
         for(Es aux : statements)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadAssessmentStatements(Element element) throws XMLException {
         //create the assessmentStatement
-        if(element.getTagName().equals(NCLElementAttributes.ASSESSMENTSTATEMENT.toString())){
-            Es inst = createAssessmentStatement();
-            addStatement(inst);
-            inst.load(element);
-        }
+        Es inst = createAssessmentStatement();
+        addStatement(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompoundStatements(Element element) throws XMLException {
         // create the compoundStatement
-        if(element.getTagName().equals(NCLElementAttributes.COMPOUNDSTATEMENT.toString())){
-            Es inst = createCompoundStatement();
-            addStatement(inst);
-            inst.load(element);
-        }
+        Es inst = createCompoundStatement();
+        addStatement(inst);
+        inst.load(element);
     }
     
     
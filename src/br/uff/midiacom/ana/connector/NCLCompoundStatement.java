@@ -47,6 +47,7 @@ import br.uff.midiacom.ana.util.ElementList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -312,40 +313,29 @@ public class NCLCompoundStatement<T extends NCLElement,
         comp &= this_stat.equals(other_stat);
 
         ElementList<Es> otherlist = ((NCLCompoundStatement) other).getStatements();
-        comp &= statements.size() == otherlist.size();
-        for (Es aux : statements) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= statements.compare(otherlist);
 
         return comp;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<compoundStatement";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<compoundStatement");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
 
-        content += space + "</compoundStatement>\n";
-
-        return content;
+        out.append(space).append("</compoundStatement>\n");
     }
 
 
@@ -366,11 +356,21 @@ public class NCLCompoundStatement<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+                if(!(nd instanceof Element))
+                    continue;
 
-                    loadAssessmentStatements(el);
-                    loadCompoundStatements(el);
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case ASSESSMENTSTATEMENT:
+                        loadAssessmentStatements(el);
+                        break;
+                    case COMPOUNDSTATEMENT:
+                        loadCompoundStatements(el);
+                        break;
                 }
             }
         }
@@ -390,19 +390,15 @@ public class NCLCompoundStatement<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseStatements(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeStatements(out, ident);
     }
     
     
     protected String parseOperator() {
         NCLOperator aux = getOperator();
         if(aux != null)
-            return " operator='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.OPERATOR, aux.toString());
         else
             return "";
     }
@@ -423,7 +419,7 @@ public class NCLCompoundStatement<T extends NCLElement,
     protected String parseIsNegated() {
         Boolean aux = getIsNegated();
         if(aux != null)
-            return " isNegated='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.ISNEGATED, aux.toString());
         else
             return "";
     }
@@ -439,35 +435,28 @@ public class NCLCompoundStatement<T extends NCLElement,
     }
     
     
-    protected String parseStatements(int ident) {
+    protected void writeStatements(Appendable out, int ident) throws IOException {
         if(!hasStatement())
-            return "";
+            return;
         
-        String content = "";
         for(Es aux : statements)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadAssessmentStatements(Element element) throws XMLException {
         //create the assessmentStatement
-        if(element.getTagName().equals(NCLElementAttributes.ASSESSMENTSTATEMENT.toString())){
-            Es inst = createAssessmentStatement();
-            addStatement(inst);
-            inst.load(element);
-        }
+        Es inst = createAssessmentStatement();
+        addStatement(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompoundStatements(Element element) throws XMLException {
         // create the compoundStatement
-        if(element.getTagName().equals(NCLElementAttributes.COMPOUNDSTATEMENT.toString())){
-            Es inst = createCompoundStatement();
-            addStatement(inst);
-            inst.load(element);
-        }
+        Es inst = createCompoundStatement();
+        addStatement(inst);
+        inst.load(element);
     }
     
     
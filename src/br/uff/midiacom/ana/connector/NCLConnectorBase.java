@@ -50,6 +50,7 @@ import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -257,47 +258,40 @@ public class NCLConnectorBase<T extends NCLElement,
         boolean result = true;
         ElementList<Ec> othercon = ((NCLConnectorBase) other).getCausalConnectors();
         
+        String id = getId();
+        if(id != null)
+            result &= id.equals(((NCLConnectorBase) other).getId());
+        
         result &= super.compareImports((NCLBase) other);
         
-        result &= connectors.size() == othercon.size();
-        for (Ec con : connectors) {
-            try {
-                result &= othercon.contains(con);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= connectors.compare(othercon);
         
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<connectorBase";
-        content += parseAttributes();
+        out.append(space).append("<connectorBase");
+        out.append(parseAttributes());
 
         if(hasImportBase() || hasCausalConnector()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</connectorBase>\n";
+            out.append(space).append("</connectorBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -317,10 +311,21 @@ public class NCLConnectorBase<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element) {
-                    Element el = (Element) nl.item(i);
-                    loadImportBases(el);
-                    loadCausalConnectors(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case IMPORTBASE:
+                        loadImportBases(el);
+                        break;
+                    case CAUSALCONNECTOR:
+                        loadCausalConnectors(el);
+                        break;
                 }
             }
         }
@@ -339,20 +344,16 @@ public class NCLConnectorBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseCausalConnectors(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeCausalConnectors(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -368,25 +369,20 @@ public class NCLConnectorBase<T extends NCLElement,
     }
     
     
-    protected String parseCausalConnectors(int ident) {
+    protected void writeCausalConnectors(Appendable out, int ident) throws IOException {
         if(!hasCausalConnector())
-            return "";
+            return;
         
-        String content = "";
         for(Ec aux : connectors)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadCausalConnectors(Element element) throws XMLException {
         //create the connectors
-        if(element.getTagName().equals(NCLElementAttributes.CAUSALCONNECTOR.toString())){
-            Ec inst = createCausalConnector();
-            addCausalConnector(inst);
-            inst.load(element);
-        }
+        Ec inst = createCausalConnector();
+        addCausalConnector(inst);
+        inst.load(element);
     }
     
     
@@ -38,6 +38,8 @@
 package br.uff.midiacom.ana.connector;
 
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
@@ -45,6 +47,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -81,13 +84,11 @@ public class NCLConnectorParam<T extends NCLElement,
      */
     public NCLConnectorParam() {
         super();
-        references = new ArrayList<Ep>();
     }
     
     
     public NCLConnectorParam(String name) throws XMLException {
         super();
-        references = new ArrayList<Ep>();
         setName(name);
     }
     
@@ -111,7 +112,7 @@ public class NCLConnectorParam<T extends NCLElement,
             throw new XMLException("Null name.");
         
         String aux = this.getName();
-        this.name = name;
+        this.name = intern(name);
         notifyAltered(NCLElementAttributes.NAME, aux, name);
     }
     
@@ -134,6 +135,19 @@ public class NCLConnectorParam<T extends NCLElement,
     }
     
     
+    /**
+     * Returns the parameter as it is referenced inside the connector
+     * attributes, that is, its name preceded by the character '$'.
+     * 
+     * @return
+     *          string representing the reference to the parameter.
+     */
+    @Override
+    public String toString() {
+        return "$" + getName();
+    }
+    
+    
     /**
      * Sets the type of the parameter. This attribute is optional. Set the type
      * to <i>null</i> to erase a type already defined.
@@ -181,22 +195,18 @@ public class NCLConnectorParam<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<connectorParam";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<connectorParam");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -231,7 +241,7 @@ public class NCLConnectorParam<T extends NCLElement,
     protected String parseName() {
         String aux = getName();
         if(aux != null)
-            return " name='" + aux + "'";
+            return attribute(NCLElementAttributes.NAME, aux);
         else
             return "";
     }
@@ -252,7 +262,7 @@ public class NCLConnectorParam<T extends NCLElement,
     protected String parseType() {
         String aux = getType();
         if(aux != null)
-            return " type='" + aux + "'";
+            return attribute(NCLElementAttributes.TYPE, aux);
         else
             return "";
     }
@@ -270,20 +280,24 @@ public class NCLConnectorParam<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Ep reference) throws XMLException {
+    public synchronized boolean addReference(Ep reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Ep>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Ep reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Ep reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
@@ -46,8 +46,12 @@ import br.uff.midiacom.ana.util.enums.NCLEventAction;
 import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLAttributeStore;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -90,18 +94,7 @@ public class NCLSimpleAction<T extends NCLElement,
         extends ParamElement<T>
         implements NCLAction<T, Ep, Er>, NCLRoleElement<Eb> {
 
-    protected Object value;
-    protected Integer min;
-    protected Object max;
-    protected NCLActionOperator qualifier;
-    protected NCLEventType eventType;
-    protected NCLEventAction actionType;
-    protected Object repeat;
-    protected Object repeatDelay;
-    protected Object duration;
-    protected Object by;
-    protected Object role;
-    protected Object delay;
+    protected Object[] attributes;
     
     protected ArrayList<Eb> references;
 
@@ -114,7 +107,6 @@ public class NCLSimpleAction<T extends NCLElement,
      */
     public NCLSimpleAction() {
         super();
-        references = new ArrayList<Eb>();
     }
 
 
@@ -141,26 +133,25 @@ public class NCLSimpleAction<T extends NCLElement,
         if(role == null)
             throw new XMLException("Null role.");
         
-        Object aux = this.role;
+        Object aux = getRole();
         
         if(role instanceof String){
             String name = (String) role;
             if("".equals(name.trim()))
                 throw new XMLException("Empty role String");
             
-            for(NCLDefaultActionRole drole : NCLDefaultActionRole.values()){
-                if(name.equals(drole.toString())){
-                    this.role = drole;
-                    notifyAltered(NCLElementAttributes.ROLE, aux, drole);
-                    return;
-                }
+            NCLDefaultActionRole drole = NCLDefaultActionRole.getEnumType(name);
+            if(drole != null){
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.ROLE, drole);
+                notifyAltered(NCLElementAttributes.ROLE, aux, drole);
+                return;
             }
             
-            this.role = role;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.ROLE, role);
             notifyAltered(NCLElementAttributes.ROLE, aux, role);
         }
         else if(role instanceof NCLDefaultActionRole){
-            this.role = role;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.ROLE, role);
             notifyAltered(NCLElementAttributes.ROLE, aux, role);
         }
         else{
@@ -189,7 +180,7 @@ public class NCLSimpleAction<T extends NCLElement,
      */
     @Override
     public Object getRole() {
-        return role;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.ROLE);
     }
 
 
@@ -214,10 +205,10 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the value is of the wrong type.
      */
     public void setValue(Object value) throws XMLException {
-        Object aux = this.value;
+        Object aux = getValue();
         
         if(value == null){
-            this.value = value;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.VALUE, value);
             notifyAltered(NCLElementAttributes.VALUE, aux, value);
             
             if(aux != null && aux instanceof NCLConnectorParam)
@@ -231,15 +222,15 @@ public class NCLSimpleAction<T extends NCLElement,
                 throw new XMLException("Empty value String");
             
             if(!v.contains("$"))
-                this.value = v;
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.VALUE, v);
             else{
-                this.value = findConnectorParam(v.substring(1));
-                ((Ep) this.value).addReference(this);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.VALUE, findConnectorParam(v.substring(1)));
+                ((Ep) getValue()).addReference(this);
             }
         }
         else if(value instanceof NCLConnectorParam){
-            this.value = value;
-            ((Ep) this.value).addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.VALUE, value);
+            ((Ep) getValue()).addReference(this);
         }
         else
             throw new XMLException("Wrong value type.");
@@ -270,7 +261,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          attribution or <i>null</i> if the attribute is not defined.
      */
     public Object getValue() {
-        return value;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.VALUE);
     }
     
     
@@ -293,8 +284,8 @@ public class NCLSimpleAction<T extends NCLElement,
         if(min != null && min < 0)
             throw new XMLException("Invalid min");
 
-        Integer aux = this.min;
-        this.min = min;
+        Integer aux = getMin();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MIN, min);
         notifyAltered(NCLElementAttributes.MIN, aux, min);
     }
 
@@ -312,7 +303,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          <i>null</i> if the attribute is not defined.
      */
     public Integer getMin() {
-        return min;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.MIN);
     }
 
 
@@ -330,10 +321,10 @@ public class NCLSimpleAction<T extends NCLElement,
      *          "unbounded" or <i>null</i> to erase a maximum already defined.
      */
     public void setMax(Object max) throws XMLException {
-        Object aux = this.max;
+        Object aux = getMax();
         
         if(max == null){
-            this.max = max;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MAX, max);
             notifyAltered(NCLElementAttributes.MAX, aux, max);
             return;
         }
@@ -343,7 +334,7 @@ public class NCLSimpleAction<T extends NCLElement,
             if(((Integer) max) < 0)
                 throw new XMLException("Negative value");
 
-            this.max = max;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MAX, max);
         }
         // test if is an string
         else if(max instanceof String){
@@ -352,9 +343,9 @@ public class NCLSimpleAction<T extends NCLElement,
                 throw new XMLException("Empty value String");
 
             if(!value.equals("unbounded"))
-                this.max = new Integer(value);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MAX, new Integer(value));
             else
-                this.max = max;
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MAX, max);
         }
         // type not valid
         else
@@ -378,7 +369,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          "unbounded" or <i>null</i> if the attribute is not defined.
      */
     public Object getMax() {
-        return max;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.MAX);
     }
 
 
@@ -409,8 +400,8 @@ public class NCLSimpleAction<T extends NCLElement,
      *          a qualifier already defined.
      */
     public void setQualifier(NCLActionOperator qualifier) throws XMLException {
-        NCLActionOperator aux = this.qualifier;
-        this.qualifier = qualifier;
+        NCLActionOperator aux = getQualifier();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.QUALIFIER, qualifier);
         notifyAltered(NCLElementAttributes.QUALIFIER, aux, qualifier);
     }
 
@@ -441,7 +432,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          attribute is not defined.
      */
     public NCLActionOperator getQualifier() {
-        return qualifier;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.QUALIFIER);
     }
 
 
@@ -457,8 +448,8 @@ public class NCLSimpleAction<T extends NCLElement,
      *          already defined.
      */
     public void setEventType(NCLEventType eventType) throws XMLException {
-        NCLEventType aux = this.eventType;
-        this.eventType = eventType;
+        NCLEventType aux = getEventType();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.EVENTTYPE, eventType);
         notifyAltered(NCLElementAttributes.EVENTTYPE, aux, eventType);
     }
 
@@ -474,7 +465,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          defined.
      */
     public NCLEventType getEventType() {
-        return eventType;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.EVENTTYPE);
     }
 
 
@@ -495,8 +486,8 @@ public class NCLSimpleAction<T extends NCLElement,
      *          already defined.
      */
     public void setActionType(NCLEventAction actionType) throws XMLException {
-        NCLEventAction aux = this.actionType;
-        this.actionType = actionType;
+        NCLEventAction aux = getActionType();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.ACTIONTYPE, actionType);
         notifyAltered(NCLElementAttributes.ACTIONTYPE, aux, actionType);
     }
 
@@ -517,7 +508,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          defined.
      */
     public NCLEventAction getActionType() {
-        return actionType;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.ACTIONTYPE);
     }
 
 
@@ -543,10 +534,10 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the repeat value is of a wrong type.
      */
     public void setRepeat(Object repeat) throws XMLException {
-        Object aux = this.repeat;
+        Object aux = getRepeat();
         
         if(repeat == null){
-            this.repeat = repeat;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEAT, repeat);
             notifyAltered(NCLElementAttributes.REPEAT, aux, repeat);
             
             if(aux != null && aux instanceof NCLConnectorParam)
@@ -560,17 +551,17 @@ public class NCLSimpleAction<T extends NCLElement,
                 throw new XMLException("Empty key String");
             
             if(!value.contains("$"))
-                this.repeat = new Integer(value);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEAT, new Integer(value));
             else{
-                this.repeat = findConnectorParam(value.substring(1));
-                ((Ep) this.repeat).addReference(this);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEAT, findConnectorParam(value.substring(1)));
+                ((Ep) getRepeat()).addReference(this);
             }
         }
         else if(repeat instanceof Integer)
-            this.repeat = repeat;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEAT, repeat);
         else if(repeat instanceof NCLConnectorParam){
-            this.repeat = repeat;
-            ((Ep) this.repeat).addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEAT, repeat);
+            ((Ep) getRepeat()).addReference(this);
         }
         else
             throw new XMLException("Wrong repeat type.");
@@ -602,7 +593,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          not defined.
      */
     public Object getRepeat() {
-        return repeat;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.REPEAT);
     }
 
 
@@ -628,10 +619,10 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the delay type is wrong.
      */
     public void setRepeatDelay(Object repeatDelay) throws XMLException {
-        Object aux = this.repeatDelay;
+        Object aux = getRepeatDelay();
         
         if(repeatDelay == null){
-            this.repeatDelay = repeatDelay;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEATDELAY, repeatDelay);
             notifyAltered(NCLElementAttributes.REPEATDELAY, aux, repeatDelay);
             
             if(aux != null && aux instanceof NCLConnectorParam)
@@ -645,17 +636,17 @@ public class NCLSimpleAction<T extends NCLElement,
                 throw new XMLException("Empty delay String");
             
             if(!value.contains("$"))
-                this.repeatDelay = new Double(value);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEATDELAY, new Double(value));
             else{
-                this.repeatDelay = findConnectorParam(value.substring(1));
-                ((Ep) this.repeatDelay).addReference(this);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEATDELAY, findConnectorParam(value.substring(1)));
+                ((Ep) getRepeatDelay()).addReference(this);
             }
         }
         else if(repeatDelay instanceof Double)
-            this.repeatDelay = repeatDelay;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEATDELAY, repeatDelay);
         else if(repeatDelay instanceof NCLConnectorParam){
-            this.repeatDelay = repeatDelay;
-            ((Ep) this.repeatDelay).addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REPEATDELAY, repeatDelay);
+            ((Ep) getRepeatDelay()).addReference(this);
         }
         else
             throw new XMLException("Wrong delay type.");
@@ -687,7 +678,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          is not defined.
      */
     public Object getRepeatDelay() {
-        return repeatDelay;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.REPEATDELAY);
     }
 
 
@@ -712,10 +703,10 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the duration type is wrong.
      */
     public void setDuration(Object duration) throws XMLException {
-        Object aux = this.duration;
+        Object aux = getDuration();
         
         if(duration == null){
-            this.duration = duration;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DURATION, duration);
             notifyAltered(NCLElementAttributes.DURATION, aux, duration);
             
             if(aux != null && aux instanceof NCLConnectorParam)
@@ -732,18 +723,18 @@ public class NCLSimpleAction<T extends NCLElement,
                 // Take out the s for the seconds
                 if(value.endsWith("s"))
                     value = value.substring(0, value.length() - 1);
-                this.duration = new Double(value);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DURATION, new Double(value));
             }
             else{
-                this.duration = findConnectorParam(value.substring(1));
-                ((Ep) this.duration).addReference(this);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DURATION, findConnectorParam(value.substring(1)));
+                ((Ep) getDuration()).addReference(this);
             }
         }
         else if(duration instanceof Double)
-            this.duration = duration;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DURATION, duration);
         else if(duration instanceof NCLConnectorParam){
-            this.duration = duration;
-            ((Ep) this.duration).addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DURATION, duration);
+            ((Ep) getDuration()).addReference(this);
         }
         else
             throw new XMLException("Wrong delay type.");
@@ -774,7 +765,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          of an attribution or <i>null</i> if the attribute is not defined.
      */
     public Object getDuration() {
-        return duration;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.DURATION);
     }
 
 
@@ -801,10 +792,10 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the increment type is wrong.
      */
     public void setBy(Object by) throws XMLException {
-        Object aux = this.by;
+        Object aux = getBy();
         
         if(by == null){
-            this.by = by;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BY, by);
             notifyAltered(NCLElementAttributes.BY, aux, by);
             
             if(aux != null && aux instanceof NCLConnectorParam)
@@ -819,20 +810,20 @@ public class NCLSimpleAction<T extends NCLElement,
             
             if(!value.contains("$")){
                 if(!value.equals("indefinite"))
-                    this.by = new Integer(value);
+                    attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BY, new Integer(value));
                 else
-                    this.by = by;
+                    attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BY, by);
             }
             else{
-                this.by = findConnectorParam(value.substring(1));
-                ((Ep) this.by).addReference(this);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BY, findConnectorParam(value.substring(1)));
+                ((Ep) getBy()).addReference(this);
             }
         }
         else if(by instanceof Integer)
-            this.by = by;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BY, by);
         else if(by instanceof NCLConnectorParam){
-            this.by = by;
-            ((Ep) this.by).addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BY, by);
+            ((Ep) getBy()).addReference(this);
         }
         else
             throw new XMLException("Wrong delay type.");
@@ -863,16 +854,16 @@ public class NCLSimpleAction<T extends NCLElement,
      *          of an attribution or <i>null</i> if the attribute is not defined.
      */
     public Object getBy() {
-        return by;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.BY);
     }
 
 
     @Override
     public void setDelay(Object delay) throws XMLException {
-        Object aux = this.delay;
+        Object aux = getDelay();
         
         if(delay == null){
-            this.delay = delay;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DELAY, delay);
             notifyAltered(NCLElementAttributes.DELAY, aux, delay);
             
             if(aux != null && aux instanceof NCLConnectorParam)
@@ -888,18 +879,18 @@ public class NCLSimpleAction<T extends NCLElement,
             if(!value.contains("$")){
                 if(value.contains("s"))
                     value = value.substring(0, value.length() - 1);
-                this.delay = new Double(value);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DELAY, new Double(value));
             }
             else{
-                this.delay = findConnectorParam(value.substring(1));
-                ((Ep) this.delay).addReference(this);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DELAY, findConnectorParam(value.substring(1)));
+                ((Ep) getDelay()).addReference(this);
             }
         }
         else if(delay instanceof Double)
-            this.delay = delay;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DELAY, delay);
         else if(delay instanceof NCLConnectorParam){
-            this.delay = delay;
-            ((Ep) this.delay).addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DELAY, delay);
+            ((Ep) getDelay()).addReference(this);
         }
         else
             throw new XMLException("Wrong delay type.");
@@ -913,7 +904,7 @@ public class NCLSimpleAction<T extends NCLElement,
 
     @Override
     public Object getDelay() {
-        return delay;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.DELAY);
     }
 
 
@@ -999,22 +990,18 @@ public class NCLSimpleAction<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<simpleAction";
-        content += parseAttributes();
-        content += "/>\n";
+        space = indent(ident);
 
-        return content;
+        out.append(space).append("<simpleAction");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -1063,7 +1050,7 @@ public class NCLSimpleAction<T extends NCLElement,
     protected String parseRole() {
         Object aux = getRole();
         if(aux != null)
-            return " role='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.ROLE, aux.toString());
         else
             return "";
     }
@@ -1087,9 +1074,9 @@ public class NCLSimpleAction<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " value='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.VALUE, "$" + ((Ep) aux).getName());
         else
-            return " value='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.VALUE, aux.toString());
     }
     
     
@@ -1109,9 +1096,9 @@ public class NCLSimpleAction<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " delay='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.DELAY, "$" + ((Ep) aux).getName());
         else
-            return " delay='" + aux.toString() + "s'";
+            return attribute(NCLElementAttributes.DELAY, aux.toString() + "s");
     }
     
     
@@ -1128,7 +1115,7 @@ public class NCLSimpleAction<T extends NCLElement,
     protected String parseMin() {
         Integer aux = getMin();
         if(aux != null)
-            return " min='" + aux + "'";
+            return attribute(NCLElementAttributes.MIN, aux);
         else
             return "";
     }
@@ -1152,7 +1139,7 @@ public class NCLSimpleAction<T extends NCLElement,
     protected String parseMax() {
         Object aux = getMax();
         if(aux != null)
-            return " max='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.MAX, aux.toString());
         else
             return "";
     }
@@ -1171,7 +1158,7 @@ public class NCLSimpleAction<T extends NCLElement,
     protected String parseQualifier() {
         NCLActionOperator aux = getQualifier();
         if(aux != null)
-            return " qualifier='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.QUALIFIER, aux.toString());
         else
             return "";
     }
@@ -1190,7 +1177,7 @@ public class NCLSimpleAction<T extends NCLElement,
     protected String parseEventType() {
         NCLEventType aux = getEventType();
         if(aux != null)
-            return " eventType='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.EVENTTYPE, aux.toString());
         else
             return "";
     }
@@ -1209,7 +1196,7 @@ public class NCLSimpleAction<T extends NCLElement,
     protected String parseActionType() {
         NCLEventAction aux = getActionType();
         if(aux != null)
-            return " actionType='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.ACTIONTYPE, aux.toString());
         else
             return "";
     }
@@ -1231,9 +1218,9 @@ public class NCLSimpleAction<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " repeat='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.REPEAT, "$" + ((Ep) aux).getName());
         else
-            return " repeat='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.REPEAT, aux.toString());
     }
     
     
@@ -1253,9 +1240,9 @@ public class NCLSimpleAction<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " repeatDelay='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.REPEATDELAY, "$" + ((Ep) aux).getName());
         else
-            return " repeatDelay='" + aux.toString() + "s'";
+            return attribute(NCLElementAttributes.REPEATDELAY, aux.toString() + "s");
     }
     
     
@@ -1275,9 +1262,9 @@ public class NCLSimpleAction<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " duration='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.DURATION, "$" + ((Ep) aux).getName());
         else
-            return " duration='" + aux.toString() + "s'";
+            return attribute(NCLElementAttributes.DURATION, aux.toString() + "s");
     }
     
     
@@ -1297,9 +1284,9 @@ public class NCLSimpleAction<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " by='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.BY, "$" + ((Ep) aux).getName());
         else
-            return " by='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.BY, aux.toString());
     }
     
     
@@ -1315,7 +1302,7 @@ public class NCLSimpleAction<T extends NCLElement,
     
     @Override
     public Er findRole(String name) {
-        if(role.toString().equals(name))
+        if(getRole().toString().equals(name))
             return (Er) this;
         else
             return null;
@@ -1324,20 +1311,24 @@ public class NCLSimpleAction<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Eb>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -1346,35 +1337,24 @@ public class NCLSimpleAction<T extends NCLElement,
     public void clean() throws XMLException {
         setParent(null);
         
-        if(value != null && value instanceof NCLConnectorParam)
-            ((Ep)value).removeReference(this);
+        if(getValue() != null && getValue() instanceof NCLConnectorParam)
+            ((Ep)getValue()).removeReference(this);
         
-        if(repeat != null && repeat instanceof NCLConnectorParam)
-            ((Ep)repeat).removeReference(this);
+        if(getRepeat() != null && getRepeat() instanceof NCLConnectorParam)
+            ((Ep)getRepeat()).removeReference(this);
         
-        if(repeatDelay != null && repeatDelay instanceof NCLConnectorParam)
-            ((Ep)repeatDelay).removeReference(this);
+        if(getRepeatDelay() != null && getRepeatDelay() instanceof NCLConnectorParam)
+            ((Ep)getRepeatDelay()).removeReference(this);
         
-        if(duration != null && duration instanceof NCLConnectorParam)
-            ((Ep)duration).removeReference(this);
+        if(getDuration() != null && getDuration() instanceof NCLConnectorParam)
+            ((Ep)getDuration()).removeReference(this);
         
-        if(by != null && by instanceof NCLConnectorParam)
-            ((Ep)by).removeReference(this);
+        if(getBy() != null && getBy() instanceof NCLConnectorParam)
+            ((Ep)getBy()).removeReference(this);
         
-        if(delay != null && delay instanceof NCLConnectorParam)
-            ((Ep)delay).removeReference(this);
+        if(getDelay() != null && getDelay() instanceof NCLConnectorParam)
+            ((Ep)getDelay()).removeReference(this);
         
-        value = null;
-        min = null;
-        max = null;
-        qualifier = null;
-        eventType = null;
-        actionType = null;
-        repeat = null;
-        repeatDelay = null;
-        duration = null;
-        by = null;
-        role = null;
-        delay = null;
+        attributes = null;
     }
 }
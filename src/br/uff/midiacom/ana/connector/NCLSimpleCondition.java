@@ -47,8 +47,11 @@ import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.util.enums.NCLKey;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -104,7 +107,6 @@ public class NCLSimpleCondition<T extends NCLElement,
      */
     public NCLSimpleCondition() {
         super();
-        references = new ArrayList<Eb>();
     }
 
 
@@ -138,12 +140,11 @@ public class NCLSimpleCondition<T extends NCLElement,
             if("".equals(name.trim()))
                 throw new XMLException("Empty role String");
             
-            for(NCLDefaultConditionRole drole : NCLDefaultConditionRole.values()){
-                if(name.equals(drole.toString())){
-                    this.role = drole;
-                    notifyAltered(NCLElementAttributes.ROLE, aux, drole);
-                    return;
-                }
+            NCLDefaultConditionRole drole = NCLDefaultConditionRole.getEnumType(name);
+            if(drole != null){
+                this.role = drole;
+                notifyAltered(NCLElementAttributes.ROLE, aux, drole);
+                return;
             }
             
             this.role = role;
@@ -622,22 +623,18 @@ public class NCLSimpleCondition<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for (int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<simpleCondition";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<simpleCondition");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -678,7 +675,7 @@ public class NCLSimpleCondition<T extends NCLElement,
     protected String parseRole() {
         Object aux = getRole();
         if(aux != null)
-            return " role='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.ROLE, aux.toString());
         else
             return "";
     }
@@ -702,9 +699,9 @@ public class NCLSimpleCondition<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " key='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.KEY, "$" + ((Ep) aux).getName());
         else
-            return " key='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.KEY, aux.toString());
     }
     
     
@@ -724,9 +721,9 @@ public class NCLSimpleCondition<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLConnectorParam)
-            return " delay='$" + ((Ep) aux).getName() + "'";
+            return attribute(NCLElementAttributes.DELAY, "$" + ((Ep) aux).getName());
         else
-            return " delay='" + aux.toString() + "s'";
+            return attribute(NCLElementAttributes.DELAY, aux.toString() + "s");
     }
     
     
@@ -743,7 +740,7 @@ public class NCLSimpleCondition<T extends NCLElement,
     protected String parseMin() {
         Integer aux = getMin();
         if(aux != null)
-            return " min='" + aux + "'";
+            return attribute(NCLElementAttributes.MIN, aux);
         else
             return "";
     }
@@ -767,7 +764,7 @@ public class NCLSimpleCondition<T extends NCLElement,
     protected String parseMax() {
         Object aux = getMax();
         if(aux != null)
-            return " max='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.MAX, aux.toString());
         else
             return "";
     }
@@ -786,7 +783,7 @@ public class NCLSimpleCondition<T extends NCLElement,
     protected String parseQualifier() {
         NCLConditionOperator aux = getQualifier();
         if(aux != null)
-            return " qualifier='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.QUALIFIER, aux.toString());
         else
             return "";
     }
@@ -805,7 +802,7 @@ public class NCLSimpleCondition<T extends NCLElement,
     protected String parseEventType() {
         NCLEventType aux = getEventType();
         if(aux != null)
-            return " eventType='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.EVENTTYPE, aux.toString());
         else
             return "";
     }
@@ -824,7 +821,7 @@ public class NCLSimpleCondition<T extends NCLElement,
     protected String parseTransition() {
         NCLEventTransition aux = getTransition();
         if(aux != null)
-            return " transition='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.TRANSITION, aux.toString());
         else
             return "";
     }
@@ -851,20 +848,24 @@ public class NCLSimpleCondition<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Eb>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -42,19 +42,24 @@ import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.SrcType;
 import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.enums.NCLColor;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.region.NCLRegion;
 import br.uff.midiacom.ana.transition.NCLTransition;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLAttributeStore;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.PercentageType;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -130,27 +135,14 @@ public class NCLDescriptor<T extends NCLElement,
         extends NCLIdentifiableElementPrototype<T>
         implements NCLLayoutDescriptor<T, El>, PostReferenceElement {
 
-    protected String player;
-    protected TimeType explicitDur;
-    protected Boolean freeze;
-    protected Ed moveLeft;
-    protected Ed moveRight;
-    protected Ed moveUp;
-    protected Ed moveDown;
-    protected Integer focusIndex;
-    protected NCLColor focusBorderColor;
-    protected Integer focusBorderWidth;
-    protected PercentageType focusBorderTransparency;
-    protected SrcType focusSrc;
-    protected SrcType focusSelSrc;
-    protected NCLColor selBorderColor;
-    protected Object transIn;
-    protected Object transOut;
-    protected Object region;
+    protected Object[] attributes;
     protected ElementList<Ep> params;
     
     protected ArrayList<T> references;
-    protected boolean waiting;
+    private Integer left_index;
+    private Integer right_index;
+    private Integer up_index;
+    private Integer down_index;
 
 
     /**
@@ -162,16 +154,12 @@ public class NCLDescriptor<T extends NCLElement,
     public NCLDescriptor() {
         super();
         params = new ElementList<Ep>();
-        references = new ArrayList<T>();
-        waiting = false;
     }
     
     
     public NCLDescriptor(String id) throws XMLException {
         super();
         params = new ElementList<Ep>();
-        references = new ArrayList<T>();
-        waiting = false;
         setId(id);
     }
     
@@ -207,8 +195,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          if the string is empty.
      */
     public void setPlayer(String player) throws XMLException {
-        String aux = this.player;
-        this.player = player;
+        String aux = getPlayer();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.PLAYER, player);
         notifyAltered(NCLElementAttributes.PLAYER, aux, player);
     }
 
@@ -223,7 +211,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          to be used or <i>null</i> if the attribute is not defined.
      */
     public String getPlayer() {
-        return player;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.PLAYER);
     }
 
 
@@ -241,8 +229,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> to erase a duration already defined.
      */
     public void setExplicitDur(TimeType explicitDur) throws XMLException {
-        TimeType aux = this.explicitDur;
-        this.explicitDur = explicitDur;
+        TimeType aux = getExplicitDur();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.EXPLICITDUR, explicitDur);
         notifyAltered(NCLElementAttributes.EXPLICITDUR, aux, explicitDur);
     }
 
@@ -261,7 +249,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> if the attribute is not defined.
      */
     public TimeType getExplicitDur() {
-        return explicitDur;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.EXPLICITDUR);
     }
 
 
@@ -282,8 +270,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          defined.
      */
     public void setFreeze(Boolean freeze) throws XMLException {
-        Boolean aux = this.freeze;
-        this.freeze = freeze;
+        Boolean aux = getFreeze();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FREEZE, freeze);
         notifyAltered(NCLElementAttributes.FREEZE, aux, freeze);
     }
 
@@ -304,7 +292,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          defined.
      */
     public Boolean getFreeze() {
-        return freeze;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FREEZE);
     }
 
     
@@ -325,11 +313,11 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveLeft(Ed descriptor) throws XMLException {
-        Ed aux = this.moveLeft;
+        Ed aux = getMoveLeft();
         
-        this.moveLeft = descriptor;
-        if(this.moveLeft != null)
-            this.moveLeft.addReference(this);
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MOVELEFT, descriptor);
+        if(getMoveLeft() != null)
+            getMoveLeft().addReference(this);
         
         notifyAltered(NCLElementAttributes.MOVELEFT, aux, descriptor);
         if(aux != null)
@@ -351,7 +339,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          receive focus or <i>null</i> if the attribute is not defined.
      */
     public Ed getMoveLeft() {
-        return moveLeft;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.MOVELEFT);
     }
 
 
@@ -372,11 +360,11 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveRight(Ed descriptor) throws XMLException {
-        Ed aux = this.moveRight;
+        Ed aux = getMoveRight();
         
-        this.moveRight = descriptor;
-        if(this.moveRight != null)
-            this.moveRight.addReference(this);
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MOVERIGHT, descriptor);
+        if(getMoveRight() != null)
+            getMoveRight().addReference(this);
         
         notifyAltered(NCLElementAttributes.MOVERIGHT, aux, descriptor);
         if(aux != null)
@@ -398,7 +386,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          receive focus or <i>null</i> if the attribute is not defined.
      */
     public Ed getMoveRight() {
-        return moveRight;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.MOVERIGHT);
     }
 
 
@@ -419,11 +407,11 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveUp(Ed descriptor) throws XMLException {
-        Ed aux = this.moveUp;
+        Ed aux = getMoveUp();
         
-        this.moveUp = descriptor;
-        if(this.moveUp != null)
-            this.moveUp.addReference(this);
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MOVEUP, descriptor);
+        if(getMoveUp() != null)
+            getMoveUp().addReference(this);
         
         notifyAltered(NCLElementAttributes.MOVEUP, aux, descriptor);
         if(aux != null)
@@ -445,7 +433,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          receive focus or <i>null</i> if the attribute is not defined.
      */
     public Ed getMoveUp() {
-        return moveUp;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.MOVEUP);
     }
 
 
@@ -466,11 +454,11 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveDown(Ed descriptor) throws XMLException {
-        Ed aux = this.moveDown;
+        Ed aux = getMoveDown();
         
-        this.moveDown = descriptor;
-        if(this.moveDown != null)
-            this.moveDown.addReference(this);
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.MOVEDOWN, descriptor);
+        if(getMoveDown() != null)
+            getMoveDown().addReference(this);
         
         notifyAltered(NCLElementAttributes.MOVEDOWN, aux, descriptor);
         if(aux != null)
@@ -492,7 +480,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          receive focus or <i>null</i> if the attribute is not defined.
      */
     public Ed getMoveDown() {
-        return moveDown;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.MOVEDOWN);
     }  
     
     
@@ -511,10 +499,10 @@ public class NCLDescriptor<T extends NCLElement,
      *          
      */
     public void setFocusIndex(Object focusIndex) throws XMLException {
-        Object aux = this.focusIndex;
+        Object aux = getFocusIndex();
         
         if(focusIndex == null){
-            this.focusIndex = null;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSINDEX, null);
             notifyAltered(NCLElementAttributes.FOCUSINDEX, aux, focusIndex);
             return;
         }
@@ -526,16 +514,16 @@ public class NCLDescriptor<T extends NCLElement,
                 throw new XMLException("Empty focus index String");
             
             try{
-                this.focusIndex = new Integer(value);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSINDEX, new Integer(value));
                 
             }catch(Exception e){
                 throw new XMLException("focus index must be an integer value");
             }
         }
         else if(focusIndex instanceof Integer)
-            this.focusIndex = (Integer) focusIndex;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSINDEX, (Integer) focusIndex);
         
-        notifyAltered(NCLElementAttributes.FOCUSINDEX, aux, this.focusIndex);
+        notifyAltered(NCLElementAttributes.FOCUSINDEX, aux, getFocusIndex());
     }
 
 
@@ -553,7 +541,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          or <i>null</i> if the attribute is not defined.
      */
     public Integer getFocusIndex() {
-        return focusIndex;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FOCUSINDEX);
     }
 
 
@@ -567,8 +555,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          erase a border color already defined.
      */
     public void setFocusBorderColor(NCLColor focusBorderColor) throws XMLException {
-        NCLColor aux = this.focusBorderColor;
-        this.focusBorderColor = focusBorderColor;
+        NCLColor aux = getFocusBorderColor();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSBORDERCOLOR, focusBorderColor);
         notifyAltered(NCLElementAttributes.FOCUSBORDERCOLOR, aux, focusBorderColor);
     }
 
@@ -582,7 +570,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          the attribute is not defined.
      */
     public NCLColor getFocusBorderColor() {
-        return focusBorderColor;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FOCUSBORDERCOLOR);
     }
 
     
@@ -596,8 +584,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          erase a border width already defined.
      */
     public void setFocusBorderWidth(Integer focusBorderWidth) throws XMLException {
-        Integer aux = this.focusBorderWidth;
-        this.focusBorderWidth = focusBorderWidth;
+        Integer aux = getFocusBorderWidth();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSBORDERWIDTH, focusBorderWidth);
         notifyAltered(NCLElementAttributes.FOCUSBORDERWIDTH, aux, focusBorderWidth);
     }
 
@@ -611,7 +599,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          the attribute is not defined.
      */
     public Integer getFocusBorderWidth() {
-        return focusBorderWidth;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FOCUSBORDERWIDTH);
     }
 
 
@@ -625,8 +613,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          to erase a border transparency already defined.
      */
     public void setFocusBorderTransparency(PercentageType focusBorderTransparency) throws XMLException {
-        PercentageType aux = this.focusBorderTransparency;
-        this.focusBorderTransparency = focusBorderTransparency;
+        PercentageType aux = getFocusBorderTransparency();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSBORDERTRANSPARENCY, focusBorderTransparency);
         notifyAltered(NCLElementAttributes.FOCUSBORDERTRANSPARENCY, aux, focusBorderTransparency);
     }
 
@@ -640,7 +628,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if the attribute is not defined.
      */
     public PercentageType getFocusBorderTransparency() {
-        return focusBorderTransparency;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FOCUSBORDERTRANSPARENCY);
     }
 
 
@@ -654,8 +642,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> to erase an alternative content already defined.
      */
     public void setFocusSrc(SrcType focusSrc) throws XMLException {
-        SrcType aux = this.focusSrc;
-        this.focusSrc = focusSrc;
+        SrcType aux = getFocusSrc();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSSRC, focusSrc);
         notifyAltered(NCLElementAttributes.FOCUSSRC, aux, focusSrc);
     }
 
@@ -669,7 +657,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> if the attribute is not defined.
      */
     public SrcType getFocusSrc() {
-        return focusSrc;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FOCUSSRC);
     }
 
 
@@ -683,8 +671,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> to erase an alternative content already defined.
      */
     public void setFocusSelSrc(SrcType focusSelSrc) throws XMLException {
-        SrcType aux = this.focusSelSrc;
-        this.focusSelSrc = focusSelSrc;
+        SrcType aux = getFocusSelSrc();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FOCUSSELSRC, focusSelSrc);
         notifyAltered(NCLElementAttributes.FOCUSSELSRC, aux, focusSelSrc);
     }
 
@@ -698,7 +686,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> if the attribute is not defined.
      */    
     public SrcType getFocusSelSrc() {
-        return focusSelSrc;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FOCUSSELSRC);
     }
 
 
@@ -712,8 +700,8 @@ public class NCLDescriptor<T extends NCLElement,
      *          erase a border color already defined.
      */
     public void setSelBorderColor(NCLColor selBorderColor) throws XMLException {
-        NCLColor aux = this.selBorderColor;
-        this.selBorderColor = selBorderColor;
+        NCLColor aux = getSelBorderColor();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.SELBORDERCOLOR, selBorderColor);
         notifyAltered(NCLElementAttributes.BORDERCOLOR, aux, selBorderColor);
     }
 
@@ -727,7 +715,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          the attribute is not defined.
      */
     public NCLColor getSelBorderColor() {
-        return selBorderColor;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.SELBORDERCOLOR);
     }
 
 
@@ -751,28 +739,26 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the transition.
      */
     public void setTransIn(Object transIn) throws XMLException {
-        Object aux = this.transIn;
+        Object aux = getTransIn();
         
         if(transIn instanceof NCLTransition){
-            this.transIn = transIn;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.TRANSIN, transIn);
             ((Et) transIn).addReference(this);
             
         }
         else if(transIn instanceof ExternalReferenceType){
-            this.transIn = transIn;
-            ((R) transIn).getTarget().addReference(this);
-            ((R) transIn).getAlias().addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.TRANSIN, transIn);
+            ((R) transIn).addReference(this);
         }
         
-        this.transIn = transIn;
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.TRANSIN, transIn);
         notifyAltered(NCLElementAttributes.TRANSIN, aux, transIn);
         
         if(aux != null){
             if(aux instanceof NCLTransition)
                 ((Et) transIn).removeReference(this);
             else{
-                ((R) transIn).getTarget().removeReference(this);
-                ((R) transIn).getAlias().removeReference(this);
+                ((R) transIn).removeReference(this);
             }
         }
     }
@@ -795,7 +781,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          or <i>null</i> if the attribute is not defined.
      */
     public Object getTransIn() {
-        return transIn;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.TRANSIN);
     }
 
 
@@ -819,28 +805,26 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the transition.
      */
     public void setTransOut(Object transOut) throws XMLException {
-        Object aux = this.transOut;
+        Object aux = getTransOut();
         
         if(transOut instanceof NCLTransition){
-            this.transOut = transOut;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.TRANSOUT, transOut);
             ((Et) transOut).addReference(this);
             
         }
         else if(transOut instanceof ExternalReferenceType){
-            this.transOut = transOut;
-            ((R) transOut).getTarget().addReference(this);
-            ((R) transOut).getAlias().addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.TRANSOUT, transOut);
+            ((R) transOut).addReference(this);
         }
         
-        this.transOut = transOut;
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.TRANSOUT, transOut);
         notifyAltered(NCLElementAttributes.TRANSOUT, aux, transOut);
         
         if(aux != null){
             if(aux instanceof NCLTransition)
                 ((Et) transOut).removeReference(this);
             else{
-                ((R) transOut).getTarget().removeReference(this);
-                ((R) transOut).getAlias().removeReference(this);
+                ((R) transOut).removeReference(this);
             }
         }
     }
@@ -863,7 +847,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          or <i>null</i> if the attribute is not defined.
      */
     public Object getTransOut() {
-        return transOut;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.TRANSOUT);
     }
 
 
@@ -887,28 +871,26 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the region.
      */
     public void setRegion(Object region) throws XMLException {
-        Object aux = this.region;
+        Object aux = getRegion();
         
         if(region instanceof NCLRegion){
-            this.region = region;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REGION, region);
             ((Er) region).addReference(this);
             
         }
         else if(region instanceof ExternalReferenceType){
-            this.region = region;
-            ((R) region).getTarget().addReference(this);
-            ((R) region).getAlias().addReference(this);
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REGION, region);
+            ((R) region).addReference(this);
         }
         
-        this.region = region;
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.REGION, region);
         notifyAltered(NCLElementAttributes.REGION, aux, region);
         
         if(aux != null){
             if(aux instanceof NCLRegion)
                 ((Er) region).removeReference(this);
             else{
-                ((R) region).getTarget().removeReference(this);
-                ((R) region).getAlias().removeReference(this);
+                ((R) region).removeReference(this);
             }
         }
     }
@@ -931,7 +913,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> if the attribute is not defined.
      */
     public Object getRegion() {
-        return region;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.REGION);
     }
 
 
@@ -1138,47 +1120,35 @@ public class NCLDescriptor<T extends NCLElement,
         
         
         ElementList<Ep> otherpar = ((NCLDescriptor) other).getDescriptorParams();
-        result &= params.size() == otherpar.size();
-        for (Ep par : params) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= params.compare(otherpar);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<descriptor";
-        content += parseAttributes();
+        out.append(space).append("<descriptor");
+        out.append(parseAttributes());
 
         // Test if the descriptor has content
         if(hasDescriptorParam()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</descriptor>\n";
+            out.append(space).append("</descriptor>\n");
         }
         else
-            content += "/>\n";
-
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -1256,19 +1226,15 @@ public class NCLDescriptor<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseDescriptorParams(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeDescriptorParams(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -1292,9 +1258,9 @@ public class NCLDescriptor<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLRegion)
-            return " region='" + ((Er) aux).getId() + "'";
+            return attribute(NCLElementAttributes.REGION, ((Er) aux).getId());
         else
-            return " region='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.REGION, ((R) aux).toString());
     }
     
     
@@ -1314,7 +1280,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseExplicitDur() {
         TimeType aux = getExplicitDur();
         if(aux != null)
-            return " explicitDur='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.EXPLICITDUR, aux.toString());
         else
             return "";
     }
@@ -1333,7 +1299,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseFreeze() {
         Boolean aux = getFreeze();
         if(aux != null)
-            return " freeze='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.FREEZE, aux.toString());
         else
             return "";
     }
@@ -1352,7 +1318,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parsePlayer() {
         String aux = getPlayer();
         if(aux != null)
-            return " player='" + aux + "'";
+            return attribute(NCLElementAttributes.PLAYER, aux);
         else
             return "";
     }
@@ -1371,7 +1337,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseMoveLeft() {
         Ed aux = getMoveLeft();
         if(aux != null)
-            return " moveLeft='" + aux.getFocusIndex().toString() + "'";
+            return attribute(NCLElementAttributes.MOVELEFT, aux.getFocusIndex().toString());
         else
             return "";
     }
@@ -1383,14 +1349,8 @@ public class NCLDescriptor<T extends NCLElement,
         // set the moveLeft (optional)
         att_name = NCLElementAttributes.MOVELEFT.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
-            Ed desc = (Ed) new NCLDescriptor();
-            desc.setId("aux" + att_var);
-            desc.setFocusIndex(att_var);
-            setMoveLeft((Ed) desc);
-            if(!waiting){
-                ((NCLDoc) getDoc()).waitReference(this);
-                waiting = true;
-            }
+            left_index = loadFocusReference(att_var);
+            ((NCLDoc) getDoc()).waitReference(this);
         }
     }
     
@@ -1398,7 +1358,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseMoveRight() {
         Ed aux = getMoveRight();
         if(aux != null)
-            return " moveRight='" + aux.getFocusIndex().toString() + "'";
+            return attribute(NCLElementAttributes.MOVERIGHT, aux.getFocusIndex().toString());
         else
             return "";
     }
@@ -1410,14 +1370,8 @@ public class NCLDescriptor<T extends NCLElement,
         // set the moveRight (optional)
         att_name = NCLElementAttributes.MOVERIGHT.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
-            Ed desc = (Ed) new NCLDescriptor();
-            desc.setId("aux" + att_var);
-            desc.setFocusIndex(att_var);
-            setMoveRight((Ed) desc);
-            if(!waiting){
-                ((NCLDoc) getDoc()).waitReference(this);
-                waiting = true;
-            }
+            right_index = loadFocusReference(att_var);
+            ((NCLDoc) getDoc()).waitReference(this);
         }
     }
     
@@ -1425,7 +1379,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseMoveDown() {
         Ed aux = getMoveDown();
         if(aux != null)
-            return " moveDown='" + aux.getFocusIndex().toString() + "'";
+            return attribute(NCLElementAttributes.MOVEDOWN, aux.getFocusIndex().toString());
         else
             return "";
     }
@@ -1437,14 +1391,8 @@ public class NCLDescriptor<T extends NCLElement,
         // set the moveDown (optional)
         att_name = NCLElementAttributes.MOVEDOWN.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
-            Ed desc = (Ed) new NCLDescriptor();
-            desc.setId("aux" + att_var);
-            desc.setFocusIndex(att_var);
-            setMoveDown((Ed) desc);
-            if(!waiting){
-                ((NCLDoc) getDoc()).waitReference(this);
-                waiting = true;
-            }
+            down_index = loadFocusReference(att_var);
+            ((NCLDoc) getDoc()).waitReference(this);
         }
     }
     
@@ -1452,7 +1400,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseMoveUp() {
         Ed aux = getMoveUp();
         if(aux != null)
-            return " moveUp='" + aux.getFocusIndex().toString() + "'";
+            return attribute(NCLElementAttributes.MOVEUP, aux.getFocusIndex().toString());
         else
             return "";
     }
@@ -1464,14 +1412,8 @@ public class NCLDescriptor<T extends NCLElement,
         // set the moveUp (optional)
         att_name = NCLElementAttributes.MOVEUP.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
-            Ed desc = (Ed) new NCLDescriptor();
-            desc.setId("aux" + att_var);
-            desc.setFocusIndex(att_var);
-            setMoveUp((Ed) desc);
-            if(!waiting){
-                ((NCLDoc) getDoc()).waitReference(this);
-                waiting = true;
-            }
+            up_index = loadFocusReference(att_var);
+            ((NCLDoc) getDoc()).waitReference(this);
         }
     }
     
@@ -1479,7 +1421,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseFocusIndex() {
         Integer aux = getFocusIndex();
         if(aux != null)
-            return " focusIndex='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.FOCUSINDEX, aux.toString());
         else
             return "";
     }
@@ -1499,7 +1441,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseFocusBorderColor() {
         NCLColor aux = getFocusBorderColor();
         if(aux != null)
-            return " focusBorderColor='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.FOCUSBORDERCOLOR, aux.toString());
         else
             return "";
     }
@@ -1518,7 +1460,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseFocusBorderWidth() {
         Integer aux = getFocusBorderWidth();
         if(aux != null)
-            return " focusBorderWidth='" + aux + "'";
+            return attribute(NCLElementAttributes.FOCUSBORDERWIDTH, aux);
         else
             return "";
     }
@@ -1542,7 +1484,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseFocusBorderTransparency() {
         PercentageType aux = getFocusBorderTransparency();
         if(aux != null)
-            return " focusBorderTransparency='" + aux.parse() + "'";
+            return attribute(NCLElementAttributes.FOCUSBORDERTRANSPARENCY, aux.parse());
         else
             return "";
     }
@@ -1561,7 +1503,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected String parseFocusSrc() {
         SrcType aux = getFocusSrc();
         if(aux != null)
-            return " focusSrc='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.FOCUSSRC, aux.toString());
         else
             return "";
     }
@@ -1573,14 +1515,14 @@ public class NCLDescriptor<T extends NCLElement,
         // set the focusSrc (optional)
         att_name = NCLElementAttributes.FOCUSSRC.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setFocusSrc(new SrcType(att_var));
+            setFocusSrc(new SrcType(intern(att_var)));
     }
     
     
     protected String parseFocusSelSrc() {
         SrcType aux = getFocusSelSrc();
         if(aux != null)
-            return " focusSelSrc='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.FOCUSSELSRC, aux.toString());
         else
             return "";
     }
@@ -1592,14 +1534,14 @@ public class NCLDescriptor<T extends NCLElement,
         // set the focusSelSrc (optional)
         att_name = NCLElementAttributes.FOCUSSELSRC.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setFocusSelSrc(new SrcType(att_var));
+            setFocusSelSrc(new SrcType(intern(att_var)));
     }
     
     
     protected String parseSelBorderColor() {
         NCLColor aux = getSelBorderColor();
         if(aux != null)
-            return " SelBorderColor='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.SELBORDERCOLOR, aux.toString());
         else
             return "";
     }
@@ -1621,9 +1563,9 @@ public class NCLDescriptor<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLTransition)
-            return " transIn='" + ((Et) aux).getId() + "'";
+            return attribute(NCLElementAttributes.TRANSIN, ((Et) aux).getId());
         else
-            return " transIn='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.TRANSIN, ((R) aux).toString());
     }
     
     
@@ -1646,9 +1588,9 @@ public class NCLDescriptor<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLTransition)
-            return " transOut='" + ((Et) aux).getId() + "'";
+            return attribute(NCLElementAttributes.TRANSOUT, ((Et) aux).getId());
         else
-            return " transOut='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.TRANSOUT, ((R) aux).toString());
     }
     
     
@@ -1665,15 +1607,12 @@ public class NCLDescriptor<T extends NCLElement,
     }
     
     
-    protected String parseDescriptorParams(int ident) {
+    protected void writeDescriptorParams(Appendable out, int ident) throws IOException {
         if(!hasDescriptorParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : params)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
@@ -1683,9 +1622,13 @@ public class NCLDescriptor<T extends NCLElement,
         
         // create the descriptor child nodes
         ch_name = NCLElementAttributes.DESCRIPTORPARAM.toString();
-        nl = element.getElementsByTagName(ch_name);
+        nl = element.getChildNodes();
         for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+            Node nd = nl.item(i);
+            if(!(nd instanceof Element) || !((Element) nd).getTagName().equals(ch_name))
+                continue;
+            
+            Element el = (Element) nd;
             Ep inst = createDescriptorParam();
             addDescriptorParam(inst);
             inst.load(el);
@@ -1704,7 +1647,7 @@ public class NCLDescriptor<T extends NCLElement,
     
     @Override
     public El findDescriptor(Integer focusIndex) throws XMLException {
-        if(this.focusIndex != null && this.focusIndex.toString().equals(focusIndex.toString()))
+        if(getFocusIndex() != null && getFocusIndex().toString().equals(focusIndex.toString()))
             return (El) this;
         else
             return null;
@@ -1714,7 +1657,6 @@ public class NCLDescriptor<T extends NCLElement,
     @Override
     @Deprecated
     public void fixReference() throws NCLParsingException {
-        Object aux;
         T base = getParent();
 
         while(!(base instanceof NCLDescriptorBase)){
@@ -1726,27 +1668,27 @@ public class NCLDescriptor<T extends NCLElement,
         
         try{
             // set the moveUp (optional)
-            if((aux = getMoveUp()) != null && (aux = getMoveUp().getFocusIndex()) != null){
-                Ed desc = (Ed) ((NCLDescriptorBase) base).findDescriptor((Integer) aux);
-                setMoveUp(desc);
+            if(up_index != null){
+                setMoveUp(findFocusReference(base, up_index));
+                up_index = null;
             }
 
             // set the moveRight (optional)
-            if((aux = getMoveRight()) != null && (aux = getMoveRight().getFocusIndex()) != null){
-                Ed desc = (Ed) ((NCLDescriptorBase) base).findDescriptor((Integer) aux);
-                setMoveRight(desc);
+            if(right_index != null){
+                setMoveRight(findFocusReference(base, right_index));
+                right_index = null;
             }
 
             // set the moveLeft (optional)
-            if((aux = getMoveLeft()) != null && (aux = getMoveLeft().getFocusIndex()) != null){
-                Ed desc = (Ed) ((NCLDescriptorBase) base).findDescriptor((Integer) aux);
-                setMoveLeft(desc);
+            if(left_index != null){
+                setMoveLeft(findFocusReference(base, left_index));
+                left_index = null;
             }
 
             // set the moveDown (optional)
-            if((aux = getMoveDown()) != null && (aux = getMoveDown().getFocusIndex()) != null){
-                Ed desc = (Ed) ((NCLDescriptorBase) base).findDescriptor((Integer) aux);
-                setMoveDown(desc);
+            if(down_index != null){
+                setMoveDown(findFocusReference(base, down_index));
+                down_index = null;
             }
         }
         catch(XMLException ex){
@@ -1761,22 +1703,45 @@ public class NCLDescriptor<T extends NCLElement,
     }
     
     
+    private Integer loadFocusReference(String value) throws XMLException {
+        try{
+            return new Integer(value.trim());
+        }
+        catch(NumberFormatException ex){
+            throw new XMLException("focus index must be an integer value");
+        }
+    }
+    
+    
+    private Ed findFocusReference(T base, Integer index) throws XMLException {
+        Ed desc = (Ed) ((NCLDescriptorBase) base).findDescriptor(index);
+        if(desc == null)
+            throw new NCLParsingException("Could not find descriptor with focusIndex: " + index);
+        
+        return desc;
+    }
+    
+    
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -1784,38 +1749,25 @@ public class NCLDescriptor<T extends NCLElement,
     @Override
     public void clean() throws XMLException {
         
-        moveLeft.removeReference(this);
-        moveRight.removeReference(this);
-        moveUp.removeReference(this);
-        moveDown.removeReference(this);
+        getMoveLeft().removeReference(this);
+        getMoveRight().removeReference(this);
+        getMoveUp().removeReference(this);
+        getMoveDown().removeReference(this);
         
-        if(region != null){
-            if(region instanceof NCLRegion)
-                ((Er)region).removeReference(this);
+        if(getRegion() != null){
+            if(getRegion() instanceof NCLRegion)
+                ((Er)getRegion()).removeReference(this);
 
-            else if(region instanceof ExternalReferenceType){
-                ((R) region).getTarget().removeReference(this);
-                ((R) region).getAlias().removeReference(this);
+            else if(getRegion() instanceof ExternalReferenceType){
+                ((R) getRegion()).removeReference(this);
             }
         }
         
-        player = null;
-        explicitDur = null;
-        freeze = null;
-        moveLeft = null;
-        moveRight = null;
-        moveUp = null;
-        moveDown = null;
-        focusIndex = null;
-        focusBorderColor = null;
-        focusBorderWidth = null;
-        focusBorderTransparency = null;
-        focusSrc = null;
-        focusSelSrc = null;
-        selBorderColor = null;
-        transIn = null;
-        transOut = null;
-        region = null;
+        attributes = null;
+        left_index = null;
+        right_index = null;
+        up_index = null;
+        down_index = null;
         
         for(Ep p : params)
             p.clean();
@@ -57,6 +57,7 @@ import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -281,47 +282,40 @@ public class NCLDescriptorBase<T extends NCLElement,
         boolean result = true;
         ElementList<El> otherdes = ((NCLDescriptorBase) other).getDescriptors();
         
+        String id = getId();
+        if(id != null)
+            result &= id.equals(((NCLDescriptorBase) other).getId());
+        
         result &= super.compareImports((NCLBase) other);
         
-        result &= descriptors.size() == otherdes.size();
-        for (El des : descriptors) {
-            try {
-                result &= otherdes.contains(des);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= descriptors.compare(otherdes);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<descriptorBase";
-        content += parseAttributes();
+        out.append(space).append("<descriptorBase");
+        out.append(parseAttributes());
 
         if(hasDescriptor() || hasImportBase()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</descriptorBase>\n";
+            out.append(space).append("</descriptorBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -341,12 +335,24 @@ public class NCLDescriptorBase<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadImportBases(el);
-                    loadDescriptors(el);
-                    loadDescriptorSwitches(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case IMPORTBASE:
+                        loadImportBases(el);
+                        break;
+                    case DESCRIPTOR:
+                        loadDescriptors(el);
+                        break;
+                    case DESCRIPTORSWITCH:
+                        loadDescriptorSwitches(el);
+                        break;
                 }
             }
         }
@@ -365,20 +371,16 @@ public class NCLDescriptorBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseDescriptors(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeDescriptors(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -394,35 +396,28 @@ public class NCLDescriptorBase<T extends NCLElement,
     }
     
     
-    protected String parseDescriptors(int ident) {
+    protected void writeDescriptors(Appendable out, int ident) throws IOException {
         if(!hasDescriptor())
-            return "";
+            return;
         
-        String content = "";
         for(El aux : descriptors)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadDescriptors(Element element) throws XMLException {
         //create the descriptor
-        if(element.getTagName().equals(NCLElementAttributes.DESCRIPTOR.toString())){
-            El inst = createDescriptor();
-            addDescriptor(inst);
-            inst.load(element);
-        }
+        El inst = createDescriptor();
+        addDescriptor(inst);
+        inst.load(element);
     }
     
     
     protected void loadDescriptorSwitches(Element element) throws XMLException {
         // create the descriptorSwitch
-        if(element.getTagName().equals(NCLElementAttributes.DESCRIPTORSWITCH.toString())){
-            El inst = createDescriptorSwitch();
-            addDescriptor(inst);
-            inst.load(element);
-        }
+        El inst = createDescriptorSwitch();
+        addDescriptor(inst);
+        inst.load(element);
     }
     
     
@@ -519,6 +514,11 @@ public class NCLDescriptorBase<T extends NCLElement,
         Object result;
         
         if(alias == null){
+            // search in the document index
+            result = findIndexed(id);
+            if(result instanceof NCLLayoutDescriptor)
+                return result;
+            
             for(El desc : descriptors){
                 result = (El) desc.findDescriptor(id);
                 if(result != null)
@@ -51,6 +51,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -209,6 +210,7 @@ public class NCLDescriptorParam<T extends NCLElement, V>
      */
     public void setPercentSign(boolean percentSign) {
         this.percentSign = percentSign;
+        invalidateCaches();
     }
     
     
@@ -241,24 +243,20 @@ public class NCLDescriptorParam<T extends NCLElement, V>
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<descriptorParam";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<descriptorParam");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
     
@@ -287,7 +285,7 @@ public class NCLDescriptorParam<T extends NCLElement, V>
     protected String parseName() {
         NCLAttributes aux = getName();
         if(aux != null)
-            return " name='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.NAME, aux.toString());
         else
             return "";
     }
@@ -316,7 +314,7 @@ public class NCLDescriptorParam<T extends NCLElement, V>
                 value += v.toString() + ",";
             }
             value = value.substring(0,value.length()-1);
-            return " value='" + value + "'";
+            return attribute(NCLElementAttributes.VALUE, value);
         }
         
         if(aux instanceof Double[]){
@@ -325,13 +323,13 @@ public class NCLDescriptorParam<T extends NCLElement, V>
                 value += v.toString() + "%,";
             }
             value = value.substring(0,value.length()-1);
-            return " value='" + value + "'";
+            return attribute(NCLElementAttributes.VALUE, value);
         }
         
         if(percentSign)
-            return " value='" + aux.toString() + "%'";
+            return attribute(NCLElementAttributes.VALUE, aux.toString() + "%");
         else
-            return " value='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.VALUE, aux.toString());
     }
     
     
@@ -488,7 +486,7 @@ public class NCLDescriptorParam<T extends NCLElement, V>
         if((aux = NCLScroll.getEnumType(value)) != null)
             return aux;
         
-        return value;
+        return intern(value);
     }
     
     
@@ -44,13 +44,16 @@ import br.uff.midiacom.ana.rule.NCLBindRule;
 import br.uff.midiacom.ana.rule.NCLTestRule;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -113,7 +116,6 @@ public class NCLDescriptorSwitch<T extends NCLElement,
         super();
         descriptors = new ElementList<Ed>();
         binds = new ElementList<Eb>();
-        references = new ArrayList<T>();
     }
     
     
@@ -121,7 +123,6 @@ public class NCLDescriptorSwitch<T extends NCLElement,
         super();
         descriptors = new ElementList<Ed>();
         binds = new ElementList<Eb>();
-        references = new ArrayList<T>();
         setId(id);
     }
     
@@ -424,51 +425,32 @@ public class NCLDescriptorSwitch<T extends NCLElement,
             result &= def.compare(((NCLDescriptorSwitch) other).getDefaultDescriptor());
         
         ElementList<Ed> otherdes = ((NCLDescriptorSwitch) other).getDescriptors();
-        result &= descriptors.size() == otherdes.size();
-        for (Ed des : descriptors) {
-            try {
-                result &= otherdes.contains(des);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= descriptors.compare(otherdes);
         
         ElementList<Eb> otherbin = ((NCLDescriptorSwitch) other).getBinds();
-        result &= binds.size() == otherbin.size();
-        for (Eb bin : binds) {
-            try {
-                result &= otherbin.contains(bin);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= binds.compare(otherbin);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<descriptorSwitch";
-        content += parseAttributes();
-        content += ">\n";
+        space = indent(ident);
 
-        content += parseElements(ident + 1);
+        out.append(space).append("<descriptorSwitch");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</descriptorSwitch>\n";
+        writeElements(out, ident + 1);
 
-
-        return content;
+        out.append(space).append("</descriptorSwitch>\n");
     }
 
 
@@ -490,19 +472,20 @@ public class NCLDescriptorSwitch<T extends NCLElement,
         }
 
         try{
-            loadDescriptors(element);
+            ArrayList<Element> postponed = new ArrayList<Element>();
 
-            // create the child nodes (ports, binds and defaultComponent)
+            // create the child nodes in a single pass, postponing the binds and
+            // defaultDescriptor, since they refer to the descriptors
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadBinds(el);
-                    loadDefaultDescriptor(el);
-                }
+                if(nd instanceof Element)
+                    loadChild((Element) nd, postponed);
             }
+
+            // create the child nodes (binds and defaultDescriptor)
+            for(Element el : postponed)
+                loadChild(el, null);
         }
         catch(XMLException ex){
             String aux = getId();
@@ -516,6 +499,43 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
     
     
+    /**
+     * Creates the child element given. If a list of postponed elements is given,
+     * the binds and defaultDescriptor are added to the list instead of being
+     * created, since they refer to the descriptors.
+     *
+     * @param element
+     *          child element.
+     * @param postponed
+     *          list of postponed elements or <i>null</i>.
+     * @throws XMLException
+     *          if an error occur while creating the child element.
+     */
+    protected void loadChild(Element element, ArrayList<Element> postponed) throws XMLException {
+        NCLElementAttributes ch = NCLElementAttributes.getEnumType(element.getTagName());
+        if(ch == null)
+            return;
+
+        switch(ch){
+            case DESCRIPTOR:
+                loadDescriptors(element);
+                break;
+            case BINDRULE:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadBinds(element);
+                break;
+            case DEFAULTDESCRIPTOR:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadDefaultDescriptor(element);
+                break;
+        }
+    }
+    
+    
     protected String parseAttributes() {
         String content = "";
         
@@ -525,21 +545,17 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseBinds(ident);
-        content += parseDefaultDescriptor(ident);
-        content += parseDescriptors(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeBinds(out, ident);
+        writeDefaultDescriptor(out, ident);
+        writeDescriptors(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -557,41 +573,35 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
     
     
-    protected String parseBinds(int ident) {
+    protected void writeBinds(Appendable out, int ident) throws IOException {
         if(!hasBind())
-            return "";
+            return;
         
-        String content = "";
         for(Eb aux : binds)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadBinds(Element element) throws XMLException {
         // create the bindRule
-        if(element.getTagName().equals(NCLElementAttributes.BINDRULE.toString())){
-            Eb inst = createBindRule();
-            addBind(inst);
-            inst.load(element);
-        }
+        Eb inst = createBindRule();
+        addBind(inst);
+        inst.load(element);
     }
     
     
-    protected String parseDefaultDescriptor(int ident) {
+    protected void writeDefaultDescriptor(Appendable out, int ident) throws IOException {
         Ed aux = getDefaultDescriptor();
         if(aux == null)
-            return "";
+            return;
         
-        String space = "";
+        String space;
         if(ident < 0)
             ident = 0;
         
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
-        return space + "<defaultDescriptor descriptor='" + aux.getId() + "'/>\n";
+        out.append(space).append("<defaultDescriptor descriptor='").append(aux.getId()).append("'/>\n");
     }
     
     
@@ -599,42 +609,26 @@ public class NCLDescriptorSwitch<T extends NCLElement,
         String att_name, att_var;
         
         // create the defaultDescriptor
-        if(element.getTagName().equals(NCLElementAttributes.DEFAULTDESCRIPTOR.toString())){
-            att_name = NCLElementAttributes.DESCRIPTOR.toString();
-            if(!(att_var = element.getAttribute(att_name)).isEmpty())
-                setDefaultDescriptor(descriptors.get(att_var));
-        }
+        att_name = NCLElementAttributes.DESCRIPTOR.toString();
+        if(!(att_var = element.getAttribute(att_name)).isEmpty())
+            setDefaultDescriptor(descriptors.get(att_var));
     }
     
     
-    protected String parseDescriptors(int ident) {
+    protected void writeDescriptors(Appendable out, int ident) throws IOException {
         if(!hasDescriptor())
-            return "";
+            return;
         
-        String content = "";
         for(Ed aux : descriptors)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadDescriptors(Element element) throws XMLException {
-        String ch_name;
-        NodeList nl;
-        
-        // create the descriptorSwitch child nodes
-        ch_name = NCLElementAttributes.DESCRIPTOR.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
-            if(!el.getParentNode().equals(element))
-                continue;
-
-            Ed inst = createDescriptor();
-            addDescriptor(inst);
-            inst.load(el);
-        }
+        // create the descriptor
+        Ed inst = createDescriptor();
+        addDescriptor(inst);
+        inst.load(element);
     }
     
     
@@ -671,20 +665,24 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
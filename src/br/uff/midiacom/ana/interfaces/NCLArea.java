@@ -45,8 +45,11 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ArrayType;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -101,13 +104,11 @@ public class NCLArea<T extends NCLElement>
      */
     public NCLArea() {
         super();
-        references = new ArrayList<T>();
     }
     
     
     public NCLArea(String id) throws XMLException {
         super();
-        references = new ArrayList<T>();
         setId(id);
     }
     
@@ -564,7 +565,7 @@ public class NCLArea<T extends NCLElement>
      */
     public void setLabel(String label) throws XMLException {
         String aux = this.label;
-        this.label = label;
+        this.label = intern(label);
         notifyAltered(NCLElementAttributes.LABEL, aux, label);
     }
     
@@ -590,6 +591,8 @@ public class NCLArea<T extends NCLElement>
         boolean result = true;
         
         Object aux;
+        if((aux = getId()) != null)
+            result &= aux.equals(((NCLArea) other).getId());
         if((aux = getCoords()) != null)
             result &= aux.equals(((NCLArea) other).getCoords());
         if((aux = getBegin()) != null)
@@ -621,23 +624,19 @@ public class NCLArea<T extends NCLElement>
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
                 
         // <area> element and attributes declaration
-        content = space + "<area";
-        content += parseAttributes();
-        content += "/>\n";
-        
-        return content;
+        out.append(space).append("<area");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -686,7 +685,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -707,7 +706,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseCoords() {
         ArrayType aux = getCoords();
         if(aux != null)
-            return " coords='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.COORDS, aux.toString());
         else
             return "";
     }
@@ -726,7 +725,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseBegin() {
         TimeType aux = getBegin();
         if(aux != null)
-            return " begin='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.BEGIN, aux.toString());
         else
             return "";
     }
@@ -745,7 +744,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseEnd() {
         TimeType aux = getEnd();
         if(aux != null)
-            return " end='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.END, aux.toString());
         else
             return "";
     }
@@ -764,7 +763,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseText() {
         String aux = getText();
         if(aux != null)
-            return " text='" + aux + "'";
+            return attribute(NCLElementAttributes.TEXT, aux);
         else
             return "";
     }
@@ -783,7 +782,7 @@ public class NCLArea<T extends NCLElement>
     protected String parsePosition() {
         Integer aux = getPosition();
         if(aux != null)
-            return " position='" + aux + "'";
+            return attribute(NCLElementAttributes.POSITION, aux);
         else
             return "";
     }
@@ -807,7 +806,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseFirst() {
         SampleType aux = getFirst();
         if(aux != null)
-            return " first='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.FIRST, aux.toString());
         else
             return "";
     }
@@ -826,7 +825,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseLast() {
         SampleType aux = getLast();
         if(aux != null)
-            return " last='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.LAST, aux.toString());
         else
             return "";
     }
@@ -845,7 +844,7 @@ public class NCLArea<T extends NCLElement>
     protected String parseLabel() {
         String aux = getLabel();
         if(aux != null)
-            return " label='" + aux + "'";
+            return attribute(NCLElementAttributes.LABEL, aux);
         else
             return "";
     }
@@ -863,21 +862,25 @@ public class NCLArea<T extends NCLElement>
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     @Deprecated
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -47,6 +47,7 @@ import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -207,24 +208,20 @@ public class NCLMapping<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<mapping";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<mapping");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -253,7 +250,7 @@ public class NCLMapping<T extends NCLElement,
     protected String parseComponent() {
         En aux = getComponent();
         if(aux != null)
-            return " component='" + aux.getId() + "'";
+            return attribute(NCLElementAttributes.COMPONENT, aux.getId());
         else
             return "";
     }
@@ -286,9 +283,9 @@ public class NCLMapping<T extends NCLElement,
         Ei aux = getInterface();
         if(aux != null){
             if(aux instanceof NCLIdentifiableElementPrototype)
-                return " interface='" + ((NCLIdentifiableElementPrototype) aux).getId() + "'";
+                return attribute(NCLElementAttributes.INTERFACE, ((NCLIdentifiableElementPrototype) aux).getId());
             else
-                return " interface='" + ((NCLNamedElementPrototype) aux).getName() + "'";
+                return attribute(NCLElementAttributes.INTERFACE, ((NCLNamedElementPrototype) aux).getName());
         }
         else
             return "";
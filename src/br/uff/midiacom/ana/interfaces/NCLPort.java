@@ -46,8 +46,11 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -100,13 +103,11 @@ public class NCLPort<T extends NCLElement,
      */
     public NCLPort() {
         super();
-        references = new ArrayList<T>();
     }
     
     
     public NCLPort(String id) throws XMLException {
         super();
-        references = new ArrayList<T>();
         setId(id);
     }
     
@@ -241,24 +242,20 @@ public class NCLPort<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <port> element and attributes declaration
-        content = space + "<port";
-        content += parseAttributes();
-        content += "/>\n";
-        
-        return content;
+        out.append(space).append("<port");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -297,7 +294,7 @@ public class NCLPort<T extends NCLElement,
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -318,7 +315,7 @@ public class NCLPort<T extends NCLElement,
     protected String parseComponent() {
         En aux = getComponent();
         if(aux != null)
-            return " component='" + aux.getId() + "'";
+            return attribute(NCLElementAttributes.COMPONENT, aux.getId());
         else
             return "";
     }
@@ -353,13 +350,13 @@ public class NCLPort<T extends NCLElement,
         Ei aux = getInterface();
         if(aux != null){
             if(aux instanceof NCLIdentifiableElementPrototype)
-                return " interface='" + ((NCLIdentifiableElementPrototype) aux).getId() + "'";
+                return attribute(NCLElementAttributes.INTERFACE, ((NCLIdentifiableElementPrototype) aux).getId());
             else{
                 Object name = ((NCLNamedElementPrototype) aux).getName();
                 if(name instanceof NCLVariable)
-                    return " interface='" + ((NCLVariable) aux).parse(0) + "'";
+                    return attribute(NCLElementAttributes.INTERFACE, ((NCLVariable) aux).parse(0));
                 else
-                    return " interface='" + name.toString() + "'";
+                    return attribute(NCLElementAttributes.INTERFACE, name.toString());
             }
         }
         else
@@ -384,20 +381,24 @@ public class NCLPort<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -51,8 +51,11 @@ import br.uff.midiacom.ana.util.enums.NCLScroll;
 import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -91,13 +94,11 @@ public class NCLProperty<T extends NCLElement,
      */
     public NCLProperty() {
         super();
-        references = new ArrayList<T>();
     }
     
     
     public NCLProperty(Object name) throws XMLException {
         super();
-        references = new ArrayList<T>();
         setName(name);
     }
     
@@ -260,7 +261,7 @@ public class NCLProperty<T extends NCLElement,
         if((aux = NCLScroll.getEnumType(value)) != null)
             return aux;
         
-        return value;
+        return intern(value);
     }
     
     
@@ -272,8 +273,11 @@ public class NCLProperty<T extends NCLElement,
         boolean result = true;
         Object aux;
         
-        if((aux = getName()) != null)
-            result &= aux.equals(((NCLProperty) other).getName());
+        Object oaux = ((NCLProperty) other).getName();
+        if((aux = getName()) instanceof NCLVariable && oaux instanceof NCLVariable)
+            result &= ((Ev) aux).compare((Ev) oaux);
+        else if(aux != null)
+            result &= aux.equals(oaux);
         if((aux = getValue()) != null)
             result &= aux.equals(((NCLProperty) other).getValue());
 
@@ -282,24 +286,19 @@ public class NCLProperty<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         // <property> element and attributes declaration
-        content = space + "<property";
-        content += parseAttributes();
-        content += "/>\n";
-        
-        
-        return content;
+        out.append(space).append("<property");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -335,9 +334,9 @@ public class NCLProperty<T extends NCLElement,
         Object aux = getName();
         if(aux != null){
             if(name instanceof NCLVariable)
-                return " name='" + ((NCLVariable) aux).parse(0) + "'";
+                return attribute(NCLElementAttributes.NAME, ((NCLVariable) aux).parse(0));
             else
-                return " name='" + aux.toString() + "'";
+                return attribute(NCLElementAttributes.NAME, aux.toString());
         }
         else
             return "";
@@ -359,7 +358,7 @@ public class NCLProperty<T extends NCLElement,
     protected String parseValue() {
         Object aux = getValue();
         if(aux != null)
-            return " value='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.VALUE, aux.toString());
         else
             return "";
     }
@@ -377,20 +376,24 @@ public class NCLProperty<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -43,9 +43,13 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -99,14 +103,12 @@ public class NCLSwitchPort<T extends NCLElement,
     public NCLSwitchPort() {
         super();
         mappings = new ElementList<Em>();
-        references = new ArrayList<T>();
     }
     
     
     public NCLSwitchPort(String id) throws XMLException {
         super();
         mappings = new ElementList<Em>();
-        references = new ArrayList<T>();
         setId(id);
     }
     
@@ -226,42 +228,31 @@ public class NCLSwitchPort<T extends NCLElement,
         
         
         ElementList<Em> othermap = ((NCLSwitchPort) other).getMappings();
-        result &= mappings.size() == othermap.size();
-        for (Em map : mappings) {
-            try {
-                result &= othermap.contains(map);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= mappings.compare(othermap);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // <port> element and attributes declaration
-        content = space + "<switchPort";
-        content += parseAttributes();
-        content += ">\n";
-
-        content += parseElements(ident + 1);
+        out.append(space).append("<switchPort");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</switchPort>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</switchPort>\n");
     }
 
 
@@ -304,19 +295,15 @@ public class NCLSwitchPort<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseMappings(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeMappings(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -334,15 +321,12 @@ public class NCLSwitchPort<T extends NCLElement,
     }
     
     
-    protected String parseMappings(int ident) {
+    protected void writeMappings(Appendable out, int ident) throws IOException {
         if(!hasMapping())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : mappings)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
@@ -352,9 +336,13 @@ public class NCLSwitchPort<T extends NCLElement,
         
         // create the child nodes
         ch_name = NCLElementAttributes.MAPPING.toString();
-        nl = element.getElementsByTagName(ch_name);
+        nl = element.getChildNodes();
         for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+            Node nd = nl.item(i);
+            if(!(nd instanceof Element) || !((Element) nd).getTagName().equals(ch_name))
+                continue;
+            
+            Element el = (Element) nd;
             Em inst = createMapping();
             addMapping(inst);
             inst.load(el);
@@ -364,21 +352,25 @@ public class NCLSwitchPort<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     @Deprecated
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
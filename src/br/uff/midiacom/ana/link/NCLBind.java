@@ -43,6 +43,7 @@ import br.uff.midiacom.ana.connector.*;
 import br.uff.midiacom.ana.interfaces.*;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.descriptor.NCLLayoutDescriptor;
@@ -54,10 +55,13 @@ import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -113,6 +117,7 @@ public class NCLBind<T extends NCLElement,
     protected ElementList<Ep> bindParams;
     
     protected ArrayList<Epr> references;
+    private String interface_id;
     
 
     /**
@@ -124,7 +129,6 @@ public class NCLBind<T extends NCLElement,
     public NCLBind() throws XMLException {
         super();
         bindParams = new ElementList<Ep>();
-        references = new ArrayList<Epr>();
     }
     
     
@@ -317,8 +321,7 @@ public class NCLBind<T extends NCLElement,
         }
         else if(descriptor instanceof ExternalReferenceType){
             this.descriptor = descriptor;
-            ((R) descriptor).getTarget().addReference(this);
-            ((R) descriptor).getAlias().addReference(this);
+            ((R) descriptor).addReference(this);
         }
         
         this.descriptor = descriptor;
@@ -328,8 +331,7 @@ public class NCLBind<T extends NCLElement,
             if(aux instanceof NCLLayoutDescriptor)
                 ((El) descriptor).removeReference(this);
             else{
-                ((R) descriptor).getTarget().removeReference(this);
-                ((R) descriptor).getAlias().removeReference(this);
+                ((R) descriptor).removeReference(this);
             }
         }
     }
@@ -451,8 +453,10 @@ public class NCLBind<T extends NCLElement,
 
         Object aux;
 
-        if((aux = getRole()) != null)
-            result &= aux.equals(((NCLBind) other).getRole());
+        if((aux = getRole()) != null){
+            Er orole = (Er) ((NCLBind) other).getRole();
+            result &= orole != null && ((Er) aux).getRole().toString().equals(orole.getRole().toString());
+        }
 
         T el;
         if((el = (T) getComponent()) != null)
@@ -465,53 +469,44 @@ public class NCLBind<T extends NCLElement,
         if(aux != null && oaux != null){
             if(aux instanceof NCLLayoutDescriptor && oaux instanceof NCLLayoutDescriptor)
                 result &= ((El) aux).compare((El) oaux);
-            else
+            else if(aux instanceof ExternalReferenceType && oaux instanceof ExternalReferenceType)
                 result &= ((R) aux).equals((R) oaux);
+            else
+                result = false;
         }
 
         ElementList<Ep> otherpar = ((NCLBind) other).getBindParams();
-        result &= bindParams.size() == otherpar.size();
-        for (Ep par : bindParams) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= bindParams.compare(otherpar);
 
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <bind> element and attributes declaration
-        content = space + "<bind";
-        content += parseAttributes();
+        out.append(space).append("<bind");
+        out.append(parseAttributes());
         
         // <bind> element content
         if(hasBindParam()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</bind>\n";
+            out.append(space).append("</bind>\n");
         }
         else
-            content += "/>\n";
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -564,19 +559,15 @@ public class NCLBind<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseBindParams(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeBindParams(out, ident);
     }
     
     
     protected String parseRole() {
         Er aux = getRole();
         if(aux != null)
-            return " role='" + aux.getRole().toString() + "'";
+            return attribute(NCLElementAttributes.ROLE, aux.getRole().toString());
         else
             return "";
     }
@@ -616,7 +607,7 @@ public class NCLBind<T extends NCLElement,
     protected String parseComponent() {
         En aux = getComponent();
         if(aux != null)
-            return " component='" + aux.getId() + "'";
+            return attribute(NCLElementAttributes.COMPONENT, aux.getId());
         else
             return "";
     }
@@ -651,13 +642,13 @@ public class NCLBind<T extends NCLElement,
         Ei aux = getInterface();
         if(aux != null){
             if(aux instanceof NCLIdentifiableElementPrototype)
-                return " interface='" + ((NCLIdentifiableElementPrototype) aux).getId() + "'";
+                return attribute(NCLElementAttributes.INTERFACE, ((NCLIdentifiableElementPrototype) aux).getId());
             else{
                 Object name = ((NCLNamedElementPrototype) aux).getName();
                 if(name instanceof NCLVariable)
-                    return " interface='" + ((NCLVariable) name).parse(0) + "'";
+                    return attribute(NCLElementAttributes.INTERFACE, ((NCLVariable) name).parse(0));
                 else
-                    return " interface='" + name.toString() + "'";
+                    return attribute(NCLElementAttributes.INTERFACE, name.toString());
             }
         }
         else
@@ -673,11 +664,11 @@ public class NCLBind<T extends NCLElement,
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
             Ei refEl = (Ei) getComponent().findInterface(att_var);
             if(refEl == null){
-                refEl = (Ei) new NCLArea(att_var);
+                interface_id = att_var;
                 ((NCLDoc) getDoc()).waitReference(this);
             }
-//            throw new NCLParsingException("Could not find element " + att_var);
-            setInterface(refEl);
+            else
+                setInterface(refEl);
         }
     }
     
@@ -688,9 +679,9 @@ public class NCLBind<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLLayoutDescriptor)
-            return " descriptor='" + ((El) aux).getId() + "'";
+            return attribute(NCLElementAttributes.DESCRIPTOR, ((El) aux).getId());
         else
-            return " descriptor='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.DESCRIPTOR, ((R) aux).toString());
     }
     
     
@@ -707,15 +698,12 @@ public class NCLBind<T extends NCLElement,
     }
     
     
-    protected String parseBindParams(int ident) {
+    protected void writeBindParams(Appendable out, int ident) throws IOException {
         if(!hasBindParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : bindParams)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
@@ -725,9 +713,13 @@ public class NCLBind<T extends NCLElement,
         
         // create the child nodes
         ch_name = NCLElementAttributes.BINDPARAM.toString();
-        nl = element.getElementsByTagName(ch_name);
+        nl = element.getChildNodes();
         for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+            Node nd = nl.item(i);
+            if(!(nd instanceof Element) || !((Element) nd).getTagName().equals(ch_name))
+                continue;
+            
+            Element el = (Element) nd;
             Ep inst = createBindParam();
             addBindParam(inst);
             inst.load(el);
@@ -742,12 +734,15 @@ public class NCLBind<T extends NCLElement,
         
         try{
             // fix the interface reference
-            if(getInterface() != null && (aux = ((NCLArea) getInterface()).getId()) != null){
-                Ei ref = (Ei) ((NCLBody) ((NCLDoc) getDoc()).getBody()).findInterface(aux);
+            if(interface_id != null){
+                Ei ref = (Ei) getComponent().findInterface(interface_id);
                 if(ref == null)
-                    throw new NCLParsingException("Could not find bind interface.");
-                else
-                    setInterface(ref);
+                    ref = (Ei) ((NCLBody) ((NCLDoc) getDoc()).getBody()).findInterface(interface_id);
+                if(ref == null)
+                    throw new NCLParsingException("Could not find bind interface: " + interface_id);
+                
+                interface_id = null;
+                setInterface(ref);
             }
         }
         catch(XMLException ex){
@@ -764,20 +759,24 @@ public class NCLBind<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Epr reference) throws XMLException {
+    public synchronized boolean addReference(Epr reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Epr>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Epr reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Epr reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList<Epr> getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -795,14 +794,14 @@ public class NCLBind<T extends NCLElement,
             if(descriptor instanceof NCLLayoutDescriptor)
                 ((El) descriptor).removeReference(this);
             else{
-                ((R) descriptor).getTarget().removeReference(this);
-                ((R) descriptor).getAlias().removeReference(this);
+                ((R) descriptor).removeReference(this);
             }
         }
         
         role = null;
         component = null;
         interfac = null;
+        interface_id = null;
         descriptor = null;
         
         for (Ep b : bindParams)
@@ -49,6 +49,7 @@ import br.uff.midiacom.ana.util.ElementList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -153,8 +154,7 @@ public class NCLLink<T extends NCLElement,
         }
         else if(xconnector instanceof ExternalReferenceType){
             this.xconnector = xconnector;
-            ((R) xconnector).getTarget().addReference(this);
-            ((R) xconnector).getAlias().addReference(this);
+            ((R) xconnector).addReference(this);
         }
         
         this.xconnector = xconnector;
@@ -164,8 +164,7 @@ public class NCLLink<T extends NCLElement,
             if(aux instanceof NCLCausalConnector)
                 ((Ec) xconnector).removeReference(this);
             else{
-                ((R) xconnector).getTarget().removeReference(this);
-                ((R) xconnector).getAlias().removeReference(this);
+                ((R) xconnector).removeReference(this);
             }
         }
     }
@@ -379,59 +378,43 @@ public class NCLLink<T extends NCLElement,
         if(aux != null && oaux != null){
             if(aux instanceof NCLCausalConnector && oaux instanceof NCLCausalConnector)
                 result &= ((Ec) aux).compare((Ec) oaux);
-            else
+            else if(aux instanceof ExternalReferenceType && oaux instanceof ExternalReferenceType)
                 result &= ((R) aux).equals((R) oaux);
+            else
+                result = false;
         }
 
         ElementList<Eb> otherbin = ((NCLLink) other).getBinds();
-        result &= binds.size() == otherbin.size();
-        for (Eb bin : binds) {
-            try {
-                result &= otherbin.contains(bin);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= binds.compare(otherbin);
         
         ElementList<Ep> otherpar = ((NCLLink) other).getLinkParams();
-        result &= linkParams.size() == otherpar.size();
-        for (Ep par : linkParams) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= linkParams.compare(otherpar);
 
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <link> element and attributes declaration
-        content = space + "<link";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<link");
+        out.append(parseAttributes());
+        out.append(">\n");
         
         // <link> element content
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
 
         // <link> element end declaration
-        content += space + "</link>\n";
-        
-        return content;
+        out.append(space).append("</link>\n");
     }
 
 
@@ -458,11 +441,21 @@ public class NCLLink<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+                if(!(nd instanceof Element))
+                    continue;
 
-                    loadLinkParams(el);
-                    loadBinds(el);
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case LINKPARAM:
+                        loadLinkParams(el);
+                        break;
+                    case BIND:
+                        loadBinds(el);
+                        break;
                 }
             }
         }
@@ -488,20 +481,16 @@ public class NCLLink<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseLinkParams(ident);
-        content += parseBinds(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeLinkParams(out, ident);
+        writeBinds(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -523,9 +512,9 @@ public class NCLLink<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLCausalConnector)
-            return " xconnector='" + ((Ec) aux).getId() + "'";
+            return attribute(NCLElementAttributes.XCONNECTOR, ((Ec) aux).getId());
         else
-            return " xconnector='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.XCONNECTOR, ((R) aux).toString());
     }
     
     
@@ -544,47 +533,37 @@ public class NCLLink<T extends NCLElement,
     }
     
     
-    protected String parseLinkParams(int ident) {
+    protected void writeLinkParams(Appendable out, int ident) throws IOException {
         if(!hasLinkParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : linkParams)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadLinkParams(Element element) throws XMLException {
         //create the link params
-        if(element.getTagName().equals(NCLElementAttributes.LINKPARAM.toString())){
-            Ep inst = createLinkParam();
-            addLinkParam(inst);
-            inst.load(element);
-        }
+        Ep inst = createLinkParam();
+        addLinkParam(inst);
+        inst.load(element);
     }
     
     
-    protected String parseBinds(int ident) {
+    protected void writeBinds(Appendable out, int ident) throws IOException {
         if(!hasBind())
-            return "";
+            return;
         
-        String content = "";
         for(Eb aux : binds)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadBinds(Element element) throws XMLException {
         // create the binds
-        if(element.getTagName().equals(NCLElementAttributes.BIND.toString())){
-            Eb inst = createBind();
-            addBind(inst);
-            inst.load(element);
-        }
+        Eb inst = createBind();
+        addBind(inst);
+        inst.load(element);
     }
 
     
@@ -595,8 +574,7 @@ public class NCLLink<T extends NCLElement,
         if(xconnector instanceof NCLCausalConnector)
             ((Ec)xconnector).removeReference(this);
         else{
-            ((R) xconnector).getTarget().removeReference(this);
-            ((R) xconnector).getAlias().removeReference(this);
+            ((R) xconnector).removeReference(this);
         }
         
         xconnector = null;
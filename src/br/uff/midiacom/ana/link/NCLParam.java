@@ -48,6 +48,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -220,7 +221,7 @@ public abstract class NCLParam<T extends NCLElement,
         if(var != null)
             return var;
         
-        return value;
+        return intern(value);
     }
     
     
@@ -261,24 +262,20 @@ public abstract class NCLParam<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // param element and attributes declaration
-        content = space + "<" + getType();
-        content += parseAttributes();
-        content += "/>\n";
-        
-        return content;
+        out.append(space).append("<").append(getType());
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -315,7 +312,7 @@ public abstract class NCLParam<T extends NCLElement,
     protected String parseName() {
         Ec aux = getName();
         if(aux != null)
-            return " name='" + aux.getName() + "'";
+            return attribute(NCLElementAttributes.NAME, aux.getName());
         else
             return "";
     }
@@ -354,7 +351,7 @@ public abstract class NCLParam<T extends NCLElement,
     protected String parseValue() {
         Object aux = getValue();
         if(aux != null)
-            return " value='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.VALUE, aux.toString());
         else
             return "";
     }
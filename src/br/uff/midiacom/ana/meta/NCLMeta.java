@@ -43,6 +43,7 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -94,7 +95,9 @@ public class NCLMeta<T extends NCLElement>
         if(name == null)
             throw new XMLException("Null name.");
         
+        String aux = this.name;
         this.name = name;
+        notifyAltered(NCLElementAttributes.NAME, aux, name);
     }
 
 
@@ -163,24 +166,20 @@ public class NCLMeta<T extends NCLElement>
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<meta";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<meta");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -216,7 +215,7 @@ public class NCLMeta<T extends NCLElement>
     protected String parseName() {
         String aux = getName();
         if(aux != null)
-            return " name='" + aux + "'";
+            return attribute(NCLElementAttributes.NAME, aux);
         else
             return "";
     }
@@ -236,7 +235,7 @@ public class NCLMeta<T extends NCLElement>
     protected String parseContent() {
         String aux = getContent();
         if(aux != null)
-            return " content='" + aux + "'";
+            return attribute(NCLElementAttributes.CONTENT, aux);
         else
             return "";
     }
@@ -43,6 +43,7 @@ import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -121,24 +122,20 @@ public class NCLMetadata<T extends NCLElement>
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<metadata>\n";
-        content += parseContent();
-        content += space + "</metadata>\n";
-
-        return content;
+        out.append(space).append("<metadata>\n");
+        out.append(parseContent());
+        out.append(space).append("</metadata>\n");
     }
     
     
@@ -52,9 +52,12 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
 import br.uff.midiacom.ana.interfaces.NCLInterface;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.xml.XMLStreamLoader;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.ArrayList;
 
 
 /**
@@ -192,8 +195,7 @@ public class NCLContext<T extends NCLElement,
         if(refer instanceof NCLCompositeNodeElement)
             ((En) refer).addReference(this);
         else if(refer instanceof ExternalReferenceType){
-            ((R) refer).getTarget().addReference(this);
-            ((R) refer).getAlias().addReference(this);
+            ((R) refer).addReference(this);
         }
         
         this.refer = refer;
@@ -203,8 +205,7 @@ public class NCLContext<T extends NCLElement,
             if(aux instanceof NCLCompositeNodeElement)
                 ((En) aux).removeReference(this);
             else{
-                ((R) aux).getTarget().removeReference(this);
-                ((R) aux).getAlias().removeReference(this);
+                ((R) aux).removeReference(this);
             }
         }
     }
@@ -278,35 +279,31 @@ public class NCLContext<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <context> element and attributes declaration
-        content = space + "<context";
-        content += parseAttributes();
+        out.append(space).append("<context");
+        out.append(parseAttributes());
         
         // Test if the media has content
         if(hasMeta() || hasMetadata() || hasPort() || hasProperty() || hasNode() || hasLink()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
             // <context> element end declaration
-            content += space + "</context>\n";
+            out.append(space).append("</context>\n");
         }
         else
-            content += "/>\n";
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -328,33 +325,99 @@ public class NCLContext<T extends NCLElement,
         }
 
         try{
-            // create the child nodes (except ports and links)
+            ArrayList<Element> postponed = new ArrayList<Element>();
+
+            // create the child nodes in a single pass, postponing the
+            // ports and links
+            startLoadTasks();
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadProperties(el);
-                    loadMetas(el);
-                    loadMetadatas(el);
-                    loadMedia(el);
-                    loadContext(el);
-                    loadSwitch(el);
-                }
+                if(nd instanceof Element)
+                    loadChild((Element) nd, postponed);
             }
+            
+            // load the child contexts and switches, in parallel if the
+            // document is loaded by a pool
+            runLoadTasks();
 
             // create the child nodes (ports and links)
-            nl = element.getChildNodes();
-            for(int i=0; i < nl.getLength(); i++){
-                Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+            for(Element el : postponed)
+                loadChild(el, null);
+        }
+        catch(XMLException ex){
+            String aux = getId();
+            if(aux != null)
+                aux = "(" + aux + ")";
+            else
+                aux = "";
+            
+            throw new NCLParsingException("Context" + aux + " > " + ex.getMessage());
+        }
+
+        try{
+            loadRefer(element);
+        }
+        catch(XMLException ex){
+            String aux = getId();
+            if(aux != null)
+                aux = "(" + aux + ")";
+            else
+                aux = "";
+            
+            throw new NCLParsingException("Context" + aux + ":\n" + ex.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Reads the XML code representing the context from a stream of XML events. The
+     * child contexts are also loaded from the stream, while the other children
+     * are loaded as DOM elements. Ports and links are loaded after the nodes,
+     * since they refer to them.
+     * 
+     * @param loader
+     *          stream loader positioned in the start of the element.
+     * @throws NCLParsingException 
+     *          if an error occur while parsing the element.
+     */
+    public void load(XMLStreamLoader loader) throws NCLParsingException {
+        Element element;
+        ArrayList<Element> postponed = new ArrayList<Element>();
+
+        try{
+            element = loader.readAttributes();
+            
+            loadId(element);
+        }
+        catch(XMLException ex){
+            String aux = getId();
+            if(aux != null)
+                aux = "(" + aux + ")";
+            else
+                aux = "";
+            
+            throw new NCLParsingException("Context" + aux + ":\n" + ex.getMessage());
+        }
 
-                    loadPorts(el);
-                    loadLinks(el);
+        try{
+            // create the child nodes (except ports and links)
+            while(loader.nextChild()){
+                String ch_name = loader.getTagName();
+                
+                if(ch_name.equals(NCLElementAttributes.CONTEXT.toString())){
+                    En inst = createContext();
+                    addNode(inst);
+                    ((NCLContext) inst).load(loader);
+                    continue;
                 }
+                
+                loadChild(loader.readElement(), postponed);
             }
+
+            // create the child nodes (ports and links)
+            for(Element el : postponed)
+                loadChild(el, null);
         }
         catch(XMLException ex){
             String aux = getId();
@@ -381,6 +444,58 @@ public class NCLContext<T extends NCLElement,
     }
     
     
+    /**
+     * Creates the child element given. If a list of postponed elements is given,
+     * the ports and links are added to the list instead of being created, since
+     * they refer to other children.
+     *
+     * @param element
+     *          child element.
+     * @param postponed
+     *          list of postponed elements or <i>null</i>.
+     * @throws XMLException
+     *          if an error occur while creating the child element.
+     */
+    protected void loadChild(Element element, ArrayList<Element> postponed) throws XMLException {
+        NCLElementAttributes ch = NCLElementAttributes.getEnumType(element.getTagName());
+        if(ch == null)
+            return;
+
+        switch(ch){
+            case PROPERTY:
+                loadProperties(element);
+                break;
+            case META:
+                loadMetas(element);
+                break;
+            case METADATA:
+                loadMetadatas(element);
+                break;
+            case MEDIA:
+                loadMedia(element);
+                break;
+            case CONTEXT:
+                loadContext(element);
+                break;
+            case SWITCH:
+                loadSwitch(element);
+                break;
+            case PORT:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadPorts(element);
+                break;
+            case LINK:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadLinks(element);
+                break;
+        }
+    }
+    
+    
     protected String parseAttributes() {
         String content = "";
         
@@ -391,24 +506,20 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseMetas(ident);
-        content += parseMetadatas(ident);
-        content += parsePorts(ident);
-        content += parseProperties(ident);
-        content += parseNodes(ident);
-        content += parseLinks(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeMetas(out, ident);
+        writeMetadatas(out, ident);
+        writePorts(out, ident);
+        writeProperties(out, ident);
+        writeNodes(out, ident);
+        writeLinks(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -432,9 +543,9 @@ public class NCLContext<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLCompositeNodeElement)
-            return " refer='" + ((En) aux).getId() + "'";
+            return attribute(NCLElementAttributes.REFER, ((En) aux).getId());
         else
-            return " refer='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.REFER, ((R) aux).toString());
     }
     
     
@@ -444,163 +555,125 @@ public class NCLContext<T extends NCLElement,
         // set the refer (optional)
         att_name = NCLElementAttributes.REFER.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
-//            T ref = (T) new NCLContext(att_var);
-//            setRefer(createContextRef((En) ref));
             refer_id = att_var;
             ((NCLDoc) getDoc()).waitReference(this);
         }
     }
     
     
-    protected String parseMetas(int ident) {
+    protected void writeMetas(Appendable out, int ident) throws IOException {
         if(!hasMeta())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : metas)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMetas(Element element) throws XMLException {
         // create the meta
-        if(element.getTagName().equals(NCLElementAttributes.META.toString())){
-            Em inst = createMeta();
-            addMeta(inst);
-            inst.load(element);
-        }
+        Em inst = createMeta();
+        addMeta(inst);
+        inst.load(element);
     }
     
     
-    protected String parseMetadatas(int ident) {
+    protected void writeMetadatas(Appendable out, int ident) throws IOException {
         if(!hasMetadata())
-            return "";
+            return;
         
-        String content = "";
         for(Emt aux : metadatas)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMetadatas(Element element) throws XMLException {
         // create the metadata
-        if(element.getTagName().equals(NCLElementAttributes.METADATA.toString())){
-            Emt inst = createMetadata();
-            addMetadata(inst);
-            inst.load(element);
-        }
+        Emt inst = createMetadata();
+        addMetadata(inst);
+        inst.load(element);
     }
     
     
-    protected String parsePorts(int ident) {
+    protected void writePorts(Appendable out, int ident) throws IOException {
         if(!hasPort())
-            return "";
+            return;
         
-        String content = "";
         for(Ept aux : ports)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadPorts(Element element) throws XMLException {
         //create the port
-        if(element.getTagName().equals(NCLElementAttributes.PORT.toString())){
-            Ept inst = createPort();
-            addPort(inst);
-            inst.load(element);
-        }
+        Ept inst = createPort();
+        addPort(inst);
+        inst.load(element);
     }
     
     
-    protected String parseProperties(int ident) {
+    protected void writeProperties(Appendable out, int ident) throws IOException {
         if(!hasProperty())
-            return "";
+            return;
         
-        String content = "";
         for(Epp aux : properties)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadProperties(Element element) throws XMLException {
         // create the property
-        if(element.getTagName().equals(NCLElementAttributes.PROPERTY.toString())){
-            Epp inst = createProperty();
-            addProperty(inst);
-            inst.load(element);
-        }
+        Epp inst = createProperty();
+        addProperty(inst);
+        inst.load(element);
     }
     
     
-    protected String parseNodes(int ident) {
+    protected void writeNodes(Appendable out, int ident) throws IOException {
         if(!hasNode())
-            return "";
+            return;
         
-        String content = "";
         for(En aux : nodes)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMedia(Element element) throws XMLException {
         // create the media
-        if(element.getTagName().equals(NCLElementAttributes.MEDIA.toString())){
-            En inst = createMedia();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createMedia();
+        addNode(inst);
+        inst.load(element);
     }
     
     
     protected void loadContext(Element element) throws XMLException {
         // create the context
-        if(element.getTagName().equals(NCLElementAttributes.CONTEXT.toString())){
-            En inst = createContext();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createContext();
+        loadNode(inst, element);
     }
     
     
     protected void loadSwitch(Element element) throws XMLException {
         // create the switch
-        if(element.getTagName().equals(NCLElementAttributes.SWITCH.toString())){
-            En inst = createSwitch();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createSwitch();
+        loadNode(inst, element);
     }
     
     
-    protected String parseLinks(int ident) {
+    protected void writeLinks(Appendable out, int ident) throws IOException {
         if(!hasLink())
-            return "";
+            return;
         
-        String content = "";
         for(El aux : links)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadLinks(Element element) throws XMLException {
         // create the link
-        if(element.getTagName().equals(NCLElementAttributes.LINK.toString())){
-            El inst = createLink();
-            addLink(inst);
-            inst.load(element);
-        }
+        El inst = createLink();
+        addLink(inst);
+        inst.load(element);
     }
     
     
@@ -627,6 +700,11 @@ public class NCLContext<T extends NCLElement,
         if(result != null)
             return result;
         
+        // search in the document index
+        Object indexed = findIndexed(id);
+        if(indexed instanceof NCLInterface)
+            return (Ei) indexed;
+        
         // search in inner nodes
         for(En node : nodes){
             result = (Ei) node.findInterface(id);
@@ -654,6 +732,11 @@ public class NCLContext<T extends NCLElement,
                 return (En) ((En) ((R) aux).getTarget()).findNode(id);
         }
         
+        // search in the document index
+        Object indexed = findIndexed(id);
+        if(indexed instanceof NCLNode)
+            return (En) indexed;
+        
         for(En node : nodes){
             result = (En) node.findNode(id);
             if(result != null)
@@ -671,13 +754,14 @@ public class NCLContext<T extends NCLElement,
         
         try{
             // set the refer (optional)
-            if( getRefer() != null && (aux = ((NCLCompositeNodeElement) getRefer()).getId()) != null){
-                En ref = (En) ((NCLBody) ((NCLDoc) getDoc()).getBody()).findNode(aux);
-                setRefer(ref);
-            }
             if(refer_id != null){
-                En ref = (En) ((NCLBody) ((NCLDoc) getDoc()).getBody()).findNode(refer_id);
-                setRefer(ref);
+                String[] ref = adjustReference(refer_id);
+                Object node = ((NCLBody) ((NCLDoc) getDoc()).getBody()).findNode(ref[0], ref[1]);
+                if(node == null)
+                    throw new NCLParsingException("Could not find node with id: " + refer_id);
+                
+                refer_id = null;
+                setRefer(node);
             }
         }
         catch(XMLException ex){
@@ -702,8 +786,7 @@ public class NCLContext<T extends NCLElement,
             else if(refer instanceof NCLBody)
                 ((NCLBody)refer).removeReference(this);
             else{
-                ((R) refer).getTarget().removeReference(this);
-                ((R) refer).getAlias().removeReference(this);
+                ((R) refer).removeReference(this);
             }
         }
         
@@ -44,8 +44,10 @@ import br.uff.midiacom.ana.interfaces.*;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.descriptor.NCLDescriptor;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.enums.NCLInstanceType;
 import br.uff.midiacom.ana.util.enums.NCLMediaType;
@@ -59,6 +61,7 @@ import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -114,6 +117,7 @@ public class NCLMedia<T extends NCLElement,
     protected NCLMimeType type;
     protected Object descriptor;
     protected Object refer;
+    private String refer_id;
     protected NCLInstanceType instance;
     protected ElementList<Ea> areas;
     protected ElementList<Ep> properties;
@@ -131,7 +135,6 @@ public class NCLMedia<T extends NCLElement,
         super();
         areas = new ElementList<Ea>();
         properties = new ElementList<Ep>();
-        references = new ArrayList<T>();
     }
     
     
@@ -139,7 +142,6 @@ public class NCLMedia<T extends NCLElement,
         super();
         areas = new ElementList<Ea>();
         properties = new ElementList<Ep>();
-        references = new ArrayList<T>();
         setId(id);
     }
     
@@ -339,8 +341,7 @@ public class NCLMedia<T extends NCLElement,
         if(descriptor instanceof NCLLayoutDescriptor)
             ((El) descriptor).addReference(this);
         else if(descriptor instanceof ExternalReferenceType){
-            ((R) descriptor).getTarget().addReference(this);
-            ((R) descriptor).getAlias().addReference(this);
+            ((R) descriptor).addReference(this);
         }
         
         this.descriptor = descriptor;
@@ -350,8 +351,7 @@ public class NCLMedia<T extends NCLElement,
             if(aux instanceof NCLLayoutDescriptor)
                 ((El) aux).removeReference(this);
             else{
-                ((R) aux).getTarget().removeReference(this);
-                ((R) aux).getAlias().removeReference(this);
+                ((R) aux).removeReference(this);
             }
         }
     }
@@ -435,8 +435,7 @@ public class NCLMedia<T extends NCLElement,
         if(refer instanceof NCLMedia)
             ((En) refer).addReference(this);
         else if(refer instanceof ExternalReferenceType){
-            ((R) refer).getTarget().addReference(this);
-            ((R) refer).getAlias().addReference(this);
+            ((R) refer).addReference(this);
         }
         
         this.refer = refer;
@@ -446,8 +445,7 @@ public class NCLMedia<T extends NCLElement,
             if(aux instanceof NCLMedia)
                 ((En) aux).removeReference(this);
             else{
-                ((R) aux).getTarget().removeReference(this);
-                ((R) aux).getAlias().removeReference(this);
+                ((R) aux).removeReference(this);
             }
         }
     }
@@ -922,58 +920,40 @@ public class NCLMedia<T extends NCLElement,
         }
         
         ElementList<Ea> otherare = ((NCLMedia) other).getAreas();
-        result &= areas.size() == otherare.size();
-        for (Ea are : areas) {
-            try {
-                result &= otherare.contains(are);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= areas.compare(otherare);
         
         ElementList<Ep> otherpro = ((NCLMedia) other).getProperties();
-        result &= properties.size() == otherpro.size();
-        for (Ep pro : properties) {
-            try {
-                result &= otherpro.contains(pro);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= properties.compare(otherpro);
         
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <media> element and attributes declaration
-        content = space + "<media";
-        content += parseAttributes();
+        out.append(space).append("<media");
+        out.append(parseAttributes());
         
         // Test if the media has content
         if(hasArea() || hasProperty()){
-            content += ">\n";
+            out.append(">\n");
             
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</media>\n";
+            out.append(space).append("</media>\n");
         }
         else
-            content += "/>\n";
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -1003,11 +983,21 @@ public class NCLMedia<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
 
-                    loadAreas(el);
-                    loadProperties(el);
+                switch(ch){
+                    case AREA:
+                        loadAreas(el);
+                        break;
+                    case PROPERTY:
+                        loadProperties(el);
+                        break;
                 }
             }
         }
@@ -1050,20 +1040,16 @@ public class NCLMedia<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseAreas(ident);
-        content += parseProperties(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeAreas(out, ident);
+        writeProperties(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -1084,7 +1070,7 @@ public class NCLMedia<T extends NCLElement,
     protected String parseSrc() {
         SrcType aux = getSrc();
         if(aux != null)
-            return " src='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.SRC, aux.toString());
         else
             return "";
     }
@@ -1096,14 +1082,14 @@ public class NCLMedia<T extends NCLElement,
         // set the src (optional)
         att_name = NCLElementAttributes.SRC.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setSrc(new SrcType(att_var));
+            setSrc(new SrcType(intern(att_var)));
     }
     
     
     protected String parseType() {
         NCLMimeType aux = getType();
         if(aux != null)
-            return " type='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.TYPE, aux.toString());
         else
             return "";
     }
@@ -1125,9 +1111,9 @@ public class NCLMedia<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLLayoutDescriptor)
-            return " descriptor='" + ((El) aux).getId() + "'";
+            return attribute(NCLElementAttributes.DESCRIPTOR, ((El) aux).getId());
         else
-            return " descriptor='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.DESCRIPTOR, ((R) aux).toString());
     }
     
     
@@ -1150,9 +1136,9 @@ public class NCLMedia<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLMedia)
-            return " refer='" + ((En) aux).getId() + "'";
+            return attribute(NCLElementAttributes.REFER, ((En) aux).getId());
         else
-            return " refer='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.REFER, ((R) aux).toString());
     }
     
     
@@ -1162,8 +1148,7 @@ public class NCLMedia<T extends NCLElement,
         // set the refer (optional)
         att_name = NCLElementAttributes.REFER.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
-            En ref = (En) new NCLMedia(att_var);
-            setRefer(ref);
+            refer_id = att_var;
             ((NCLDoc) getDoc()).waitReference(this);
         }
     }
@@ -1172,7 +1157,7 @@ public class NCLMedia<T extends NCLElement,
     protected String parseInstance() {
         NCLInstanceType aux = getInstance();
         if(aux != null)
-            return " instance='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.INSTANCE, aux.toString());
         else
             return "";
     }
@@ -1188,47 +1173,37 @@ public class NCLMedia<T extends NCLElement,
     }
     
     
-    protected String parseAreas(int ident) {
+    protected void writeAreas(Appendable out, int ident) throws IOException {
         if(!hasArea())
-            return "";
+            return;
         
-        String content = "";
         for(Ea aux : areas)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadAreas(Element element) throws XMLException {
         //create the areas
-        if(element.getTagName().equals(NCLElementAttributes.AREA.toString())){
-            Ea inst = createArea();
-            addArea(inst);
-            inst.load(element);
-        }
+        Ea inst = createArea();
+        addArea(inst);
+        inst.load(element);
     }
     
     
-    protected String parseProperties(int ident) {
+    protected void writeProperties(Appendable out, int ident) throws IOException {
         if(!hasProperty())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : properties)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadProperties(Element element) throws XMLException {
         // create the properties
-        if(element.getTagName().equals(NCLElementAttributes.PROPERTY.toString())){
-            Ep inst = createProperty();
-            addProperty(inst);
-            inst.load(element);
-        }
+        Ep inst = createProperty();
+        addProperty(inst);
+        inst.load(element);
     }
     
     
@@ -1278,9 +1253,14 @@ public class NCLMedia<T extends NCLElement,
         
         try{
             // fix the refer
-            if(getRefer() != null && (aux = ((En) getRefer()).getId()) != null){
-                En ref = (En) ((NCLBody) ((NCLDoc) getDoc()).getBody()).findNode(aux);
-                setRefer(ref);
+            if(refer_id != null){
+                String[] ref = adjustReference(refer_id);
+                Object node = ((NCLBody) ((NCLDoc) getDoc()).getBody()).findNode(ref[0], ref[1]);
+                if(node == null)
+                    throw new NCLParsingException("Could not find node with id: " + refer_id);
+                
+                refer_id = null;
+                setRefer(node);
             }
         }
         catch(XMLException ex){
@@ -1297,20 +1277,24 @@ public class NCLMedia<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
@@ -1323,8 +1307,7 @@ public class NCLMedia<T extends NCLElement,
             if(descriptor instanceof NCLLayoutDescriptor)
                 ((El)descriptor).removeReference(this);
             else if(descriptor instanceof ExternalReferenceType){
-                ((R) descriptor).getTarget().removeReference(this);
-                ((R) descriptor).getAlias().removeReference(this);
+                ((R) descriptor).removeReference(this);
             }
         }
         
@@ -1332,8 +1315,7 @@ public class NCLMedia<T extends NCLElement,
             if(refer instanceof NCLMedia)
                 ((NCLMedia)refer).removeReference(this);
             else if(refer instanceof ExternalReferenceType){
-                ((R) refer).getTarget().removeReference(this);
-                ((R) refer).getAlias().removeReference(this);
+                ((R) refer).removeReference(this);
             }
         }
         
@@ -1341,6 +1323,7 @@ public class NCLMedia<T extends NCLElement,
         type = null;
         descriptor = null;
         refer = null;
+        refer_id = null;
         instance = null;
         
         for(Ea a : areas)
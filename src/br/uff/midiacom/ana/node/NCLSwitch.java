@@ -42,8 +42,10 @@ import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.interfaces.NCLSwitchPort;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.interfaces.NCLInterface;
 import br.uff.midiacom.ana.rule.NCLBindRule;
@@ -53,10 +55,12 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLLoadTask;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -110,12 +114,14 @@ public class NCLSwitch<T extends NCLElement,
         implements NCLNode<T, En, Ei>, PostReferenceElement {
 
     protected Object refer;
+    private String refer_id;
     protected En defaultComponent;
     protected ElementList<Ep> ports;
     protected ElementList<Eb> binds;
     protected ElementList<En> nodes;
     
     protected ArrayList<T> references;
+    protected transient ArrayList<NCLLoadTask> loadTasks;
 
 
     /**
@@ -129,7 +135,6 @@ public class NCLSwitch<T extends NCLElement,
         ports = new ElementList<Ep>();
         binds = new ElementList<Eb>();
         nodes = new ElementList<En>();
-        references = new ArrayList<T>();
     }
     
     
@@ -138,7 +143,6 @@ public class NCLSwitch<T extends NCLElement,
         ports = new ElementList<Ep>();
         binds = new ElementList<Eb>();
         nodes = new ElementList<En>();
-        references = new ArrayList<T>();
         setId(id);
     }
     
@@ -215,8 +219,7 @@ public class NCLSwitch<T extends NCLElement,
         if(refer instanceof NCLSwitch)
             ((En) refer).addReference(this);
         else if(refer instanceof ExternalReferenceType){
-            ((R) refer).getTarget().addReference(this);
-            ((R) refer).getAlias().addReference(this);
+            ((R) refer).addReference(this);
         }
         
         this.refer = refer;
@@ -226,8 +229,7 @@ public class NCLSwitch<T extends NCLElement,
             if(aux instanceof NCLSwitch)
                 ((En) aux).removeReference(this);
             else{
-                ((R) aux).getTarget().removeReference(this);
-                ((R) aux).getAlias().removeReference(this);
+                ((R) aux).removeReference(this);
             }
         }
     }
@@ -700,65 +702,40 @@ public class NCLSwitch<T extends NCLElement,
         }
         
         ElementList<En> othernod = ((NCLSwitch) other).getNodes();
-        result &= nodes.size() == othernod.size();
-        for (En nod : nodes) {
-            try {
-                result &= othernod.contains(nod);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= nodes.compare(othernod);
         
         ElementList<Ep> otherpor = ((NCLSwitch) other).getPorts();
-        result &= ports.size() == otherpor.size();
-        for (Ep por : ports) {
-            try {
-                result &= otherpor.contains(por);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= ports.compare(otherpor);
         
         ElementList<Eb> otherbin = ((NCLSwitch) other).getBinds();
-        result &= binds.size() == otherbin.size();
-        for (Eb bin : binds) {
-            try {
-                result &= otherbin.contains(bin);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= binds.compare(otherbin);
         
         return result;
     }
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<switch";
-        content += parseAttributes();
+        out.append(space).append("<switch");
+        out.append(parseAttributes());
 
         if(hasPort() || hasBind() || hasNode()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</switch>\n";
+            out.append(space).append("</switch>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -780,31 +757,25 @@ public class NCLSwitch<T extends NCLElement,
         }
 
         try{
-            // create the child nodes (except ports and binds)
+            ArrayList<Element> postponed = new ArrayList<Element>();
+
+            // create the child nodes in a single pass, postponing the
+            // ports, binds and defaultComponent
+            startLoadTasks();
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadMedia(el);
-                    loadContext(el);
-                    loadSwitch(el);
-                }
+                if(nd instanceof Element)
+                    loadChild((Element) nd, postponed);
             }
+            
+            // load the child contexts and switches, in parallel if the
+            // document is loaded by a pool
+            runLoadTasks();
 
             // create the child nodes (ports, binds and defaultComponent)
-            nl = element.getChildNodes();
-            for(int i=0; i < nl.getLength(); i++){
-                Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadPorts(el);
-                    loadBinds(el);
-                    loadDefaultComponent(el);
-                }
-            }
+            for(Element el : postponed)
+                loadChild(el, null);
         }
         catch(XMLException ex){
             String aux = getId();
@@ -831,6 +802,55 @@ public class NCLSwitch<T extends NCLElement,
     }
     
     
+    /**
+     * Creates the child element given. If a list of postponed elements is given,
+     * the ports, binds and defaultComponent are added to the list instead of
+     * being created, since they refer to other children.
+     *
+     * @param element
+     *          child element.
+     * @param postponed
+     *          list of postponed elements or <i>null</i>.
+     * @throws XMLException
+     *          if an error occur while creating the child element.
+     */
+    protected void loadChild(Element element, ArrayList<Element> postponed) throws XMLException {
+        NCLElementAttributes ch = NCLElementAttributes.getEnumType(element.getTagName());
+        if(ch == null)
+            return;
+
+        switch(ch){
+            case MEDIA:
+                loadMedia(element);
+                break;
+            case CONTEXT:
+                loadContext(element);
+                break;
+            case SWITCH:
+                loadSwitch(element);
+                break;
+            case SWITCHPORT:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadPorts(element);
+                break;
+            case BINDRULE:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadBinds(element);
+                break;
+            case DEFAULTCOMPONENT:
+                if(postponed != null)
+                    postponed.add(element);
+                else
+                    loadDefaultComponent(element);
+                break;
+        }
+    }
+    
+    
     protected String parseAttributes() {
         String content = "";
         
@@ -841,22 +861,18 @@ public class NCLSwitch<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parsePorts(ident);
-        content += parseBinds(ident);
-        content += parseDefaultComponent(ident);
-        content += parseNodes(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writePorts(out, ident);
+        writeBinds(out, ident);
+        writeDefaultComponent(out, ident);
+        writeNodes(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -880,9 +896,9 @@ public class NCLSwitch<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLSwitch)
-            return " refer='" + ((En) aux).getId() + "'";
+            return attribute(NCLElementAttributes.REFER, ((En) aux).getId());
         else
-            return " refer='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.REFER, ((R) aux).toString());
     }
     
     
@@ -892,70 +908,58 @@ public class NCLSwitch<T extends NCLElement,
         // set the refer (optional)
         att_name = NCLElementAttributes.REFER.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
-            En ref = (En) new NCLSwitch(att_var);
-            setRefer(ref);
+            refer_id = att_var;
             ((NCLDoc) getDoc()).waitReference(this);
         }
     }
     
     
-    protected String parsePorts(int ident) {
+    protected void writePorts(Appendable out, int ident) throws IOException {
         if(!hasPort())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : ports)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadPorts(Element element) throws XMLException {
         //create the switchPort
-        if(element.getTagName().equals(NCLElementAttributes.SWITCHPORT.toString())){
-            Ep inst = createSwitchPort();
-            addPort(inst);
-            inst.load(element);
-        }
+        Ep inst = createSwitchPort();
+        addPort(inst);
+        inst.load(element);
     }
     
     
-    protected String parseBinds(int ident) {
+    protected void writeBinds(Appendable out, int ident) throws IOException {
         if(!hasBind())
-            return "";
+            return;
         
-        String content = "";
         for(Eb aux : binds)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadBinds(Element element) throws XMLException {
         // create the bindRule
-        if(element.getTagName().equals(NCLElementAttributes.BINDRULE.toString())){
-            Eb inst = createBindRule();
-            addBind(inst);
-            inst.load(element);
-        }
+        Eb inst = createBindRule();
+        addBind(inst);
+        inst.load(element);
     }
     
     
-    protected String parseDefaultComponent(int ident) {
+    protected void writeDefaultComponent(Appendable out, int ident) throws IOException {
         En aux = getDefaultComponent();
         if(aux == null)
-            return "";
+            return;
         
-        String space = "";
+        String space;
         if(ident < 0)
             ident = 0;
         
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
-        return space + "<defaultComponent component='" + aux.getId() + "'/>\n";
+        out.append(space).append("<defaultComponent component='").append(aux.getId()).append("'/>\n");
     }
     
     
@@ -963,53 +967,40 @@ public class NCLSwitch<T extends NCLElement,
         String att_name, att_var;
         
         // create the defaultComponent
-        if(element.getTagName().equals(NCLElementAttributes.DEFAULTCOMPONENT.toString())){
-            att_name = NCLElementAttributes.COMPONENT.toString();
-            if(!(att_var = element.getAttribute(att_name)).isEmpty())
-                setDefaultComponent(nodes.get(att_var));
-        }
+        att_name = NCLElementAttributes.COMPONENT.toString();
+        if(!(att_var = element.getAttribute(att_name)).isEmpty())
+            setDefaultComponent(nodes.get(att_var));
     }
     
     
-    protected String parseNodes(int ident) {
+    protected void writeNodes(Appendable out, int ident) throws IOException {
         if(!hasNode())
-            return "";
+            return;
         
-        String content = "";
         for(En aux : nodes)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadMedia(Element element) throws XMLException {
         // create the media
-        if(element.getTagName().equals(NCLElementAttributes.MEDIA.toString())){
-            En inst = createMedia();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createMedia();
+        addNode(inst);
+        inst.load(element);
     }
     
     
     protected void loadContext(Element element) throws XMLException {
         // create the context
-        if(element.getTagName().equals(NCLElementAttributes.CONTEXT.toString())){
-            En inst = createContext();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createContext();
+        loadNode(inst, element);
     }
     
     
     protected void loadSwitch(Element element) throws XMLException {
         // create the switch
-        if(element.getTagName().equals(NCLElementAttributes.SWITCH.toString())){
-            En inst = createSwitch();
-            addNode(inst);
-            inst.load(element);
-        }
+        En inst = createSwitch();
+        loadNode(inst, element);
     }
     
     
@@ -1031,6 +1022,11 @@ public class NCLSwitch<T extends NCLElement,
         if(result != null)
             return result;
         
+        // search in the document index
+        Object indexed = findIndexed(id);
+        if(indexed instanceof NCLInterface)
+            return (Ei) indexed;
+        
         // search in inner nodes
         for(En node : nodes){
             result = (Ei) node.findInterface(id);
@@ -1058,6 +1054,11 @@ public class NCLSwitch<T extends NCLElement,
                 return (En) ((En) ((R) aux).getTarget()).findNode(id);
         }
         
+        // search in the document index
+        Object indexed = findIndexed(id);
+        if(indexed instanceof NCLNode)
+            return (En) indexed;
+        
         for(En node : nodes){
             result = (En) node.findNode(id);
             if(result != null)
@@ -1075,9 +1076,14 @@ public class NCLSwitch<T extends NCLElement,
         
         try{
             // set the refer (optional)
-            if((aux = ((En) getRefer()).getId()) != null){
-                En ref = (En) ((NCLBody) ((NCLDoc) getDoc()).getBody()).findNode(aux);
-                setRefer(ref);
+            if(refer_id != null){
+                String[] ref = adjustReference(refer_id);
+                Object node = ((NCLBody) ((NCLDoc) getDoc()).getBody()).findNode(ref[0], ref[1]);
+                if(node == null)
+                    throw new NCLParsingException("Could not find node with id: " + refer_id);
+                
+                refer_id = null;
+                setRefer(node);
             }
         }
         catch(XMLException ex){
@@ -1094,20 +1100,24 @@ public class NCLSwitch<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
@@ -1120,8 +1130,7 @@ public class NCLSwitch<T extends NCLElement,
             if(refer instanceof NCLSwitch)
                 ((NCLSwitch)refer).removeReference(this);
             else if(refer instanceof ExternalReferenceType){
-                ((R) refer).getTarget().removeReference(this);
-                ((R) refer).getAlias().removeReference(this);
+                ((R) refer).removeReference(this);
             }
         }
         
@@ -1129,6 +1138,7 @@ public class NCLSwitch<T extends NCLElement,
             defaultComponent.removeReference(this);
         
         refer = null;
+        refer_id = null;
         defaultComponent = null;
         
         for(Ep p : ports)
@@ -1200,4 +1210,61 @@ public class NCLSwitch<T extends NCLElement,
     protected En createSwitch() throws XMLException {
         return (En) new NCLSwitch();
     }
+    
+    
+    /**
+     * Starts collecting the child contexts and switches to be loaded in
+     * parallel, if the document is loaded by a pool.
+     */
+    protected void startLoadTasks() {
+        if(getLoadPool() != null)
+            loadTasks = new ArrayList<NCLLoadTask>();
+        else
+            loadTasks = null;
+    }
+    
+    
+    /**
+     * Adds a child node to this element and loads it. If the children are
+     * being collected to be loaded in parallel, the node is only loaded by
+     * <i>runLoadTasks</i>. Its id is set before it is added, so the node
+     * is not taken as equal to the other nodes not loaded yet.
+     * 
+     * @param node
+     *          child node.
+     * @param element
+     *          DOM element with the node content.
+     * @throws XMLException 
+     *          if an error occur while loading the node.
+     */
+    protected void loadNode(En node, Element element) throws XMLException {
+        if(loadTasks == null){
+            addNode(node);
+            node.load(element);
+            return;
+        }
+        
+        String id = element.getAttribute(NCLElementAttributes.ID.toString());
+        if(!id.isEmpty())
+            ((NCLIdentifiableElementPrototype) node).setId(id);
+        
+        addNode(node);
+        loadTasks.add(new NCLLoadTask(node, element));
+    }
+    
+    
+    /**
+     * Loads in parallel the child nodes collected since <i>startLoadTasks</i>
+     * and waits until all of them are loaded.
+     * 
+     * @throws XMLException 
+     *          if an error occur while loading a node.
+     */
+    protected void runLoadTasks() throws XMLException {
+        ArrayList<NCLLoadTask> aux = loadTasks;
+        loadTasks = null;
+        
+        if(aux != null)
+            NCLLoadTask.invokeAll(getLoadPool(), aux);
+    }
 }
@@ -38,6 +38,8 @@
 package br.uff.midiacom.ana.region;
 
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
@@ -47,7 +49,9 @@ import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -133,14 +137,12 @@ public class NCLRegion<T extends NCLElement,
     public NCLRegion() {
         super();
         regions = new ElementList<Er>();
-        references = new ArrayList<T>();
     }
     
     
     public NCLRegion(String id) throws XMLException {
         super();
         regions = new ElementList<Er>();
-        references = new ArrayList<T>();
         setId(id);
     }
     
@@ -941,46 +943,34 @@ public class NCLRegion<T extends NCLElement,
             result &= aux.equals(((NCLRegion) other).getzIndex());
         
         ElementList<Er> otherreg = ((NCLRegion) other).getRegions();
-        
-        result &= regions.size() == otherreg.size();
-        for (Er reg : regions) {
-            try {
-                result &= otherreg.contains(reg);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= regions.compare(otherreg);
         
         return result;
     }
     
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<region";
-        content += parseAttributes();
+        out.append(space).append("<region");
+        out.append(parseAttributes());
         
         if(hasRegion()) {
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</region>\n";
+            out.append(space).append("</region>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -1039,19 +1029,15 @@ public class NCLRegion<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseRegions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeRegions(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -1075,9 +1061,9 @@ public class NCLRegion<T extends NCLElement,
             return "";
         
         if(aux instanceof Integer)
-            return " left='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.LEFT, aux.toString());
         else
-            return " left='" + aux.toString() + "%'";
+            return attribute(NCLElementAttributes.LEFT, aux.toString() + "%");
             
     }
     
@@ -1098,9 +1084,9 @@ public class NCLRegion<T extends NCLElement,
             return "";
         
         if(aux instanceof Integer)
-            return " right='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.RIGHT, aux.toString());
         else
-            return " right='" + aux.toString() + "%'";
+            return attribute(NCLElementAttributes.RIGHT, aux.toString() + "%");
     }
     
     
@@ -1120,9 +1106,9 @@ public class NCLRegion<T extends NCLElement,
             return "";
         
         if(aux instanceof Integer)
-            return " top='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.TOP, aux.toString());
         else
-            return " top='" + aux.toString() + "%'";
+            return attribute(NCLElementAttributes.TOP, aux.toString() + "%");
     }
     
     
@@ -1142,9 +1128,9 @@ public class NCLRegion<T extends NCLElement,
             return "";
         
         if(aux instanceof Integer)
-            return " bottom='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.BOTTOM, aux.toString());
         else
-            return " bottom='" + aux.toString() + "%'";
+            return attribute(NCLElementAttributes.BOTTOM, aux.toString() + "%");
     }
     
     
@@ -1164,9 +1150,9 @@ public class NCLRegion<T extends NCLElement,
             return "";
         
         if(aux instanceof Integer)
-            return " height='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.HEIGHT, aux.toString());
         else
-            return " height='" + aux.toString() + "%'";
+            return attribute(NCLElementAttributes.HEIGHT, aux.toString() + "%");
     }
     
     
@@ -1186,9 +1172,9 @@ public class NCLRegion<T extends NCLElement,
             return "";
         
         if(aux instanceof Integer)
-            return " width='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.WIDTH, aux.toString());
         else
-            return " width='" + aux.toString() + "%'";
+            return attribute(NCLElementAttributes.WIDTH, aux.toString() + "%");
     }
     
     
@@ -1205,7 +1191,7 @@ public class NCLRegion<T extends NCLElement,
     protected String parsezIndex() {
         Integer aux = getzIndex();
         if(aux != null)
-            return " zIndex='" + aux + "'";
+            return attribute(NCLElementAttributes.ZINDEX, aux);
         else
             return "";
     }
@@ -1229,7 +1215,7 @@ public class NCLRegion<T extends NCLElement,
     protected String parseTitle() {
         String aux = getTitle();
         if(aux != null)
-            return " title='" + aux + "'";
+            return attribute(NCLElementAttributes.TITLE, aux);
         else
             return "";
     }
@@ -1245,15 +1231,12 @@ public class NCLRegion<T extends NCLElement,
     }
     
     
-    protected String parseRegions(int ident) {
+    protected void writeRegions(Appendable out, int ident) throws IOException {
         if(!hasRegion())
-            return "";
+            return;
         
-        String content = "";
         for(Er aux : regions)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
@@ -1263,12 +1246,13 @@ public class NCLRegion<T extends NCLElement,
         
         // create the child nodes
         ch_name = NCLElementAttributes.REGION.toString();
-        nl = element.getElementsByTagName(ch_name);
+        nl = element.getChildNodes();
         for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
-            if(!el.getParentNode().equals(element))
+            Node nd = nl.item(i);
+            if(!(nd instanceof Element) || !((Element) nd).getTagName().equals(ch_name))
                 continue;
-
+            
+            Element el = (Element) nd;
             Er inst = createRegion();
             addRegion(inst);
             inst.load(el);
@@ -1290,6 +1274,11 @@ public class NCLRegion<T extends NCLElement,
         if(getId().equals(id))
             return (Er) this;
         
+        // search in the document index
+        Object indexed = findIndexed(id);
+        if(indexed instanceof NCLRegion)
+            return (Er) indexed;
+        
         for(Er region : regions){
             result = (Er) region.findRegion(id);
             if(result != null)
@@ -1302,20 +1291,24 @@ public class NCLRegion<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList<T> getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
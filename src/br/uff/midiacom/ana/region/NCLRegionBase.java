@@ -51,6 +51,8 @@ import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.ArrayList;
 
 
 /**
@@ -177,8 +179,7 @@ public class NCLRegionBase<T extends NCLElement,
         if(region instanceof NCLRegion)
             ((Er) region).addReference(this);
         else if(region instanceof ExternalReferenceType){
-            ((R) region).getTarget().addReference(this);
-            ((R) region).getAlias().addReference(this);
+            ((R) region).addReference(this);
         }
         
         this.parent_region = region;
@@ -188,8 +189,7 @@ public class NCLRegionBase<T extends NCLElement,
             if(aux instanceof NCLRegion)
                 ((Er) aux).removeReference(this);
             else{
-                ((R) aux).getTarget().removeReference(this);
-                ((R) aux).getAlias().removeReference(this);
+                ((R) aux).removeReference(this);
             }
         }
     }
@@ -350,16 +350,13 @@ public class NCLRegionBase<T extends NCLElement,
         boolean result = true;
         ElementList<Er> otherreg = ((NCLRegionBase) other).getRegions();
         
+        String id = getId();
+        if(id != null)
+            result &= id.equals(((NCLRegionBase) other).getId());
+        
         result &= super.compareImports((NCLBase) other);
         
-        result &= regions.size() == otherreg.size();
-        for (Er reg : regions) {
-            try {
-                result &= otherreg.contains(reg);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= regions.compare(otherreg);
         
         if(device != null)
             result &= getDevice().compare(((NCLRegionBase) other).getDevice());
@@ -369,31 +366,27 @@ public class NCLRegionBase<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<regionBase";
-        content += parseAttributes();
+        out.append(space).append("<regionBase");
+        out.append(parseAttributes());
         
         if(hasRegion() || hasImportBase()) {
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</regionBase>\n";
+            out.append(space).append("</regionBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -416,18 +409,34 @@ public class NCLRegionBase<T extends NCLElement,
         }
         
         try{
-            loadRegions(element);
-            
-            // create the importBases
-            nl = element.getElementsByTagName(NCLElementAttributes.IMPORTBASE.toString());
+            ArrayList<Element> postponed = new ArrayList<Element>();
+
+            // create the child nodes in a single pass, postponing the
+            // importBases, since they refer to the regions
+            nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-                    
-                    loadImportBases(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case REGION:
+                        loadRegions(el);
+                        break;
+                    case IMPORTBASE:
+                        postponed.add(el);
+                        break;
                 }
             }
+
+            // create the child nodes (importBases)
+            for(Element el : postponed)
+                loadImportBases(el);
         }
         catch(XMLException ex){
             String aux = getId();
@@ -465,20 +474,16 @@ public class NCLRegionBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseRegions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeRegions(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -497,7 +502,7 @@ public class NCLRegionBase<T extends NCLElement,
     protected String parseDevice() {
         NCLDevice aux = getDevice();
         if(aux != null)
-            return " device='" + aux + "'";
+            return attribute(NCLElementAttributes.DEVICE, aux);
         else
             return "";
     }
@@ -519,9 +524,9 @@ public class NCLRegionBase<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLRegion)
-            return " region='" + ((Er) aux).getId() + "'";
+            return attribute(NCLElementAttributes.REGION, ((Er) aux).getId());
         else
-            return " region='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.REGION, ((R) aux).toString());
     }
     
     
@@ -537,34 +542,20 @@ public class NCLRegionBase<T extends NCLElement,
     }
     
     
-    protected String parseRegions(int ident) {
+    protected void writeRegions(Appendable out, int ident) throws IOException {
         if(!hasRegion())
-            return "";
+            return;
         
-        String content = "";
         for(Er aux : regions)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadRegions(Element element) throws XMLException {
-        String ch_name;
-        NodeList nl;
-        
-        // create the region child nodes
-        ch_name = NCLElementAttributes.REGION.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
-            if(!el.getParentNode().equals(element))
-                continue;
-
-            Er inst = createRegion();
-            addRegion(inst);
-            inst.load(el);
-        }
+        // create the region
+        Er inst = createRegion();
+        addRegion(inst);
+        inst.load(element);
     }
     
     
@@ -582,6 +573,11 @@ public class NCLRegionBase<T extends NCLElement,
         Object result;
         
         if(alias == null){
+            // search in the document index
+            result = findIndexed(id);
+            if(result instanceof NCLRegion)
+                return result;
+            
             for(Er region : regions){
                 result = region.findRegion(id);
                 if(result != null)
@@ -0,0 +1,393 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.reuse;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+
+/**
+ * Class that represents a cache of the documents imported by the elements
+ * <i>importBase</i> and <i>importNCL</i>. The same cache may be set to many
+ * documents, so a document imported by all of them is read only once.
+ * 
+ * <br/>
+ * 
+ * The documents are identified by their canonical URI and, for local files,
+ * by the file modification time and size, so a file changed after being
+ * cached is read again. The cache keeps a maximum number of documents and
+ * discards the least recently used one when it is full.
+ * 
+ * <br/>
+ * 
+ * The cache may work in two modes:
+ * <ul>
+ *  <li><i>not shared</i> - the cache keeps the content of the imported
+ *                          documents. Each import parses its own copy of the
+ *                          document from memory, without reading the
+ *                          document again.</li>
+ *  <li><i>shared</i> - the cache keeps the parsed imported documents and the
+ *                      same document object is given to all imports. The
+ *                      document is then read-only: it is not attached to the
+ *                      importing documents, its global variables are not
+ *                      merged with the ones of the importing documents and
+ *                      its elements do not record the elements of the
+ *                      importing documents referring to them.</li>
+ * </ul>
+ * 
+ * A document requested by many threads at the same time is read only once:
+ * the threads wait for the one reading it.
+ * 
+ * The cache may be extended to change the way the documents are read, by
+ * overriding the methods <i>read</i> and <i>parse</i>.
+ */
+public class NCLDocumentCache {
+
+    private final int maxEntries;
+    private final boolean shared;
+    private final LinkedHashMap<Key, Object> entries;
+    private final HashMap<Key, FutureTask<Object>> loading;
+    private long hits;
+    private long misses;
+
+
+    /**
+     * Document cache constructor.
+     * 
+     * @param maxEntries
+     *          maximum number of documents kept by the cache.
+     * @param shared
+     *          true if the parsed documents must be shared between the
+     *          importing documents and false if each import must parse its own
+     *          copy of the document.
+     * @throws IllegalArgumentException
+     *          if the maximum number of documents is not positive.
+     */
+    public NCLDocumentCache(int maxEntries, boolean shared) {
+        if(maxEntries <= 0)
+            throw new IllegalArgumentException("Invalid maximum number of entries: " + maxEntries);
+        
+        this.maxEntries = maxEntries;
+        this.shared = shared;
+        this.entries = new LinkedHashMap<Key, Object>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > NCLDocumentCache.this.maxEntries;
+            }
+        };
+        this.loading = new HashMap<Key, FutureTask<Object>>();
+    }
+
+
+    /**
+     * Returns the maximum number of documents kept by the cache.
+     * 
+     * @return 
+     *          maximum number of documents.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+
+    /**
+     * Returns true if the parsed documents are shared between the importing
+     * documents.
+     * 
+     * @return 
+     *          true if the documents are shared.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+
+    /**
+     * Returns the number of documents found in the cache.
+     * 
+     * @return 
+     *          number of cache hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+
+    /**
+     * Returns the number of documents not found in the cache, that had to be
+     * read.
+     * 
+     * @return 
+     *          number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+
+    /**
+     * Returns the number of documents in the cache.
+     * 
+     * @return 
+     *          number of documents in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Removes all documents from the cache. The hit and miss counters are not
+     * changed.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+
+    /**
+     * Returns the document with the URI given. If the cache is shared, the
+     * document returned is the one kept in the cache or, if it is not in the
+     * cache, the document given loaded from the URI. Otherwise, the document
+     * given is loaded from the content kept in the cache.
+     * 
+     * @param uri
+     *          absolute URI of the document.
+     * @param doc
+     *          empty document used to load the document content, if needed.
+     * @return 
+     *          document representing the document with the URI given.
+     * @throws XMLException 
+     *          if an error occur while reading or parsing the document.
+     */
+    public NCLDoc load(final URI uri, final NCLDoc doc) throws XMLException {
+        final Key key = createKey(uri);
+        Object entry;
+        FutureTask<Object> task = null;
+        boolean reader = false;
+        
+        synchronized(this){
+            entry = entries.get(key);
+            if(entry == null){
+                task = loading.get(key);
+                if(task == null){
+                    task = new FutureTask<Object>(new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            return readEntry(key, doc);
+                        }
+                    });
+                    loading.put(key, task);
+                    reader = true;
+                }
+            }
+            
+            if(reader)
+                misses++;
+            else
+                hits++;
+        }
+        
+        if(reader){
+            // the entry is cached before the task is dropped, so no thread
+            // misses both
+            task.run();
+            try{
+                entry = waitFor(task);
+            }finally{
+                synchronized(this){
+                    if(entry != null)
+                        entries.put(key, entry);
+                    loading.remove(key);
+                }
+            }
+        }
+        else if(entry == null)
+            entry = waitFor(task);
+        
+        if(shared)
+            return (NCLDoc) entry;
+        
+        doc.setDocumentCache(this);
+        parse(doc, (byte[]) entry, key.uri);
+        return doc;
+    }
+    
+    
+    /**
+     * Reads the entry kept for a document: the document loaded, if the cache
+     * is shared, or its content.
+     */
+    private Object readEntry(Key key, NCLDoc doc) throws XMLException {
+        if(!shared)
+            return read(key.uri);
+        
+        doc.setDocumentCache(this);
+        doc.loadXML(key.uri);
+        doc.setReadOnly();
+        return doc;
+    }
+    
+    
+    /**
+     * Waits for the reading of a document and returns its entry.
+     */
+    private Object waitFor(FutureTask<Object> task) throws XMLException {
+        try{
+            return task.get();
+        }catch(ExecutionException ex){
+            Throwable cause = ex.getCause();
+            if(cause instanceof XMLException)
+                throw (XMLException) cause;
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if(cause instanceof Error)
+                throw (Error) cause;
+            throw new NCLParsingException("Could not read document: " + cause.getMessage());
+        }catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new NCLParsingException("Interrupted while waiting for the document to be read.");
+        }
+    }
+
+
+    /**
+     * Reads the content of a document.
+     * 
+     * @param uri
+     *          canonical URI of the document.
+     * @return 
+     *          array with the document content.
+     * @throws XMLException 
+     *          if an error occur while reading the document.
+     */
+    protected byte[] read(URI uri) throws XMLException {
+        try{
+            if("file".equals(uri.getScheme()))
+                return Files.readAllBytes(new File(uri).toPath());
+            
+            InputStream input = uri.toURL().openStream();
+            try{
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while((n = input.read(buffer)) > 0)
+                    out.write(buffer, 0, n);
+                return out.toByteArray();
+            }finally{
+                input.close();
+            }
+        }catch(IOException ex){
+            throw new NCLParsingException("Could not read document " + uri + ": " + ex.getMessage());
+        }
+    }
+
+
+    /**
+     * Loads a document from its content.
+     * 
+     * @param doc
+     *          empty document to be loaded.
+     * @param content
+     *          array with the document content.
+     * @param uri
+     *          canonical URI of the document.
+     * @throws XMLException 
+     *          if an error occur while parsing the document.
+     */
+    protected void parse(NCLDoc doc, byte[] content, URI uri) throws XMLException {
+        doc.loadXML(content, uri);
+    }
+
+
+    private Key createKey(URI uri) throws XMLException {
+        if(!"file".equals(uri.getScheme()))
+            return new Key(uri.normalize(), 0, -1);
+        
+        try{
+            File f = new File(uri).getCanonicalFile();
+            return new Key(f.toURI(), f.lastModified(), f.length());
+        }catch(IOException ex){
+            throw new NCLParsingException("Could not find document " + uri + ": " + ex.getMessage());
+        }
+    }
+
+
+    private static class Key {
+
+        private final URI uri;
+        private final long modified;
+        private final long size;
+
+
+        public Key(URI uri, long modified, long size) {
+            this.uri = uri;
+            this.modified = modified;
+            this.size = size;
+        }
+
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Key))
+                return false;
+            
+            Key other = (Key) obj;
+            return uri.equals(other.uri) && modified == other.modified && size == other.size;
+        }
+
+
+        @Override
+        public int hashCode() {
+            return uri.hashCode() * 31 + (int) (modified ^ size);
+        }
+    }
+}
@@ -41,15 +41,17 @@ import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
-import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -94,7 +96,6 @@ public abstract class NCLImport<T extends NCLElement,
      */
     public NCLImport() {
         super();
-        references = new ArrayList<T>();
     }
 
 
@@ -115,7 +116,7 @@ public abstract class NCLImport<T extends NCLElement,
             throw new XMLException("Empty alias string");
         
         String aux = this.alias;
-        this.alias = alias;
+        this.alias = intern(alias);
         notifyAltered(NCLElementAttributes.ALIAS, aux, alias);
     }
 
@@ -174,9 +175,13 @@ public abstract class NCLImport<T extends NCLElement,
      * @param importedDoc
      *          document imported.
      * @throws XMLException 
-     *          if the import element does not import a document.
+     *          if the import element does not import a document or if the
+     *          document is read-only.
      */
     public void setImportedDoc(Ed importedDoc) throws XMLException {
+        if(importedDoc.isReadOnly())
+            throw new XMLException("A read-only document can not be attached.");
+        
         this.importedDoc = importedDoc;
         importedDoc.setParent(getDoc());
     }
@@ -210,22 +215,18 @@ public abstract class NCLImport<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<" + getType();
-        content += parseAttributes();
-        content += "/>\n";
+        space = indent(ident);
 
-        return content;
+        out.append(space).append("<").append(getType());
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -241,20 +242,31 @@ public abstract class NCLImport<T extends NCLElement,
             URI path = null;
             try{
                 Ed aux = createDoc();
-                String sep = File.separator;
-                String loc = ((Ed) getDoc()).getLocation() + sep;
-                if(sep.equals("\\"))
-                    loc = loc.replace('\\', '/');
+                aux.setSymbolTable(((Ed) getDoc()).getSymbolTable());
+                URI base = ((Ed) getDoc()).getBaseURI();
+                if(base != null)
+                    path = base.resolve(getDocumentURI().toString());
+                else
+                    path = new URI(getDocumentURI().toString());
+                
+                NCLDocumentCache cache = ((Ed) getDoc()).getDocumentCache();
+                if(cache != null && path.isAbsolute())
+                    aux = (Ed) cache.load(path, aux);
+                else
+                    aux.loadXML(path);
                 
-                URI base = new URI(loc);
-                path = base.resolve(getDocumentURI().toString());
-                aux.loadXML(new File(path.toString()));
-                setImportedDoc(aux);
-                ((Ed) getDoc()).mergeGlobalVariables(aux);
+                if(aux.isReadOnly()){
+                    // a shared document is read-only, so it is not attached
+                    importedDoc = aux;
+                }
+                else{
+                    setImportedDoc(aux);
+                    ((Ed) getDoc()).mergeGlobalVariables(aux);
+                }
             }catch(XMLException e){
                 throw new NCLParsingException("Error loading document: " + e.getMessage());
             }catch(URISyntaxException e){
-                throw new NCLParsingException("Could not find document in location: " + path.toString() + e.getMessage());
+                throw new NCLParsingException("Could not find document in location: " + getDocumentURI() + e.getMessage());
             }
         }
         catch(XMLException ex){
@@ -284,7 +296,7 @@ public abstract class NCLImport<T extends NCLElement,
     protected String parseAlias() {
         String aux = getAlias();
         if(aux != null)
-            return " alias='" + aux + "'";
+            return attribute(NCLElementAttributes.ALIAS, aux);
         else
             return "";
     }
@@ -305,7 +317,7 @@ public abstract class NCLImport<T extends NCLElement,
     protected String parseDocumentURI() {
         SrcType aux = getDocumentURI();
         if(aux != null)
-            return " documentURI='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.DOCUMENTURI, aux.toString());
         else
             return "";
     }
@@ -317,7 +329,7 @@ public abstract class NCLImport<T extends NCLElement,
         // set the documentURI (required)
         att_name = NCLElementAttributes.DOCUMENTURI.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setDocumentURI(new SrcType(att_var));
+            setDocumentURI(new SrcType(intern(att_var)));
         else
             throw new NCLParsingException("Could not find " + att_name + " attribute.");
     }
@@ -336,20 +348,24 @@ public abstract class NCLImport<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -201,7 +201,7 @@ public class NCLImportBase<T extends NCLElement,
     protected String parseRegion() {
         Er aux = getRegion();
         if(aux != null)
-            return " region='" + aux.getId() + "'";
+            return attribute(NCLElementAttributes.REGION, aux.getId());
         else
             return "";
     }
@@ -225,7 +225,7 @@ public class NCLImportBase<T extends NCLElement,
     protected String parseBaseId() {
         String aux = getBaseId();
         if(aux != null)
-            return " baseId='" + aux + "'";
+            return attribute(NCLElementAttributes.BASEID, aux);
         else
             return "";
     }
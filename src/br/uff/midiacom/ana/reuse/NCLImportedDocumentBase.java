@@ -37,10 +37,12 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.reuse;
 
+import br.uff.midiacom.ana.NCLBody;
 import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.connector.NCLCausalConnector;
 import br.uff.midiacom.ana.descriptor.NCLLayoutDescriptor;
+import br.uff.midiacom.ana.node.NCLNode;
 import br.uff.midiacom.ana.region.NCLRegion;
 import br.uff.midiacom.ana.rule.NCLTestRule;
 import br.uff.midiacom.ana.transition.NCLTransition;
@@ -53,7 +55,9 @@ import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -221,45 +225,34 @@ public class NCLImportedDocumentBase<T extends NCLElement,
         if(aux != null)
             result &= aux.equals(((NCLImportedDocumentBase) other).getId());
         
-        result &= imports.size() == otherimp.size();
-        for (Ei imp : imports) {
-            try {
-                result &= otherimp.contains(imp);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= imports.compare(otherimp);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<importedDocumentBase";
-        content += parseAttributes();
+        out.append(space).append("<importedDocumentBase");
+        out.append(parseAttributes());
 
         if(hasImportNCL()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</importedDocumentBase>\n";
+            out.append(space).append("</importedDocumentBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -290,19 +283,15 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportNCL(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportNCL(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -318,15 +307,12 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
     
     
-    protected String parseImportNCL(int ident) {
+    protected void writeImportNCL(Appendable out, int ident) throws IOException {
         if(!hasImportNCL())
-            return "";
+            return;
         
-        String content = "";
         for(Ei aux : imports)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
@@ -336,9 +322,13 @@ public class NCLImportedDocumentBase<T extends NCLElement,
         
         // create the child nodes
         ch_name = NCLElementAttributes.IMPORTNCL.toString();
-        nl = element.getElementsByTagName(ch_name);
+        nl = element.getChildNodes();
         for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+            Node nd = nl.item(i);
+            if(!(nd instanceof Element) || !((Element) nd).getTagName().equals(ch_name))
+                continue;
+            
+            Element el = (Element) nd;
             Ei inst = createImportNCL();
             addImportNCL(inst);
             inst.load(el);
@@ -494,6 +484,35 @@ public class NCLImportedDocumentBase<T extends NCLElement,
         
         return null;
     }
+    
+    
+    /**
+     * Searches for a node inside the body of the imported documents.
+     * 
+     * @param alias
+     *          alias of the importNCL the imports the node.
+     * @param id
+     *          id of the node to be found.
+     * @return 
+     *          node or null if no node was found.
+     */
+    public Object findNode(String alias, String id) throws XMLException {
+        for(Ei imp : imports){
+            if(imp.getAlias().equals(alias)){
+                NCLDoc d = (NCLDoc) imp.getImportedDoc();
+                if(d == null || d.getBody() == null)
+                    return null;
+                
+                NCLNode ref = ((NCLBody) d.getBody()).findNode(id);
+                if(ref == null)
+                    return null;
+                
+                return createExternalRef(imp, ref);
+            }
+        }
+        
+        return null;
+    }
 
     
     @Override
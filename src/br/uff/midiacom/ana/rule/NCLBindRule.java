@@ -50,6 +50,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLBindConstituent;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -171,8 +172,7 @@ public class NCLBindRule<T extends NCLElement,
         if(rule instanceof NCLTestRule)
             ((Er) rule).addReference(this);
         else if(rule instanceof ExternalReferenceType){
-            ((R) rule).getTarget().addReference(this);
-            ((R) rule).getAlias().addReference(this);
+            ((R) rule).addReference(this);
         }
         
         this.rule = rule;
@@ -182,8 +182,7 @@ public class NCLBindRule<T extends NCLElement,
             if(aux instanceof NCLTestRule)
                 ((Er) aux).removeReference(this);
             else{
-                ((R) aux).getTarget().removeReference(this);
-                ((R) aux).getAlias().removeReference(this);
+                ((R) aux).removeReference(this);
             }
         }
     }
@@ -237,23 +236,18 @@ public class NCLBindRule<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<bindRule";
-        content += parseAttributes();
-        content += "/>\n";
-
-
-        return content;
+        out.append(space).append("<bindRule");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -285,9 +279,9 @@ public class NCLBindRule<T extends NCLElement,
             return "";
         
         if(aux instanceof NCLTestRule)
-            return " rule='" + ((Er) aux).getId() + "'";
+            return attribute(NCLElementAttributes.RULE, ((Er) aux).getId());
         else
-            return " rule='" + ((R) aux).toString() + "'";
+            return attribute(NCLElementAttributes.RULE, ((R) aux).toString());
     }
     
     
@@ -309,7 +303,7 @@ public class NCLBindRule<T extends NCLElement,
     protected String parseConstituent() {
         Ec aux = getConstituent();
         if(aux != null)
-            return " constituent='" + aux.getId() + "'";
+            return attribute(NCLElementAttributes.CONSTITUENT, aux.getId());
         else
             return "";
     }
@@ -349,8 +343,7 @@ public class NCLBindRule<T extends NCLElement,
         if(rule instanceof NCLTestRule)
             ((Er) rule).removeReference(this);
         else if(rule instanceof ExternalReferenceType){
-            ((R) rule).getTarget().removeReference(this);
-            ((R) rule).getAlias().removeReference(this);
+            ((R) rule).removeReference(this);
         }
         
         constituent = null;
@@ -46,10 +46,13 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -104,14 +107,12 @@ public class NCLCompositeRule<T extends NCLElement,
     public NCLCompositeRule() {
         super();
         rules = new ElementList<Et>();
-        references = new ArrayList<Eb>();
     }
     
     
     public NCLCompositeRule(String id) throws XMLException {
         super();
         rules = new ElementList<Et>();
-        references = new ArrayList<Eb>();
         setId(id);
     }
     
@@ -327,42 +328,31 @@ public class NCLCompositeRule<T extends NCLElement,
             result &= aux.equals(((NCLCompositeRule) other).getOperator());
         
         ElementList<Et> otherpar = ((NCLCompositeRule) other).getRules();
-        result &= rules.size() == otherpar.size();
-        for (Et rul : rules) {
-            try {
-                result &= otherpar.contains(rul);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= rules.compare(otherpar);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<compositeRule";
-        content += parseAttributes();
-        content += ">\n";
-
-        content += parseElements(ident + 1);
+        out.append(space).append("<compositeRule");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += "</compositeRule>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append("</compositeRule>\n");
     }
 
 
@@ -389,11 +379,21 @@ public class NCLCompositeRule<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadRules(el);
-                    loadCompositeRules(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case RULE:
+                        loadRules(el);
+                        break;
+                    case COMPOSITERULE:
+                        loadCompositeRules(el);
+                        break;
                 }
             }
         }
@@ -419,19 +419,15 @@ public class NCLCompositeRule<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseRules(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeRules(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -452,7 +448,7 @@ public class NCLCompositeRule<T extends NCLElement,
     protected String parseOperator() {
         NCLOperator aux = getOperator();
         if(aux != null)
-            return " operator='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.OPERATOR, aux.toString());
         else
             return "";
     }
@@ -470,35 +466,28 @@ public class NCLCompositeRule<T extends NCLElement,
     }
     
     
-    protected String parseRules(int ident) {
+    protected void writeRules(Appendable out, int ident) throws IOException {
         if(!hasRule())
-            return "";
+            return;
         
-        String content = "";
         for(Et aux : rules)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadRules(Element element) throws XMLException {
         //create the rules
-        if(element.getTagName().equals(NCLElementAttributes.RULE.toString())){
-            Et inst = createRule(); 
-            addRule(inst);
-            inst.load(element);
-        }
+        Et inst = createRule(); 
+        addRule(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompositeRules(Element element) throws XMLException {
         // create the compositeRules
-        if(element.getTagName().equals(NCLElementAttributes.COMPOSITERULE.toString())){
-            Et inst = createCompositeRule();
-            addRule(inst);
-            inst.load(element);
-        }
+        Et inst = createCompositeRule();
+        addRule(inst);
+        inst.load(element);
     }
     
     
@@ -521,20 +510,24 @@ public class NCLCompositeRule<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Eb>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
@@ -46,8 +46,11 @@ import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -93,13 +96,11 @@ public class NCLRule<T extends NCLElement,
      */
     public NCLRule() {
         super();
-        references = new ArrayList<Eb>();
     }
     
     
     public NCLRule(String id) throws XMLException {
         super();
-        references = new ArrayList<Eb>();
         setId(id);
     }
 
@@ -210,7 +211,7 @@ public class NCLRule<T extends NCLElement,
             throw new XMLException("Null value.");
         
         String aux = this.value;
-        this.value = value;
+        this.value = intern(value);
         notifyAltered(NCLElementAttributes.VALUE, aux, value);
     }
 
@@ -252,24 +253,20 @@ public class NCLRule<T extends NCLElement,
     
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<rule";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<rule");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -308,7 +305,7 @@ public class NCLRule<T extends NCLElement,
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -329,7 +326,7 @@ public class NCLRule<T extends NCLElement,
     protected String parseVar() {
         Ev aux = getVar();
         if(aux != null)
-            return " var='" + aux.parse(0) + "'";
+            return attribute(NCLElementAttributes.VAR, aux.parse(0));
         else
             return "";
     }
@@ -351,7 +348,7 @@ public class NCLRule<T extends NCLElement,
     protected String parseComparator() {
         NCLComparator aux = getComparator();
         if(aux != null)
-            return " comparator='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.COMPARATOR, aux.toString());
         else
             return "";
     }
@@ -372,7 +369,7 @@ public class NCLRule<T extends NCLElement,
     protected String parseValue() {
         String aux = getValue();
         if(aux != null)
-            return " value='" + aux + "'";
+            return attribute(NCLElementAttributes.VALUE, aux);
         else
             return "";
     }
@@ -419,20 +416,24 @@ public class NCLRule<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Eb>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
@@ -54,6 +54,7 @@ import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -271,47 +272,40 @@ public class NCLRuleBase<T extends NCLElement,
         boolean result = true;
         ElementList<Et> otherrul = ((NCLRuleBase) other).getRules();
         
+        String id = getId();
+        if(id != null)
+            result &= id.equals(((NCLRuleBase) other).getId());
+        
         result &= super.compareImports((NCLBase) other);
         
-        result &= rules.size() == otherrul.size();
-        for (Et rul : rules) {
-            try {
-                result &= otherrul.contains(rul);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= rules.compare(otherrul);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<ruleBase";
-        content += parseAttributes();
+        out.append(space).append("<ruleBase");
+        out.append(parseAttributes());
 
         if(hasImportBase() || hasRule()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</ruleBase>\n";
+            out.append(space).append("</ruleBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -331,12 +325,24 @@ public class NCLRuleBase<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadImportBases(el);
-                    loadRules(el);
-                    loadCompositeRules(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case IMPORTBASE:
+                        loadImportBases(el);
+                        break;
+                    case RULE:
+                        loadRules(el);
+                        break;
+                    case COMPOSITERULE:
+                        loadCompositeRules(el);
+                        break;
                 }
             }
         }
@@ -355,20 +361,16 @@ public class NCLRuleBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseRules(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeRules(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -384,35 +386,28 @@ public class NCLRuleBase<T extends NCLElement,
     }
     
     
-    protected String parseRules(int ident) {
+    protected void writeRules(Appendable out, int ident) throws IOException {
         if(!hasRule())
-            return "";
+            return;
         
-        String content = "";
         for(Et aux : rules)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadRules(Element element) throws XMLException {
         //create the rules
-        if(element.getTagName().equals(NCLElementAttributes.RULE.toString())){
-            Et inst = createRule();
-            addRule(inst);
-            inst.load(element);
-        }
+        Et inst = createRule();
+        addRule(inst);
+        inst.load(element);
     }
     
     
     protected void loadCompositeRules(Element element) throws XMLException {
         // create the compositeRules
-        if(element.getTagName().equals(NCLElementAttributes.COMPOSITERULE.toString())){
-            Et inst = createCompositeRule();
-            addRule(inst);
-            inst.load(element);
-        }
+        Et inst = createCompositeRule();
+        addRule(inst);
+        inst.load(element);
     }
     
     
@@ -431,6 +426,11 @@ public class NCLRuleBase<T extends NCLElement,
         Object result;
         
         if(alias == null){
+            // search in the document index
+            result = findIndexed(id);
+            if(result instanceof NCLTestRule)
+                return result;
+            
             for(Et rule : rules){
                 result = rule.findRule(id);
                 if(result != null)
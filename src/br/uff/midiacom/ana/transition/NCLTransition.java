@@ -40,6 +40,8 @@ package br.uff.midiacom.ana.transition;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.enums.NCLTransitionDirection;
 import br.uff.midiacom.ana.util.enums.NCLTransitionSubtype;
@@ -48,9 +50,11 @@ import br.uff.midiacom.ana.util.enums.NCLColor;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.descriptor.NCLDescriptor;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLAttributeStore;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -87,17 +91,7 @@ public class NCLTransition<T extends NCLElement,
         extends NCLIdentifiableElementPrototype<T>
         implements NCLElement<T>, ReferredElement<Ed> {
 
-    protected NCLTransitionType type;
-    protected NCLTransitionSubtype subtype;
-    protected TimeType dur;
-    protected Double startProgress;
-    protected Double endProgress;
-    protected NCLTransitionDirection direction;
-    protected NCLColor fadeColor;
-    protected Integer horRepeat;
-    protected Integer vertRepeat;
-    protected Integer borderWidth;
-    protected Object borderColor;
+    protected Object[] attributes;
     
     protected ArrayList<Ed> references;
 
@@ -110,13 +104,11 @@ public class NCLTransition<T extends NCLElement,
      */
     public NCLTransition() {
         super();
-        references = new ArrayList<Ed>();
     }
     
     
     public NCLTransition(String id) throws XMLException {
         super();
-        references = new ArrayList<Ed>();
         setId(id);
     }
     
@@ -126,7 +118,7 @@ public class NCLTransition<T extends NCLElement,
         if(id == null)
             throw new XMLException("Null id String");
         
-        this.id = id;
+        super.setId(id);
     }
 
 
@@ -145,8 +137,8 @@ public class NCLTransition<T extends NCLElement,
         if(type == null)
             throw new XMLException("Null type.");
         
-        NCLTransitionType aux = this.type;
-        this.type = type;
+        NCLTransitionType aux = getType();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.TYPE, type);
         notifyAltered(NCLElementAttributes.TYPE, aux, type);
     }
 
@@ -162,7 +154,7 @@ public class NCLTransition<T extends NCLElement,
      *          defined.
      */
     public NCLTransitionType getType() {
-        return type;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.TYPE);
     }
 
 
@@ -182,8 +174,8 @@ public class NCLTransition<T extends NCLElement,
      *          already defined.
      */
     public void setSubtype(NCLTransitionSubtype subtype) throws XMLException {
-        NCLTransitionSubtype aux = this.subtype;
-        this.subtype = subtype;
+        NCLTransitionSubtype aux = getSubtype();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.SUBTYPE, subtype);
         notifyAltered(NCLElementAttributes.SUBTYPE, aux, subtype);
     }
 
@@ -204,7 +196,7 @@ public class NCLTransition<T extends NCLElement,
      *          not defined.
      */
     public NCLTransitionSubtype getSubtype() {
-        return subtype;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.SUBTYPE);
     }
 
 
@@ -221,8 +213,8 @@ public class NCLTransition<T extends NCLElement,
      *          erase a duration already defined.
      */
     public void setDur(TimeType dur) throws XMLException {
-        TimeType aux = this.dur;
-        this.dur = dur;
+        TimeType aux = getDur();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DUR, dur);
         notifyAltered(NCLElementAttributes.DUR, aux, dur);
     }
 
@@ -240,7 +232,7 @@ public class NCLTransition<T extends NCLElement,
      *          the attribute is not defined.
      */
     public TimeType getDur() {
-        return dur;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.DUR);
     }
 
 
@@ -270,8 +262,8 @@ public class NCLTransition<T extends NCLElement,
         if(startProgress != null & (startProgress < 0 || startProgress > 1))
             throw new XMLException("Invalid progress value.");
         
-        Double aux = this.startProgress;
-        this.startProgress = startProgress;
+        Double aux = getStartProgress();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.STARTPROGRESS, startProgress);
         notifyAltered(NCLElementAttributes.STARTPROGRESS, aux, startProgress);
     }
 
@@ -296,7 +288,7 @@ public class NCLTransition<T extends NCLElement,
      *          defined.
      */
     public Double getStartProgress() {
-        return startProgress;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.STARTPROGRESS);
     }
 
 
@@ -326,8 +318,8 @@ public class NCLTransition<T extends NCLElement,
         if(endProgress != null & (endProgress < 0 || endProgress > 1))
             throw new XMLException("Invalid progress value.");
         
-        Double aux = this.endProgress;
-        this.endProgress = endProgress;
+        Double aux = getEndProgress();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.ENDPROGRESS, endProgress);
         notifyAltered(NCLElementAttributes.ENDPROGRESS, aux, endProgress);
     }
 
@@ -352,7 +344,7 @@ public class NCLTransition<T extends NCLElement,
      *          defined.
      */
     public Double getEndProgress() {
-        return endProgress;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.ENDPROGRESS);
     }
 
 
@@ -376,8 +368,8 @@ public class NCLTransition<T extends NCLElement,
      *          <i>NCLTransitionDirection</i>.
      */
     public void setDirection(NCLTransitionDirection direction) throws XMLException {
-        NCLTransitionDirection aux = this.direction;
-        this.direction = direction;
+        NCLTransitionDirection aux = getDirection();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.DIRECTION, direction);
         notifyAltered(NCLElementAttributes.DIRECTION, aux, direction);
     }
 
@@ -402,7 +394,7 @@ public class NCLTransition<T extends NCLElement,
      *          not defined.
      */
     public NCLTransitionDirection getDirection() {
-        return direction;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.DIRECTION);
     }
 
 
@@ -426,8 +418,8 @@ public class NCLTransition<T extends NCLElement,
      *          <i>NCLColor</i> or <i>null</i> to erase a color already defined.
      */
     public void setFadeColor(NCLColor fadeColor) throws XMLException {
-        NCLColor aux = this.fadeColor;
-        this.fadeColor = fadeColor;
+        NCLColor aux = getFadeColor();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.FADECOLOR, fadeColor);
         notifyAltered(NCLElementAttributes.FADECOLOR, aux, fadeColor);
     }
 
@@ -451,7 +443,7 @@ public class NCLTransition<T extends NCLElement,
      *          <i>NCLColor</i> or <i>null</i> if the attribute is not defined.
      */
     public NCLColor getFadeColor() {
-        return fadeColor;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.FADECOLOR);
     }
 
 
@@ -469,8 +461,8 @@ public class NCLTransition<T extends NCLElement,
      *          <i>null</i> to erase a repetition already defined.
      */
     public void setHorRepeat(Integer horRepeat) throws XMLException {
-        Integer aux = this.horRepeat;
-        this.horRepeat = horRepeat;
+        Integer aux = getHorRepeat();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.HORREPEAT, horRepeat);
         notifyAltered(NCLElementAttributes.HORREPEAT, aux, horRepeat);
     }
 
@@ -488,7 +480,7 @@ public class NCLTransition<T extends NCLElement,
      *          <i>null</i> if the attribute is not defined.
      */
     public Integer getHorRepeat() {
-        return horRepeat;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.HORREPEAT);
     }
 
 
@@ -506,8 +498,8 @@ public class NCLTransition<T extends NCLElement,
      *          <i>null</i> to erase a repetition already defined.
      */
     public void setVertRepeat(Integer vertRepeat) throws XMLException {
-        Integer aux = this.vertRepeat;
-        this.vertRepeat = vertRepeat;
+        Integer aux = getVertRepeat();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.VERTREPEAT, vertRepeat);
         notifyAltered(NCLElementAttributes.VERTREPEAT, aux, vertRepeat);
     }
 
@@ -525,7 +517,7 @@ public class NCLTransition<T extends NCLElement,
      *          <i>null</i> if the attribute is not defined.
      */
     public Integer getVertRepeat() {
-        return vertRepeat;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.VERTREPEAT);
     }
 
 
@@ -553,8 +545,8 @@ public class NCLTransition<T extends NCLElement,
         if(borderWidth != null && borderWidth < 0)
             throw new XMLException("Negative border width.");
         
-        Integer aux = this.borderWidth;
-        this.borderWidth = borderWidth;
+        Integer aux = getBorderWidth();
+        attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BORDERWIDTH, borderWidth);
         notifyAltered(NCLElementAttributes.BORDERWIDTH, aux, borderWidth);
     }
 
@@ -577,7 +569,7 @@ public class NCLTransition<T extends NCLElement,
      *          the attribute is not defined.
      */
     public Integer getBorderWidth() {
-        return borderWidth;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.BORDERWIDTH);
     }
 
 
@@ -603,10 +595,10 @@ public class NCLTransition<T extends NCLElement,
      *          a color already defined.
      */
     public void setBorderColor(Object borderColor) throws XMLException {
-        Object aux = this.borderColor;
+        Object aux = getBorderColor();
         
         if(borderColor == null){
-            this.borderColor = borderColor;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BORDERCOLOR, borderColor);
             notifyAltered(NCLElementAttributes.BORDERCOLOR, aux, borderColor);
             return;
         }
@@ -617,12 +609,12 @@ public class NCLTransition<T extends NCLElement,
                 throw new XMLException("Empty delay String");
             
             if(!value.equals("blend"))
-                this.borderColor = NCLColor.getEnumType(value);
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BORDERCOLOR, NCLColor.getEnumType(value));
             else
-                this.borderColor = borderColor;
+                attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BORDERCOLOR, borderColor);
         }
         else if(borderColor instanceof NCLColor)
-            this.borderColor = borderColor;
+            attributes = NCLAttributeStore.set(attributes, NCLElementAttributes.BORDERCOLOR, borderColor);
         else
             throw new XMLException("Wrong borderColor type.");
         
@@ -651,7 +643,7 @@ public class NCLTransition<T extends NCLElement,
      *          attribute is not defined.
      */
     public Object getBorderColor() {
-        return borderColor;
+        return NCLAttributeStore.get(attributes, NCLElementAttributes.BORDERCOLOR);
     }
 
 
@@ -692,25 +684,21 @@ public class NCLTransition<T extends NCLElement,
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
         Object aux;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<transition";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<transition");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -765,7 +753,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -786,7 +774,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseType() {
         NCLTransitionType aux = getType();
         if(aux != null)
-            return " type='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.TYPE, aux.toString());
         else
             return "";
     }
@@ -807,7 +795,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseSubtype() {
         NCLTransitionSubtype aux = getSubtype();
         if(aux != null)
-            return " subtype='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.SUBTYPE, aux.toString());
         else
             return "";
     }
@@ -826,7 +814,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseDur() {
         TimeType aux = getDur();
         if(aux != null)
-            return " dur='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.DUR, aux.toString());
         else
             return "";
     }
@@ -845,7 +833,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseStartProgress() {
         Double aux = getStartProgress();
         if(aux != null)
-            return " startProgress='" + aux + "'";
+            return attribute(NCLElementAttributes.STARTPROGRESS, aux);
         else
             return "";
     }
@@ -870,7 +858,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseEndProgress() {
         Double aux = getEndProgress();
         if(aux != null)
-            return " endProgress='" + aux + "'";
+            return attribute(NCLElementAttributes.ENDPROGRESS, aux);
         else
             return "";
     }
@@ -894,7 +882,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseDirection() {
         NCLTransitionDirection aux = getDirection();
         if(aux != null)
-            return " direction='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.DIRECTION, aux.toString());
         else
             return "";
     }
@@ -913,7 +901,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseFadeColor() {
         NCLColor aux = getFadeColor();
         if(aux != null)
-            return " fadeColor='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.FADECOLOR, aux.toString());
         else
             return "";
     }
@@ -932,7 +920,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseHorRepeat() {
         Integer aux = getHorRepeat();
         if(aux != null)
-            return " horRepeat='" + aux + "'";
+            return attribute(NCLElementAttributes.HORREPEAT, aux);
         else
             return "";
     }
@@ -956,7 +944,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseVertRepeat() {
         Integer aux = getVertRepeat();
         if(aux != null)
-            return " vertRepeat='" + aux + "'";
+            return attribute(NCLElementAttributes.VERTREPEAT, aux);
         else
             return "";
     }
@@ -980,7 +968,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseBorderWidth() {
         Integer aux = getBorderWidth();
         if(aux != null)
-            return " borderWidth='" + aux + "'";
+            return attribute(NCLElementAttributes.BORDERWIDTH, aux);
         else
             return "";
     }
@@ -1004,7 +992,7 @@ public class NCLTransition<T extends NCLElement,
     protected String parseBorderColor() {
         Object aux = getBorderColor();
         if(aux != null)
-            return " borderColor='" + aux.toString() + "'";
+            return attribute(NCLElementAttributes.BORDERCOLOR, aux.toString());
         else
             return "";
     }
@@ -1022,20 +1010,24 @@ public class NCLTransition<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Ed reference) throws XMLException {
+    public synchronized boolean addReference(Ed reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<Ed>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Ed reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(Ed reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
 
@@ -1043,16 +1035,6 @@ public class NCLTransition<T extends NCLElement,
     public void clean() throws XMLException {
         setParent(null);
         
-        type = null;
-        subtype = null;
-        dur = null;
-        startProgress = null;
-        endProgress = null;
-        direction = null;
-        fadeColor = null;
-        horRepeat = null;
-        vertRepeat = null;
-        borderWidth = null;
-        borderColor = null;
+        attributes = null;
     }
 }
@@ -52,6 +52,7 @@ import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -258,47 +259,40 @@ public class NCLTransitionBase<T extends NCLElement,
         boolean result = true;
         ElementList<Et> othertra = ((NCLTransitionBase) other).getTransitions();
         
+        String id = getId();
+        if(id != null)
+            result &= id.equals(((NCLTransitionBase) other).getId());
+        
         result &= super.compareImports((NCLBase) other);
         
-        result &= transitions.size() == othertra.size();
-        for (Et tra : transitions) {
-            try {
-                result &= othertra.contains(tra);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= transitions.compare(othertra);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<transitionBase";
-        content += parseAttributes();
+        out.append(space).append("<transitionBase");
+        out.append(parseAttributes());
 
         if(hasImportBase() || hasTransition()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</transitionBase>\n";
+            out.append(space).append("</transitionBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -318,11 +312,21 @@ public class NCLTransitionBase<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadImportBases(el);
-                    loadTransitions(el);
+                if(!(nd instanceof Element))
+                    continue;
+
+                Element el = (Element) nd;
+                NCLElementAttributes ch = NCLElementAttributes.getEnumType(el.getTagName());
+                if(ch == null)
+                    continue;
+
+                switch(ch){
+                    case IMPORTBASE:
+                        loadImportBases(el);
+                        break;
+                    case TRANSITION:
+                        loadTransitions(el);
+                        break;
                 }
             }
         }
@@ -341,20 +345,16 @@ public class NCLTransitionBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseTransitions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeTransitions(out, ident);
     }
     
     
     protected String parseId() {
         String aux = getId();
         if(aux != null)
-            return " id='" + aux + "'";
+            return attribute(NCLElementAttributes.ID, aux);
         else
             return "";
     }
@@ -370,25 +370,20 @@ public class NCLTransitionBase<T extends NCLElement,
     }
     
     
-    protected String parseTransitions(int ident) {
+    protected void writeTransitions(Appendable out, int ident) throws IOException {
         if(!hasTransition())
-            return "";
+            return;
         
-        String content = "";
         for(Et aux : transitions)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadTransitions(Element element) throws XMLException {
         //create the transitions
-        if(element.getTagName().equals(NCLElementAttributes.TRANSITION.toString())){
-            Et inst = createTransition();
-            addTransition(inst);
-            inst.load(element);
-        }
+        Et inst = createTransition();
+        addTransition(inst);
+        inst.load(element);
     }
     
     
@@ -40,7 +40,6 @@ package br.uff.midiacom.ana.util;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.Vector;
 
 
 /**
@@ -73,16 +72,20 @@ public class ArrayType implements Serializable {
      *          if one value of the array is negative.
      */
     public ArrayType(String values) throws XMLException {
-        Vector<Double> array = new Vector<Double>();
-        while(values.contains(",")){
-            int index = values.indexOf(",");
-            array.add(new Double(values.substring(0, index)));
-            values = values.substring(index + 1);
+        int size = 1;
+        for(int i = values.indexOf(','); i >= 0; i = values.indexOf(',', i + 1))
+            size++;
+
+        double[] a = new double[size];
+        int begin = 0;
+        for(int k = 0; k < size; k++){
+            int end = values.indexOf(',', begin);
+            if(end < 0)
+                end = values.length();
+
+            a[k] = ValueParser.parseDouble(values, begin, end);
+            begin = end + 1;
         }
-        array.add(new Double(values));
-        double[] a = new double[array.size()];
-        for(int k = 0; k < array.size(); k++)
-            a[k] = (double) array.elementAt(k);
 
         setValues(a);
     }
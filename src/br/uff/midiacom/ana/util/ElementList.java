@@ -39,18 +39,39 @@ package br.uff.midiacom.ana.util;
 
 import br.uff.midiacom.ana.util.xml.XMLElement;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 
 /**
  * This class represents a list of xml elements. This element list does not
  * stores null elements or repeated elements.
+ * 
+ * <br/>
+ * 
+ * When the list grows beyond a few elements, it keeps an index of its elements
+ * by identification (id or name), so getting, adding, removing and verifying
+ * an element do not need to scan the list. Elements without an identification
+ * are kept apart and are still compared one by one. The elements indexed by
+ * a list inform it when their identification changes, so only the entry of
+ * that element is updated. An element removed from an indexed list leaves a
+ * hole in its position, so the elements after it are not shifted. The holes
+ * are closed at once when they are many or when an element is accessed by
+ * its position. A list that is not being modified may be read by many threads
+ * at the same time.
  *
  * @param <T>
  *          the type of element stored in the list.
@@ -58,14 +79,43 @@ import java.util.List;
 public class ElementList<T extends XMLElement>
         implements Iterable<T>, Serializable {
 
+    private static final int INDEX_THRESHOLD = 8;
+    
     protected List<T> elements;
+    
+    private transient volatile Index<T> index;
+    // removed positions of the list, only present while it is indexed
+    private transient volatile int holes;
 
 
     /**
-     * Element list constructor.
+     * Element list constructor. The list of elements is only created when the
+     * first element is added.
      */
     public ElementList() {
-        elements = new ArrayList<T>();
+        elements = Collections.emptyList();
+    }
+    
+    
+    /**
+     * Informs the list that the identification of one of its elements, its id
+     * or name, has changed. Only the index entry of that element is updated.
+     * It is called by the elements indexed by the list.
+     * 
+     * @param element
+     *          element whose identification changed.
+     * @param oldValue
+     *          the element old identification.
+     * @param newValue
+     *          the element new identification.
+     */
+    @Deprecated
+    public void keyChanged(Object element, Object oldValue, Object newValue) {
+        String oldKey = keyOfValue(oldValue);
+        String newKey = keyOfValue(newValue);
+        
+        if(oldKey == null ? newKey != null : !oldKey.equals(newKey))
+            rekey((T) element, oldKey, newKey);
     }
 
 
@@ -76,7 +126,7 @@ public class ElementList<T extends XMLElement>
      *          integer representing the list size.
      */
     public int size() {
-        return elements.size();
+        return elements.size() - holes;
     }
 
 
@@ -87,7 +137,7 @@ public class ElementList<T extends XMLElement>
      *          boolean indicating if the list is empty.
      */
     public boolean isEmpty() {
-        return elements.isEmpty();
+        return size() == 0;
     }
     
 
@@ -104,20 +154,29 @@ public class ElementList<T extends XMLElement>
     public boolean contains(T element) throws XMLException {
         if(element == null)
             throw new XMLException("Null element.");
-
-        return elements.contains(element);
+        
+        Index<T> idx = indexed();
+        if(idx == null)
+            return elements.contains(element);
+        
+        String key = keyOf(element);
+        if(key != null && inBucket(idx.keys.get(key), element))
+            return true;
+        
+        return idx.unkeyed.contains(element);
     }
 
 
     /**
-     * Returns the list iterator.
+     * Returns the list iterator. Removing an element through the iterator also
+     * removes it from the index of the list.
      *
      * @return
      *          iterator of the list elements.
      */
     @Override
     public Iterator<T> iterator() {
-        return elements.iterator();
+        return new ElementIterator();
     }
     
 
@@ -135,15 +194,40 @@ public class ElementList<T extends XMLElement>
     public boolean add(T element) throws XMLException {
         if(element == null)
             throw new XMLException("Null element.");
-
-        for(T el : elements){
-            if(el.compare(element)){
-                elements.remove(el);
-                break;
+        
+        T equal = null;
+        
+        Index<T> idx = indexed();
+        if(idx == null){
+            for(T el : elements){
+                if(el.compare(element)){
+                    equal = el;
+                    break;
+                }
             }
         }
-
-        return elements.add(element);
+        else{
+            // an element can only be equal to an element with the same
+            // identification or to an element without identification
+            String key = keyOf(element);
+            if(key != null)
+                equal = findEqual(idx.keys.get(key), element);
+            if(equal == null)
+                equal = findEqual(idx.unkeyed, element);
+        }
+        
+        if(equal != null)
+            removeElement(equal);
+        
+        if(elements == Collections.EMPTY_LIST)
+            elements = new ArrayList<T>();
+        elements.add(element);
+        if(index != null)
+            addToIndex(element);
+        else if(elements.size() > INDEX_THRESHOLD)
+            buildIndex();
+        
+        return true;
     }
     
 
@@ -161,7 +245,8 @@ public class ElementList<T extends XMLElement>
         if(element == null)
             throw new XMLException("Null element.");
 
-        if(elements.remove(element)){
+        if(contains(element)){
+            removeElement(element);
             element.setParent(null);
             return true;
         }
@@ -186,8 +271,10 @@ public class ElementList<T extends XMLElement>
             throw new XMLException("Empty identification string");
 
         T aux = get(ident);
-        if(aux != null)
-            return elements.remove(aux);
+        if(aux != null){
+            removeElement(aux);
+            return true;
+        }
         else
             return false;
     }
@@ -208,10 +295,20 @@ public class ElementList<T extends XMLElement>
         boolean result = true;
         
         for(T aux : list){
-            if(elements.contains(aux))
-                result = false;
-            else
-                elements.add(aux);
+            try{
+                if(contains(aux)){
+                    result = false;
+                    continue;
+                }
+            }catch(XMLException ex){}
+            
+            if(elements == Collections.EMPTY_LIST)
+                elements = new ArrayList<T>();
+            elements.add(aux);
+            if(index != null)
+                addToIndex(aux);
+            else if(elements.size() > INDEX_THRESHOLD)
+                buildIndex();
         }
         
         return result;
@@ -227,6 +324,8 @@ public class ElementList<T extends XMLElement>
      *          true if the elements were removed.
      */
     public boolean removeAll(Collection<?> clctn) {
+        // the index is built again when needed
+        dropIndex();
         return elements.removeAll(clctn);
     }
 
@@ -235,7 +334,8 @@ public class ElementList<T extends XMLElement>
      * Removes all the elements from the list.
      */
     public void clear() {
-        elements.clear();
+        dropIndex();
+        elements = Collections.emptyList();
     }
 
 
@@ -250,9 +350,12 @@ public class ElementList<T extends XMLElement>
      *          if the position is out of bounds.
      */
     public T get(int i) throws XMLException {
-        if(i < 0 || i >= elements.size())
+        if(i < 0 || i >= size())
             throw new XMLException("Index out of bounds.");
-
+        
+        if(holes > 0)
+            compact();
+        
         return elements.get(i);
     }
 
@@ -276,28 +379,75 @@ public class ElementList<T extends XMLElement>
         if("".equals(ident.trim()))
             throw new XMLException("Empty identification string");
         
-        if(elements.isEmpty())
-            return null;
-        
-        T aux = elements.get(0);
-        if(aux instanceof NCLIdentifiableElementPrototype){
+        Index<T> idx = indexed();
+        if(idx == null){
             for(T el : elements){
-                if(((NCLIdentifiableElementPrototype) el).getId().equals(ident))
+                if(ident.equals(keyOf(el)))
                     return el;
             }
+            return null;
         }
-        else if(aux instanceof NCLNamedElementPrototype){
-            for(T el : elements){
-                Object name = ((NCLNamedElementPrototype) el).getName();
-                if(name instanceof NCLNamedElementPrototype)
-                    name = ((NCLNamedElementPrototype) name).getName();
-                
-                if(name.toString().equals(ident))
-                    return el;
+        
+        Object bucket = idx.keys.get(ident);
+        if(bucket instanceof ArrayList)
+            return ((ArrayList<T>) bucket).get(0);
+        
+        return (T) bucket;
+    }
+
+
+    /**
+     * Compares two lists. The lists are equal if they have the same size and
+     * each element of this list is equal to an element of the other list. The
+     * elements are compared using their <i>compare</i> method.
+     * 
+     * <br/>
+     * 
+     * Each element is first compared with the elements of the other list that
+     * have the same structural hash, which are usually the equal ones, and
+     * only then with the remaining elements.
+     *
+     * @param other
+     *          list to be compared with.
+     * @return
+     *          true if the lists are equal and false otherwise.
+     */
+    public boolean compare(ElementList<T> other) {
+        if(other == null || size() != other.size())
+            return false;
+        
+        HashMap<Long, Object> hashes = hashIndex(other);
+        
+        for(T el : this){
+            if(hashes != null && el instanceof NCLElementPrototype){
+                Object bucket = hashes.get(((NCLElementPrototype) el).getStructuralHash());
+                if(bucket instanceof ArrayList){
+                    boolean found = false;
+                    for(T oel : (ArrayList<T>) bucket){
+                        if(el.compare(oel)){
+                            found = true;
+                            break;
+                        }
+                    }
+                    if(found)
+                        continue;
+                }
+                else if(bucket != null && el.compare((T) bucket))
+                    continue;
+            }
+            
+            boolean found = false;
+            for(T oel : other){
+                if(el.compare(oel)){
+                    found = true;
+                    break;
+                }
             }
+            if(!found)
+                return false;
         }
         
-        return null;
+        return true;
     }
     
     
@@ -310,6 +460,374 @@ public class ElementList<T extends XMLElement>
      *          the element position in the list.
      */
     public int getPosition(T element) {
-        return elements.indexOf(element);
+        Index<T> idx = indexed();
+        if(idx == null)
+            return elements.indexOf(element);
+        
+        return positionOf(idx, element);
+    }
+    
+    
+    /**
+     * Returns the identification of an element, used to index it: the id of
+     * identifiable elements or the name of named elements.
+     */
+    private static String keyOf(Object element) {
+        if(element instanceof NCLIdentifiableElementPrototype)
+            return ((NCLIdentifiableElementPrototype) element).getId();
+        
+        if(element instanceof NCLNamedElementPrototype)
+            return keyOfValue(((NCLNamedElementPrototype) element).getName());
+        
+        return null;
+    }
+    
+    
+    /**
+     * Returns the identification represented by an id or name value. A name
+     * may be another named element, like a variable.
+     */
+    private static String keyOfValue(Object value) {
+        if(value instanceof NCLNamedElementPrototype)
+            value = ((NCLNamedElementPrototype) value).getName();
+        
+        return value != null ? value.toString() : null;
+    }
+    
+    
+    /**
+     * Returns the index of the list or <i>null</i> if the list does not use
+     * an index.
+     */
+    private Index<T> indexed() {
+        Index<T> idx = index;
+        if(idx == null){
+            if(elements.size() <= INDEX_THRESHOLD)
+                return null;
+            
+            return buildIndex();
+        }
+        
+        return idx;
+    }
+    
+    
+    /**
+     * Moves the index entry of an element whose identification changed.
+     */
+    private synchronized void rekey(T element, String oldKey, String newKey) {
+        Index<T> idx = index;
+        if(idx == null)
+            return;
+        
+        if(oldKey == null){
+            if(!idx.unkeyed.remove(element))
+                return;
+        }
+        else if(!removeFromBucket(idx, oldKey, element))
+            return;
+        
+        if(newKey == null){
+            idx.unkeyed.add(element);
+            return;
+        }
+        
+        Object bucket = idx.keys.get(newKey);
+        if(bucket == null)
+            idx.keys.put(newKey, element);
+        else{
+            // keep the elements with the same identification in list order
+            ArrayList<T> list = new ArrayList<T>();
+            for(T e : elements){
+                if(newKey.equals(keyOf(e)))
+                    list.add(e);
+            }
+            idx.keys.put(newKey, list);
+        }
+    }
+    
+    
+    /**
+     * Builds the index of the list. The index is built apart and published at
+     * once, so the list may be read by many threads at the same time, as long
+     * as it is not modified.
+     */
+    private synchronized Index<T> buildIndex() {
+        Index<T> idx = index;
+        if(idx != null)
+            return idx;
+        
+        idx = new Index<T>();
+        for(int i = 0; i < elements.size(); i++){
+            T el = elements.get(i);
+            addToIndex(idx.keys, idx.unkeyed, el);
+            idx.positions.put(el, i);
+            track(el, true);
+        }
+        
+        index = idx;
+        return idx;
+    }
+    
+    
+    private void dropIndex() {
+        if(index == null)
+            return;
+        
+        compact();
+        index = null;
+        for(T el : elements)
+            track(el, false);
+    }
+    
+    
+    /**
+     * Closes the holes left by the elements removed. The list is copied and
+     * published at once, so the threads reading the list see either list.
+     */
+    private synchronized void compact() {
+        if(holes == 0)
+            return;
+        
+        ArrayList<T> aux = new ArrayList<T>(elements.size() - holes);
+        for(T el : elements){
+            if(el != null)
+                aux.add(el);
+        }
+        
+        Index<T> idx = index;
+        if(idx != null){
+            IdentityHashMap<T, Integer> positions = new IdentityHashMap<T, Integer>();
+            for(int i = 0; i < aux.size(); i++)
+                positions.put(aux.get(i), i);
+            idx.positions = positions;
+        }
+        
+        elements = aux;
+        holes = 0;
+    }
+    
+    
+    /**
+     * Makes an element inform this list, or stop informing it, when its
+     * identification changes.
+     */
+    private void track(T element, boolean indexed) {
+        if(!(element instanceof NCLElementPrototype))
+            return;
+        
+        if(indexed)
+            ((NCLElementPrototype) element).addIndexingList(this);
+        else
+            ((NCLElementPrototype) element).removeIndexingList(this);
+    }
+    
+    
+    private void addToIndex(T element) {
+        Index<T> idx = index;
+        addToIndex(idx.keys, idx.unkeyed, element);
+        track(element, true);
+        idx.positions.put(element, elements.size() - 1);
+    }
+    
+    
+    private void addToIndex(HashMap<String, Object> index, Set<T> unkeyed, T element) {
+        String key = keyOf(element);
+        
+        if(key == null)
+            unkeyed.add(element);
+        else{
+            Object bucket = index.get(key);
+            if(bucket == null)
+                index.put(key, element);
+            else if(bucket instanceof ArrayList)
+                ((ArrayList<T>) bucket).add(element);
+            else{
+                ArrayList<T> list = new ArrayList<T>(2);
+                list.add((T) bucket);
+                list.add(element);
+                index.put(key, list);
+            }
+        }
+    }
+    
+    
+    private void removeElement(T element) {
+        Index<T> idx = index;
+        if(idx == null){
+            elements.remove(element);
+            return;
+        }
+        
+        Integer slot = idx.positions.remove(element);
+        if(slot == null)
+            return;
+        
+        track(element, false);
+        String key = keyOf(element);
+        if(key == null || !removeFromBucket(idx, key, element))
+            idx.unkeyed.remove(element);
+        
+        // the position is left empty, so the elements after it keep theirs
+        if(slot == elements.size() - 1)
+            elements.remove(elements.size() - 1);
+        else{
+            elements.set(slot, null);
+            holes++;
+        }
+        
+        if(size() <= INDEX_THRESHOLD / 2)
+            dropIndex();
+        else if(holes > elements.size() / 2)
+            compact();
+    }
+    
+    
+    private boolean removeFromBucket(Index<T> idx, String key, T element) {
+        Object bucket = idx.keys.get(key);
+        if(bucket == element){
+            idx.keys.remove(key);
+            return true;
+        }
+        else if(bucket instanceof ArrayList && ((ArrayList<T>) bucket).remove(element)){
+            if(((ArrayList<T>) bucket).size() == 1)
+                idx.keys.put(key, ((ArrayList<T>) bucket).get(0));
+            return true;
+        }
+        
+        return false;
+    }
+    
+    
+    private HashMap<Long, Object> hashIndex(ElementList<T> other) {
+        if(other.size() < 2)
+            return null;
+        
+        HashMap<Long, Object> hashes = new HashMap<Long, Object>();
+        for(T oel : other){
+            if(!(oel instanceof NCLElementPrototype))
+                return null;
+            
+            Long hash = ((NCLElementPrototype) oel).getStructuralHash();
+            Object bucket = hashes.get(hash);
+            if(bucket == null)
+                hashes.put(hash, oel);
+            else if(bucket instanceof ArrayList)
+                ((ArrayList<T>) bucket).add(oel);
+            else{
+                ArrayList<T> list = new ArrayList<T>();
+                list.add((T) bucket);
+                list.add(oel);
+                hashes.put(hash, list);
+            }
+        }
+        
+        return hashes;
+    }
+    
+    
+    private T findEqual(Object bucket, T element) {
+        if(bucket == null)
+            return null;
+        
+        if(bucket instanceof Collection){
+            for(T el : (Collection<T>) bucket){
+                if(el.compare(element))
+                    return el;
+            }
+            return null;
+        }
+        
+        return ((T) bucket).compare(element) ? (T) bucket : null;
+    }
+    
+    
+    private boolean inBucket(Object bucket, T element) {
+        if(bucket instanceof ArrayList)
+            return ((ArrayList<T>) bucket).contains(element);
+        
+        return bucket == element;
+    }
+    
+    
+    private int positionOf(Index<T> idx, T element) {
+        if(holes > 0)
+            compact();
+        
+        Integer pos = idx.positions.get(element);
+        return pos != null ? pos : -1;
+    }
+    
+    
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        compact();
+        out.defaultWriteObject();
+    }
+    
+    
+    /**
+     * Iterator of the list that skips the holes of the elements removed and
+     * removes elements through the list, keeping its index up to date.
+     */
+    private final class ElementIterator implements Iterator<T> {
+        
+        private List<T> list = elements;
+        private int cursor;
+        // elements returned and not removed, which is the position of the
+        // next element once the holes are closed
+        private int passed;
+        private T last;
+        
+        
+        @Override
+        public boolean hasNext() {
+            if(list != elements){
+                list = elements;
+                cursor = passed;
+            }
+            while(cursor < list.size() && list.get(cursor) == null)
+                cursor++;
+            
+            return cursor < list.size();
+        }
+        
+        
+        @Override
+        public T next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            
+            last = list.get(cursor++);
+            passed++;
+            return last;
+        }
+        
+        
+        @Override
+        public void remove() {
+            if(last == null)
+                throw new IllegalStateException();
+            
+            // without an index the elements after the one removed are shifted
+            boolean shifts = index == null;
+            removeElement(last);
+            last = null;
+            passed--;
+            if(shifts && list == elements)
+                cursor--;
+        }
+    }
+    
+    
+    /**
+     * Index of the elements of a list by identification. It is only created
+     * for the lists that grow beyond a few elements, so the other lists keep
+     * a single reference to it.
+     */
+    private static final class Index<T> {
+        
+        private final HashMap<String, Object> keys = new HashMap<String, Object>();
+        private final Set<T> unkeyed = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+        private IdentityHashMap<T, Integer> positions = new IdentityHashMap<T, Integer>();
     }
 }
@@ -96,16 +96,16 @@ public class PercentageType implements Serializable {
     public PercentageType(String value) throws XMLException {
         if(value == null)
             throw new XMLException("Null value String");
-        if("".equals(value.trim()))
+        if(ValueParser.isBlank(value))
             throw new XMLException("Empty value String");
 
-        int index = value.indexOf("%");
-        if(index > 0){
-            value = value.substring(0, index);
+        int index = value.indexOf('%');
+        if(index > 0)
             signed = true;
-        }
+        else
+            index = value.length();
 
-        setValue(new Double(value));
+        setValue(ValueParser.parseDouble(value, 0, index));
     }
 
 
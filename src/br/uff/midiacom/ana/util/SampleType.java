@@ -143,23 +143,23 @@ public class SampleType implements Serializable {
      *          String representando a amostra.
      */
     public void stringToSample(String sample) {
-        String var = null;
+        int end = -1;
 
-        if(sample.contains("s")){
-            var = sample.substring(0, sample.length() - 1);
+        if(sample.indexOf('s') >= 0){
+            end = sample.length() - 1;
             setType(NCLSampleType.S);
         }
-        else if(sample.contains("f")){
-            var = sample.substring(0, sample.length() - 1);
+        else if(sample.indexOf('f') >= 0){
+            end = sample.length() - 1;
             setType(NCLSampleType.F);
         }
         else if(sample.contains("npt")){
-            var = sample.substring(0, sample.length() - 3);
+            end = sample.length() - 3;
             setType(NCLSampleType.NPT);
         }
 
-        if(var != null)
-            setValue(new Integer(var));
+        if(end >= 0)
+            setValue(ValueParser.parseInt(sample, 0, end));
         else
             setValue((Integer) null);
     }
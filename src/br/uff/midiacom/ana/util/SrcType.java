@@ -104,7 +104,7 @@ public class SrcType implements Serializable {
 
 
     private void setSrc(String src) throws XMLException {
-        if(src != null && "".equals(src.trim()))
+        if(src != null && ValueParser.isBlank(src))
             throw new XMLException("Empty src String");
 
         this.src = src;
@@ -123,6 +123,9 @@ public class SrcType implements Serializable {
 
     @Override
     public String toString() {
+        if(type == null && src != null)
+            return src;
+        
         String value = "";
 
         if(type != null)
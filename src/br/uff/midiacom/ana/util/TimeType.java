@@ -38,7 +38,6 @@
 package br.uff.midiacom.ana.util;
 
 import java.io.Serializable;
-import java.util.Vector;
 
 
 /**
@@ -329,38 +328,33 @@ public class TimeType implements Serializable {
      *          String representando o valor de tempo.
      */
     public void stringToTime(String time) {
-        Vector<Integer>  timeParts = new Vector<Integer>();
-        String newTime;
-        boolean hasDot = false;
-
-        if(time.contains("s")){
-            newTime = time.substring(0, time.length() - 1);
-            hasDot = newTime.contains(".");
-            setSecond(new Double(newTime));
-        }
-        else{
-            newTime = time;
-            while(newTime.contains(":")){
-                int index = newTime.indexOf(":");
-                timeParts.add(new Integer(newTime.substring(0, index)));
-                newTime = newTime.substring(index + 1);
-            }
-            setSecond(new Double(newTime));
+        int end = time.length();
+
+        if(time.indexOf('s') >= 0){
+            setSecond(ValueParser.parseDouble(time, 0, end - 1));
+            return;
         }
 
-        try{
-            int index = timeParts.size() - 1;
-            setMinute(timeParts.elementAt(index));
-            index--;
-            setHour(timeParts.elementAt(index));
-            index--;
-            setDay(timeParts.elementAt(index));
-            index--;
-            setMonth(timeParts.elementAt(index));
-            index--;
-            setYear(timeParts.elementAt(index));
+        // the parts are read from the last one: second, minute, hour, day,
+        // month and year
+        int begin = time.lastIndexOf(':') + 1;
+        setSecond(ValueParser.parseDouble(time, begin, end));
+
+        int part = 0;
+        while(begin > 0){
+            end = begin - 1;
+            begin = time.lastIndexOf(':', end - 1) + 1;
+            int value = ValueParser.parseInt(time, begin, end);
+
+            switch(part++){
+                case 0: setMinute(value); break;
+                case 1: setHour(value); break;
+                case 2: setDay(value); break;
+                case 3: setMonth(value); break;
+                case 4: setYear(value); break;
+                default: break;
+            }
         }
-        catch(ArrayIndexOutOfBoundsException ex){}
     }
     
     
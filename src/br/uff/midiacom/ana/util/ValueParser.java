@@ -0,0 +1,237 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+
+/**
+ * Parsers of the values of attributes that read the characters of a string in
+ * place, without creating substrings or intermediary objects. The typed values
+ * and the elements use these parsers while a document is loaded, when each
+ * attribute value is read once.
+ */
+public final class ValueParser {
+    
+    private static final double[] POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    
+    // longest number of digits exactly represented by a double
+    private static final int MAX_DIGITS = 15;
+    
+    
+    private ValueParser() {}
+    
+    
+    /**
+     * Parses an integer from part of a string, as <i>Integer.parseInt</i>. The
+     * number may have a sign.
+     * 
+     * @param value
+     *          string containing the number.
+     * @param begin
+     *          index of the first character of the number.
+     * @param end
+     *          index after the last character of the number.
+     * @return 
+     *          integer value.
+     * @throws NumberFormatException 
+     *          if the characters do not represent an integer.
+     */
+    public static int parseInt(String value, int begin, int end) throws NumberFormatException {
+        int i = begin;
+        boolean negative = false;
+        if(i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')){
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if(i == end)
+            throw new NumberFormatException("For input string: \"" + value.substring(begin, end) + "\"");
+        
+        long result = 0;
+        for(; i < end; i++){
+            char c = value.charAt(i);
+            if(c < '0' || c > '9')
+                throw new NumberFormatException("For input string: \"" + value.substring(begin, end) + "\"");
+            
+            result = result * 10 + (c - '0');
+            if(result > (long) Integer.MAX_VALUE + 1)
+                throw new NumberFormatException("For input string: \"" + value.substring(begin, end) + "\"");
+        }
+        
+        if(negative)
+            result = -result;
+        if(result > Integer.MAX_VALUE)
+            throw new NumberFormatException("For input string: \"" + value.substring(begin, end) + "\"");
+        
+        return (int) result;
+    }
+    
+    
+    /**
+     * Parses an integer from a string.
+     * 
+     * @param value
+     *          string containing the number.
+     * @return 
+     *          integer value.
+     * @throws NumberFormatException 
+     *          if the string does not represent an integer.
+     */
+    public static int parseInt(String value) throws NumberFormatException {
+        return parseInt(value, 0, value.length());
+    }
+    
+    
+    /**
+     * Parses a decimal number from part of a string. Leading and trailing
+     * whitespace are ignored. Numbers with a sign, digits and an optional
+     * fraction are read in place and give the same value as
+     * <i>Double.parseDouble</i>, which is used for any other format.
+     * 
+     * @param value
+     *          string containing the number.
+     * @param begin
+     *          index of the first character of the number.
+     * @param end
+     *          index after the last character of the number.
+     * @return 
+     *          decimal value.
+     * @throws NumberFormatException 
+     *          if the characters do not represent a number.
+     */
+    public static double parseDouble(String value, int begin, int end) throws NumberFormatException {
+        while(begin < end && value.charAt(begin) <= ' ')
+            begin++;
+        while(end > begin && value.charAt(end - 1) <= ' ')
+            end--;
+        
+        int i = begin;
+        boolean negative = false;
+        if(i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')){
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for(; i < end; i++){
+            char c = value.charAt(i);
+            if(c >= '0' && c <= '9'){
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if(fraction >= 0)
+                    fraction++;
+            }
+            else if(c == '.' && fraction < 0)
+                fraction = 0;
+            else
+                break;
+        }
+        
+        // the mantissa and the power of ten are exact, so a single division
+        // gives the correctly rounded value
+        if(i == end && digits > 0 && digits <= MAX_DIGITS){
+            double result = fraction > 0 ? mantissa / POWERS[fraction] : mantissa;
+            return negative ? -result : result;
+        }
+        
+        return Double.parseDouble(value.substring(begin, end));
+    }
+    
+    
+    /**
+     * Parses a decimal number from a string.
+     * 
+     * @param value
+     *          string containing the number.
+     * @return 
+     *          decimal value.
+     * @throws NumberFormatException 
+     *          if the string does not represent a number.
+     */
+    public static double parseDouble(String value) throws NumberFormatException {
+        return parseDouble(value, 0, value.length());
+    }
+    
+    
+    /**
+     * Verifies if a string is empty or contains only whitespace.
+     * 
+     * @param value
+     *          string to be verified.
+     * @return 
+     *          true if the string has no character other than whitespace.
+     */
+    public static boolean isBlank(String value) {
+        for(int i = 0; i < value.length(); i++){
+            if(value.charAt(i) > ' ')
+                return false;
+        }
+        return true;
+    }
+    
+    
+    /**
+     * Verifies if a string is a valid identifier, that is, if it starts with
+     * a letter, an underscore or a colon, followed by letters, digits,
+     * underscores, colons, hyphens or dots.
+     * 
+     * @param id
+     *          string to be verified.
+     * @return 
+     *          true if the string is a valid identifier.
+     */
+    public static boolean isValidId(String id) {
+        int length = id.length();
+        if(length == 0 || !isIdStart(id.charAt(0)))
+            return false;
+        
+        for(int i = 1; i < length; i++){
+            char c = id.charAt(i);
+            if(!isIdStart(c) && !(c >= '0' && c <= '9') && c != '-' && c != '.')
+                return false;
+        }
+        return true;
+    }
+    
+    
+    private static boolean isIdStart(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_' || c == ':';
+    }
+}
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -49,6 +50,13 @@ public enum NCLActionOperator {
     SEQ("seq");
 
 
+    private static final HashMap<String, NCLActionOperator> names = new HashMap<String, NCLActionOperator>();
+
+    static {
+        for(NCLActionOperator opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
     
@@ -57,11 +65,7 @@ public enum NCLActionOperator {
     }
 
     public static NCLActionOperator getEnumType(String name){
-        for(NCLActionOperator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     public NCLActionOperator getDefaultValue(){
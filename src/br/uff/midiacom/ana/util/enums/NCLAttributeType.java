@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -52,6 +53,13 @@ public enum NCLAttributeType {
     NODE_PROPERTY("nodeProperty");
 
 
+    private static final HashMap<String, NCLAttributeType> names = new HashMap<String, NCLAttributeType>();
+
+    static {
+        for(NCLAttributeType opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLAttributeType(String name) {
@@ -59,11 +67,7 @@ public enum NCLAttributeType {
     }
 
     public static NCLAttributeType getEnumType(String name){
-        for(NCLAttributeType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     public NCLAttributeType getDefaultValue(){
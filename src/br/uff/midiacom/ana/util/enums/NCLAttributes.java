@@ -37,6 +37,8 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.enums;
 
+import java.util.HashMap;
+
 
 /**
  * Atributos de uma mídia (podem ser parametrizados pelo descritor) da <i>Nested Context Language</i> (NCL).
@@ -73,6 +75,13 @@ public enum NCLAttributes {
     DEFAULT("");
 
 
+    private static final HashMap<String, NCLAttributes> names = new HashMap<String, NCLAttributes>();
+
+    static {
+        for(NCLAttributes opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLAttributes(String name) {
@@ -80,11 +89,7 @@ public enum NCLAttributes {
     }
     
     public static NCLAttributes getEnumType(String name){
-        for(NCLAttributes opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     @Override
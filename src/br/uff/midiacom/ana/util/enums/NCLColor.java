@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -63,6 +64,13 @@ public enum NCLColor {
     TEAL("teal");
 
 
+    private static final HashMap<String, NCLColor> names = new HashMap<String, NCLColor>();
+
+    static {
+        for(NCLColor opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
 
@@ -71,11 +79,7 @@ public enum NCLColor {
     }
 
     public static NCLColor getEnumType(String name) {
-        for(NCLColor opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
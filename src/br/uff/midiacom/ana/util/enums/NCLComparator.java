@@ -37,6 +37,8 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.enums;
 
+import java.util.HashMap;
+
 
 /**
  * Operadores de comparação da <i>Nested Context Language</i> (NCL).
@@ -51,6 +53,13 @@ public enum NCLComparator {
     LTE("lte");
 
 
+    private static final HashMap<String, NCLComparator> names = new HashMap<String, NCLComparator>();
+
+    static {
+        for(NCLComparator opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
 
@@ -59,11 +68,7 @@ public enum NCLComparator {
     }
 
     public static NCLComparator getEnumType(String name){
-        for(NCLComparator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
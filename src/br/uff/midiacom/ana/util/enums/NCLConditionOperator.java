@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -49,6 +50,13 @@ public enum NCLConditionOperator {
     OR("or");
 
 
+    private static final HashMap<String, NCLConditionOperator> names = new HashMap<String, NCLConditionOperator>();
+
+    static {
+        for(NCLConditionOperator opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
 
@@ -57,11 +65,7 @@ public enum NCLConditionOperator {
     }
 
     public static NCLConditionOperator getEnumType(String name){
-        for(NCLConditionOperator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     public NCLConditionOperator getDefaultValue(){
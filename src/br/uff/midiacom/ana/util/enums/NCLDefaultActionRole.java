@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -53,6 +54,13 @@ public enum NCLDefaultActionRole {
     SET("set");
 
 
+    private static final HashMap<String, NCLDefaultActionRole> names = new HashMap<String, NCLDefaultActionRole>();
+
+    static {
+        for(NCLDefaultActionRole opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLDefaultActionRole(String name) {
@@ -60,11 +68,7 @@ public enum NCLDefaultActionRole {
     }
     
     public static NCLDefaultActionRole getEnumType(String name){
-        for(NCLDefaultActionRole opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     @Override
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -55,6 +56,13 @@ public enum NCLDefaultConditionRole {
     ONENDATTRIBUTION("onEndAttribution");
 
 
+    private static final HashMap<String, NCLDefaultConditionRole> names = new HashMap<String, NCLDefaultConditionRole>();
+
+    static {
+        for(NCLDefaultConditionRole opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLDefaultConditionRole(String name) {
@@ -62,11 +70,7 @@ public enum NCLDefaultConditionRole {
     }
     
     public static NCLDefaultConditionRole getEnumType(String name){
-        for(NCLDefaultConditionRole opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     @Override
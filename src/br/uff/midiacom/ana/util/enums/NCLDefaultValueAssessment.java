@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -50,6 +51,13 @@ public enum NCLDefaultValueAssessment {
     PAUSED("paused");
 
 
+    private static final HashMap<String, NCLDefaultValueAssessment> names = new HashMap<String, NCLDefaultValueAssessment>();
+
+    static {
+        for(NCLDefaultValueAssessment opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLDefaultValueAssessment(String name) {
@@ -57,11 +65,7 @@ public enum NCLDefaultValueAssessment {
     }
     
     public static NCLDefaultValueAssessment getEnumType(String name) {
-        for(NCLDefaultValueAssessment opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     @Override
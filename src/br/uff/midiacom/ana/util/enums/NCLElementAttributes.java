@@ -37,6 +37,8 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.enums;
 
+import java.util.HashMap;
+
 
 /**
  * Nomes dos atributos dos elementos NCL
@@ -175,8 +177,29 @@ public enum NCLElementAttributes {
     XMLNS("xmlns"),
     ZINDEX("zIndex");
 
+    private static final HashMap<String, NCLElementAttributes> names = new HashMap<String, NCLElementAttributes>();
+
+    static {
+        for(NCLElementAttributes opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     private NCLElementAttributes(String name) { this.name = name;}
+
+    /**
+     * Returns the element or attribute with the name given. The loaders use
+     * this method to dispatch each child element by its tag name.
+     *
+     * @param name
+     *          name of the element or attribute.
+     * @return
+     *          element or attribute or <i>null</i> if the name is unknown.
+     */
+    public static NCLElementAttributes getEnumType(String name) {
+        return names.get(name);
+    }
+
     @Override
     public String toString() { return name;}
 }
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -53,6 +54,13 @@ public enum NCLEventAction {
     RESUME("resume");
 
 
+    private static final HashMap<String, NCLEventAction> names = new HashMap<String, NCLEventAction>();
+
+    static {
+        for(NCLEventAction opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLEventAction(String name) {
@@ -60,11 +68,7 @@ public enum NCLEventAction {
     }
 
     public static NCLEventAction getEnumType(String name){
-        for(NCLEventAction opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
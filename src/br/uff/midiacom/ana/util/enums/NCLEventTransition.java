@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -52,6 +53,13 @@ public enum NCLEventTransition {
     RESUMES("resumes");
 
 
+    private static final HashMap<String, NCLEventTransition> names = new HashMap<String, NCLEventTransition>();
+
+    static {
+        for(NCLEventTransition opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLEventTransition(String name) {
@@ -59,11 +67,7 @@ public enum NCLEventTransition {
     }
 
     public static NCLEventTransition getEnumType(String name){
-        for(NCLEventTransition opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -50,6 +51,13 @@ public enum NCLEventType {
     ATTRIBUTION("attribution");
 
 
+    private static final HashMap<String, NCLEventType> names = new HashMap<String, NCLEventType>();
+
+    static {
+        for(NCLEventType opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLEventType(String name) {
@@ -57,11 +65,7 @@ public enum NCLEventType {
     }
 
     public static NCLEventType getEnumType(String name){
-        for(NCLEventType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
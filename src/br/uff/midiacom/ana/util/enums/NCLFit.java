@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -51,6 +52,13 @@ public enum NCLFit {
     MEET_BEST("meetBest"),
     SLICE("slice");
 
+    private static final HashMap<String, NCLFit> names = new HashMap<String, NCLFit>();
+
+    static {
+        for(NCLFit opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLFit(String name) {
@@ -58,11 +66,7 @@ public enum NCLFit {
     }
 
     public static NCLFit getEnumType(String name) {
-        for(NCLFit opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
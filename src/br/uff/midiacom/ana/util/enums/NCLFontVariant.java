@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -48,6 +49,13 @@ public enum NCLFontVariant {
     NORMAL("normal"),
     SMALL_CAPS("small-caps");
 
+    private static final HashMap<String, NCLFontVariant> names = new HashMap<String, NCLFontVariant>();
+
+    static {
+        for(NCLFontVariant opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLFontVariant(String name) {
@@ -55,11 +63,7 @@ public enum NCLFontVariant {
     }
 
     public static NCLFontVariant getEnumType(String name) {
-        for(NCLFontVariant opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     public NCLFontVariant getDefaultValue(){
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -48,6 +49,13 @@ public enum NCLFontWeight {
     NORMAL("normal"),
     BOLD("bold");
 
+    private static final HashMap<String, NCLFontWeight> names = new HashMap<String, NCLFontWeight>();
+
+    static {
+        for(NCLFontWeight opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLFontWeight(String name) {
@@ -55,11 +63,7 @@ public enum NCLFontWeight {
     }
 
     public static NCLFontWeight getEnumType(String name) {
-        for(NCLFontWeight opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     public NCLFontWeight getDefaultValue(){
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -62,6 +63,13 @@ public enum NCLInstanceType {
     GRAD_SAME("gradSame");
 
 
+    private static final HashMap<String, NCLInstanceType> names = new HashMap<String, NCLInstanceType>();
+
+    static {
+        for(NCLInstanceType opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLInstanceType(String name) {
@@ -69,11 +77,7 @@ public enum NCLInstanceType {
     }
 
     public static NCLInstanceType getEnumType(String name){
-        for(NCLInstanceType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
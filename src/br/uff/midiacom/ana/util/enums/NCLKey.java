@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -110,6 +111,13 @@ public enum NCLKey {
     PAUSE("PAUSE");
 
 
+    private static final HashMap<String, NCLKey> names = new HashMap<String, NCLKey>();
+
+    static {
+        for(NCLKey opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLKey(String name) {
@@ -117,11 +125,7 @@ public enum NCLKey {
     }
     
     public static NCLKey getEnumType(String name) {
-        for(NCLKey opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     @Override
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -53,57 +54,25 @@ public enum NCLMediaType {
     OTHER;
     
     
+    private static final HashMap<String, NCLMediaType> extensions = new HashMap<String, NCLMediaType>();
+    
+    static {
+        addExtensions(TEXT, ".html", ".xhtml", ".css", ".xml", ".txt");
+        addExtensions(IMAGE, ".bmp", ".png", ".gif", ".jpg", ".jpeg", ".jpe");
+        addExtensions(AUDIO, ".ua", ".wav", ".mp1", ".mp2", ".mp3", ".mp4", ".mpg4");
+        addExtensions(VIDEO, ".mpeg", ".mpg", ".mpe", ".mng", ".qt", ".mov", ".avi");
+        addExtensions(PROCEDURAL, ".class", ".xlet", ".xlt", ".lua");
+    }
+    
+    
     public static NCLMediaType getEnumType(String ext) throws NCLParsingException {
         if(ext == null)
             throw new NCLParsingException("Null extension");
         
-        boolean status = false;
-
-        status |= ext.contentEquals(".html");
-        status |= ext.contentEquals(".html");
-        status |= ext.contentEquals(".xhtml");
-        status |= ext.contentEquals(".css");
-        status |= ext.contentEquals(".xml");
-        status |= ext.contentEquals(".txt");
-        if(status)
-            return TEXT;
-
-        status |= ext.contentEquals(".bmp");
-        status |= ext.contentEquals(".png");
-        status |= ext.contentEquals(".gif");
-        status |= ext.contentEquals(".jpg");
-        status |= ext.contentEquals(".jpeg");
-        status |= ext.contentEquals(".jpe");
-        if(status)
-            return IMAGE;
-
-        status |= ext.contentEquals(".ua");
-        status |= ext.contentEquals(".wav");
-        status |= ext.contentEquals(".mp1");
-        status |= ext.contentEquals(".mp2");
-        status |= ext.contentEquals(".mp3");
-        status |= ext.contentEquals(".mp4");
-        status |= ext.contentEquals(".mpg4");
-        if(status)
-            return AUDIO;
-
-        status |= ext.contentEquals(".mpeg");
-        status |= ext.contentEquals(".mpg");
-        status |= ext.contentEquals(".mpe");
-        status |= ext.contentEquals(".mng");
-        status |= ext.contentEquals(".qt");
-        status |= ext.contentEquals(".mov");
-        status |= ext.contentEquals(".avi");
-        if(status)
-            return VIDEO;
-
-        status |= ext.contentEquals(".class");
-        status |= ext.contentEquals(".xlet");
-        status |= ext.contentEquals(".xlt");
-        status |= ext.contentEquals(".lua");
-        if(status)
-            return PROCEDURAL;
-
+        NCLMediaType type = extensions.get(ext);
+        if(type != null)
+            return type;
+        
         return OTHER;
     }
     
@@ -147,4 +116,10 @@ public enum NCLMediaType {
 
         return OTHER;
     }
+    
+    
+    private static void addExtensions(NCLMediaType type, String... exts) {
+        for(String ext : exts)
+            extensions.put(ext, type);
+    }
 }
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -66,6 +67,13 @@ public enum NCLMimeType {
     APPLICATION_X_GINGA_TIME("application/x-ginga-time");
 
 
+    private static final HashMap<String, NCLMimeType> names = new HashMap<String, NCLMimeType>();
+
+    static {
+        for(NCLMimeType opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
     private NCLMimeType(String name) {
@@ -73,11 +81,7 @@ public enum NCLMimeType {
     }
 
     public static NCLMimeType getEnumType(String name){
-        for(NCLMimeType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
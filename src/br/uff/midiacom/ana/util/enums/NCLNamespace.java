@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -50,6 +51,13 @@ public enum NCLNamespace {
     CAUSAL_CONNECTOR("http://www.ncl.org.br/NCL3.0/CausalConnectorProfile");
 
 
+    private static final HashMap<String, NCLNamespace> names = new HashMap<String, NCLNamespace>();
+
+    static {
+        for(NCLNamespace opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
 
@@ -59,11 +67,7 @@ public enum NCLNamespace {
 
 
     public static NCLNamespace getEnumType(String name){
-        for(NCLNamespace opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
 
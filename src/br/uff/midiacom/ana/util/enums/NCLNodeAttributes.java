@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 public enum NCLNodeAttributes {
@@ -48,7 +49,7 @@ public enum NCLNodeAttributes {
     RIGHT("right"),
     WIDTH("width"),
     HEIGHT("height"),
-    EXPLICITDUR("explicitDur,"),
+    EXPLICITDUR("explicitDur"),
     BACKGROUND("background"),
     TRANSPARENCY("transparency"),
     VISIBLE("visible"),
@@ -92,6 +93,13 @@ public enum NCLNodeAttributes {
     BASE_DEVICE_REGION("baseDeviceRegion"),
     DEVICE_CLASS("deviceClass");
     
+    private static final HashMap<String, NCLNodeAttributes> names = new HashMap<String, NCLNodeAttributes>();
+
+    static {
+        for(NCLNodeAttributes opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
 
@@ -100,11 +108,7 @@ public enum NCLNodeAttributes {
     }
 
     public static NCLNodeAttributes getEnumType(String name) {
-        for(NCLNodeAttributes opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
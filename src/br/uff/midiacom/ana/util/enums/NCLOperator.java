@@ -37,6 +37,8 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.enums;
 
+import java.util.HashMap;
+
 
 /**
  * Operadores lógicos da <i>Nested Context Language</i> (NCL).
@@ -47,6 +49,13 @@ public enum NCLOperator {
     OR("or");
 
 
+    private static final HashMap<String, NCLOperator> names = new HashMap<String, NCLOperator>();
+
+    static {
+        for(NCLOperator opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
 
 
@@ -55,11 +64,7 @@ public enum NCLOperator {
     }
 
     public static NCLOperator getEnumType(String name){
-        for(NCLOperator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
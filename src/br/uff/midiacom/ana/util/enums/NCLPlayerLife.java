@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -48,6 +49,13 @@ public enum NCLPlayerLife {
     CLOSE("close"),
     KEEP("keep");
 
+    private static final HashMap<String, NCLPlayerLife> names = new HashMap<String, NCLPlayerLife>();
+
+    static {
+        for(NCLPlayerLife opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLPlayerLife(String name) {
@@ -55,11 +63,7 @@ public enum NCLPlayerLife {
     }
 
     public static NCLPlayerLife getEnumType(String name) {
-        for(NCLPlayerLife opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     public NCLPlayerLife getDefaultValue(){
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -51,6 +52,13 @@ public enum NCLScroll {
     BOTH("both"),
     AUTOMATIC("automatic");
 
+    private static final HashMap<String, NCLScroll> names = new HashMap<String, NCLScroll>();
+
+    static {
+        for(NCLScroll opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLScroll(String name) {
@@ -58,11 +66,7 @@ public enum NCLScroll {
     }
 
     public static NCLScroll getEnumType(String name) {
-        for(NCLScroll opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     public NCLScroll getDefaultValue(){
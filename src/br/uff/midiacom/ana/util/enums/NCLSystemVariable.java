@@ -39,6 +39,7 @@ package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.HashMap;
 
 
 /**
@@ -89,6 +90,16 @@ public enum NCLSystemVariable {
     SYSTEM_INFO_i("system.info");
 
 
+    private static final HashMap<String, NCLSystemVariable> names = new HashMap<String, NCLSystemVariable>();
+
+    static {
+        // the parameterized variables share the name of the plain ones
+        for(NCLSystemVariable opt : values()){
+            if(!names.containsKey(opt.name))
+                names.put(opt.name, opt);
+        }
+    }
+
     private String name;
     
     private NCLSystemVariable(String name) {
@@ -96,11 +107,7 @@ public enum NCLSystemVariable {
     }
     
     public static NCLSystemVariable getEnumType(String name){
-        for(NCLSystemVariable opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     
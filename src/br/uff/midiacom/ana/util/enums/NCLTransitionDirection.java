@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -49,6 +50,13 @@ public enum NCLTransitionDirection {
     REVERSE("reverse");
 
 
+    private static final HashMap<String, NCLTransitionDirection> names = new HashMap<String, NCLTransitionDirection>();
+
+    static {
+        for(NCLTransitionDirection opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLTransitionDirection(String name) {
@@ -56,11 +64,7 @@ public enum NCLTransitionDirection {
     }
     
     public static NCLTransitionDirection getEnumType(String name){
-        for(NCLTransitionDirection opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
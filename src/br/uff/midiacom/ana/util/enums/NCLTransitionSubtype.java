@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -68,6 +69,13 @@ public enum NCLTransitionSubtype {
     FADE_FROM_COLOR("fadeFromColor", NCLTransitionType.FADE);
 
 
+    private static final HashMap<String, NCLTransitionSubtype> names = new HashMap<String, NCLTransitionSubtype>();
+
+    static {
+        for(NCLTransitionSubtype opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     private NCLTransitionType type;
 
@@ -79,11 +87,7 @@ public enum NCLTransitionSubtype {
 
 
     public static NCLTransitionSubtype getEnumType(String name){
-        for(NCLTransitionSubtype opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
 
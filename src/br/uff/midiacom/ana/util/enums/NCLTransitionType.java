@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -52,6 +53,13 @@ public enum NCLTransitionType {
     FADE("fade");
 
 
+    private static final HashMap<String, NCLTransitionType> names = new HashMap<String, NCLTransitionType>();
+
+    static {
+        for(NCLTransitionType opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLTransitionType(String name) {
@@ -59,11 +67,7 @@ public enum NCLTransitionType {
     }
 
     public static NCLTransitionType getEnumType(String name){
-        for(NCLTransitionType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
 
     @Override
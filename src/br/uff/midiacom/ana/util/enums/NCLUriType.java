@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.enums;
 
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.util.HashMap;
 
 
 /**
@@ -55,6 +56,13 @@ public enum NCLUriType {
     SBTVD_TS("sbtvd-ts://");
 
 
+    private static final HashMap<String, NCLUriType> names = new HashMap<String, NCLUriType>();
+
+    static {
+        for(NCLUriType opt : values())
+            names.put(opt.name, opt);
+    }
+
     private String name;
     
     private NCLUriType(String name) {
@@ -62,11 +70,7 @@ public enum NCLUriType {
     }
     
     public static NCLUriType getEnumType(String name){
-        for(NCLUriType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return names.get(name);
     }
     
     @Override
@@ -0,0 +1,84 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.exception;
+
+import br.uff.midiacom.ana.NCLDoc;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class representing the failures of a batch of NCL documents loaded at once.
+ * It reports all the documents that could not be loaded and keeps the ones
+ * that were loaded.
+ */
+public class NCLBatchException extends NCLParsingException {
+    
+    private List<NCLDoc> documents;
+    private Map<Object, Throwable> failures;
+
+
+    public NCLBatchException(List<NCLDoc> documents, Map<Object, Throwable> failures) {
+        super(failures.size() + " of " + documents.size() + " documents could not be loaded.");
+        this.documents = documents;
+        this.failures = failures;
+    }
+    
+    
+    /**
+     * Returns the documents of the batch, in the order the inputs were given.
+     * The position of a document that could not be loaded is <i>null</i>.
+     * 
+     * @return 
+     *          list of documents.
+     */
+    public List<NCLDoc> getDocuments() {
+        return documents;
+    }
+    
+    
+    /**
+     * Returns the error of each input that could not be loaded.
+     * 
+     * @return 
+     *          map of inputs to the error raised while loading them.
+     */
+    public Map<Object, Throwable> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,81 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.loader;
+
+import br.uff.midiacom.ana.NCLDoc;
+
+
+/**
+ * Interface that represents a listener of the progress of a batch loader. The
+ * methods are called by the thread that loaded the document, or by the thread
+ * that cancelled it, so they must be thread safe. Exceptions thrown by the
+ * listener are ignored.
+ */
+public interface NCLBatchListener {
+    
+    
+    /**
+     * Called when a document is loaded.
+     * 
+     * @param input
+     *          file, URI or stream the document was loaded from.
+     * @param doc
+     *          document loaded.
+     * @param completed
+     *          number of documents already loaded or failed.
+     * @param submitted
+     *          number of documents given to the loader.
+     */
+    public void loaded(Object input, NCLDoc doc, int completed, int submitted);
+    
+    
+    /**
+     * Called when a document could not be loaded or was cancelled.
+     * 
+     * @param input
+     *          file, URI or stream the document was loaded from.
+     * @param error
+     *          error raised while loading the document or a
+     *          <i>CancellationException</i> if it was cancelled.
+     * @param completed
+     *          number of documents already loaded or failed.
+     * @param submitted
+     *          number of documents given to the loader.
+     */
+    public void failed(Object input, Throwable error, int completed, int submitted);
+}
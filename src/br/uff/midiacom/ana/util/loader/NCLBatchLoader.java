@@ -0,0 +1,492 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.loader;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.reuse.NCLDocumentCache;
+import br.uff.midiacom.ana.util.exception.NCLBatchException;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+
+/**
+ * Class that loads many NCL documents at the same time. Each document is
+ * loaded by a task submitted to an executor and its result is given by a
+ * future, completed when the document is loaded or could not be loaded.
+ * 
+ * <br/>
+ * 
+ * Any executor may be given, like a fork-join pool or an executor that starts
+ * a virtual thread per task. The XML parsers are taken from a pool shared by
+ * all the tasks and a document cache may be shared by all the documents, so a
+ * document imported by many of them is read only once.
+ * 
+ * <br/>
+ * 
+ * The documents are independent from each other and the tasks do not
+ * synchronize while loading them. The modifications of the documents are
+ * notified only if a listener is registered in the global notifier.
+ */
+public class NCLBatchLoader {
+    
+    private final Executor executor;
+    private final Set<CompletableFuture<NCLDoc>> running;
+    private final AtomicInteger submitted;
+    private final AtomicInteger completed;
+    private final AtomicInteger failed;
+    private volatile NCLDocumentCache documentCache;
+    private volatile NCLBatchListener listener;
+    private volatile boolean streamLoading;
+    
+    
+    /**
+     * Batch loader constructor. The documents are loaded by the common
+     * fork-join pool.
+     */
+    public NCLBatchLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    
+    /**
+     * Batch loader constructor.
+     * 
+     * @param executor 
+     *          executor that runs the tasks that load the documents.
+     */
+    public NCLBatchLoader(Executor executor) {
+        if(executor == null)
+            throw new NullPointerException("Null executor.");
+        
+        this.executor = executor;
+        running = ConcurrentHashMap.newKeySet();
+        submitted = new AtomicInteger();
+        completed = new AtomicInteger();
+        failed = new AtomicInteger();
+    }
+    
+    
+    /**
+     * Sets the cache given to the documents loaded, used to read the documents
+     * they import.
+     * 
+     * @param documentCache 
+     *          cache of imported documents or <i>null</i> to read the imported
+     *          documents for each document.
+     */
+    public void setDocumentCache(NCLDocumentCache documentCache) {
+        this.documentCache = documentCache;
+    }
+    
+    
+    /**
+     * Returns the cache given to the documents loaded.
+     * 
+     * @return 
+     *          cache of imported documents or <i>null</i> if no cache is used.
+     */
+    public NCLDocumentCache getDocumentCache() {
+        return documentCache;
+    }
+    
+    
+    /**
+     * Sets the listener notified about the progress of the loader.
+     * 
+     * @param listener 
+     *          progress listener or <i>null</i> to remove the listener.
+     */
+    public void setListener(NCLBatchListener listener) {
+        this.listener = listener;
+    }
+    
+    
+    /**
+     * Returns the listener notified about the progress of the loader.
+     * 
+     * @return 
+     *          progress listener or <i>null</i> if no listener is set.
+     */
+    public NCLBatchListener getListener() {
+        return listener;
+    }
+    
+    
+    /**
+     * Sets if files and streams are loaded as a stream of XML events, without
+     * building the DOM tree of the whole document.
+     * 
+     * @param streamLoading 
+     *          <i>true</i> to load the documents as streams of events.
+     */
+    public void setStreamLoading(boolean streamLoading) {
+        this.streamLoading = streamLoading;
+    }
+    
+    
+    /**
+     * Returns if files and streams are loaded as a stream of XML events.
+     * 
+     * @return 
+     *          <i>true</i> if the documents are loaded as streams of events.
+     */
+    public boolean isStreamLoading() {
+        return streamLoading;
+    }
+    
+    
+    /**
+     * Loads a document from a file.
+     * 
+     * @param xmlFile
+     *          file with the NCL document content.
+     * @return 
+     *          future completed with the document loaded.
+     */
+    public CompletableFuture<NCLDoc> load(File xmlFile) {
+        if(xmlFile == null)
+            throw new NullPointerException("Null file.");
+        
+        return submit(xmlFile, null);
+    }
+    
+    
+    /**
+     * Loads a document from its URI.
+     * 
+     * @param uri
+     *          URI of the NCL document.
+     * @return 
+     *          future completed with the document loaded.
+     */
+    public CompletableFuture<NCLDoc> load(URI uri) {
+        if(uri == null)
+            throw new NullPointerException("Null URI.");
+        
+        return submit(uri, null);
+    }
+    
+    
+    /**
+     * Loads a document from a stream. The stream is read by the task that loads
+     * the document and is not closed.
+     * 
+     * @param input
+     *          stream with the NCL document content.
+     * @param baseURI
+     *          URI used to resolve the document relative references. May be
+     *          <i>null</i> if the document has no relative references.
+     * @return 
+     *          future completed with the document loaded.
+     */
+    public CompletableFuture<NCLDoc> load(InputStream input, URI baseURI) {
+        if(input == null)
+            throw new NullPointerException("Null stream.");
+        
+        return submit(input, baseURI);
+    }
+    
+    
+    /**
+     * Loads a set of documents. Each input may be a file or an URI.
+     * 
+     * @param inputs
+     *          files or URIs of the NCL documents.
+     * @return 
+     *          futures completed with the documents loaded, in the order the
+     *          inputs were given.
+     */
+    public List<CompletableFuture<NCLDoc>> loadAll(Collection<?> inputs) {
+        List<CompletableFuture<NCLDoc>> result = new ArrayList<CompletableFuture<NCLDoc>>(inputs.size());
+        
+        for(Object input : inputs){
+            if(input instanceof File)
+                result.add(load((File) input));
+            else if(input instanceof URI)
+                result.add(load((URI) input));
+            else
+                throw new IllegalArgumentException("Invalid input: " + input);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Loads a set of documents and waits until all of them are loaded. Each
+     * input may be a file or an URI.
+     * 
+     * @param inputs
+     *          files or URIs of the NCL documents.
+     * @return 
+     *          documents loaded, in the order the inputs were given.
+     * @throws NCLBatchException
+     *          if any document could not be loaded. The exception reports all
+     *          the documents that failed and keeps the ones that were loaded.
+     * @throws InterruptedException 
+     *          if the thread is interrupted while waiting.
+     */
+    public List<NCLDoc> loadAndWait(Collection<?> inputs) throws NCLBatchException, InterruptedException {
+        List<Object> keys = new ArrayList<Object>(inputs);
+        List<CompletableFuture<NCLDoc>> futures = loadAll(keys);
+        List<NCLDoc> docs = new ArrayList<NCLDoc>(futures.size());
+        Map<Object, Throwable> failures = new LinkedHashMap<Object, Throwable>();
+        
+        for(int i = 0; i < futures.size(); i++){
+            try{
+                docs.add(futures.get(i).get());
+            }
+            catch(ExecutionException ex){
+                docs.add(null);
+                failures.put(keys.get(i), ex.getCause());
+            }
+            catch(CancellationException ex){
+                docs.add(null);
+                failures.put(keys.get(i), ex);
+            }
+        }
+        
+        if(!failures.isEmpty())
+            throw new NCLBatchException(docs, failures);
+        
+        return docs;
+    }
+    
+    
+    /**
+     * Cancels the documents not loaded yet. The documents being loaded when
+     * this method is called are discarded once loaded. A cancelled document
+     * counts as completed and failed, and is reported to the listener as a
+     * failure with a <i>CancellationException</i>.
+     */
+    public void cancel() {
+        for(CompletableFuture<NCLDoc> future : running)
+            future.cancel(false);
+    }
+    
+    
+    /**
+     * Returns the number of documents given to the loader.
+     * 
+     * @return 
+     *          number of documents.
+     */
+    public int getSubmittedCount() {
+        return submitted.get();
+    }
+    
+    
+    /**
+     * Returns the number of documents already loaded, failed or cancelled.
+     * 
+     * @return 
+     *          number of documents.
+     */
+    public int getCompletedCount() {
+        return completed.get();
+    }
+    
+    
+    /**
+     * Returns the number of documents that could not be loaded or were
+     * cancelled.
+     * 
+     * @return 
+     *          number of documents.
+     */
+    public int getFailedCount() {
+        return failed.get();
+    }
+    
+    
+    /**
+     * Creates the document that receives the content of an input. This
+     * function may be overwritten in classes that extends this one.
+     * 
+     * @return 
+     *          empty document.
+     */
+    protected NCLDoc createDoc() {
+        return new NCLDoc();
+    }
+    
+    
+    /**
+     * Reads the content of an input into a document. This function may be
+     * overwritten in classes that extends this one.
+     * 
+     * @param doc
+     *          empty document.
+     * @param input
+     *          file, URI or stream with the document content.
+     * @param baseURI
+     *          URI used to resolve the relative references of a stream.
+     * @throws XMLException 
+     *          if an error occur while loading the document.
+     */
+    protected void read(NCLDoc doc, Object input, URI baseURI) throws XMLException {
+        if(input instanceof File){
+            if(streamLoading)
+                doc.loadXMLStream((File) input);
+            else
+                doc.loadXML((File) input);
+        }
+        else if(input instanceof InputStream){
+            if(streamLoading)
+                doc.loadXMLStream((InputStream) input, baseURI);
+            else
+                doc.loadXML((InputStream) input, baseURI);
+        }
+        else
+            doc.loadXML((URI) input);
+    }
+    
+    
+    private CompletableFuture<NCLDoc> submit(final Object input, final URI baseURI) {
+        final CompletableFuture<NCLDoc> future = new CompletableFuture<NCLDoc>();
+        // set by the first of loaded, failed or cancelled to report the input
+        final AtomicBoolean reported = new AtomicBoolean(false);
+        submitted.incrementAndGet();
+        running.add(future);
+        
+        // a cancelled input is reported by the thread that cancels it, since
+        // its task may never run or may be running already
+        future.whenComplete(new BiConsumer<NCLDoc, Throwable>() {
+            @Override
+            public void accept(NCLDoc doc, Throwable error) {
+                running.remove(future);
+                if(future.isCancelled())
+                    failed(input, reported, error);
+            }
+        });
+        
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                // cancelled before starting
+                if(future.isDone())
+                    return;
+                
+                NCLDoc doc = null;
+                Throwable error = null;
+                try{
+                    doc = createDoc();
+                    if(documentCache != null)
+                        doc.setDocumentCache(documentCache);
+                    read(doc, input, baseURI);
+                }
+                catch(Throwable ex){
+                    // errors like a stack overflow in a deep document must
+                    // also complete the future, or its callers wait forever
+                    error = ex;
+                }
+                
+                // the progress is updated before the future is completed
+                if(error == null){
+                    loaded(input, reported, doc);
+                    future.complete(doc);
+                }
+                else{
+                    failed(input, reported, error);
+                    future.completeExceptionally(error);
+                }
+            }
+        };
+        
+        try{
+            executor.execute(task);
+        }
+        catch(RejectedExecutionException ex){
+            failed(input, reported, ex);
+            future.completeExceptionally(ex);
+        }
+        
+        return future;
+    }
+    
+    
+    private void loaded(Object input, AtomicBoolean reported, NCLDoc doc) {
+        if(!reported.compareAndSet(false, true))
+            return;
+        
+        int count = completed.incrementAndGet();
+        
+        NCLBatchListener aux = listener;
+        if(aux != null){
+            // Avoiding user errors
+            try{
+                aux.loaded(input, doc, count, submitted.get());
+            }catch(Exception e){}
+        }
+    }
+    
+    
+    private void failed(Object input, AtomicBoolean reported, Throwable error) {
+        if(!reported.compareAndSet(false, true))
+            return;
+        
+        failed.incrementAndGet();
+        int count = completed.incrementAndGet();
+        
+        NCLBatchListener aux = listener;
+        if(aux != null){
+            // Avoiding user errors
+            try{
+                aux.failed(input, error, count, submitted.get());
+            }catch(Exception e){}
+        }
+    }
+}
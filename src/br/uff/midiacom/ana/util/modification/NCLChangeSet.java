@@ -0,0 +1,262 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.modification;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Class that represents the set of modifications made inside a transaction.
+ * 
+ * <br/>
+ * 
+ * The modifications are coalesced: many changes of the same attribute of an
+ * element are kept as a single notification, with the value the attribute had
+ * before the first change and the value it has after the last one. The
+ * notifications are also grouped by the element modified, which is the parent
+ * element for the insertion or removal of a child.
+ */
+public class NCLChangeSet {
+    
+    private ArrayList<NCLNotification> notifications;
+    private IdentityHashMap<NCLElement, EnumMap<NCLElementAttributes, NCLNotification>> altered;
+    private Map<NCLElement, List<NCLNotification>> elements;
+    private long queued;
+    private boolean closed;
+    
+    
+    public NCLChangeSet() {
+        notifications = new ArrayList<NCLNotification>();
+        altered = new IdentityHashMap<NCLElement, EnumMap<NCLElementAttributes, NCLNotification>>();
+    }
+    
+    
+    /**
+     * Adds a notification to the set, merging it with a previous change of the
+     * same attribute of the same element.
+     * 
+     * @param notification
+     *          notification to be added.
+     * @return 
+     *          true if the notification was added or false if the set is
+     *          already closed.
+     */
+    protected synchronized boolean add(NCLNotification notification) {
+        if(closed)
+            return false;
+        
+        if(notification.getType() != NCLNotification.NCLNotificationType.ALTERED_ATT){
+            notifications.add(notification);
+            return true;
+        }
+        
+        EnumMap<NCLElementAttributes, NCLNotification> atts = altered.get(notification.getSource());
+        if(atts == null){
+            atts = new EnumMap<NCLElementAttributes, NCLNotification>(NCLElementAttributes.class);
+            altered.put(notification.getSource(), atts);
+        }
+        
+        NCLNotification first = atts.get(notification.getAttribute());
+        if(first == null){
+            atts.put(notification.getAttribute(), notification);
+            notifications.add(notification);
+        }
+        else
+            first.merge(notification);
+        
+        return true;
+    }
+    
+    
+    /**
+     * Closes the set, grouping the notifications by the element modified. No
+     * notification can be added after the set is closed.
+     */
+    protected synchronized void close() {
+        if(closed)
+            return;
+        
+        closed = true;
+        altered = null;
+        
+        LinkedHashMap<NCLElement, List<NCLNotification>> groups = new LinkedHashMap<NCLElement, List<NCLNotification>>();
+        for(NCLNotification notification : notifications){
+            NCLElement key = getModified(notification);
+            List<NCLNotification> group = groups.get(key);
+            if(group == null){
+                group = new ArrayList<NCLNotification>();
+                groups.put(key, group);
+            }
+            group.add(notification);
+        }
+        
+        for(Map.Entry<NCLElement, List<NCLNotification>> entry : groups.entrySet())
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        
+        elements = Collections.unmodifiableMap(groups);
+    }
+    
+    
+    private NCLElement getModified(NCLNotification notification) {
+        if(notification.getSource() != null)
+            return notification.getSource();
+        
+        NCLElement parent = (NCLElement) notification.getElement().getParent();
+        if(parent != null)
+            return parent;
+        
+        return notification.getElement();
+    }
+    
+    
+    protected void setQueuedTime(long queued) {
+        this.queued = queued;
+    }
+    
+    
+    protected long getQueuedTime() {
+        return queued;
+    }
+    
+    
+    /**
+     * Returns all the notifications of the set, in the order the modifications
+     * were made.
+     * 
+     * @return 
+     *          list of notifications.
+     */
+    public synchronized List<NCLNotification> getNotifications() {
+        return Collections.unmodifiableList(notifications);
+    }
+    
+    
+    /**
+     * Returns the elements modified, in the order they were first modified.
+     * 
+     * @return 
+     *          set of elements modified or <i>null</i> if the set is not closed
+     *          yet.
+     */
+    public synchronized Set<NCLElement> getElements() {
+        if(elements == null)
+            return null;
+        
+        return elements.keySet();
+    }
+    
+    
+    /**
+     * Returns the notifications of the modifications of an element. The
+     * insertion or removal of a child is a modification of the parent element.
+     * 
+     * @param element
+     *          element modified.
+     * @return 
+     *          list of notifications of the element.
+     */
+    public synchronized List<NCLNotification> getNotifications(NCLElement element) {
+        if(elements == null || !elements.containsKey(element))
+            return Collections.emptyList();
+        
+        return elements.get(element);
+    }
+    
+    
+    /**
+     * Returns the notifications of children inserted.
+     * 
+     * @return 
+     *          list of notifications.
+     */
+    public List<NCLNotification> getInserted() {
+        return getNotifications(NCLNotification.NCLNotificationType.INSERTED_CHILD);
+    }
+    
+    
+    /**
+     * Returns the notifications of children removed.
+     * 
+     * @return 
+     *          list of notifications.
+     */
+    public List<NCLNotification> getRemoved() {
+        return getNotifications(NCLNotification.NCLNotificationType.REMOVED_CHILD);
+    }
+    
+    
+    /**
+     * Returns the notifications of attributes altered.
+     * 
+     * @return 
+     *          list of notifications.
+     */
+    public List<NCLNotification> getAltered() {
+        return getNotifications(NCLNotification.NCLNotificationType.ALTERED_ATT);
+    }
+    
+    
+    private synchronized List<NCLNotification> getNotifications(NCLNotification.NCLNotificationType type) {
+        List<NCLNotification> result = new ArrayList<NCLNotification>();
+        for(NCLNotification notification : notifications){
+            if(notification.getType() == type)
+                result.add(notification);
+        }
+        
+        return result;
+    }
+    
+    
+    public synchronized int size() {
+        return notifications.size();
+    }
+    
+    
+    public synchronized boolean isEmpty() {
+        return notifications.isEmpty();
+    }
+}
@@ -0,0 +1,606 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.modification;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.exception.NCLModificationException;
+import br.uff.midiacom.ana.util.modification.NCLEdit.NCLEditType;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLElementSink;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class that computes the edits that transform a document, or an element, into
+ * another one.
+ * 
+ * <br/>
+ * 
+ * The elements of the two documents are matched from the root down. The
+ * children of two matched elements are matched by their ordered hash, then
+ * by their id, then by their name and at last by their tag, in the order they
+ * appear. Two elements with the same ordered hash are equal, children order
+ * included, so their descendants are not visited and only the elements
+ * modified, and their ancestors, are written. An element with an id that is
+ * not matched in its parent is matched to the element with the same tag and
+ * id found elsewhere in the other document, which makes it a moved element.
+ * The elements not matched are inserted or removed, together with their
+ * descendants.
+ * 
+ * <br/>
+ * 
+ * The attributes are received from the elements as they are written, with
+ * the values of the XML code, so an element referring to another one is
+ * altered only if the id it refers to changes. A change of the code inside an
+ * element that is not an attribute nor a child, like the content of a
+ * metadata, is an alteration of the attribute <i>text</i>. Unlike the
+ * <i>compare</i> method, the order of the children is compared: the fewest
+ * children that make the matched children of an element out of order are
+ * moved to their place in the same parent.
+ * 
+ * <br/>
+ * 
+ * The edits are listed in the order they can be applied to the old document:
+ * the elements moved, the elements removed, the attributes altered and the
+ * elements inserted.
+ */
+public class NCLDiff {
+    
+    private ArrayList<NCLEdit> moved;
+    private ArrayList<NCLEdit> removed;
+    private ArrayList<NCLEdit> altered;
+    private ArrayList<NCLEdit> inserted;
+    private List<NCLEdit> edits;
+    
+    private ArrayDeque<Node[]> pairs;
+    private ArrayList<Node> looseOld;
+    private ArrayList<Node> looseNew;
+    
+    
+    /**
+     * Computes the edits that transform an element into another one.
+     * 
+     * @param oldElement
+     *          element of the old document, usually the document itself.
+     * @param newElement
+     *          element of the new document, usually the document itself.
+     * @throws NCLModificationException 
+     *          if one of the elements is null.
+     */
+    public NCLDiff(NCLElement oldElement, NCLElement newElement) throws NCLModificationException {
+        if(oldElement == null || newElement == null)
+            throw new NCLModificationException("Null element.");
+        
+        moved = new ArrayList<NCLEdit>();
+        removed = new ArrayList<NCLEdit>();
+        altered = new ArrayList<NCLEdit>();
+        inserted = new ArrayList<NCLEdit>();
+        pairs = new ArrayDeque<Node[]>();
+        looseOld = new ArrayList<Node>();
+        looseNew = new ArrayList<Node>();
+        
+        Node o = new Node(oldElement, null, 0);
+        Node n = new Node(newElement, null, 0);
+        o.describe();
+        n.describe();
+        if(o.tag.equals(n.tag))
+            pairs.add(new Node[]{o, n});
+        else{
+            looseOld.add(o);
+            looseNew.add(n);
+        }
+        
+        compute();
+        
+        ArrayList<NCLEdit> all = new ArrayList<NCLEdit>(moved.size() + removed.size() + altered.size() + inserted.size());
+        all.addAll(moved);
+        all.addAll(removed);
+        all.addAll(altered);
+        all.addAll(inserted);
+        edits = Collections.unmodifiableList(all);
+        
+        pairs = null;
+        looseOld = null;
+        looseNew = null;
+    }
+    
+    
+    private void compute() {
+        int oldStart = 0, newStart = 0;
+        HashMap<String, Node> byId = new HashMap<String, Node>();
+        
+        while(!pairs.isEmpty()){
+            while(!pairs.isEmpty()){
+                Node[] pair = pairs.poll();
+                compare(pair[0], pair[1]);
+            }
+            
+            // the elements with an id left in a parent may have been moved
+            for(; oldStart < looseOld.size(); oldStart++){
+                Node o = looseOld.get(oldStart);
+                if(o.id != null && !byId.containsKey(o.key()))
+                    byId.put(o.key(), o);
+            }
+            for(; newStart < looseNew.size(); newStart++){
+                Node n = looseNew.get(newStart);
+                if(n.id == null)
+                    continue;
+                
+                Node o = byId.remove(n.key());
+                if(o != null && o.parent != null && n.parent != null){
+                    o.matched = true;
+                    n.matched = true;
+                    moved.add(new NCLEdit(o.parent.element, o.element, n.parent.element, n.element, n.index));
+                    pairs.add(new Node[]{o, n});
+                }
+            }
+        }
+        
+        for(Node o : looseOld){
+            if(!o.matched)
+                removed.add(new NCLEdit(NCLEditType.REMOVED, o.parent != null ? o.parent.element : null, o.element));
+        }
+        for(Node n : looseNew){
+            if(!n.matched)
+                inserted.add(new NCLEdit(NCLEditType.INSERTED, n.parent != null ? n.parent.element : null, n.element));
+        }
+    }
+    
+    
+    private void compare(Node o, Node n) {
+        if(o.hash != 0 && o.hash == n.hash)
+            return;
+        
+        for(Map.Entry<NCLElementAttributes, String> att : o.attributes.entrySet()){
+            String value = n.attributes.get(att.getKey());
+            if(!att.getValue().equals(value))
+                altered.add(new NCLEdit(o.element, n.element, att.getKey(), att.getValue(), value));
+        }
+        for(Map.Entry<NCLElementAttributes, String> att : n.attributes.entrySet()){
+            if(!o.attributes.containsKey(att.getKey()))
+                altered.add(new NCLEdit(o.element, n.element, att.getKey(), null, att.getValue()));
+        }
+        if(!o.text.equals(n.text))
+            altered.add(new NCLEdit(o.element, n.element, NCLElementAttributes.TEXT, o.text, n.text));
+        
+        matchChildren(o.children(), n.children());
+    }
+    
+    
+    private void matchChildren(ArrayList<Node> oldChildren, ArrayList<Node> newChildren) {
+        // the children not modified are matched without reading their code
+        HashMap<Long, ArrayDeque<Node>> hashes = new HashMap<Long, ArrayDeque<Node>>();
+        for(Node o : oldChildren){
+            if(o.hash == 0)
+                continue;
+            
+            ArrayDeque<Node> list = hashes.get(o.hash);
+            if(list == null){
+                list = new ArrayDeque<Node>();
+                hashes.put(o.hash, list);
+            }
+            list.add(o);
+        }
+        
+        ArrayList<Node> changed = new ArrayList<Node>();
+        for(Node n : newChildren){
+            Node o = poll(hashes.get(n.hash));
+            if(o != null){
+                o.matched = true;
+                n.matched = true;
+                n.partner = o;
+            }
+            else{
+                n.describe();
+                changed.add(n);
+            }
+        }
+        for(Node o : oldChildren){
+            if(!o.matched)
+                o.describe();
+        }
+        
+        HashMap<String, Node> ids = new HashMap<String, Node>();
+        HashMap<String, Node> names = new HashMap<String, Node>();
+        for(Node o : oldChildren){
+            if(o.matched)
+                continue;
+            
+            if(o.id != null){
+                if(!ids.containsKey(o.key()))
+                    ids.put(o.key(), o);
+            }
+            else if(o.name != null && !names.containsKey(o.key()))
+                names.put(o.key(), o);
+        }
+        
+        ArrayList<Node> rest = new ArrayList<Node>();
+        for(Node n : changed){
+            Node o = null;
+            if(n.id != null)
+                o = ids.remove(n.key());
+            else if(n.name != null)
+                o = names.remove(n.key());
+            
+            if(o != null)
+                pair(o, n);
+            else if(n.id == null)
+                rest.add(n);
+            else
+                looseNew.add(n);
+        }
+        
+        // the elements without id or name are matched by tag
+        HashMap<String, ArrayDeque<Node>> tags = new HashMap<String, ArrayDeque<Node>>();
+        for(Node o : oldChildren){
+            if(o.matched || o.id != null)
+                continue;
+            
+            ArrayDeque<Node> list = tags.get(o.tag);
+            if(list == null){
+                list = new ArrayDeque<Node>();
+                tags.put(o.tag, list);
+            }
+            list.add(o);
+        }
+        
+        for(Node n : rest){
+            Node o = poll(tags.get(n.tag));
+            if(o != null)
+                pair(o, n);
+            else
+                looseNew.add(n);
+        }
+        
+        for(Node o : oldChildren){
+            if(!o.matched)
+                looseOld.add(o);
+        }
+        
+        reorder(newChildren);
+    }
+    
+    
+    /**
+     * Moves the children matched in the parent that are out of order. The
+     * children kept in place are the longest sequence of them already in
+     * order.
+     */
+    private void reorder(ArrayList<Node> newChildren) {
+        ArrayList<Node> kept = new ArrayList<Node>();
+        boolean sorted = true;
+        for(Node n : newChildren){
+            if(n.partner == null)
+                continue;
+            
+            if(!kept.isEmpty() && kept.get(kept.size() - 1).partner.index > n.partner.index)
+                sorted = false;
+            kept.add(n);
+        }
+        if(sorted)
+            return;
+        
+        int size = kept.size();
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        int length = 0;
+        for(int i = 0; i < size; i++){
+            int index = kept.get(i).partner.index;
+            int low = 0, high = length;
+            while(low < high){
+                int mid = (low + high) >>> 1;
+                if(kept.get(tails[mid]).partner.index < index)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if(low == length)
+                length++;
+        }
+        
+        boolean[] inOrder = new boolean[size];
+        for(int i = tails[length - 1]; i >= 0; i = previous[i])
+            inOrder[i] = true;
+        
+        for(int i = 0; i < size; i++){
+            if(inOrder[i])
+                continue;
+            
+            Node n = kept.get(i);
+            Node o = n.partner;
+            moved.add(new NCLEdit(o.parent.element, o.element, n.parent.element, n.element, n.index));
+        }
+    }
+    
+    
+    private Node poll(ArrayDeque<Node> list) {
+        if(list == null)
+            return null;
+        
+        Node o;
+        while((o = list.poll()) != null){
+            if(!o.matched)
+                return o;
+        }
+        
+        return null;
+    }
+    
+    
+    private void pair(Node o, Node n) {
+        o.matched = true;
+        n.matched = true;
+        n.partner = o;
+        pairs.add(new Node[]{o, n});
+    }
+    
+    
+    /**
+     * Returns all the edits, in the order they can be applied.
+     * 
+     * @return 
+     *          list of edits.
+     */
+    public List<NCLEdit> getEdits() {
+        return edits;
+    }
+    
+    
+    /**
+     * Returns the edits of elements moved to another parent or to another
+     * place in the same parent.
+     * 
+     * @return 
+     *          list of edits.
+     */
+    public List<NCLEdit> getMoved() {
+        return Collections.unmodifiableList(moved);
+    }
+    
+    
+    /**
+     * Returns the edits of elements removed.
+     * 
+     * @return 
+     *          list of edits.
+     */
+    public List<NCLEdit> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+    
+    
+    /**
+     * Returns the edits of attributes altered.
+     * 
+     * @return 
+     *          list of edits.
+     */
+    public List<NCLEdit> getAltered() {
+        return Collections.unmodifiableList(altered);
+    }
+    
+    
+    /**
+     * Returns the edits of elements inserted.
+     * 
+     * @return 
+     *          list of edits.
+     */
+    public List<NCLEdit> getInserted() {
+        return Collections.unmodifiableList(inserted);
+    }
+    
+    
+    public int size() {
+        return edits.size();
+    }
+    
+    
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+    
+    
+    /**
+     * An element together with its tag, attributes and text. The attributes
+     * are received from the element as it is written and the code containing
+     * them is not kept, so the code left is the markup of the element and
+     * the text inside it.
+     */
+    private static class Node implements NCLElementSink {
+        
+        private final NCLElement element;
+        private final Node parent;
+        private final int index;
+        private final long hash;
+        private String tag;
+        private String id;
+        private String name;
+        private String text;
+        private LinkedHashMap<NCLElementAttributes, String> attributes;
+        private ArrayList<NCLElement> childElements;
+        private StringBuilder code;
+        private boolean attributesWritten;
+        private boolean matched;
+        private Node partner;
+        
+        
+        public Node(NCLElement element, Node parent, int index) {
+            this.element = element;
+            this.parent = parent;
+            this.index = index;
+            this.hash = element instanceof NCLElementPrototype ? ((NCLElementPrototype) element).getOrderedHash() : 0;
+        }
+        
+        
+        /**
+         * Writes the element to read its tag, attributes, text and children.
+         */
+        public void describe() {
+            if(attributes != null)
+                return;
+            
+            code = new StringBuilder();
+            childElements = new ArrayList<NCLElement>();
+            attributes = new LinkedHashMap<NCLElementAttributes, String>();
+            try{
+                if(element instanceof NCLElementPrototype)
+                    ((NCLElementPrototype) element).write(this);
+                else
+                    element.write(this, 0);
+            }catch(IOException ex){
+                // the node never throws IOException
+                throw new IllegalStateException(ex);
+            }
+            markup(code.toString());
+            code = null;
+            
+            id = attributes.get(NCLElementAttributes.ID);
+            name = attributes.get(NCLElementAttributes.NAME);
+        }
+        
+        
+        public String key() {
+            return tag + "#" + (id != null ? id : name);
+        }
+        
+        
+        public ArrayList<Node> children() {
+            describe();
+            ArrayList<Node> result = new ArrayList<Node>(childElements.size());
+            for(NCLElement child : childElements)
+                result.add(new Node(child, this, result.size()));
+            childElements = null;
+            return result;
+        }
+        
+        
+        private void markup(String s) {
+            int len = s.length();
+            int i = skip(s, 0);
+            
+            // declarations and comments before the element
+            while(s.startsWith("<?", i) || s.startsWith("<!--", i)){
+                int end = s.startsWith("<?", i) ? s.indexOf("?>", i) : s.indexOf("-->", i);
+                if(end < 0)
+                    break;
+                i = skip(s, end + (s.charAt(end) == '?' ? 2 : 3));
+            }
+            
+            if(i >= len || s.charAt(i) != '<'){
+                tag = "";
+                text = s.trim();
+                return;
+            }
+            
+            int start = ++i;
+            while(i < len && !Character.isWhitespace(s.charAt(i)) && s.charAt(i) != '>' && s.charAt(i) != '/')
+                i++;
+            tag = s.substring(start, i);
+            
+            int open = s.indexOf('>', i);
+            if(open < 0 || s.charAt(open - 1) == '/'){
+                text = "";
+                return;
+            }
+            
+            String rest = s.substring(open + 1);
+            int end = rest.lastIndexOf("</" + tag);
+            if(end >= 0)
+                rest = rest.substring(0, end);
+            text = rest.trim();
+        }
+        
+        
+        private int skip(String s, int i) {
+            while(i < s.length() && Character.isWhitespace(s.charAt(i)))
+                i++;
+            return i;
+        }
+        
+        
+        @Override
+        public void addChild(NCLElement child) {
+            childElements.add(child);
+        }
+        
+        
+        @Override
+        public void addAttribute(NCLElementAttributes name, String value) {
+            attributes.put(name, value);
+            attributesWritten = true;
+        }
+        
+        
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+        
+        
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            // the code appended after the attributes are received contains them
+            if(attributesWritten)
+                attributesWritten = false;
+            else
+                code.append(csq, start, end);
+            return this;
+        }
+        
+        
+        @Override
+        public Appendable append(char c) {
+            if(attributesWritten)
+                attributesWritten = false;
+            else
+                code.append(c);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.modification;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+
+
+/**
+ * Class that represents an edit of the script that transforms a document into
+ * another one. The edits are computed by the class <i>NCLDiff</i>.
+ * 
+ * <br/>
+ * 
+ * The elements of an edit are the ones of the document they are found in:
+ * <ul>
+ *  <li><i>INSERTED</i> - the element inserted and its parent are elements of
+ *  the new document.</li>
+ *  <li><i>REMOVED</i> - the element removed and its parent are elements of
+ *  the old document.</li>
+ *  <li><i>MOVED</i> - the element and its new parent are elements of the new
+ *  document, the old element and the old parent are elements of the old
+ *  document. An element whose place among the children of its parent
+ *  changed is moved to the same parent.</li>
+ *  <li><i>ALTERED_ATT</i> - the element is the element of the new document,
+ *  the old element is the one of the old document. The values are the ones
+ *  written in the XML code of the elements.</li>
+ * </ul>
+ */
+public class NCLEdit {
+    
+    public enum NCLEditType {INSERTED, REMOVED, MOVED, ALTERED_ATT;}
+    
+    private NCLEditType type;
+    private NCLElement element, oldElement;
+    private NCLElement parent, oldParent;
+    private int position = -1;
+    private NCLElementAttributes attName;
+    private String old_value, new_value;
+    
+    
+    /**
+     * Creates an edit of an element inserted or removed.
+     * 
+     * @param type
+     *          <i>INSERTED</i> or <i>REMOVED</i>.
+     * @param parent
+     *          parent of the element.
+     * @param element
+     *          element inserted or removed.
+     */
+    public NCLEdit(NCLEditType type, NCLElement parent, NCLElement element) {
+        this.type = type;
+        this.parent = parent;
+        this.element = element;
+        if(type == NCLEditType.REMOVED){
+            oldParent = parent;
+            oldElement = element;
+        }
+    }
+    
+    
+    /**
+     * Creates an edit of an element moved to another parent or to another
+     * place in the same parent.
+     * 
+     * @param oldParent
+     *          parent of the element in the old document.
+     * @param oldElement
+     *          element of the old document.
+     * @param parent
+     *          parent of the element in the new document.
+     * @param element
+     *          element of the new document.
+     * @param position
+     *          position of the element among the children of its parent in
+     *          the new document.
+     */
+    public NCLEdit(NCLElement oldParent, NCLElement oldElement, NCLElement parent, NCLElement element, int position) {
+        this.type = NCLEditType.MOVED;
+        this.oldParent = oldParent;
+        this.oldElement = oldElement;
+        this.parent = parent;
+        this.element = element;
+        this.position = position;
+    }
+    
+    
+    /**
+     * Creates an edit of an attribute altered.
+     * 
+     * @param oldElement
+     *          element of the old document.
+     * @param element
+     *          element of the new document.
+     * @param attName
+     *          attribute altered.
+     * @param old_value
+     *          value of the attribute in the old document or <i>null</i> if
+     *          the attribute was added.
+     * @param new_value
+     *          value of the attribute in the new document or <i>null</i> if
+     *          the attribute was removed.
+     */
+    public NCLEdit(NCLElement oldElement, NCLElement element, NCLElementAttributes attName, String old_value, String new_value) {
+        this.type = NCLEditType.ALTERED_ATT;
+        this.oldElement = oldElement;
+        this.element = element;
+        this.attName = attName;
+        this.old_value = old_value;
+        this.new_value = new_value;
+    }
+    
+    
+    public NCLEditType getType() {
+        return type;
+    }
+    
+    
+    /**
+     * Returns the element inserted, removed, moved or altered. It is the
+     * element of the new document, except for the elements removed.
+     * 
+     * @return 
+     *          element.
+     */
+    public NCLElement getElement() {
+        return element;
+    }
+    
+    
+    /**
+     * Returns the element of the old document that was removed, moved or
+     * altered.
+     * 
+     * @return 
+     *          element or <i>null</i> if the element was inserted.
+     */
+    public NCLElement getOldElement() {
+        return oldElement;
+    }
+    
+    
+    /**
+     * Returns the parent of the element inserted, removed or moved. It is the
+     * element of the new document, except for the elements removed.
+     * 
+     * @return 
+     *          parent element or <i>null</i> if an attribute was altered.
+     */
+    public NCLElement getParent() {
+        return parent;
+    }
+    
+    
+    /**
+     * Returns the parent of the element removed or moved in the old document.
+     * 
+     * @return 
+     *          parent element or <i>null</i> if the element was inserted or an
+     *          attribute was altered.
+     */
+    public NCLElement getOldParent() {
+        return oldParent;
+    }
+    
+    
+    /**
+     * Returns the position of the element moved among the children of its
+     * parent in the new document, counted in the order they are written.
+     * 
+     * @return 
+     *          position or <i>-1</i> if the edit is not a move.
+     */
+    public int getPosition() {
+        return position;
+    }
+    
+    
+    /**
+     * Returns the attribute altered.
+     * 
+     * @return 
+     *          attribute or <i>null</i> if the edit is not an alteration.
+     */
+    public NCLElementAttributes getAttribute() {
+        return attName;
+    }
+    
+    
+    /**
+     * Returns the name of the attribute altered, as written in the XML code.
+     * 
+     * @return 
+     *          name of the attribute or <i>null</i> if the edit is not an
+     *          alteration.
+     */
+    public String getAttributeName() {
+        return attName != null ? attName.toString() : null;
+    }
+    
+    
+    public String getOldValue() {
+        return old_value;
+    }
+    
+    
+    public String getNewValue() {
+        return new_value;
+    }
+    
+    
+    @Override
+    public String toString() {
+        switch(type){
+            case INSERTED:
+            case REMOVED:
+                return type + " " + element + " in " + parent;
+            case MOVED:
+                return type + " " + element + " from " + oldParent + " to " + parent;
+            default:
+                return type + " " + attName + " of " + element + ": " + old_value + " -> " + new_value;
+        }
+    }
+}
@@ -37,115 +37,467 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.modification;
 
-import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * Class that implements a notifier for modifications in the elements.
+ * 
+ * <br/>
+ * 
+ * Each document may have its own notifier (see
+ * <i>NCLDoc.getModificationNotifier</i>) and a notifier may be shared by
+ * many documents to represent an editing session. Elements that do not belong
+ * to a document with a notifier use the global notifier returned by
+ * <i>getInstance</i>.
+ * 
+ * <br/>
+ * 
+ * The notifications are kept in a lock-free queue and delivered to the
+ * listeners in batches by a task submitted to an executor. Only one delivery
+ * task runs at a time for a notifier, so the listeners receive the
+ * notifications in the order they were queued, whatever the executor used.
+ * The notifications are numbered by the delivery task as they are taken from
+ * the queue, so the order numbers received by the listeners always increase.
+ * Any executor may be given, including one that starts a virtual thread per
+ * task.
+ * 
+ * <br/>
+ * 
+ * The modifications made inside a transaction of a document (see
+ * <i>NCLDoc.beginTransaction</i>) are not delivered one by one. They are
+ * collected in a change set kept by the document, delivered at once to the
+ * listeners that implement <i>NCLChangeSetListener</i> and one coalesced
+ * notification at a time to the others.
  */
-public class NCLModificationNotifier extends Thread implements Serializable {
+public class NCLModificationNotifier {
     
-    private int index;
-    private boolean run;
-    private ArrayList<NCLNotification> notifications;
-    private ArrayList<NCLModificationListener> listeners;
+    /** Maximum number of notifications delivered by one delivery task. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
     
-    private static NCLModificationNotifier instance;
+    private static volatile NCLModificationNotifier instance;
+    private static final AtomicInteger listenerCount = new AtomicInteger();
+    private static ExecutorService defaultExecutor;
     
+    private final Executor executor;
+    private final int batchSize;
+    // holds NCLNotification and NCLChangeSet objects
+    private final ConcurrentLinkedQueue<Object> notifications;
+    private final CopyOnWriteArrayList<NCLModificationListener> listeners;
+    private final AtomicBoolean scheduled;
+    private final AtomicInteger index;
+    private final AtomicInteger pending;
+    private final AtomicInteger maxPending;
+    private final AtomicLong delivered;
+    private final AtomicLong totalLatency;
+    private final AtomicLong maxLatency;
+    private final Runnable delivery;
+    private volatile int waiting;
     
-    private NCLModificationNotifier() {
-        index = 0;
-        run = true;
-        notifications = new ArrayList<NCLNotification>();
-        listeners = new ArrayList<NCLModificationListener>();
-        start();
+    
+    /**
+     * Notifier constructor. The notifications are delivered by daemon threads
+     * shared by all notifiers created this way.
+     */
+    public NCLModificationNotifier() {
+        this(getDefaultExecutor(), DEFAULT_BATCH_SIZE);
+    }
+    
+    
+    /**
+     * Notifier constructor.
+     * 
+     * @param executor 
+     *          executor that runs the tasks that deliver the notifications.
+     */
+    public NCLModificationNotifier(Executor executor) {
+        this(executor, DEFAULT_BATCH_SIZE);
     }
     
     
-    public synchronized static NCLModificationNotifier getInstance() {
-        if(instance == null)
-            instance = new NCLModificationNotifier();
+    /**
+     * Notifier constructor.
+     * 
+     * @param executor 
+     *          executor that runs the tasks that deliver the notifications.
+     * @param batchSize
+     *          maximum number of notifications delivered by one task before
+     *          giving the executor thread back.
+     */
+    public NCLModificationNotifier(Executor executor, int batchSize) {
+        if(executor == null)
+            throw new NullPointerException("Null executor.");
+        if(batchSize < 1)
+            throw new IllegalArgumentException("Invalid batch size.");
         
-        return instance;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        notifications = new ConcurrentLinkedQueue<Object>();
+        listeners = new CopyOnWriteArrayList<NCLModificationListener>();
+        scheduled = new AtomicBoolean(false);
+        index = new AtomicInteger(0);
+        pending = new AtomicInteger(0);
+        maxPending = new AtomicInteger(0);
+        delivered = new AtomicLong(0);
+        totalLatency = new AtomicLong(0);
+        maxLatency = new AtomicLong(0);
+        delivery = new Runnable() {
+            @Override
+            public void run() {
+                sendNotifications();
+            }
+        };
+    }
+    
+    
+    /**
+     * Returns the global notifier, used by the elements that do not belong to
+     * a document with its own notifier.
+     * 
+     * @return 
+     *          global notifier.
+     */
+    public static NCLModificationNotifier getInstance() {
+        NCLModificationNotifier aux = instance;
+        if(aux != null)
+            return aux;
+        
+        synchronized(NCLModificationNotifier.class){
+            if(instance == null)
+                instance = new NCLModificationNotifier();
+            
+            return instance;
+        }
     }
     
     
-    public synchronized void addNotification(NCLNotification notification) {
+    private static synchronized Executor getDefaultExecutor() {
+        if(defaultExecutor == null){
+            defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "NCLModificationNotifier");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        
+        return defaultExecutor;
+    }
+    
+    
+    /**
+     * Verifies if there is any listener registered. The elements use this
+     * method to avoid creating notifications nobody will receive.
+     * 
+     * @return 
+     *          true if there is at least one listener registered.
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+    
+    
+    /**
+     * Verifies if any notifier has a listener registered. The elements use
+     * this method to avoid looking for their notifier when no notification
+     * would be delivered, so an element modified without listeners only reads
+     * this counter.
+     * 
+     * @return 
+     *          true if at least one notifier has a listener registered.
+     */
+    public static boolean anyListeners() {
+        return listenerCount.get() > 0;
+    }
+    
+    
+    public void addNotification(NCLNotification notification) {
         if(listeners.isEmpty())
             return;
         
-        index++;
-        notification.setOrderNumber(index);
-        notifications.add(notification);
-        notify();
+        notification.setQueuedTime(System.nanoTime());
+        enqueue(notification);
+    }
+    
+    
+    /**
+     * Adds a notification to the change set of a transaction in progress. The
+     * notification is kept even if this notifier has no listeners, so the
+     * change set is complete when the transaction is committed. If the change
+     * set was already closed, the notification is delivered by itself.
+     * 
+     * @param notification
+     *          notification to be added.
+     * @param changeSet 
+     *          change set of the transaction.
+     */
+    public void addNotification(NCLNotification notification, NCLChangeSet changeSet) {
+        if(!changeSet.add(notification))
+            addNotification(notification);
+    }
+    
+    
+    /**
+     * Closes the change set of a transaction committed and delivers it to the
+     * listeners, if it is not empty.
+     * 
+     * @param changeSet 
+     *          change set of the transaction.
+     */
+    public void addChangeSet(NCLChangeSet changeSet) {
+        changeSet.close();
+        if(listeners.isEmpty() || changeSet.isEmpty())
+            return;
+        
+        changeSet.setQueuedTime(System.nanoTime());
+        enqueue(changeSet);
+    }
+    
+    
+    private void enqueue(Object item) {
+        int depth = pending.incrementAndGet();
+        int max = maxPending.get();
+        while(depth > max && !maxPending.compareAndSet(max, depth))
+            max = maxPending.get();
+        
+        notifications.offer(item);
+        schedule();
     }
     
     
-    public void addListener(NCLModificationListener listener) {
+    public synchronized void addListener(NCLModificationListener listener) {
         listeners.add(listener);
+        listenerCount.incrementAndGet();
     }
     
     
-    public void removeListener(NCLModificationListener listener) {
-        listeners.remove(listener);
+    public synchronized void removeListener(NCLModificationListener listener) {
+        if(listeners.remove(listener))
+            listenerCount.decrementAndGet();
     }
     
     
-    public void clearListeners() {
+    public synchronized void clearListeners() {
+        listenerCount.addAndGet(-listeners.size());
         listeners.clear();
     }
     
     
+    /**
+     * Waits until every notification queued is delivered to the listeners.
+     * 
+     * @throws InterruptedException 
+     *          if the thread is interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+        synchronized(this){
+            waiting++;
+            try{
+                while(pending.get() > 0 || scheduled.get())
+                    wait();
+            }finally{
+                waiting--;
+            }
+        }
+    }
+    
+    
+    /**
+     * Waits until every notification queued is delivered to the listeners. If
+     * this is the global notifier, its listeners are removed and a new one is
+     * created by the next call to <i>getInstance</i>. Other notifiers are not
+     * affected.
+     * 
+     * @throws InterruptedException 
+     *          if the thread is interrupted while waiting.
+     */
     public void finish() throws InterruptedException {
-        if(notifications.isEmpty())
-            interrupt();
-        else
-            run = false;
+        flush();
         
-        instance = null;
-        join();
+        boolean retired = false;
+        synchronized(NCLModificationNotifier.class){
+            if(instance == this){
+                instance = null;
+                retired = true;
+            }
+        }
+        
+        // the listeners of a retired notifier would keep anyListeners true
+        if(retired)
+            clearListeners();
     }
     
     
-    protected synchronized void sendNotification() throws InterruptedException{
-        if(!notifications.isEmpty()){
-            NCLNotification notification = notifications.get(0);
-            notifications.remove(0);
-            
-            for (NCLModificationListener listener : listeners) {
-                // Avoiding user errors
-                try{
-                    listener.modifiedElement(notification);
-                }catch(Exception e){}
+    /**
+     * Returns the number of notifications queued and not yet delivered. A
+     * change set counts as one notification.
+     * 
+     * @return 
+     *          number of notifications waiting to be delivered.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+    
+    
+    /**
+     * Returns the largest number of notifications that were waiting to be
+     * delivered at the same time.
+     * 
+     * @return 
+     *          maximum queue depth.
+     */
+    public int getMaxPendingCount() {
+        return maxPending.get();
+    }
+    
+    
+    /**
+     * Returns the number of notifications delivered to the listeners. A change
+     * set counts as one notification.
+     * 
+     * @return 
+     *          number of notifications delivered.
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+    
+    
+    /**
+     * Returns the average time, in nanoseconds, between queuing a notification
+     * and delivering it to the listeners.
+     * 
+     * @return 
+     *          average delivery latency in nanoseconds.
+     */
+    public long getAverageLatency() {
+        long count = delivered.get();
+        if(count == 0)
+            return 0;
+        
+        return totalLatency.get() / count;
+    }
+    
+    
+    /**
+     * Returns the longest time, in nanoseconds, between queuing a notification
+     * and delivering it to the listeners.
+     * 
+     * @return 
+     *          maximum delivery latency in nanoseconds.
+     */
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+    
+    
+    private void schedule() {
+        while(scheduled.compareAndSet(false, true)){
+            try{
+                executor.execute(delivery);
+                return;
+            }catch(RuntimeException ex){
+                // the executor is shut down or full, so the notifications are
+                // delivered by the thread that queued them and none is left
+                // for flush to wait on or thrown into the modified element
+                deliver(Integer.MAX_VALUE);
+                scheduled.set(false);
+                if(notifications.isEmpty()){
+                    wakeUp();
+                    return;
+                }
             }
         }
+    }
+    
+    
+    protected void sendNotifications() {
+        deliver(batchSize);
+        scheduled.set(false);
+        
+        // notifications queued while the task was finishing
+        if(!notifications.isEmpty())
+            schedule();
         else
-            wait();
+            wakeUp();
     }
     
     
-    protected void sendRemainingNotifications() throws InterruptedException{
-        if(notifications.isEmpty())
-            return;
+    private void deliver(int limit) {
+        Object item;
+        int count = 0;
         
-        for (NCLNotification notification : notifications) {
-            for (NCLModificationListener listener : listeners) {
-                listener.modifiedElement(notification);
+        while(count < limit && (item = notifications.poll()) != null){
+            long latency;
+            
+            // only one thread delivers at a time, so the numbers follow the
+            // order the notifications are delivered
+            if(item instanceof NCLChangeSet){
+                NCLChangeSet changes = (NCLChangeSet) item;
+                latency = System.nanoTime() - changes.getQueuedTime();
+                for(NCLNotification notification : changes.getNotifications())
+                    notification.setOrderNumber(index.incrementAndGet());
+                for(NCLModificationListener listener : listeners)
+                    sendChanges(listener, changes);
             }
+            else{
+                NCLNotification notification = (NCLNotification) item;
+                latency = System.nanoTime() - notification.getQueuedTime();
+                notification.setOrderNumber(index.incrementAndGet());
+                for(NCLModificationListener listener : listeners)
+                    sendNotification(listener, notification);
+            }
+            
+            totalLatency.addAndGet(latency);
+            long max = maxLatency.get();
+            while(latency > max && !maxLatency.compareAndSet(max, latency))
+                max = maxLatency.get();
+            
+            delivered.incrementAndGet();
+            pending.decrementAndGet();
+            count++;
+        }
+    }
+    
+    
+    private void sendChanges(NCLModificationListener listener, NCLChangeSet changes) {
+        if(listener instanceof NCLChangeSetListener){
+            // Avoiding user errors
+            try{
+                ((NCLChangeSetListener) listener).modifiedElements(changes);
+            }catch(Exception e){}
+        }
+        else{
+            for(NCLNotification notification : changes.getNotifications())
+                sendNotification(listener, notification);
         }
-        
-        notifications.clear();
     }
     
     
-    @Override
-    public void run() {
+    private void sendNotification(NCLModificationListener listener, NCLNotification notification) {
+        // Avoiding user errors
         try{
-            while(run)
-                sendNotification();
-            
-            sendRemainingNotifications();
-        }catch(Exception ex){}
+            listener.modifiedElement(notification);
+        }catch(Exception e){}
+    }
+    
+    
+    private void wakeUp() {
+        if(waiting > 0){
+            synchronized(this){
+                notifyAll();
+            }
+        }
     }
 }
@@ -53,6 +53,8 @@ public class NCLNotification {
     public enum NCLNotificationType {INSERTED_CHILD, REMOVED_CHILD, ALTERED_ATT;}
     
     private int orderNumber;
+    private long time;
+    private long queued;
     private String timeStamp;
     private NCLNotificationType type;
     private NCLElementAttributes attName;
@@ -93,11 +95,31 @@ public class NCLNotification {
     }
     
     
+    protected void setQueuedTime(long queued) {
+        this.queued = queued;
+    }
+    
+    
+    protected long getQueuedTime() {
+        return queued;
+    }
+    
+    
+    /**
+     * Merges a later change of the same attribute of the same element into
+     * this notification, which keeps its old value and takes the new value of
+     * the later change.
+     * 
+     * @param later
+     *          notification of the later change.
+     */
+    protected void merge(NCLNotification later) {
+        new_value = later.new_value;
+    }
+    
+    
     private void setTimeStamp() {
-        DateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-       //get current date time with Date()
-       Date date = new Date();
-       timeStamp = dateFormat.format(date);
+        time = System.currentTimeMillis();
     }
     
     
@@ -140,11 +162,36 @@ public class NCLNotification {
     }
     
     
+    /**
+     * Returns the time the modification occurred, formatted as
+     * <i>dd/MM/yyyy HH:mm:ss</i>. The time is only formatted when this method
+     * is called.
+     * 
+     * @return 
+     *          string representing the time of the modification.
+     */
     public String getTimeStamp() {
+        if(timeStamp == null){
+            DateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+            timeStamp = dateFormat.format(new Date(time));
+        }
+        
         return timeStamp;
     }
     
     
+    /**
+     * Returns the time the modification occurred, in milliseconds since the
+     * epoch.
+     * 
+     * @return 
+     *          time of the modification.
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    
     public NCLNotificationType getType() {
         return type;
     }
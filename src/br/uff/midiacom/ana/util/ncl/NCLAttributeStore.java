@@ -0,0 +1,146 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+
+
+/**
+ * Compact storage of the optional attributes of an element. An element with
+ * many optional attributes, of which a document usually defines a few, keeps
+ * a single array with the pairs of attribute and value defined instead of
+ * one field per attribute, so an attribute not defined costs nothing.
+ * 
+ * <br/>
+ * 
+ * The array is <i>null</i> while the element has no attribute defined and is
+ * replaced, never modified, when an attribute changes. Setting an attribute
+ * to <i>null</i> removes it from the array.
+ */
+public final class NCLAttributeStore {
+    
+    
+    private NCLAttributeStore() {}
+    
+    
+    /**
+     * Returns the value of an attribute or <i>null</i> if the attribute is
+     * not defined.
+     * 
+     * @param attributes
+     *          array of attributes of the element. May be <i>null</i>.
+     * @param attribute
+     *          attribute of the element.
+     * @return 
+     *          value of the attribute or <i>null</i> if it is not defined.
+     */
+    public static <V> V get(Object[] attributes, NCLElementAttributes attribute) {
+        if(attributes == null)
+            return null;
+        
+        for(int i = 0; i < attributes.length; i += 2){
+            if(attributes[i] == attribute)
+                return (V) attributes[i + 1];
+        }
+        return null;
+    }
+    
+    
+    /**
+     * Sets the value of an attribute. Set the value to <i>null</i> to remove
+     * an attribute already defined.
+     * 
+     * @param attributes
+     *          array of attributes of the element. May be <i>null</i>.
+     * @param attribute
+     *          attribute of the element.
+     * @param value
+     *          value of the attribute or <i>null</i> to remove the attribute.
+     * @return 
+     *          new array of attributes of the element or <i>null</i> if the
+     *          element has no attribute defined.
+     */
+    public static Object[] set(Object[] attributes, NCLElementAttributes attribute, Object value) {
+        int pos = -1;
+        int length = attributes != null ? attributes.length : 0;
+        for(int i = 0; i < length; i += 2){
+            if(attributes[i] == attribute){
+                pos = i;
+                break;
+            }
+        }
+        
+        Object[] aux;
+        if(pos < 0){
+            if(value == null)
+                return attributes;
+            
+            aux = new Object[length + 2];
+            if(length > 0)
+                System.arraycopy(attributes, 0, aux, 0, length);
+            aux[length] = attribute;
+            aux[length + 1] = value;
+        }
+        else if(value != null){
+            aux = attributes.clone();
+            aux[pos + 1] = value;
+        }
+        else{
+            if(length == 2)
+                return null;
+            
+            aux = new Object[length - 2];
+            System.arraycopy(attributes, 0, aux, 0, pos);
+            System.arraycopy(attributes, pos + 2, aux, pos, length - pos - 2);
+        }
+        return aux;
+    }
+    
+    
+    /**
+     * Returns the number of attributes defined.
+     * 
+     * @param attributes
+     *          array of attributes of the element. May be <i>null</i>.
+     * @return 
+     *          number of attributes defined.
+     */
+    public static int size(Object[] attributes) {
+        return attributes != null ? attributes.length / 2 : 0;
+    }
+}
@@ -44,6 +44,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -167,40 +168,27 @@ public abstract class NCLBase<T extends NCLElement,
     }
     
     
-    protected String parseImportBases(int ident) {
+    protected void writeImportBases(Appendable out, int ident) throws IOException {
         if(!hasImportBase())
-            return "";
+            return;
         
-        String content = "";
         for(Ei aux : imports)
-            content += aux.parse(ident);
-        
-        return content;
+            writeChild(out, aux, ident);
     }
     
     
     protected void loadImportBases(Element element) throws XMLException {
         //create the imports
-        if(element.getTagName().equals(NCLElementAttributes.IMPORTBASE.toString())){
-            Ei inst = createImportBase();
-            addImportBase(inst);
-            inst.load(element);
-        }
+        Ei inst = createImportBase();
+        addImportBase(inst);
+        inst.load(element);
     }
     
     
     public boolean compareImports(NCLBase other) {
         boolean result = true;
         ElementList<Ei> otherimp = other.getImportBases();
-        
-        result &= imports.size() == otherimp.size();
-        for (Ei imp : imports) {
-            try {
-                result &= otherimp.contains(imp);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= imports.compare(otherimp);
         
         return result;
     }
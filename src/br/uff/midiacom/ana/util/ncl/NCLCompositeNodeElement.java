@@ -38,6 +38,8 @@
 package br.uff.midiacom.ana.util.ncl;
 
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.interfaces.NCLPort;
 import br.uff.midiacom.ana.interfaces.NCLProperty;
@@ -47,8 +49,10 @@ import br.uff.midiacom.ana.meta.NCLMetadata;
 import br.uff.midiacom.ana.node.NCLNode;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import java.util.ArrayList;
+import org.w3c.dom.Element;
 
 
 /**
@@ -111,6 +115,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     protected ElementList<Emt> metadatas;
     
     protected ArrayList<T> references;
+    protected transient ArrayList<NCLLoadTask> loadTasks;
 
 
     /**
@@ -127,7 +132,6 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
         links = new ElementList<El>();
         metas = new ElementList<Em>();
         metadatas = new ElementList<Emt>();
-        references = new ArrayList<T>();
     }
     
     
@@ -866,64 +870,22 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
         
         
         ElementList<Ept> otherpor = other.getPorts();
-        result &= ports.size() == otherpor.size();
-        for (Ept aux : ports) {
-            try {
-                result &= otherpor.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= ports.compare(otherpor);
         
         ElementList<Epp> otherpro = other.getProperties();
-        result &= properties.size() == otherpro.size();
-        for (Epp aux : properties) {
-            try {
-                result &= otherpro.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= properties.compare(otherpro);
         
         ElementList<En> othernod = other.getNodes();
-        result &= nodes.size() == othernod.size();
-        for (En aux : nodes) {
-            try {
-                result &= othernod.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= nodes.compare(othernod);
         
         ElementList<El> otherlin = other.getLinks();
-        result &= links.size() == otherlin.size();
-        for (El aux : links) {
-            try {
-                result &= otherlin.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= links.compare(otherlin);
         
         ElementList<Em> othermet = other.getMetas();
-        result &= metas.size() == othermet.size();
-        for (Em aux : metas) {
-            try {
-                result &= othermet.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metas.compare(othermet);
         
         ElementList<Emt> othermtd = other.getMetadatas();
-        result &= metadatas.size() == othermtd.size();
-        for (Emt aux : metadatas) {
-            try {
-                result &= othermtd.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metadatas.compare(othermtd);
         
         return result;
     }
@@ -931,20 +893,81 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
+    
+    
+    /**
+     * Starts collecting the child contexts and switches to be loaded in
+     * parallel, if the document is loaded by a pool.
+     */
+    protected void startLoadTasks() {
+        if(getLoadPool() != null)
+            loadTasks = new ArrayList<NCLLoadTask>();
+        else
+            loadTasks = null;
+    }
+    
+    
+    /**
+     * Adds a child node to this element and loads it. If the children are
+     * being collected to be loaded in parallel, the node is only loaded by
+     * <i>runLoadTasks</i>. Its id is set before it is added, so the node
+     * is not taken as equal to the other nodes not loaded yet.
+     * 
+     * @param node
+     *          child node.
+     * @param element
+     *          DOM element with the node content.
+     * @throws XMLException 
+     *          if an error occur while loading the node.
+     */
+    protected void loadNode(En node, Element element) throws XMLException {
+        if(loadTasks == null){
+            addNode(node);
+            node.load(element);
+            return;
+        }
+        
+        String id = element.getAttribute(NCLElementAttributes.ID.toString());
+        if(!id.isEmpty())
+            ((NCLIdentifiableElementPrototype) node).setId(id);
+        
+        addNode(node);
+        loadTasks.add(new NCLLoadTask(node, element));
+    }
+    
+    
+    /**
+     * Loads in parallel the child nodes collected since <i>startLoadTasks</i>
+     * and waits until all of them are loaded.
+     * 
+     * @throws XMLException 
+     *          if an error occur while loading a node.
+     */
+    protected void runLoadTasks() throws XMLException {
+        ArrayList<NCLLoadTask> aux = loadTasks;
+        loadTasks = null;
+        
+        if(aux != null)
+            NCLLoadTask.invokeAll(getLoadPool(), aux);
+    }
 }
@@ -0,0 +1,245 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * Class that represents the index of the elements of a document by id. The
+ * index is kept up to date by the elements of the document, so only the
+ * search is public.
+ * 
+ * <br/>
+ * 
+ * The ids of a subtree built outside the document are kept by its root and
+ * moved to the index when the subtree is attached, so attaching an element
+ * does not visit its descendants. A subtree whose ids are not known, because
+ * it was detached from a document, is indexed the next time an element is
+ * searched. The elements removed are dropped from the index when they are
+ * found there.
+ */
+public final class NCLElementIndex {
+    
+    private final NCLDoc doc;
+    private final ConcurrentHashMap<String, NCLElement> elements;
+    private final ConcurrentLinkedQueue<NCLElement> attached;
+    
+    
+    /**
+     * Index constructor.
+     * 
+     * @param doc 
+     *          document whose elements are indexed.
+     */
+    public NCLElementIndex(NCLDoc doc) {
+        this.doc = doc;
+        elements = new ConcurrentHashMap<String, NCLElement>();
+        attached = new ConcurrentLinkedQueue<NCLElement>();
+    }
+    
+    
+    /**
+     * Returns the element of the document with the id given. If more than one
+     * element has the same id, the first one added to the document is
+     * returned.
+     * 
+     * @param id
+     *          string representing the id of the element.
+     * @return 
+     *          element with the id given or <i>null</i> if there is no element
+     *          with that id in the document.
+     */
+    public NCLElement get(String id) {
+        if(!attached.isEmpty())
+            indexAttached();
+        
+        NCLElement result = elements.get(id);
+        if(result != null && (result.getDoc() != doc || (result instanceof NCLIdentifiableElementPrototype
+                && !id.equals(((NCLIdentifiableElementPrototype) result).getId())))){
+            elements.remove(id, result);
+            return null;
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Removes all the elements from the index.
+     */
+    public void clear() {
+        elements.clear();
+        attached.clear();
+    }
+    
+    
+    /**
+     * Adds an element to the index. If there is already an element of the
+     * document with the same id in the index the index is not changed.
+     */
+    void put(String id, NCLElement element) {
+        NCLElement aux = elements.putIfAbsent(id, element);
+        if(aux != null && aux != element && aux.getDoc() != doc)
+            elements.replace(id, aux, element);
+    }
+    
+    
+    /**
+     * Removes an element from the index, if it is the element indexed with the
+     * id given.
+     */
+    void remove(String id, NCLElement element) {
+        elements.remove(id, element);
+    }
+    
+    
+    /**
+     * Keeps an element whose descendants are not known to be indexed the next
+     * time an element is searched.
+     */
+    void attach(NCLElement element) {
+        attached.add(element);
+    }
+    
+    
+    private void indexAttached() {
+        synchronized(attached){
+            // an element stays in the queue until it is indexed, so no search
+            // finds the queue empty before the index is complete
+            // the elements inside a subtree already indexed are skipped
+            Set<NCLElement> indexed = Collections.newSetFromMap(new IdentityHashMap<NCLElement, Boolean>());
+            NCLElement element;
+            while((element = attached.peek()) != null){
+                if(element.getDoc() == doc && element instanceof NCLElementPrototype && !inside(element, indexed)){
+                    indexSubtree(element);
+                    indexed.add(element);
+                }
+                attached.poll();
+            }
+        }
+    }
+    
+    
+    /**
+     * Indexes an element and its descendants, found by writing each element
+     * to a sink. The documents the descendants belong to are not changed.
+     */
+    private void indexSubtree(NCLElement element) {
+        if(element instanceof NCLIdentifiableElementPrototype){
+            String id = ((NCLIdentifiableElementPrototype) element).getId();
+            if(id != null)
+                put(id, element);
+        }
+        // imported documents keep their own index
+        if(element instanceof NCLDoc)
+            return;
+        
+        ChildSink children = new ChildSink();
+        try{
+            element.write(children, 0);
+        }catch(IOException ex){
+            // the sink never throws IOException
+            throw new IllegalStateException(ex);
+        }
+        
+        for(NCLElement child : children.children)
+            indexSubtree(child);
+    }
+    
+    
+    private boolean inside(NCLElement element, Set<NCLElement> roots) {
+        if(roots.isEmpty())
+            return false;
+        
+        for(NCLElement aux = element; aux != null && aux != doc; aux = (NCLElement) aux.getParent()){
+            if(roots.contains(aux))
+                return true;
+        }
+        
+        return false;
+    }
+    
+    
+    /**
+     * Sink that keeps the children of the element written to it and ignores
+     * its code.
+     */
+    private static final class ChildSink implements NCLElementSink {
+        
+        private final ArrayList<NCLElement> children = new ArrayList<NCLElement>();
+        
+        
+        @Override
+        public Appendable append(CharSequence csq) {
+            return this;
+        }
+        
+        
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            return this;
+        }
+        
+        
+        @Override
+        public Appendable append(char c) {
+            return this;
+        }
+        
+        
+        @Override
+        public void addChild(NCLElement child) {
+            children.add(child);
+        }
+        
+        
+        @Override
+        public void addAttribute(NCLElementAttributes name, String value) {
+        }
+    }
+}
@@ -37,15 +37,26 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.ncl;
 
+import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.ValueParser;
 import br.uff.midiacom.ana.util.exception.NCLModificationException;
 import br.uff.midiacom.ana.util.xml.*;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLChangeSet;
 import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
 import br.uff.midiacom.ana.util.modification.NCLNotification;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import br.uff.midiacom.ana.util.reference.ReferredElement;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -59,14 +70,16 @@ import java.util.regex.Pattern;
 public abstract class NCLElementPrototype<T extends NCLElement>
         extends XMLElementPrototype<T>
         implements NCLElement<T> {
-
-    private NCLModificationNotifier notifier;
     
-
-    public NCLElementPrototype() {
-        notifier = NCLModificationNotifier.getInstance();
-    }
-
+    private static final AtomicLong attachEpoch = new AtomicLong(1);
+    private static final ThreadLocal<AttributeTarget> attributeTarget = new ThreadLocal<AttributeTarget>();
+    private static final AtomicInteger attributeTargets = new AtomicInteger();
+    
+    private transient volatile ElementState state;
+    private transient Object indexingLists;
+    private transient volatile DocLink docLink;
+    private transient volatile boolean docRead;
+    
 
     @Override
     @Deprecated
@@ -75,11 +88,19 @@ public abstract class NCLElementPrototype<T extends NCLElement>
         if(this.parent != null && parent != null)
             throw new XMLException("This element already has a parent element.");
 
+        // the document of the descendants is found through their parents, so
+        // attaching a subtree does not visit it
         this.parent = parent;
-        if(parent == null)
+        // the documents cached below the element depend on its parent, but
+        // nothing was cached if its document was never read
+        if(docRead)
+            attachEpoch.incrementAndGet();
+        if(parent == null){
             this.doc = null;
+            detached();
+        }
         else
-            setDoc((T) parent.getDoc());
+            attached();
         
         try {
             notifyAltered(NCLElementAttributes.PARENT, aux, parent);
@@ -90,14 +111,626 @@ public abstract class NCLElementPrototype<T extends NCLElement>
     @Deprecated
     public void setDoc(T doc) {
         this.doc = doc;
+        if(docRead)
+            attachEpoch.incrementAndGet();
+    }
+    
+    
+    /**
+     * Returns the document the element belongs to. The document of an element
+     * with a parent is the first document among its ancestors or, if there is
+     * none, the document of the root of its subtree.
+     * 
+     * <br/>
+     * 
+     * The document found is cached together with an attach epoch, changed
+     * whenever an element whose document was read is attached or detached,
+     * so the ancestors are only visited again after such a change.
+     * 
+     * @return 
+     *          document element or <i>null</i> if the element does not belong
+     *          to a document.
+     */
+    @Override
+    public T getDoc() {
+        if(!docRead)
+            docRead = true;
+        if(parent == null)
+            return doc;
+        
+        long epoch = attachEpoch.get();
+        DocLink link = docLink;
+        if(link != null && link.epoch == epoch)
+            return (T) link.doc;
+        
+        return (T) resolveDoc(epoch);
+    }
+    
+    
+    /**
+     * Walks up to the first ancestor whose document is known and caches it in
+     * the element and in the ancestors visited. The ancestors are marked as
+     * read, so attaching or detaching any of them changes the epoch.
+     */
+    private NCLElement resolveDoc(long epoch) {
+        ArrayList<NCLElementPrototype> path = null;
+        NCLElement aux = (NCLElement) parent;
+        NCLElement result;
+        
+        while(true){
+            if(aux instanceof NCLDoc || !(aux instanceof NCLElementPrototype)){
+                result = aux instanceof NCLDoc ? aux : (NCLElement) aux.getDoc();
+                break;
+            }
+            
+            NCLElementPrototype element = (NCLElementPrototype) aux;
+            if(!element.docRead)
+                element.docRead = true;
+            if(element.parent == null){
+                result = (NCLElement) element.doc;
+                break;
+            }
+            
+            DocLink link = element.docLink;
+            if(link != null && link.epoch == epoch){
+                result = link.doc;
+                break;
+            }
+            
+            if(path == null)
+                path = new ArrayList<NCLElementPrototype>();
+            path.add(element);
+            aux = (NCLElement) element.parent;
+        }
+        
+        DocLink link = new DocLink(result, epoch);
+        docLink = link;
+        if(path != null){
+            for(NCLElementPrototype element : path)
+                element.docLink = link;
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Returns the state kept apart from the element, creating it on first use.
+     */
+    private ElementState state() {
+        ElementState aux = state;
+        if(aux == null){
+            synchronized(this){
+                if(state == null)
+                    state = new ElementState();
+                aux = state;
+            }
+        }
+        
+        return aux;
+    }
+    
+    
+    /**
+     * Returns the index of the elements of the document by id. Only documents
+     * have an index.
+     * 
+     * @return 
+     *          index of elements or <i>null</i> if the element is not a
+     *          document.
+     */
+    protected NCLElementIndex getElementIndex() {
+        return null;
+    }
+    
+    
+    /**
+     * Returns the first document found walking up from the element given or,
+     * if there is none, the root of its subtree.
+     */
+    private static NCLElement root(NCLElement element) {
+        NCLElement aux;
+        while(!(element instanceof NCLDoc) && (aux = (NCLElement) element.getParent()) != null)
+            element = aux;
+        
+        return element;
+    }
+    
+    
+    /**
+     * Adds the ids known in the subtree of the element to the index of the
+     * document the element was attached to or, if it is still outside a
+     * document, to the ids kept by the root of its subtree. Only the ids kept
+     * by the element are moved, so attaching a subtree does not visit it.
+     */
+    private void attached() {
+        if(this instanceof NCLDoc)
+            return;
+        
+        SubtreeIndex carried = null;
+        synchronized(this){
+            ElementState aux = state;
+            if(aux != null){
+                carried = aux.subtreeIndex;
+                aux.subtreeIndex = null;
+            }
+        }
+        
+        String id = null;
+        if(this instanceof NCLIdentifiableElementPrototype)
+            id = ((NCLIdentifiableElementPrototype) this).getId();
+        if(id == null && carried == null)
+            return;
+        
+        NCLElement root = root(this);
+        Object owner = root instanceof NCLDoc ? root : root.getDoc();
+        if(owner instanceof NCLDoc){
+            NCLElementIndex index = ((NCLElementPrototype) owner).getElementIndex();
+            if(id != null)
+                index.put(id, this);
+            if(carried != null)
+                carried.moveTo(index);
+        }
+        else if(root instanceof NCLElementPrototype)
+            ((NCLElementPrototype) root).keepIndex(id, this, carried);
+    }
+    
+    
+    /**
+     * Marks the ids in the subtree of the element as unknown. The subtree is
+     * visited only if it is attached to a document and an element of that
+     * document is searched.
+     */
+    private void detached() {
+        if(this instanceof NCLDoc)
+            return;
+        
+        SubtreeIndex aux = new SubtreeIndex();
+        aux.unindexed = new ArrayList<NCLElement>();
+        aux.unindexed.add(this);
+        synchronized(this){
+            state().subtreeIndex = aux;
+        }
+    }
+    
+    
+    private synchronized void keepIndex(String id, NCLElement element, SubtreeIndex carried) {
+        ElementState current = state();
+        SubtreeIndex aux = current.subtreeIndex;
+        if(aux == null)
+            aux = current.subtreeIndex = carried != null ? carried : new SubtreeIndex();
+        else if(carried != null)
+            aux.merge(carried);
+        
+        if(id != null)
+            aux.put(id, element);
     }
 
 
-    protected boolean validate(String id) {
-        Pattern pattern = Pattern.compile("[_:A-Za-z][-._:A-Za-z0-9]*");
-        Matcher matcher = pattern.matcher(id);
+    /**
+     * Updates the ids kept by the root of the subtree of the element when the
+     * element is outside a document and its id changes.
+     * 
+     * @param oldId
+     *          previous id of the element.
+     * @param newId
+     *          new id of the element.
+     */
+    void reindexSubtree(String oldId, String newId) {
+        if(parent == null)
+            return;
+        
+        NCLElement root = root(this);
+        if(root instanceof NCLElementPrototype)
+            ((NCLElementPrototype) root).replaceIndex(oldId, newId, this);
+    }
+    
+    
+    private synchronized void replaceIndex(String oldId, String newId, NCLElement element) {
+        ElementState current = state();
+        SubtreeIndex aux = current.subtreeIndex;
+        if(aux == null)
+            aux = current.subtreeIndex = new SubtreeIndex();
+        
+        if(oldId != null && aux.ids != null)
+            aux.ids.remove(oldId, element);
+        if(newId != null)
+            aux.put(newId, element);
+    }
+
+
+    /**
+     * Returns the element with the id given from the index of the document
+     * this element belongs to, if the element found is this element or one of
+     * its descendants.
+     * 
+     * @param id
+     *          id of the element to be found.
+     * @return 
+     *          element found or <i>null</i> if the element is not in the
+     *          document index or is not a descendant of this element.
+     */
+    protected NCLElement findIndexed(String id) {
+        T owner = getDoc();
+        if(!(owner instanceof NCLDoc))
+            return null;
+        
+        NCLElement result = ((NCLDoc) owner).getElementById(id);
+        for(NCLElement aux = result; aux != null; aux = (NCLElement) aux.getParent()){
+            if(aux == this)
+                return result;
+        }
+        
+        return null;
+    }
+
+
+    /**
+     * Returns the pool used to load the document the element belongs to in
+     * parallel.
+     * 
+     * @return 
+     *          fork-join pool or <i>null</i> if the element is loaded
+     *          sequentially.
+     */
+    protected ForkJoinPool getLoadPool() {
+        T aux = getDoc();
+        if(aux instanceof NCLDoc)
+            return ((NCLDoc) aux).getLoadPool();
+        
+        return null;
+    }
+
+
+    /**
+     * Returns the instance of a string kept by the symbol table of the
+     * document the element belongs to. The string itself is returned if the
+     * element does not belong to a document or if the document has no table.
+     * 
+     * @param value
+     *          string read or set in the element. May be <i>null</i>.
+     * @return 
+     *          instance of the string to be kept by the element.
+     */
+    protected String intern(String value) {
+        if(value == null)
+            return null;
+        
+        T aux = getDoc();
+        NCLSymbolTable table = null;
+        if(aux instanceof NCLDoc)
+            table = ((NCLDoc) aux).getSymbolTable();
+        else if(this instanceof NCLDoc)
+            table = ((NCLDoc) this).getSymbolTable();
+        
+        return table != null ? table.intern(value) : value;
+    }
+
+
+    /**
+     * Verifies if the document the element belongs to keeps the serialized
+     * fragments of its elements.
+     * 
+     * @return 
+     *          true if the serialized fragments are cached.
+     */
+    protected boolean isFragmentCaching() {
+        T aux = getDoc();
+        if(aux instanceof NCLDoc)
+            return ((NCLDoc) aux).isFragmentCaching();
+        if(this instanceof NCLDoc)
+            return ((NCLDoc) this).isFragmentCaching();
+        
+        return false;
+    }
+    
+    
+    @Override
+    public String parse(int ident) {
+        if(!isFragmentCaching())
+            return super.parse(ident);
+        
+        if(ident < 0)
+            ident = 0;
+        
+        ElementState current = state;
+        Fragment aux = current != null ? current.fragment : null;
+        if(aux == null || aux.ident != ident){
+            // the children are written from their own fragments
+            aux = new Fragment(ident, super.parse(ident));
+            state().fragment = aux;
+        }
+        
+        return aux.text;
+    }
+    
+    
+    /**
+     * Writes a child element. When the document caches the serialized
+     * fragments, the cached fragment of the child is written instead of
+     * serializing it again. A sink receives the child itself.
+     * 
+     * @param out
+     *          destination of the XML code.
+     * @param child
+     *          child element to be written.
+     * @param ident
+     *          integer indicating the child indentation level.
+     * @throws IOException 
+     *          if the destination could not be written.
+     */
+    protected void writeChild(Appendable out, XMLElement child, int ident) throws IOException {
+        if(out instanceof NCLElementSink && child instanceof NCLElement)
+            ((NCLElementSink) out).addChild((NCLElement) child);
+        else if(child instanceof NCLElementPrototype && isFragmentCaching())
+            out.append(child.parse(ident));
+        else
+            child.write(out, ident);
+    }
+    
+    
+    /**
+     * Returns the structural hash of the element. The hash is computed from
+     * the XML code of the element and from the hashes of its child elements,
+     * which are combined without regard to their order, as the lists of
+     * elements are compared. It is kept until the element, or one of its
+     * descendants, is modified, so hashing a document again after a small
+     * modification only hashes the elements modified and their ancestors.
+     * 
+     * <br/>
+     * 
+     * Elements with different hashes have different XML code, apart from the
+     * order of their children. The opposite is true except for hash
+     * collisions. The <i>compare</i> method may still consider elements with
+     * different hashes equal, since it ignores the attributes the element
+     * does not have and compares referred elements by content.
+     * 
+     * @return 
+     *          64-bit structural hash.
+     */
+    public long getStructuralHash() {
+        ElementState current = state;
+        long aux = current != null ? current.structuralHash : 0;
+        if(aux == 0)
+            aux = computeHashes().value();
+        
+        return aux;
+    }
+    
+    
+    /**
+     * Returns the ordered hash of the element. It is computed as the
+     * structural hash, except that the order of the child elements changes
+     * the result, and is kept as long as the structural hash is.
+     * 
+     * @return 
+     *          64-bit ordered hash.
+     */
+    public long getOrderedHash() {
+        ElementState current = state;
+        long aux = current != null ? current.orderedHash : 0;
+        if(aux == 0)
+            aux = computeHashes().orderedValue();
+        
+        return aux;
+    }
+    
+    
+    private StructuralHash computeHashes() {
+        StructuralHash hash = new StructuralHash();
+        try{
+            write(hash, 0);
+        }catch(IOException ex){
+            // the hash never throws IOException
+            throw new IllegalStateException(ex);
+        }
+        ElementState current = state();
+        current.orderedHash = hash.orderedValue();
+        current.structuralHash = hash.value();
+        return hash;
+    }
+    
+    
+    /**
+     * Returns the XML code of an attribute of the element. While the element
+     * is written by the <i>write(NCLElementSink)</i> method, the sink also
+     * receives the attribute.
+     * 
+     * @param name
+     *          attribute name.
+     * @param value
+     *          attribute value, as written in the XML code.
+     * @return 
+     *          XML code of the attribute.
+     */
+    protected String attribute(NCLElementAttributes name, Object value) {
+        String aux = value.toString();
+        if(attributeTargets.get() != 0){
+            AttributeTarget target = attributeTarget.get();
+            if(target != null && target.element == this)
+                target.sink.addAttribute(name, aux);
+        }
+        
+        return " " + name + "='" + aux + "'";
+    }
+    
+    
+    /**
+     * Writes the element to a sink. Besides the code of the element and its
+     * children, the sink receives each attribute of the element before the
+     * code containing it is written.
+     * 
+     * @param sink
+     *          destination of the element.
+     * @throws IOException 
+     *          if the sink could not be written.
+     */
+    public void write(NCLElementSink sink) throws IOException {
+        AttributeTarget previous = attributeTarget.get();
+        attributeTarget.set(new AttributeTarget(this, sink));
+        attributeTargets.incrementAndGet();
+        try{
+            write(sink, 0);
+        }finally{
+            attributeTargets.decrementAndGet();
+            if(previous != null)
+                attributeTarget.set(previous);
+            else
+                attributeTarget.remove();
+        }
+    }
+    
+    
+    /**
+     * Discards the serialized fragment and the structural hash of the element
+     * and of its ancestors, since all of them contain the element code. It is
+     * called whenever the element is modified.
+     * 
+     * <br/>
+     * 
+     * An element is only cached after its children are, and every change to
+     * an element discards its ancestors, so the ancestors of an element
+     * without cached values have none either. The walk stops at the first
+     * one without cached values, which is the element itself when nothing is
+     * cached.
+     */
+    protected void invalidateCaches() {
+        Object aux = this;
+        while(aux instanceof NCLElementPrototype){
+            NCLElementPrototype element = (NCLElementPrototype) aux;
+            ElementState current = element.state;
+            if(current == null || (current.fragment == null && current.structuralHash == 0 && current.orderedHash == 0))
+                return;
+            
+            current.fragment = null;
+            current.structuralHash = 0;
+            current.orderedHash = 0;
+            aux = element.getParent();
+        }
+    }
 
-        return matcher.matches();
+
+    /**
+     * Makes the element inform a list when its identification changes. It is
+     * called by the lists that index the element.
+     * 
+     * @param list
+     *          list indexing the element.
+     */
+    @Deprecated
+    public synchronized void addIndexingList(ElementList list) {
+        Object aux = indexingLists;
+        if(aux == null)
+            indexingLists = list;
+        else if(aux instanceof ElementList){
+            if(aux != list)
+                indexingLists = new ElementList[]{(ElementList) aux, list};
+        }
+        else{
+            ElementList[] lists = (ElementList[]) aux;
+            for(ElementList l : lists){
+                if(l == list)
+                    return;
+            }
+            lists = Arrays.copyOf(lists, lists.length + 1);
+            lists[lists.length - 1] = list;
+            indexingLists = lists;
+        }
+    }
+    
+    
+    /**
+     * Makes the element stop informing a list when its identification
+     * changes. It is called by the lists that index the element.
+     * 
+     * @param list
+     *          list that stopped indexing the element.
+     */
+    @Deprecated
+    public synchronized void removeIndexingList(ElementList list) {
+        Object aux = indexingLists;
+        if(aux == list)
+            indexingLists = null;
+        else if(aux instanceof ElementList[]){
+            ElementList[] lists = (ElementList[]) aux;
+            for(int i = 0; i < lists.length; i++){
+                if(lists[i] == list){
+                    ElementList[] result = new ElementList[lists.length - 1];
+                    System.arraycopy(lists, 0, result, 0, i);
+                    System.arraycopy(lists, i + 1, result, i, result.length - i);
+                    indexingLists = result.length == 1 ? result[0] : result;
+                    return;
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Informs the lists indexing the element that its identification, id or
+     * name, changed.
+     */
+    private void keyChanged(Object oldValue, Object newValue) {
+        Object aux = indexingLists;
+        if(aux instanceof ElementList)
+            ((ElementList) aux).keyChanged(this, oldValue, newValue);
+        else if(aux != null){
+            for(ElementList list : (ElementList[]) aux)
+                list.keyChanged(this, oldValue, newValue);
+        }
+    }
+
+
+    /**
+     * Calls the invalidation listeners of the document the element belongs
+     * to. It is called whenever the element is modified.
+     */
+    private void notifyInvalidated() {
+        if(!NCLDoc.hasInvalidationListeners())
+            return;
+        
+        Object aux = this instanceof NCLDoc ? this : getDoc();
+        if(aux instanceof NCLDoc)
+            ((NCLDoc) aux).notifyInvalidated(this);
+    }
+
+
+    /**
+     * Returns the notifier used to send the modifications of this element to
+     * the listeners. It is the notifier of the document the element belongs
+     * to or the global notifier if the element does not belong to a document
+     * or the document does not have a notifier.
+     * 
+     * @return 
+     *          modification notifier of this element.
+     */
+    protected NCLModificationNotifier getNotifier() {
+        T aux = getDoc();
+        if(aux != this && aux instanceof NCLElementPrototype)
+            return ((NCLElementPrototype) aux).getNotifier();
+        
+        return NCLModificationNotifier.getInstance();
+    }
+
+
+    /**
+     * Returns the change set of the transaction in progress in the document
+     * the element belongs to.
+     */
+    private NCLChangeSet getTransaction() {
+        if(!NCLDoc.hasTransactions())
+            return null;
+        
+        Object aux = this instanceof NCLDoc ? this : getDoc();
+        if(aux instanceof NCLDoc)
+            return ((NCLDoc) aux).getTransaction();
+        
+        return null;
+    }
+
+
+    protected boolean validate(String id) {
+        return ValueParser.isValidId(id);
     }
     
     
@@ -126,7 +759,18 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyInserted(T inserted) throws NCLModificationException {
-        notifier.addNotification(new NCLNotification(inserted));
+        invalidateCaches();
+        notifyInvalidated();
+        
+        if(!NCLModificationNotifier.anyListeners() && !NCLDoc.hasTransactions())
+            return;
+        
+        NCLModificationNotifier notifier = getNotifier();
+        NCLChangeSet transaction = getTransaction();
+        if(transaction != null)
+            notifier.addNotification(new NCLNotification(inserted), transaction);
+        else if(notifier.hasListeners())
+            notifier.addNotification(new NCLNotification(inserted));
     }
 
 
@@ -138,7 +782,18 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyRemoved(T removed) throws NCLModificationException {
-        notifier.addNotification(new NCLNotification(this, removed));
+        invalidateCaches();
+        notifyInvalidated();
+        
+        if(!NCLModificationNotifier.anyListeners() && !NCLDoc.hasTransactions())
+            return;
+        
+        NCLModificationNotifier notifier = getNotifier();
+        NCLChangeSet transaction = getTransaction();
+        if(transaction != null)
+            notifier.addNotification(new NCLNotification(this, removed), transaction);
+        else if(notifier.hasListeners())
+            notifier.addNotification(new NCLNotification(this, removed));
     }
 
 
@@ -154,6 +809,238 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyAltered(NCLElementAttributes attributeName, Object oldValue, Object newValue) throws NCLModificationException {
-        notifier.addNotification(new NCLNotification(this, attributeName, oldValue, newValue));
+        if(indexingLists != null && (attributeName == NCLElementAttributes.ID || attributeName == NCLElementAttributes.NAME))
+            keyChanged(oldValue, newValue);
+        
+        invalidateCaches();
+        notifyInvalidated();
+        // the elements referring to this one write its id or alias
+        if(this instanceof ReferredElement && (attributeName == NCLElementAttributes.ID
+                || attributeName == NCLElementAttributes.NAME || attributeName == NCLElementAttributes.ALIAS)){
+            // the list is not created yet while the element is constructed
+            ArrayList refs = ((ReferredElement) this).getReferences();
+            if(refs != null){
+                for(Object ref : refs){
+                    if(ref instanceof NCLElementPrototype)
+                        ((NCLElementPrototype) ref).invalidateCaches();
+                }
+            }
+        }
+        
+        if(!NCLModificationNotifier.anyListeners() && !NCLDoc.hasTransactions())
+            return;
+        
+        NCLModificationNotifier notifier = getNotifier();
+        NCLChangeSet transaction = getTransaction();
+        if(transaction != null)
+            notifier.addNotification(new NCLNotification(this, attributeName, oldValue, newValue), transaction);
+        else if(notifier.hasListeners())
+            notifier.addNotification(new NCLNotification(this, attributeName, oldValue, newValue));
+    }
+    
+    
+    /**
+     * Ids of the elements of a subtree outside a document, kept by the root
+     * of the subtree until it is attached to a document. The subtrees whose
+     * ids are not known, because they were detached from a document, are kept
+     * to be indexed by the document.
+     */
+    private static final class SubtreeIndex {
+        
+        private HashMap<String, NCLElement> ids;
+        private ArrayList<NCLElement> unindexed;
+        
+        
+        public void put(String id, NCLElement element) {
+            if(ids == null)
+                ids = new HashMap<String, NCLElement>();
+            ids.putIfAbsent(id, element);
+        }
+        
+        
+        public void merge(SubtreeIndex other) {
+            // the smaller index is copied into the larger one
+            if(other.ids != null){
+                if(ids == null || ids.size() < other.ids.size()){
+                    HashMap<String, NCLElement> aux = ids;
+                    ids = other.ids;
+                    if(aux != null)
+                        ids.putAll(aux);
+                }
+                else{
+                    for(Map.Entry<String, NCLElement> entry : other.ids.entrySet())
+                        ids.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+            
+            if(other.unindexed != null){
+                if(unindexed == null)
+                    unindexed = other.unindexed;
+                else
+                    unindexed.addAll(other.unindexed);
+            }
+        }
+        
+        
+        public void moveTo(NCLElementIndex index) {
+            if(ids != null){
+                for(Map.Entry<String, NCLElement> entry : ids.entrySet())
+                    index.put(entry.getKey(), entry.getValue());
+            }
+            if(unindexed != null){
+                for(NCLElement element : unindexed)
+                    index.attach(element);
+            }
+        }
+    }
+    
+    
+    /**
+     * Document of an element found through its parents and the attach epoch
+     * it was found in. It is shared by the ancestors visited to find it.
+     */
+    private static final class DocLink {
+        
+        private final NCLElement doc;
+        private final long epoch;
+        
+        
+        public DocLink(NCLElement doc, long epoch) {
+            this.doc = doc;
+            this.epoch = epoch;
+        }
+    }
+    
+    
+    private static final class AttributeTarget {
+        
+        private final NCLElement element;
+        private final NCLElementSink sink;
+        
+        
+        public AttributeTarget(NCLElement element, NCLElementSink sink) {
+            this.element = element;
+            this.sink = sink;
+        }
+    }
+    
+    
+    /**
+     * State of the element that only some elements keep: the serialized
+     * fragment and the hashes cached, and the ids known in the subtree of a
+     * root outside a document. It is created on first use, so the elements
+     * that keep none of them carry a single null field.
+     */
+    private static final class ElementState {
+        
+        private volatile Fragment fragment;
+        private volatile long structuralHash;
+        private volatile long orderedHash;
+        private SubtreeIndex subtreeIndex;
+    }
+    
+    
+    private static final class Fragment {
+        
+        private final int ident;
+        private final String text;
+        
+        
+        public Fragment(int ident, String text) {
+            this.ident = ident;
+            this.text = text;
+        }
+    }
+    
+    
+    /**
+     * Appendable that hashes the XML code of an element instead of keeping
+     * it. The children of the element add their own hashes, which are summed
+     * so their order does not change the result, and their ordered hashes,
+     * which are chained in the order the children are written.
+     */
+    private static final class StructuralHash implements NCLElementSink {
+        
+        private static final long OFFSET = 0xcbf29ce484222325L;
+        private static final long PRIME = 0x100000001b3L;
+        
+        private long text = OFFSET;
+        private long children;
+        private long ordered = OFFSET;
+        
+        
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+        
+        
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            long h = text;
+            for(int i = start; i < end; i++)
+                h = (h ^ csq.charAt(i)) * PRIME;
+            text = h;
+            return this;
+        }
+        
+        
+        @Override
+        public Appendable append(char c) {
+            text = (text ^ c) * PRIME;
+            return this;
+        }
+        
+        
+        @Override
+        public void addChild(NCLElement child) {
+            if(child instanceof NCLElementPrototype){
+                NCLElementPrototype aux = (NCLElementPrototype) child;
+                children += mix(aux.getStructuralHash());
+                ordered = (ordered ^ mix(aux.getOrderedHash())) * PRIME;
+            }
+            else{
+                StructuralHash hash = hashOf(child);
+                children += mix(hash.value());
+                ordered = (ordered ^ mix(hash.orderedValue())) * PRIME;
+            }
+        }
+        
+        
+        @Override
+        public void addAttribute(NCLElementAttributes name, String value) {
+            // the attributes are hashed as part of the code
+        }
+        
+        
+        private static StructuralHash hashOf(NCLElement child) {
+            StructuralHash hash = new StructuralHash();
+            try{
+                child.write(hash, 0);
+            }catch(IOException ex){
+                throw new IllegalStateException(ex);
+            }
+            return hash;
+        }
+        
+        
+        public long value() {
+            long h = mix(text ^ mix(children + 1));
+            // zero marks a hash not computed
+            return h != 0 ? h : 1;
+        }
+        
+        
+        public long orderedValue() {
+            long h = mix(text ^ mix(ordered));
+            return h != 0 ? h : 1;
+        }
+        
+        
+        private static long mix(long h) {
+            h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+            h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+            return h ^ (h >>> 31);
+        }
     }
 }
@@ -37,6 +37,7 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.ncl;
 
+import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
@@ -74,8 +75,10 @@ public abstract class NCLIdentifiableElementPrototype<T extends NCLElement>
         if(!validate(id))
             throw new XMLException("Invalid identifier: " + id);
         
+        id = intern(id);
         String aux = this.id;
         this.id = id;
+        reindex(aux, id);
         notifyAltered(NCLElementAttributes.ID, aux, id);
     }
 
@@ -89,4 +92,39 @@ public abstract class NCLIdentifiableElementPrototype<T extends NCLElement>
     public String getId() {
         return id;
     }
+    
+    
+    @Override
+    @Deprecated
+    public void setDoc(T doc) {
+        if(id != null && this.doc instanceof NCLDoc && this.doc != this)
+            ((NCLElementPrototype) this.doc).getElementIndex().remove(id, this);
+        
+        super.setDoc(doc);
+        
+        if(id != null && doc instanceof NCLDoc && doc != this)
+            ((NCLElementPrototype) doc).getElementIndex().put(id, this);
+    }
+    
+    
+    /**
+     * Updates the index of elements of the document when the element id
+     * changes, or the ids kept by the root of its subtree if the element is
+     * outside a document.
+     */
+    private void reindex(String oldId, String newId) {
+        T aux = getDoc();
+        if(aux == this)
+            return;
+        if(!(aux instanceof NCLDoc)){
+            reindexSubtree(oldId, newId);
+            return;
+        }
+        
+        NCLElementIndex index = ((NCLElementPrototype) aux).getElementIndex();
+        if(oldId != null)
+            index.remove(oldId, this);
+        if(newId != null)
+            index.put(newId, this);
+    }
 }
@@ -0,0 +1,118 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import org.w3c.dom.Element;
+
+
+/**
+ * Class that represents the loading of an element subtree by a fork-join pool.
+ * The element must already be added to its parent, so the elements are kept in
+ * the document order, whatever the order the tasks are run.
+ */
+public class NCLLoadTask extends RecursiveAction {
+    
+    private XMLElement element;
+    private Element content;
+    private XMLException error;
+    
+    
+    /**
+     * Load task constructor.
+     * 
+     * @param element
+     *          element to be loaded.
+     * @param content
+     *          DOM element with the element content.
+     */
+    public NCLLoadTask(XMLElement element, Element content) {
+        this.element = element;
+        this.content = content;
+    }
+    
+    
+    @Override
+    protected void compute() {
+        try{
+            element.load(content);
+        }
+        catch(XMLException ex){
+            error = ex;
+        }
+    }
+    
+    
+    /**
+     * Runs a set of load tasks in a pool and waits until all of them end. If
+     * the method is called by a task running in the pool, the tasks are forked
+     * from it.
+     * 
+     * @param pool
+     *          fork-join pool that runs the tasks.
+     * @param tasks
+     *          tasks to be run.
+     * @throws XMLException 
+     *          error of the first task, in the document order, that failed.
+     */
+    public static void invokeAll(ForkJoinPool pool, final List<NCLLoadTask> tasks) throws XMLException {
+        if(tasks.isEmpty())
+            return;
+        
+        if(ForkJoinTask.getPool() == pool)
+            ForkJoinTask.invokeAll(tasks);
+        else{
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+        }
+        
+        for(NCLLoadTask task : tasks){
+            if(task.error != null)
+                throw task.error;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Table of the identifiers and values used by documents. Each distinct string
+ * receives an integer symbol and a single instance of it is kept, so the
+ * documents that share a table share the strings of their ids, names and
+ * values instead of keeping a copy of each one read from the XML.
+ * 
+ * <br/>
+ * 
+ * Strings taken from the same table are equal only if they are the same
+ * instance and have the same symbol, so they can be compared by reference or
+ * by their symbols. The table may be shared by many documents and used by
+ * many threads at the same time. The symbols are never removed, so a table
+ * should be shared only by documents that repeat their identifiers.
+ */
+public class NCLSymbolTable {
+    
+    private final ConcurrentHashMap<String, Integer> symbols;
+    private volatile String[] names;
+    private int size;
+    
+    
+    /**
+     * Symbol table constructor.
+     */
+    public NCLSymbolTable() {
+        symbols = new ConcurrentHashMap<String, Integer>();
+        names = new String[64];
+    }
+    
+    
+    /**
+     * Returns the instance of a string kept by the table, adding the string to
+     * the table if it is not there yet.
+     * 
+     * @param value
+     *          string to be interned. May be <i>null</i>.
+     * @return 
+     *          instance of the string kept by the table or <i>null</i> if the
+     *          string given is <i>null</i>.
+     */
+    public String intern(String value) {
+        if(value == null)
+            return null;
+        
+        int symbol = symbol(value);
+        return names[symbol];
+    }
+    
+    
+    /**
+     * Returns the symbol of a string, adding the string to the table if it is
+     * not there yet.
+     * 
+     * @param value
+     *          string.
+     * @return 
+     *          integer symbol of the string.
+     */
+    public int symbol(String value) {
+        Integer symbol = symbols.get(value);
+        if(symbol != null)
+            return symbol;
+        
+        return add(value);
+    }
+    
+    
+    /**
+     * Returns the symbol of a string or -1 if the string is not in the table.
+     * 
+     * @param value
+     *          string.
+     * @return 
+     *          integer symbol of the string or -1 if the table does not have
+     *          the string.
+     */
+    public int find(String value) {
+        Integer symbol = symbols.get(value);
+        return symbol != null ? symbol : -1;
+    }
+    
+    
+    /**
+     * Returns the string of a symbol.
+     * 
+     * @param symbol
+     *          integer symbol.
+     * @return 
+     *          string of the symbol.
+     * @throws IndexOutOfBoundsException 
+     *          if the table does not have the symbol.
+     */
+    public String name(int symbol) {
+        String[] aux = names;
+        if(symbol < 0 || symbol >= aux.length || aux[symbol] == null)
+            throw new IndexOutOfBoundsException("Unknown symbol: " + symbol);
+        
+        return aux[symbol];
+    }
+    
+    
+    /**
+     * Returns the number of strings in the table.
+     * 
+     * @return 
+     *          number of strings in the table.
+     */
+    public int size() {
+        return symbols.size();
+    }
+    
+    
+    private synchronized int add(String value) {
+        Integer symbol = symbols.get(value);
+        if(symbol != null)
+            return symbol;
+        
+        // the string is stored before the symbol is published, so a thread
+        // that finds the symbol also finds its string
+        String[] aux = names;
+        if(size == aux.length){
+            String[] grown = new String[aux.length * 2];
+            System.arraycopy(aux, 0, grown, 0, aux.length);
+            aux = grown;
+        }
+        aux[size] = value;
+        names = aux;
+        
+        symbols.put(value, size);
+        return size++;
+    }
+}
@@ -38,13 +38,17 @@
 package br.uff.midiacom.ana.util.ncl;
 
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
 import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.util.reference.EmptyReferenceList;
+import br.uff.midiacom.ana.util.reference.ReferenceList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.rule.NCLRule;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -77,7 +81,6 @@ public class NCLVariable<T extends NCLElement>
     public NCLVariable(Object name) throws XMLException {
         super();
         setName(name);
-        references = new ArrayList<T>();
     }
     
     
@@ -96,6 +99,8 @@ public class NCLVariable<T extends NCLElement>
         if(name == null)
             throw new XMLException("Null name.");
         
+        Object aux = this.name;
+        
         if(name instanceof String){
             String n,a;
             Integer i, p = null;
@@ -125,6 +130,8 @@ public class NCLVariable<T extends NCLElement>
         else{
             throw new XMLException("Wrong name type.");
         }
+        
+        notifyAltered(NCLElementAttributes.NAME, aux, this.name);
     }
     
     
@@ -152,9 +159,15 @@ public class NCLVariable<T extends NCLElement>
     }
     
     
+    @Override
+    public void write(Appendable out, int ident) throws IOException {
+        out.append(parse(ident));
+    }
+    
+    
     @Override
     public boolean compare(T other) {
-        if(other == null || other instanceof NCLVariable)
+        if(other == null || !(other instanceof NCLVariable))
             return false;
         
         return getName().equals(((NCLVariable) other).getName());
@@ -175,20 +188,24 @@ public class NCLVariable<T extends NCLElement>
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
+        if(references == null)
+            references = new ReferenceList<T>();
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
-        return references.remove(reference);
+    public synchronized boolean removeReference(T reference) throws XMLException {
+        return references != null && references.remove(reference);
     }
     
     
     @Override
     public ArrayList<T> getReferences() {
+        if(references == null)
+            return EmptyReferenceList.get();
         return references;
     }
     
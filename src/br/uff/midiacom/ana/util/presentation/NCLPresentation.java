@@ -0,0 +1,309 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.presentation;
+
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.util.PercentageType;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.enums.NCLColor;
+
+
+/**
+ * Effective presentation attributes of a media object, computed by
+ * <i>NCLPresentationResolver</i> from the media properties, its descriptor,
+ * the descriptor parameters and the region of the descriptor.
+ * 
+ * <br/>
+ * 
+ * The bounds are absolute, in pixels of the screen given to the resolver. The
+ * other attributes are <i>null</i> if none of the elements defines them.
+ */
+public class NCLPresentation {
+    
+    private final NCLMedia media;
+    NCLDescriptor descriptor;
+    NCLRegion region;
+    int left;
+    int top;
+    int width;
+    int height;
+    Integer zIndex;
+    Double transparency;
+    TimeType explicitDur;
+    Integer focusIndex;
+    NCLColor focusBorderColor;
+    Integer focusBorderWidth;
+    PercentageType focusBorderTransparency;
+    NCLColor selBorderColor;
+    SrcType focusSrc;
+    SrcType focusSelSrc;
+    Object transIn;
+    Object transOut;
+    
+    
+    NCLPresentation(NCLMedia media) {
+        this.media = media;
+    }
+    
+    
+    /**
+     * Returns the media object presented.
+     * 
+     * @return 
+     *          media element.
+     */
+    public NCLMedia getMedia() {
+        return media;
+    }
+    
+    
+    /**
+     * Returns the descriptor used to present the media object or <i>null</i>
+     * if the media has no descriptor. If the media refers to a descriptor
+     * switch, it is the descriptor selected by the resolver.
+     * 
+     * @return 
+     *          descriptor element or <i>null</i>.
+     */
+    public NCLDescriptor getDescriptor() {
+        return descriptor;
+    }
+    
+    
+    /**
+     * Returns the region of the descriptor or <i>null</i> if the descriptor
+     * does not define one.
+     * 
+     * @return 
+     *          region element or <i>null</i>.
+     */
+    public NCLRegion getRegion() {
+        return region;
+    }
+    
+    
+    /**
+     * Returns the absolute location of the left side of the media object.
+     * 
+     * @return 
+     *          left location in pixels.
+     */
+    public int getLeft() {
+        return left;
+    }
+    
+    
+    /**
+     * Returns the absolute location of the top side of the media object.
+     * 
+     * @return 
+     *          top location in pixels.
+     */
+    public int getTop() {
+        return top;
+    }
+    
+    
+    /**
+     * Returns the width of the media object.
+     * 
+     * @return 
+     *          width in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    
+    /**
+     * Returns the height of the media object.
+     * 
+     * @return 
+     *          height in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    
+    /**
+     * Returns the order of the media object in the screen planes or
+     * <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          zIndex or <i>null</i>.
+     */
+    public Integer getzIndex() {
+        return zIndex;
+    }
+    
+    
+    /**
+     * Returns the transparency of the media object, from 0 (opaque) to 1
+     * (transparent), or <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          transparency or <i>null</i>.
+     */
+    public Double getTransparency() {
+        return transparency;
+    }
+    
+    
+    /**
+     * Returns the duration of the media object or <i>null</i> if it is not
+     * defined.
+     * 
+     * @return 
+     *          explicit duration or <i>null</i>.
+     */
+    public TimeType getExplicitDur() {
+        return explicitDur;
+    }
+    
+    
+    /**
+     * Returns the focus index of the media object or <i>null</i> if it is not
+     * defined.
+     * 
+     * @return 
+     *          focus index or <i>null</i>.
+     */
+    public Integer getFocusIndex() {
+        return focusIndex;
+    }
+    
+    
+    /**
+     * Returns the color of the border of the media object when it has the
+     * focus or <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          focus border color or <i>null</i>.
+     */
+    public NCLColor getFocusBorderColor() {
+        return focusBorderColor;
+    }
+    
+    
+    /**
+     * Returns the width of the border of the media object when it has the
+     * focus or <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          focus border width or <i>null</i>.
+     */
+    public Integer getFocusBorderWidth() {
+        return focusBorderWidth;
+    }
+    
+    
+    /**
+     * Returns the transparency of the border of the media object when it has
+     * the focus or <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          focus border transparency or <i>null</i>.
+     */
+    public PercentageType getFocusBorderTransparency() {
+        return focusBorderTransparency;
+    }
+    
+    
+    /**
+     * Returns the color of the border of the media object when it is selected
+     * or <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          selection border color or <i>null</i>.
+     */
+    public NCLColor getSelBorderColor() {
+        return selBorderColor;
+    }
+    
+    
+    /**
+     * Returns the content presented when the media object has the focus or
+     * <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          focus source or <i>null</i>.
+     */
+    public SrcType getFocusSrc() {
+        return focusSrc;
+    }
+    
+    
+    /**
+     * Returns the content presented when the media object is selected or
+     * <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          focus selection source or <i>null</i>.
+     */
+    public SrcType getFocusSelSrc() {
+        return focusSelSrc;
+    }
+    
+    
+    /**
+     * Returns the transition used at the beginning of the presentation or
+     * <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          transition element, reference to a transition or <i>null</i>.
+     */
+    public Object getTransIn() {
+        return transIn;
+    }
+    
+    
+    /**
+     * Returns the transition used at the end of the presentation or
+     * <i>null</i> if it is not defined.
+     * 
+     * @return 
+     *          transition element, reference to a transition or <i>null</i>.
+     */
+    public Object getTransOut() {
+        return transOut;
+    }
+}
@@ -0,0 +1,562 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.presentation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorParam;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.ValueParser;
+import br.uff.midiacom.ana.util.enums.NCLAttributes;
+import br.uff.midiacom.ana.util.enums.NCLColor;
+import br.uff.midiacom.ana.util.modification.NCLInvalidationListener;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+
+/**
+ * Class that computes the effective presentation attributes of media objects
+ * and keeps them until one of the elements they come from is modified.
+ * 
+ * <br/>
+ * 
+ * The attributes of a media object come from its region, the descriptor
+ * parameters and the media properties, in increasing order of precedence.
+ * The bounds of the region are computed inside the bounds of its parent
+ * region, or of the screen for a region without parent region, and the
+ * location and size defined by the descriptor parameters and the media
+ * properties replace the ones of the region. The other attributes come from
+ * the descriptor, replaced by the media properties that define them.
+ * 
+ * <br/>
+ * 
+ * The resolver registers itself as an invalidation listener of the documents
+ * of the elements it reads, so a modification of a media, property,
+ * descriptor, descriptor parameter or region discards only the attributes of
+ * the media objects that depend on it. The attributes of a media object with
+ * an element that does not belong to a document are computed every time.
+ * Call <i>close</i> to stop listening to the documents.
+ */
+public class NCLPresentationResolver implements NCLInvalidationListener {
+    
+    private final int screenWidth;
+    private final int screenHeight;
+    // media objects and regions to their computed values
+    private final IdentityHashMap<Object, Entry> entries;
+    // elements read to the media objects and regions computed from them
+    private final IdentityHashMap<Object, Set<Object>> dependents;
+    private final IdentityHashMap<NCLDoc, Boolean> docs;
+    
+    
+    /**
+     * Presentation resolver constructor.
+     * 
+     * @param screenWidth
+     *          width of the screen in pixels.
+     * @param screenHeight 
+     *          height of the screen in pixels.
+     */
+    public NCLPresentationResolver(int screenWidth, int screenHeight) {
+        if(screenWidth < 0 || screenHeight < 0)
+            throw new IllegalArgumentException("Invalid screen size.");
+        
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        entries = new IdentityHashMap<Object, Entry>();
+        dependents = new IdentityHashMap<Object, Set<Object>>();
+        docs = new IdentityHashMap<NCLDoc, Boolean>();
+    }
+    
+    
+    /**
+     * Returns the width of the screen.
+     * 
+     * @return 
+     *          width of the screen in pixels.
+     */
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+    
+    
+    /**
+     * Returns the height of the screen.
+     * 
+     * @return 
+     *          height of the screen in pixels.
+     */
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+    
+    
+    /**
+     * Returns the effective presentation attributes of a media object. The
+     * attributes are computed the first time and kept until an element they
+     * come from is modified.
+     * 
+     * @param media
+     *          media element.
+     * @return 
+     *          presentation attributes of the media.
+     */
+    public synchronized NCLPresentation resolve(NCLMedia media) {
+        Entry entry = entries.get(media);
+        if(entry != null)
+            return (NCLPresentation) entry.value;
+        
+        ArrayList<Object> deps = new ArrayList<Object>();
+        NCLPresentation result = compute(media, deps);
+        store(media, result, deps);
+        return result;
+    }
+    
+    
+    /**
+     * Returns the absolute bounds of a region, as an array with its left, top,
+     * width and height in pixels.
+     * 
+     * @param region
+     *          region element.
+     * @return 
+     *          bounds of the region.
+     */
+    public synchronized int[] resolve(NCLRegion region) {
+        return bounds(region, new ArrayList<Object>()).clone();
+    }
+    
+    
+    /**
+     * Discards the attributes computed from an element. It is called by the
+     * documents when an element is modified and may be called to discard
+     * attributes that depend on values the resolver does not read from the
+     * elements, such as the descriptor selected from a switch.
+     * 
+     * @param element
+     *          element modified.
+     */
+    @Override
+    public synchronized void invalidated(NCLElement element) {
+        drop(element);
+        Set<Object> keys = dependents.remove(element);
+        if(keys != null){
+            for(Object key : keys.toArray())
+                drop(key);
+        }
+    }
+    
+    
+    /**
+     * Discards all the attributes computed.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        dependents.clear();
+    }
+    
+    
+    /**
+     * Discards all the attributes computed and stops listening to the
+     * documents.
+     */
+    public synchronized void close() {
+        clear();
+        for(NCLDoc doc : docs.keySet())
+            doc.removeInvalidationListener(this);
+        docs.clear();
+    }
+    
+    
+    /**
+     * Returns the number of media objects and regions whose values are kept.
+     * 
+     * @return 
+     *          number of values kept.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    
+    /**
+     * Selects the descriptor of a descriptor switch used by a media object.
+     * The default descriptor of the switch is selected, since the rules of the
+     * switch can only be evaluated while the document is presented. This
+     * function may be overwritten in classes that extends this one, which
+     * should call <i>invalidated</i> with the switch when the selection
+     * changes.
+     * 
+     * @param descriptorSwitch
+     *          descriptor switch.
+     * @return 
+     *          descriptor selected or <i>null</i>.
+     */
+    protected NCLDescriptor selectDescriptor(NCLDescriptorSwitch descriptorSwitch) {
+        return descriptorSwitch.getDefaultDescriptor();
+    }
+    
+    
+    private NCLPresentation compute(NCLMedia media, ArrayList<Object> deps) {
+        NCLPresentation result = new NCLPresentation(media);
+        deps.add(media);
+        
+        Object desc = target(media.getDescriptor(), deps);
+        if(desc instanceof NCLDescriptorSwitch)
+            desc = target(selectDescriptor((NCLDescriptorSwitch) desc), deps);
+        
+        // left, top, right, bottom, width and height, in this order
+        Object[] place = new Object[6];
+        int[] parent = {0, 0, screenWidth, screenHeight};
+        
+        if(desc instanceof NCLDescriptor){
+            NCLDescriptor d = (NCLDescriptor) desc;
+            result.descriptor = d;
+            result.explicitDur = d.getExplicitDur();
+            result.focusIndex = d.getFocusIndex();
+            result.focusBorderColor = d.getFocusBorderColor();
+            result.focusBorderWidth = d.getFocusBorderWidth();
+            result.focusBorderTransparency = d.getFocusBorderTransparency();
+            result.selBorderColor = d.getSelBorderColor();
+            result.focusSrc = d.getFocusSrc();
+            result.focusSelSrc = d.getFocusSelSrc();
+            result.transIn = d.getTransIn();
+            result.transOut = d.getTransOut();
+            target(result.transIn, deps);
+            target(result.transOut, deps);
+            
+            Object reg = target(d.getRegion(), deps);
+            if(reg instanceof NCLRegion){
+                NCLRegion r = (NCLRegion) reg;
+                result.region = r;
+                result.zIndex = r.getzIndex();
+                place[0] = r.getLeft();
+                place[1] = r.getTop();
+                place[2] = r.getRight();
+                place[3] = r.getBottom();
+                place[4] = r.getWidth();
+                place[5] = r.getHeight();
+                if(r.getParent() instanceof NCLRegion)
+                    parent = bounds((NCLRegion) r.getParent(), deps);
+            }
+            
+            for(Object p : d.getDescriptorParams()){
+                NCLDescriptorParam param = (NCLDescriptorParam) p;
+                deps.add(param);
+                apply(result, place, String.valueOf(param.getName()), param.getValue(), param.getPercentSign());
+            }
+        }
+        
+        for(Object p : media.getProperties()){
+            NCLProperty property = (NCLProperty) p;
+            deps.add(property);
+            apply(result, place, String.valueOf(property.getName()), property.getValue(), false);
+        }
+        
+        int[] horizontal = place(parent[0], parent[2], place[0], place[4], place[2]);
+        int[] vertical = place(parent[1], parent[3], place[1], place[5], place[3]);
+        result.left = horizontal[0];
+        result.width = horizontal[1];
+        result.top = vertical[0];
+        result.height = vertical[1];
+        
+        return result;
+    }
+    
+    
+    private int[] bounds(NCLRegion region, ArrayList<Object> deps) {
+        Entry entry = entries.get(region);
+        if(entry == null){
+            ArrayList<Object> aux = new ArrayList<Object>();
+            aux.add(region);
+            int[] parent = {0, 0, screenWidth, screenHeight};
+            if(region.getParent() instanceof NCLRegion)
+                parent = bounds((NCLRegion) region.getParent(), aux);
+            
+            int[] horizontal = place(parent[0], parent[2], region.getLeft(), region.getWidth(), region.getRight());
+            int[] vertical = place(parent[1], parent[3], region.getTop(), region.getHeight(), region.getBottom());
+            entry = store(region, new int[]{horizontal[0], vertical[0], horizontal[1], vertical[1]}, aux);
+        }
+        
+        for(Object dep : entry.deps)
+            deps.add(dep);
+        return (int[]) entry.value;
+    }
+    
+    
+    /**
+     * Replaces an attribute with the value of a descriptor parameter or media
+     * property. The percentages of the media properties are kept as strings,
+     * while the ones of the descriptor parameters are doubles with the percent
+     * sign set.
+     */
+    private void apply(NCLPresentation result, Object[] place, String name, Object value, boolean percent) {
+        if(value == null)
+            return;
+        
+        switch(name){
+            case "left": place[0] = length(value, percent); break;
+            case "top": place[1] = length(value, percent); break;
+            case "right": place[2] = length(value, percent); break;
+            case "bottom": place[3] = length(value, percent); break;
+            case "width": place[4] = length(value, percent); break;
+            case "height": place[5] = length(value, percent); break;
+            case "location":
+                Object[] location = list(value, 2);
+                if(location != null){
+                    place[0] = location[0];
+                    place[1] = location[1];
+                }
+                break;
+            case "size":
+                Object[] size = list(value, 2);
+                if(size != null){
+                    place[4] = size[0];
+                    place[5] = size[1];
+                }
+                break;
+            case "bounds":
+                Object[] bounds = list(value, 4);
+                if(bounds != null){
+                    place[0] = bounds[0];
+                    place[1] = bounds[1];
+                    place[4] = bounds[2];
+                    place[5] = bounds[3];
+                }
+                break;
+            case "zIndex":
+                if(value instanceof Integer)
+                    result.zIndex = (Integer) value;
+                break;
+            case "transparency":
+                if(value instanceof Number)
+                    result.transparency = ((Number) value).doubleValue() / (percent ? 100 : 1);
+                else if(length(value, false) instanceof Double)
+                    result.transparency = (Double) length(value, false) / 100;
+                else{
+                    try{
+                        result.transparency = ValueParser.parseDouble(value.toString());
+                    }catch(NumberFormatException ex){}
+                }
+                break;
+            case "explicitDur":
+                if(value instanceof Integer)
+                    result.explicitDur = new TimeType((Integer) value);
+                else if(value instanceof Double)
+                    result.explicitDur = new TimeType((Double) value);
+                else{
+                    try{
+                        result.explicitDur = new TimeType(value.toString());
+                    }catch(IllegalArgumentException ex){}
+                }
+                break;
+            case "focusIndex":
+                if(value instanceof Integer)
+                    result.focusIndex = (Integer) value;
+                break;
+            case "focusBorderWidth":
+                if(value instanceof Integer)
+                    result.focusBorderWidth = (Integer) value;
+                break;
+            case "focusBorderColor":
+                if(value instanceof NCLColor)
+                    result.focusBorderColor = (NCLColor) value;
+                break;
+            case "selBorderColor":
+                if(value instanceof NCLColor)
+                    result.selBorderColor = (NCLColor) value;
+                break;
+        }
+    }
+    
+    
+    /**
+     * Converts a location or size to an integer for pixels or a double for
+     * percentages.
+     */
+    private static Object length(Object value, boolean percent) {
+        if(value instanceof Integer)
+            return value;
+        if(value instanceof Double)
+            return percent ? value : (Object) (int) Math.round((Double) value);
+        if(!(value instanceof String))
+            return null;
+        
+        String aux = ((String) value).trim();
+        try{
+            if(aux.endsWith("%"))
+                return ValueParser.parseDouble(aux.substring(0, aux.length() - 1));
+            if(aux.endsWith("px"))
+                aux = aux.substring(0, aux.length() - 2);
+            return (int) Math.round(ValueParser.parseDouble(aux));
+        }catch(NumberFormatException ex){
+            return null;
+        }
+    }
+    
+    
+    private static Object[] list(Object value, int count) {
+        Object[] result;
+        // the arrays of the descriptor parameters have doubles for percentages
+        if(value instanceof Double[])
+            return ((Double[]) value).length == count ? (Object[]) value : null;
+        if(value instanceof Object[])
+            result = ((Object[]) value).clone();
+        else if(value instanceof String)
+            result = ((String) value).split(",");
+        else
+            return null;
+        
+        if(result.length != count)
+            return null;
+        for(int i = 0; i < count; i++){
+            if((result[i] = length(result[i], false)) == null)
+                return null;
+        }
+        return result;
+    }
+    
+    
+    /**
+     * Returns the location and size of a side inside its parent. The near
+     * side and the size have precedence over the far side.
+     */
+    static int[] place(int start, int size, Object near, Object extent, Object far) {
+        Integer n = pixels(near, size);
+        Integer e = pixels(extent, size);
+        Integer f = pixels(far, size);
+        
+        if(e == null)
+            e = size - (n != null ? n : 0) - (f != null ? f : 0);
+        if(n == null)
+            n = f != null ? size - f - e : 0;
+        
+        return new int[]{start + n, e};
+    }
+    
+    
+    private static Integer pixels(Object value, int size) {
+        if(value instanceof Integer)
+            return (Integer) value;
+        if(value instanceof Double)
+            return (int) Math.round(size * (Double) value / 100);
+        
+        return null;
+    }
+    
+    
+    /**
+     * Returns the element referred, directly or through an imported document,
+     * and records it as a dependency.
+     */
+    private Object target(Object reference, ArrayList<Object> deps) {
+        if(reference instanceof ExternalReferenceType)
+            reference = ((ExternalReferenceType) reference).getTarget();
+        if(reference != null)
+            deps.add(reference);
+        
+        return reference;
+    }
+    
+    
+    private Entry store(Object key, Object value, ArrayList<Object> deps) {
+        Entry entry = new Entry(value, deps.toArray());
+        
+        // values computed from an element that does not belong to a document
+        // would not be discarded when it changes
+        for(Object dep : entry.deps){
+            Object doc = ((NCLElement) dep).getDoc();
+            if(dep instanceof NCLDoc)
+                doc = dep;
+            if(!(doc instanceof NCLDoc))
+                return entry;
+            
+            if(!docs.containsKey(doc)){
+                ((NCLDoc) doc).addInvalidationListener(this);
+                docs.put((NCLDoc) doc, Boolean.TRUE);
+            }
+        }
+        
+        entries.put(key, entry);
+        for(Object dep : entry.deps){
+            Set<Object> keys = dependents.get(dep);
+            if(keys == null){
+                keys = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+                dependents.put(dep, keys);
+            }
+            keys.add(key);
+        }
+        return entry;
+    }
+    
+    
+    private void drop(Object key) {
+        Entry entry = entries.remove(key);
+        if(entry == null)
+            return;
+        
+        for(Object dep : entry.deps){
+            Set<Object> keys = dependents.get(dep);
+            if(keys != null){
+                keys.remove(key);
+                if(keys.isEmpty())
+                    dependents.remove(dep);
+            }
+        }
+    }
+    
+    
+    private static final class Entry {
+        
+        private final Object value;
+        private final Object[] deps;
+        
+        
+        public Entry(Object value, Object[] deps) {
+            this.value = value;
+            this.deps = deps;
+        }
+    }
+}
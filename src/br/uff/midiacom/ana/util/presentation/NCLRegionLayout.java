@@ -0,0 +1,557 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.presentation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.enums.NCLDevice;
+import br.uff.midiacom.ana.util.modification.NCLInvalidationListener;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+
+/**
+ * Class that computes the absolute bounds and the paint order of the regions
+ * of a document and answers which regions contain a point or overlap a
+ * rectangle.
+ * 
+ * <br/>
+ * 
+ * The regions of each base of regions are placed in the screen of the device
+ * of the base, or inside the parent region of the base. All the regions are
+ * placed in one pass the first time they are needed and kept in a grid per
+ * device, so a spatial query only compares the regions of the cells it
+ * covers. The regions are painted in increasing order of zIndex, a region
+ * without zIndex taking the one of its parent, and in document order when
+ * they have the same zIndex.
+ * 
+ * <br/>
+ * 
+ * The layout registers itself as an invalidation listener of the document.
+ * When a region is modified or has a child region inserted or removed, only
+ * the region and its descendants are placed again, and so are the regions
+ * of the bases of regions placed inside them. A base of regions modified is
+ * placed again by itself, and a change in the bases of the head places all
+ * the regions again. The regions of imported documents are not placed. Call
+ * <i>close</i> to stop listening to the document.
+ */
+public class NCLRegionLayout implements NCLInvalidationListener {
+    
+    private static final int GRID_SIZE = 32;
+    private static final String DEFAULT_DEVICE = "";
+    
+    private final NCLDoc doc;
+    private final HashMap<String, int[]> screens;
+    private final IdentityHashMap<NCLRegion, Node> nodes;
+    private final IdentityHashMap<NCLRegionBase, ArrayList<Node>> bases;
+    private final HashMap<String, Grid> grids;
+    private final HashMap<String, ArrayList<NCLRegion>> paintOrders;
+    private boolean valid;
+    private int counter;
+    private long stamp;
+    
+    
+    /**
+     * Region layout constructor.
+     * 
+     * @param doc
+     *          document whose regions are placed.
+     * @param width
+     *          width in pixels of the screen of the bases of regions without a
+     *          device or with a device without a screen size.
+     * @param height 
+     *          height in pixels of the screen of the bases of regions without a
+     *          device or with a device without a screen size.
+     */
+    public NCLRegionLayout(NCLDoc doc, int width, int height) {
+        if(doc == null)
+            throw new NullPointerException("Null document.");
+        
+        this.doc = doc;
+        screens = new HashMap<String, int[]>();
+        nodes = new IdentityHashMap<NCLRegion, Node>();
+        bases = new IdentityHashMap<NCLRegionBase, ArrayList<Node>>();
+        grids = new HashMap<String, Grid>();
+        paintOrders = new HashMap<String, ArrayList<NCLRegion>>();
+        setScreenSize(null, width, height);
+        doc.addInvalidationListener(this);
+    }
+    
+    
+    /**
+     * Sets the size of the screen of a device. All the regions are placed
+     * again when they are needed.
+     * 
+     * @param device
+     *          device or <i>null</i> for the bases of regions without a device.
+     * @param width
+     *          width of the screen in pixels.
+     * @param height 
+     *          height of the screen in pixels.
+     */
+    public synchronized void setScreenSize(NCLDevice device, int width, int height) {
+        if(width < 0 || height < 0)
+            throw new IllegalArgumentException("Invalid screen size.");
+        
+        screens.put(key(device), new int[]{width, height});
+        valid = false;
+    }
+    
+    
+    /**
+     * Returns the absolute bounds of a region, as an array with its left, top,
+     * width and height in pixels.
+     * 
+     * @param region
+     *          region element.
+     * @return 
+     *          bounds of the region or <i>null</i> if the region is not in a
+     *          base of regions of the document.
+     */
+    public synchronized int[] getBounds(NCLRegion region) {
+        layout();
+        Node node = nodes.get(region);
+        if(node == null)
+            return null;
+        
+        return new int[]{node.left, node.top, node.width, node.height};
+    }
+    
+    
+    /**
+     * Returns the regions of a device in the order they are painted, from the
+     * bottom to the top.
+     * 
+     * @param device
+     *          device or <i>null</i> for the bases of regions without a device.
+     * @return 
+     *          list with the regions of the device.
+     */
+    public synchronized List<NCLRegion> getPaintOrder(NCLDevice device) {
+        layout();
+        String aux = key(device);
+        ArrayList<NCLRegion> result = paintOrders.get(aux);
+        if(result == null){
+            ArrayList<Node> list = new ArrayList<Node>();
+            for(Node node : nodes.values()){
+                if(node.device.equals(aux))
+                    list.add(node);
+            }
+            Collections.sort(list, PAINT_ORDER);
+            
+            result = new ArrayList<NCLRegion>(list.size());
+            for(Node node : list)
+                result.add(node.region);
+            paintOrders.put(aux, result);
+        }
+        
+        return Collections.unmodifiableList(result);
+    }
+    
+    
+    /**
+     * Returns the regions of a device that contain a point, from the top to
+     * the bottom.
+     * 
+     * @param device
+     *          device or <i>null</i> for the bases of regions without a device.
+     * @param x
+     *          horizontal location of the point in pixels.
+     * @param y
+     *          vertical location of the point in pixels.
+     * @return 
+     *          list with the regions that contain the point.
+     */
+    public synchronized List<NCLRegion> getRegionsAt(NCLDevice device, int x, int y) {
+        return query(device, x, y, 1, 1);
+    }
+    
+    
+    /**
+     * Returns the regions of a device that overlap a rectangle, from the top
+     * to the bottom.
+     * 
+     * @param device
+     *          device or <i>null</i> for the bases of regions without a device.
+     * @param left
+     *          left location of the rectangle in pixels.
+     * @param top
+     *          top location of the rectangle in pixels.
+     * @param width
+     *          width of the rectangle in pixels.
+     * @param height
+     *          height of the rectangle in pixels.
+     * @return 
+     *          list with the regions that overlap the rectangle.
+     */
+    public synchronized List<NCLRegion> getRegionsOverlapping(NCLDevice device, int left, int top, int width, int height) {
+        return query(device, left, top, width, height);
+    }
+    
+    
+    @Override
+    public synchronized void invalidated(NCLElement element) {
+        if(!valid)
+            return;
+        
+        if(element instanceof NCLRegion){
+            Node node = nodes.get(element);
+            if(node != null){
+                paintOrders.clear();
+                relayout(node);
+            }
+        }
+        else if(element instanceof NCLRegionBase){
+            paintOrders.clear();
+            if(bases.containsKey(element))
+                layoutBase((NCLRegionBase) element);
+            else
+                valid = false;
+        }
+        else if(element instanceof NCLHead || element instanceof NCLDoc)
+            valid = false;
+    }
+    
+    
+    /**
+     * Stops listening to the document and discards the regions placed.
+     */
+    public synchronized void close() {
+        doc.removeInvalidationListener(this);
+        clear();
+        valid = false;
+    }
+    
+    
+    private void clear() {
+        nodes.clear();
+        bases.clear();
+        grids.clear();
+        paintOrders.clear();
+        counter = 0;
+    }
+    
+    
+    private void layout() {
+        if(valid)
+            return;
+        
+        clear();
+        NCLHead head = (NCLHead) doc.getHead();
+        if(head != null){
+            // the bases placed inside a region are placed after the others
+            ArrayList<NCLRegionBase> inner = new ArrayList<NCLRegionBase>();
+            for(Object base : head.getRegionBases()){
+                if(((NCLRegionBase) base).getParentRegion() != null)
+                    inner.add((NCLRegionBase) base);
+                else
+                    layoutBase((NCLRegionBase) base);
+            }
+            for(NCLRegionBase base : inner)
+                layoutBase(base);
+        }
+        valid = true;
+    }
+    
+    
+    private void layoutBase(NCLRegionBase base) {
+        String device = key(base.getDevice());
+        int[] screen = screen(device);
+        int[] parent = {0, 0, screen[0], screen[1]};
+        int z = 0;
+        
+        Object aux = base.getParentRegion();
+        if(aux instanceof ExternalReferenceType)
+            aux = ((ExternalReferenceType) aux).getTarget();
+        Node owner = aux != null ? nodes.get(aux) : null;
+        if(owner != null){
+            parent = new int[]{owner.left, owner.top, owner.width, owner.height};
+            device = owner.device;
+            z = owner.z;
+            if(!owner.bases.contains(base))
+                owner.bases.add(base);
+        }
+        
+        ArrayList<Node> old = bases.get(base);
+        IdentityHashMap<Node, Boolean> previous = new IdentityHashMap<Node, Boolean>();
+        if(old != null){
+            for(Node node : old)
+                collect(node, previous);
+        }
+        
+        ArrayList<Node> roots = new ArrayList<Node>();
+        for(Object region : base.getRegions())
+            roots.add(place((NCLRegion) region, parent, device, z, previous));
+        bases.put(base, roots);
+        
+        for(Node node : previous.keySet())
+            remove(node);
+    }
+    
+    
+    private void relayout(Node node) {
+        IdentityHashMap<Node, Boolean> previous = new IdentityHashMap<Node, Boolean>();
+        collect(node, previous);
+        
+        Object aux = node.region.getParent();
+        int[] parent;
+        int z = 0;
+        if(aux instanceof NCLRegion && nodes.get(aux) != null){
+            Node p = nodes.get(aux);
+            parent = new int[]{p.left, p.top, p.width, p.height};
+            z = p.z;
+        }
+        else{
+            parent = node.parent;
+            z = node.parentZ;
+        }
+        
+        place(node.region, parent, node.device, z, previous);
+        for(Node n : previous.keySet())
+            remove(n);
+    }
+    
+    
+    private Node place(NCLRegion region, int[] parent, String device, int z, IdentityHashMap<Node, Boolean> previous) {
+        Node node = nodes.get(region);
+        if(node == null){
+            node = new Node(region, counter++);
+            nodes.put(region, node);
+        }
+        previous.remove(node);
+        
+        int[] horizontal = NCLPresentationResolver.place(parent[0], parent[2], region.getLeft(), region.getWidth(), region.getRight());
+        int[] vertical = NCLPresentationResolver.place(parent[1], parent[3], region.getTop(), region.getHeight(), region.getBottom());
+        node.parent = parent;
+        node.parentZ = z;
+        node.left = horizontal[0];
+        node.width = horizontal[1];
+        node.top = vertical[0];
+        node.height = vertical[1];
+        node.z = region.getzIndex() != null ? region.getzIndex() : z;
+        index(node, device);
+        
+        int[] bounds = {node.left, node.top, node.width, node.height};
+        node.children.clear();
+        for(Object child : region.getRegions())
+            node.children.add(place((NCLRegion) child, bounds, device, node.z, previous));
+        
+        for(NCLRegionBase base : node.bases.toArray(new NCLRegionBase[0]))
+            layoutBase(base);
+        
+        return node;
+    }
+    
+    
+    private void collect(Node node, IdentityHashMap<Node, Boolean> result) {
+        result.put(node, Boolean.TRUE);
+        for(Node child : node.children)
+            collect(child, result);
+    }
+    
+    
+    private void remove(Node node) {
+        nodes.remove(node.region);
+        unindex(node);
+    }
+    
+    
+    private List<NCLRegion> query(NCLDevice device, int left, int top, int width, int height) {
+        layout();
+        ArrayList<Node> found = new ArrayList<Node>();
+        Grid grid = grids.get(key(device));
+        if(grid != null && width > 0 && height > 0){
+            long aux = ++stamp;
+            int right = left + width;
+            int bottom = top + height;
+            
+            for(int r = grid.row(top); r <= grid.row(bottom - 1); r++){
+                for(int c = grid.column(left); c <= grid.column(right - 1); c++){
+                    ArrayList<Node> cell = grid.cells[r * GRID_SIZE + c];
+                    if(cell == null)
+                        continue;
+                    
+                    for(Node node : cell){
+                        if(node.stamp == aux)
+                            continue;
+                        node.stamp = aux;
+                        if(node.left < right && left < node.left + node.width
+                                && node.top < bottom && top < node.top + node.height)
+                            found.add(node);
+                    }
+                }
+            }
+        }
+        
+        Collections.sort(found, Collections.reverseOrder(PAINT_ORDER));
+        ArrayList<NCLRegion> result = new ArrayList<NCLRegion>(found.size());
+        for(Node node : found)
+            result.add(node.region);
+        return result;
+    }
+    
+    
+    private void index(Node node, String device) {
+        unindex(node);
+        node.device = device;
+        if(node.width <= 0 || node.height <= 0)
+            return;
+        
+        Grid grid = grids.get(device);
+        if(grid == null){
+            int[] screen = screen(device);
+            grid = new Grid(screen[0], screen[1]);
+            grids.put(device, grid);
+        }
+        
+        node.c0 = grid.column(node.left);
+        node.c1 = grid.column(node.left + node.width - 1);
+        node.r0 = grid.row(node.top);
+        node.r1 = grid.row(node.top + node.height - 1);
+        for(int r = node.r0; r <= node.r1; r++){
+            for(int c = node.c0; c <= node.c1; c++){
+                int i = r * GRID_SIZE + c;
+                if(grid.cells[i] == null)
+                    grid.cells[i] = new ArrayList<Node>();
+                grid.cells[i].add(node);
+            }
+        }
+    }
+    
+    
+    private void unindex(Node node) {
+        Grid grid = node.device != null ? grids.get(node.device) : null;
+        if(grid == null || node.c0 < 0)
+            return;
+        
+        for(int r = node.r0; r <= node.r1; r++){
+            for(int c = node.c0; c <= node.c1; c++)
+                grid.cells[r * GRID_SIZE + c].remove(node);
+        }
+        node.c0 = -1;
+    }
+    
+    
+    private int[] screen(String device) {
+        int[] aux = screens.get(device);
+        return aux != null ? aux : screens.get(DEFAULT_DEVICE);
+    }
+    
+    
+    private static String key(NCLDevice device) {
+        return device != null ? device.toString() : DEFAULT_DEVICE;
+    }
+    
+    
+    private static final Comparator<Node> PAINT_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            if(o1.z != o2.z)
+                return o1.z < o2.z ? -1 : 1;
+            return o1.order < o2.order ? -1 : (o1.order == o2.order ? 0 : 1);
+        }
+    };
+    
+    
+    private static final class Node {
+        
+        private final NCLRegion region;
+        private final int order;
+        private final ArrayList<Node> children;
+        private final ArrayList<NCLRegionBase> bases;
+        private String device;
+        private int[] parent;
+        private int parentZ;
+        private int left;
+        private int top;
+        private int width;
+        private int height;
+        private int z;
+        private int c0 = -1;
+        private int c1;
+        private int r0;
+        private int r1;
+        private long stamp;
+        
+        
+        public Node(NCLRegion region, int order) {
+            this.region = region;
+            this.order = order;
+            children = new ArrayList<Node>(0);
+            bases = new ArrayList<NCLRegionBase>(0);
+        }
+    }
+    
+    
+    /**
+     * Screen of a device divided in cells, each one with the regions that
+     * overlap it. The regions outside the screen are kept in the cells of
+     * its border.
+     */
+    private static final class Grid {
+        
+        private final int cellWidth;
+        private final int cellHeight;
+        private final ArrayList<Node>[] cells;
+        
+        
+        public Grid(int width, int height) {
+            cellWidth = Math.max(1, (width + GRID_SIZE - 1) / GRID_SIZE);
+            cellHeight = Math.max(1, (height + GRID_SIZE - 1) / GRID_SIZE);
+            cells = new ArrayList[GRID_SIZE * GRID_SIZE];
+        }
+        
+        
+        public int column(int x) {
+            return Math.max(0, Math.min(GRID_SIZE - 1, Math.floorDiv(x, cellWidth)));
+        }
+        
+        
+        public int row(int y) {
+            return Math.max(0, Math.min(GRID_SIZE - 1, Math.floorDiv(y, cellHeight)));
+        }
+    }
+}
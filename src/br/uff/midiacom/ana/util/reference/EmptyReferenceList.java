@@ -0,0 +1,97 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.reference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+
+/**
+ * Immutable empty list of references. Most elements are never referred, so
+ * the elements only create their list of references when the first reference
+ * is added and return this list while they have none.
+ */
+public final class EmptyReferenceList<T> extends ArrayList<T> {
+    
+    private static final EmptyReferenceList INSTANCE = new EmptyReferenceList();
+    
+    
+    private EmptyReferenceList() {
+        super(0);
+    }
+    
+    
+    /**
+     * Returns the shared empty list of references.
+     * 
+     * @return 
+     *          empty list that can not be modified.
+     */
+    public static <T> ArrayList<T> get() {
+        return INSTANCE;
+    }
+    
+    
+    @Override
+    public boolean add(T e) {
+        throw new UnsupportedOperationException("Empty reference list.");
+    }
+    
+    
+    @Override
+    public void add(int index, T element) {
+        throw new UnsupportedOperationException("Empty reference list.");
+    }
+    
+    
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        throw new UnsupportedOperationException("Empty reference list.");
+    }
+    
+    
+    @Override
+    public boolean addAll(int index, Collection<? extends T> c) {
+        throw new UnsupportedOperationException("Empty reference list.");
+    }
+    
+    
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
@@ -37,9 +37,12 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.reference;
 
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.reuse.NCLImport;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import java.io.Serializable;
 
 
@@ -110,6 +113,49 @@ public class ExternalReferenceType<T extends ReferredElement,
     }
 
 
+    /**
+     * Records an element referring to the target through this reference. The
+     * alias always keeps the element. The target does not keep it if it
+     * belongs to a read-only document, like a document shared by a document
+     * cache, since that document is not changed by the documents importing
+     * it.
+     * 
+     * @param reference
+     *          element referring to the target.
+     * @throws XMLException 
+     *          if an error occur while recording the reference.
+     */
+    public void addReference(NCLElement reference) throws XMLException {
+        if(!isReadOnly(target))
+            target.addReference(reference);
+        alias.addReference(reference);
+    }
+    
+    
+    /**
+     * Removes an element referring to the target through this reference.
+     * 
+     * @param reference
+     *          element that no longer refers to the target.
+     * @throws XMLException 
+     *          if an error occur while removing the reference.
+     */
+    public void removeReference(NCLElement reference) throws XMLException {
+        if(!isReadOnly(target))
+            target.removeReference(reference);
+        alias.removeReference(reference);
+    }
+    
+    
+    private static boolean isReadOnly(Object element) {
+        if(!(element instanceof NCLElement))
+            return false;
+        
+        Object doc = ((NCLElement) element).getDoc();
+        return doc instanceof NCLDoc && ((NCLDoc) doc).isReadOnly();
+    }
+
+
     @Override
     public String toString() {
         String content = "";
@@ -124,19 +170,48 @@ public class ExternalReferenceType<T extends ReferredElement,
     }
     
     
+    /**
+     * Verifies if another reference refers to the same element. References
+     * are equal when their aliases have the same name and their targets the
+     * same id, so references of different loads of a document are equal.
+     * 
+     * @param o
+     *          object to be compared.
+     * @return 
+     *          true if the object refers to the same element.
+     */
     @Override
     public boolean equals(Object o) {
         if(o == null || !(o instanceof ExternalReferenceType))
             return false;
         
-        boolean result = true;
+        ExternalReferenceType other = (ExternalReferenceType) o;
+        
+        Object aux = alias.getAlias();
+        if(aux == null ? other.getAlias().getAlias() != null : !aux.equals(other.getAlias().getAlias()))
+            return false;
+        
+        aux = key(target);
+        return aux == null ? key(other.getTarget()) == null : aux.equals(key(other.getTarget()));
+    }
+    
+    
+    @Override
+    public int hashCode() {
+        Object aux = alias.getAlias();
+        int result = aux != null ? aux.hashCode() : 0;
         
-        T aux;
-        if((aux = (T) getAlias()) != null)
-            result &= aux.equals(((ExternalReferenceType) o).getAlias());
-        if((aux = getTarget()) != null)
-            result &= aux.equals(((ExternalReferenceType) o).getTarget());
+        aux = key(target);
+        return 31 * result + (aux != null ? aux.hashCode() : 0);
+    }
+    
+    
+    private static Object key(Object target) {
+        if(target instanceof NCLIdentifiableElementPrototype)
+            return ((NCLIdentifiableElementPrototype) target).getId();
+        if(target instanceof NCLNamedElementPrototype)
+            return ((NCLNamedElementPrototype) target).getName();
         
-        return result;
+        return target;
     }
 }
@@ -0,0 +1,357 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.reference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * List of the elements that refer to an element.
+ * 
+ * <br/>
+ * 
+ * When the list grows beyond a few references, it keeps the positions of its
+ * references by identity, so adding, removing and verifying a reference do
+ * not need to scan the list. A reference removed from a large list is
+ * replaced by the last reference of the list, so the order in which the
+ * references were added is not kept. The same element may be in the list more
+ * than once, once for each time it refers to the element.
+ * 
+ * <br/>
+ * 
+ * The positions are only kept up to date by <i>add</i> and <i>remove</i>.
+ * Any other change to the list discards them and they are rebuilt when they
+ * are needed again.
+ *
+ * @param <T>
+ *          the type of element that refers to the element.
+ */
+public class ReferenceList<T> extends ArrayList<T> {
+    
+    private static final int INDEX_THRESHOLD = 16;
+    
+    private transient IdentityHashMap<Object, Object> positions;
+    private transient int positionsModCount;
+    
+    
+    /**
+     * Reference list constructor.
+     */
+    public ReferenceList() {
+        super(4);
+    }
+    
+    
+    /**
+     * Returns the elements of a given type that refer to an element.
+     * 
+     * @param element
+     *          element referred.
+     * @param type
+     *          type of the elements that refer to the element.
+     * @return 
+     *          list with the elements of the type given that refer to the
+     *          element. The list is empty if there is none.
+     */
+    public static <R> ArrayList<R> getReferences(ReferredElement element, Class<R> type) {
+        ArrayList refs = element.getReferences();
+        ArrayList<R> result = new ArrayList<R>();
+        if(refs == null)
+            return result;
+        
+        for(Object ref : refs){
+            if(type.isInstance(ref))
+                result.add((R) ref);
+        }
+        return result;
+    }
+    
+    
+    /**
+     * Verifies if an element is referred by an element of a given type.
+     * 
+     * @param element
+     *          element referred.
+     * @param type
+     *          type of the elements that refer to the element.
+     * @return 
+     *          true if an element of the type given refers to the element.
+     */
+    public static boolean hasReferences(ReferredElement element, Class<?> type) {
+        ArrayList refs = element.getReferences();
+        if(refs == null || refs.isEmpty())
+            return false;
+        
+        for(Object ref : refs){
+            if(type.isInstance(ref))
+                return true;
+        }
+        return false;
+    }
+    
+    
+    @Override
+    public boolean add(T reference) {
+        IdentityHashMap<Object, Object> aux = current();
+        super.add(reference);
+        if(aux != null){
+            put(aux, reference, size() - 1);
+            positionsModCount = modCount;
+        }
+        return true;
+    }
+    
+    
+    @Override
+    public boolean remove(Object reference) {
+        if(size() < INDEX_THRESHOLD){
+            positions = null;
+            return super.remove(reference);
+        }
+        
+        IdentityHashMap<Object, Object> aux = index();
+        if(!aux.containsKey(reference))
+            return false;
+        
+        // the last position of the reference is taken, so the reference moved
+        // to its place is never the reference itself
+        int pos = take(aux, reference);
+        int last = size() - 1;
+        if(pos != last){
+            T moved = get(last);
+            move(aux, moved, last, pos);
+            super.set(pos, moved);
+        }
+        super.remove(last);
+        positionsModCount = modCount;
+        return true;
+    }
+    
+    
+    @Override
+    public boolean contains(Object reference) {
+        if(size() < INDEX_THRESHOLD)
+            return super.contains(reference);
+        
+        return index().containsKey(reference);
+    }
+    
+    
+    @Override
+    public void add(int index, T element) {
+        positions = null;
+        super.add(index, element);
+    }
+    
+    
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        positions = null;
+        return super.addAll(c);
+    }
+    
+    
+    @Override
+    public boolean addAll(int index, Collection<? extends T> c) {
+        positions = null;
+        return super.addAll(index, c);
+    }
+    
+    
+    @Override
+    public T remove(int index) {
+        positions = null;
+        return super.remove(index);
+    }
+    
+    
+    @Override
+    public T set(int index, T element) {
+        positions = null;
+        return super.set(index, element);
+    }
+    
+    
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        positions = null;
+        return super.removeAll(c);
+    }
+    
+    
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        positions = null;
+        return super.retainAll(c);
+    }
+    
+    
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        positions = null;
+        return super.removeIf(filter);
+    }
+    
+    
+    @Override
+    public void replaceAll(UnaryOperator<T> operator) {
+        positions = null;
+        super.replaceAll(operator);
+    }
+    
+    
+    @Override
+    public void sort(Comparator<? super T> c) {
+        positions = null;
+        super.sort(c);
+    }
+    
+    
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        positions = null;
+        super.removeRange(fromIndex, toIndex);
+    }
+    
+    
+    @Override
+    public void clear() {
+        positions = null;
+        super.clear();
+    }
+    
+    
+    @Override
+    public Object clone() {
+        ReferenceList<T> result = (ReferenceList<T>) super.clone();
+        result.positions = null;
+        return result;
+    }
+    
+    
+    /**
+     * Returns the positions if they are up to date.
+     */
+    private IdentityHashMap<Object, Object> current() {
+        if(positions != null && positionsModCount != modCount)
+            positions = null;
+        return positions;
+    }
+    
+    
+    /**
+     * Returns the positions, rebuilding them if they are not up to date.
+     */
+    private IdentityHashMap<Object, Object> index() {
+        IdentityHashMap<Object, Object> aux = current();
+        if(aux == null){
+            aux = new IdentityHashMap<Object, Object>(size());
+            for(int i = 0; i < size(); i++)
+                put(aux, get(i), i);
+            positions = aux;
+            positionsModCount = modCount;
+        }
+        return aux;
+    }
+    
+    
+    // a reference in the list once keeps an Integer, a reference in the list
+    // many times keeps an array with the number of positions and the positions
+    private static void put(IdentityHashMap<Object, Object> map, Object reference, int pos) {
+        Object entry = map.get(reference);
+        if(entry == null){
+            map.put(reference, pos);
+        }
+        else if(entry instanceof Integer){
+            map.put(reference, new int[]{2, (Integer) entry, pos, 0});
+        }
+        else{
+            int[] aux = (int[]) entry;
+            if(aux[0] + 1 == aux.length){
+                int[] grown = new int[aux.length * 2];
+                System.arraycopy(aux, 0, grown, 0, aux.length);
+                aux = grown;
+                map.put(reference, aux);
+            }
+            aux[++aux[0]] = pos;
+        }
+    }
+    
+    
+    private static int take(IdentityHashMap<Object, Object> map, Object reference) {
+        Object entry = map.get(reference);
+        if(entry instanceof Integer){
+            map.remove(reference);
+            return (Integer) entry;
+        }
+        
+        int[] aux = (int[]) entry;
+        int max = 1;
+        for(int i = 2; i <= aux[0]; i++){
+            if(aux[i] > aux[max])
+                max = i;
+        }
+        int result = aux[max];
+        aux[max] = aux[aux[0]--];
+        if(aux[0] == 1)
+            map.put(reference, aux[1]);
+        return result;
+    }
+    
+    
+    private static void move(IdentityHashMap<Object, Object> map, Object reference, int from, int to) {
+        Object entry = map.get(reference);
+        if(entry instanceof Integer){
+            map.put(reference, to);
+            return;
+        }
+        
+        int[] aux = (int[]) entry;
+        for(int i = 1; i <= aux[0]; i++){
+            if(aux[i] == from){
+                aux[i] = to;
+                return;
+            }
+        }
+    }
+}
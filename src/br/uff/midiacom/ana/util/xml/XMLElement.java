@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.xml;
 
 import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.IOException;
 import java.io.Serializable;
 import org.w3c.dom.Element;
 
@@ -91,6 +92,22 @@ public interface XMLElement<T extends XMLElement> extends Serializable {
      *          string representing the XML code.
      */
     public String parse(int ident);
+
+
+    /**
+     * Writes the XML code that represents the XML element to an output. The
+     * code is appended to the output as it is generated, so the element
+     * content is never held in memory as a single string.
+     *
+     * @param out
+     *          output where the XML code will be appended.
+     * @param ident
+     *          integer indicating the indentation level. The XML code will be
+     *          indented by a tab "\t".
+     * @throws IOException
+     *          if an error occur while writing to the output.
+     */
+    public void write(Appendable out, int ident) throws IOException;
     
     
     /**
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.xml;
 
 import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.IOException;
 
 
 /**
@@ -54,6 +55,17 @@ public abstract class XMLElementPrototype<T extends XMLElement>
     protected T parent;
     protected T doc;
     
+    private static final int CACHED_INDENTS = 32;
+    private static final String[] indents = new String[CACHED_INDENTS];
+    
+    static {
+        String space = "";
+        for(int i = 0; i < CACHED_INDENTS; i++){
+            indents[i] = space;
+            space += "\t";
+        }
+    }
+    
 
     @Override
     @Deprecated
@@ -80,4 +92,42 @@ public abstract class XMLElementPrototype<T extends XMLElement>
     public T getDoc() {
         return doc;
     }
+    
+    
+    @Override
+    public String parse(int ident) {
+        StringBuilder content = new StringBuilder();
+        
+        try{
+            write(content, ident);
+        }catch(IOException ex){
+            // a StringBuilder never throws IOException
+            throw new IllegalStateException(ex);
+        }
+        
+        return content.toString();
+    }
+    
+    
+    /**
+     * Returns the string used to indent an element in a given indentation
+     * level. The most common levels are shared, so no string is created while
+     * writing a document.
+     * 
+     * @param ident
+     *          integer indicating the indentation level.
+     * @return 
+     *          string with one tab "\t" for each indentation level.
+     */
+    protected static String indent(int ident) {
+        if(ident < 0)
+            ident = 0;
+        if(ident < CACHED_INDENTS)
+            return indents[ident];
+        
+        StringBuilder space = new StringBuilder(ident);
+        for(int i = 0; i < ident; i++)
+            space.append('\t');
+        return space.toString();
+    }
 }
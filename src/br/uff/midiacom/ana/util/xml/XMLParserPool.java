@@ -0,0 +1,152 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.xml;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+
+
+/**
+ * Class that keeps the XML parsers used to load the documents, so they are
+ * created once and reused instead of created for each document read.
+ * 
+ * <br/>
+ * 
+ * A parser is taken from the pool, used by a single thread and given back to
+ * the pool once the document is read. The pool may be used by many threads at
+ * the same time, including virtual threads, since the parsers are not bound to
+ * the thread that created them. The pool keeps at most
+ * <i>MAX_IDLE_PARSERS</i> idle parsers of each kind.
+ */
+public final class XMLParserPool {
+    
+    /** Maximum number of idle parsers of each kind kept by the pool. */
+    public static final int MAX_IDLE_PARSERS = 64;
+    
+    private static final DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
+    private static final ConcurrentLinkedQueue<DocumentBuilder> builders = new ConcurrentLinkedQueue<DocumentBuilder>();
+    private static final ConcurrentLinkedQueue<XMLInputFactory> inputFactories = new ConcurrentLinkedQueue<XMLInputFactory>();
+    private static final AtomicInteger idleBuilders = new AtomicInteger();
+    private static final AtomicInteger idleInputFactories = new AtomicInteger();
+    
+    
+    private XMLParserPool() {}
+    
+    
+    /**
+     * Takes a DOM parser from the pool. The parser must be given back with
+     * <i>releaseDocumentBuilder</i> after the document is parsed.
+     * 
+     * @return 
+     *          DOM parser ready to parse a document.
+     * @throws ParserConfigurationException 
+     *          if the parser could not be created.
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = builders.poll();
+        if(builder != null){
+            idleBuilders.decrementAndGet();
+            return builder;
+        }
+        
+        // the factory is not required to be thread safe
+        synchronized(builderFactory){
+            return builderFactory.newDocumentBuilder();
+        }
+    }
+    
+    
+    /**
+     * Gives a DOM parser back to the pool.
+     * 
+     * @param builder 
+     *          parser taken with <i>getDocumentBuilder</i>.
+     */
+    public static void releaseDocumentBuilder(DocumentBuilder builder) {
+        if(builder == null)
+            return;
+        
+        builder.reset();
+        if(idleBuilders.incrementAndGet() <= MAX_IDLE_PARSERS)
+            builders.offer(builder);
+        else
+            idleBuilders.decrementAndGet();
+    }
+    
+    
+    /**
+     * Takes a stream parser factory from the pool. The factory must be given
+     * back with <i>releaseInputFactory</i> after the stream reader is created.
+     * 
+     * @return 
+     *          factory of stream readers.
+     */
+    public static XMLInputFactory getInputFactory() {
+        XMLInputFactory factory = inputFactories.poll();
+        if(factory != null){
+            idleInputFactories.decrementAndGet();
+            return factory;
+        }
+        
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+    
+    
+    /**
+     * Gives a stream parser factory back to the pool.
+     * 
+     * @param factory 
+     *          factory taken with <i>getInputFactory</i>.
+     */
+    public static void releaseInputFactory(XMLInputFactory factory) {
+        if(factory == null)
+            return;
+        
+        if(idleInputFactories.incrementAndGet() <= MAX_IDLE_PARSERS)
+            inputFactories.offer(factory);
+        else
+            idleInputFactories.decrementAndGet();
+    }
+}
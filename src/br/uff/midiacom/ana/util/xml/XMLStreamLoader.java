@@ -0,0 +1,255 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.xml;
+
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.InputStream;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+
+/**
+ * Class that reads an XML document as a stream of events. The elements that
+ * are able to load themselves from the stream walk their children one by one,
+ * and only the children given to the <i>load(Element)</i> method of an element
+ * are built as DOM elements. This way the DOM tree of the whole document is
+ * never kept in memory.
+ * 
+ * <br/>
+ * 
+ * The reader is always positioned in the start or the end of an element. The
+ * methods <i>readAttributes</i> and <i>readElement</i> must be called when the
+ * reader is positioned in the start of an element.
+ */
+public class XMLStreamLoader {
+
+    private XMLStreamReader reader;
+    private Document owner;
+
+
+    /**
+     * Stream loader constructor. The reader is positioned in the start of the
+     * document root element.
+     * 
+     * @param input
+     *          stream with the XML document content.
+     * @throws XMLException 
+     *          if an error occur while creating the stream reader.
+     */
+    public XMLStreamLoader(InputStream input) throws XMLException {
+        this(input, null);
+    }
+
+
+    /**
+     * Stream loader constructor. The reader is positioned in the start of the
+     * document root element.
+     * 
+     * @param input
+     *          stream with the XML document content.
+     * @param systemId
+     *          system identifier of the document, used to resolve relative
+     *          references. May be <i>null</i>.
+     * @throws XMLException 
+     *          if an error occur while creating the stream reader.
+     */
+    public XMLStreamLoader(InputStream input, String systemId) throws XMLException {
+        try{
+            XMLInputFactory factory = XMLParserPool.getInputFactory();
+            try{
+                if(systemId != null)
+                    reader = factory.createXMLStreamReader(systemId, input);
+                else
+                    reader = factory.createXMLStreamReader(input);
+            }finally{
+                XMLParserPool.releaseInputFactory(factory);
+            }
+            
+            DocumentBuilder builder = XMLParserPool.getDocumentBuilder();
+            owner = builder.newDocument();
+            XMLParserPool.releaseDocumentBuilder(builder);
+            
+            // moves to the root element
+            while(reader.getEventType() != XMLStreamConstants.START_ELEMENT)
+                reader.next();
+        }catch(XMLStreamException ex){
+            throw new XMLException(ex.fillInStackTrace());
+        }catch(ParserConfigurationException ex){
+            throw new XMLException(ex.fillInStackTrace());
+        }
+    }
+
+
+    /**
+     * Returns the tag name of the element the reader is positioned. The name
+     * includes the namespace prefix, if it exists.
+     * 
+     * @return 
+     *          string representing the element tag name.
+     */
+    public String getTagName() {
+        String prefix = reader.getPrefix();
+        if(prefix == null || prefix.isEmpty())
+            return reader.getLocalName();
+        else
+            return prefix + ":" + reader.getLocalName();
+    }
+
+
+    /**
+     * Moves the reader to the next child of the element being read. The
+     * characters and comments between the children are skipped.
+     * 
+     * @return 
+     *          true if the reader is positioned in the start of a child element
+     *          and false if it is positioned in the end of the parent element.
+     * @throws XMLException 
+     *          if an error occur while reading the document.
+     */
+    public boolean nextChild() throws XMLException {
+        try{
+            while(reader.hasNext()){
+                int event = reader.next();
+                if(event == XMLStreamConstants.START_ELEMENT)
+                    return true;
+                if(event == XMLStreamConstants.END_ELEMENT)
+                    return false;
+            }
+            
+            throw new XMLException("Unexpected end of document.");
+        }catch(XMLStreamException ex){
+            throw new XMLException(ex.fillInStackTrace());
+        }
+    }
+
+
+    /**
+     * Returns a DOM element with the attributes of the element the reader is
+     * positioned. The element returned does not have children and the reader
+     * position does not change.
+     * 
+     * @return 
+     *          element with the attributes of the element being read.
+     */
+    public Element readAttributes() {
+        Element element = owner.createElement(getTagName());
+        
+        for(int i = 0; i < reader.getNamespaceCount(); i++){
+            String prefix = reader.getNamespacePrefix(i);
+            if(prefix == null || prefix.isEmpty())
+                element.setAttribute("xmlns", reader.getNamespaceURI(i));
+            else
+                element.setAttribute("xmlns:" + prefix, reader.getNamespaceURI(i));
+        }
+        
+        for(int i = 0; i < reader.getAttributeCount(); i++){
+            String prefix = reader.getAttributePrefix(i);
+            String name = reader.getAttributeLocalName(i);
+            if(prefix != null && !prefix.isEmpty())
+                name = prefix + ":" + name;
+            
+            element.setAttribute(name, reader.getAttributeValue(i));
+        }
+        
+        return element;
+    }
+
+
+    /**
+     * Returns a DOM element representing the element the reader is positioned,
+     * with all its content. After reading, the reader is positioned in the end
+     * of the element.
+     * 
+     * @return 
+     *          element representing the element being read.
+     * @throws XMLException 
+     *          if an error occur while reading the document.
+     */
+    public Element readElement() throws XMLException {
+        Element root = readAttributes();
+        Node current = root;
+        
+        try{
+            while(current != null){
+                switch(reader.next()){
+                    case XMLStreamConstants.START_ELEMENT:
+                        Element child = readAttributes();
+                        current.appendChild(child);
+                        current = child;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        current = current == root ? null : current.getParentNode();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        current.appendChild(owner.createTextNode(reader.getText()));
+                        break;
+                    case XMLStreamConstants.END_DOCUMENT:
+                        throw new XMLException("Unexpected end of document.");
+                }
+            }
+        }catch(XMLStreamException ex){
+            throw new XMLException(ex.fillInStackTrace());
+        }
+        
+        return root;
+    }
+
+
+    /**
+     * Closes the stream reader. The input stream is not closed.
+     * 
+     * @throws XMLException 
+     *          if an error occur while closing the reader.
+     */
+    public void close() throws XMLException {
+        try{
+            reader.close();
+        }catch(XMLStreamException ex){
+            throw new XMLException(ex.fillInStackTrace());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana;
+
+import br.uff.midiacom.ana.util.ArrayType;
+import br.uff.midiacom.ana.util.PercentageType;
+import br.uff.midiacom.ana.util.SampleType;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.ValueParser;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.enums.NCLMimeType;
+import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
+import br.uff.midiacom.ana.util.enums.NCLTransitionSubtype;
+import java.util.regex.Pattern;
+
+
+/**
+ * Measures the cost of decoding each kind of attribute value read while a
+ * document is loaded, in nanoseconds per value. The enumerations are also
+ * decoded by scanning their values and the ids validated by a regular
+ * expression, the way they were decoded before the lookup tables and the
+ * hand written validator, for comparison.
+ * 
+ * <br/>
+ * 
+ * Each case runs a warm up before the measure and the best of a few rounds is
+ * reported. Run it with <i>java br.uff.midiacom.ana.NCLDecodeBenchmark
+ * [iterations]</i>.
+ */
+public class NCLDecodeBenchmark {
+
+    private static final int ROUNDS = 5;
+    
+    private static final String[] ATTRIBUTES = {"id", "src", "descriptor", "component", "interface", "role", "left", "zIndex"};
+    private static final String[] MIMES = {"image/png", "video/mpeg", "application/x-ginga-NCLua", "text/html"};
+    private static final String[] SUBTYPES = {"leftToRight", "crossfade", "topLeftDiagonal", "fadeToColor"};
+    private static final String[] VARIABLES = {"system.language", "system.screenSize", "default.focusBorderColor"};
+    private static final String[] TIMES = {"5s", "12.5s", "1:30:20.5", "2012:10:1:12:30:10.25"};
+    private static final String[] PERCENTS = {"50%", "12.5%", "0.75", "100%"};
+    private static final String[] SAMPLES = {"10s", "25f", "3npt"};
+    private static final String[] ARRAYS = {"10,20,30,40", "0.5,1.5"};
+    private static final String[] SRCS = {"media/video.mp4", "image.png", "http://www.example.com/a.html"};
+    private static final String[] IDS = {"m1", "media_video_01", "ctx:body.main", "rg-top-left"};
+    
+    private static volatile int sink;
+
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        
+        System.out.println("value\tns/value");
+        
+        run("elementAttribute", iterations, new Case() {
+            int decode(int i) {
+                return NCLElementAttributes.getEnumType(ATTRIBUTES[i % ATTRIBUTES.length]).ordinal();
+            }
+        });
+        run("elementAttribute(scan)", iterations, new Case() {
+            int decode(int i) {
+                String name = ATTRIBUTES[i % ATTRIBUTES.length];
+                for(NCLElementAttributes opt : NCLElementAttributes.values()){
+                    if(name.equals(opt.toString()))
+                        return opt.ordinal();
+                }
+                return -1;
+            }
+        });
+        run("mimeType", iterations, new Case() {
+            int decode(int i) {
+                return NCLMimeType.getEnumType(MIMES[i % MIMES.length]).ordinal();
+            }
+        });
+        run("mimeType(scan)", iterations, new Case() {
+            int decode(int i) {
+                String name = MIMES[i % MIMES.length];
+                for(NCLMimeType opt : NCLMimeType.values()){
+                    if(name.equals(opt.toString()))
+                        return opt.ordinal();
+                }
+                return -1;
+            }
+        });
+        run("transitionSubtype", iterations, new Case() {
+            int decode(int i) {
+                return NCLTransitionSubtype.getEnumType(SUBTYPES[i % SUBTYPES.length]).ordinal();
+            }
+        });
+        run("transitionSubtype(scan)", iterations, new Case() {
+            int decode(int i) {
+                String name = SUBTYPES[i % SUBTYPES.length];
+                for(NCLTransitionSubtype opt : NCLTransitionSubtype.values()){
+                    if(name.equals(opt.toString()))
+                        return opt.ordinal();
+                }
+                return -1;
+            }
+        });
+        run("systemVariable", iterations, new Case() {
+            int decode(int i) {
+                return NCLSystemVariable.getEnumType(VARIABLES[i % VARIABLES.length]).ordinal();
+            }
+        });
+        run("time", iterations, new Case() {
+            int decode(int i) {
+                return new TimeType(TIMES[i % TIMES.length]).hashCode();
+            }
+        });
+        run("percentage", iterations, new Case() {
+            int decode(int i) throws Exception {
+                return (int) new PercentageType(PERCENTS[i % PERCENTS.length]).getValue();
+            }
+        });
+        run("sample", iterations, new Case() {
+            int decode(int i) {
+                return new SampleType(SAMPLES[i % SAMPLES.length]).getValue();
+            }
+        });
+        run("array", iterations, new Case() {
+            int decode(int i) throws Exception {
+                return new ArrayType(ARRAYS[i % ARRAYS.length]).getSize();
+            }
+        });
+        run("src", iterations, new Case() {
+            int decode(int i) throws Exception {
+                return new SrcType(SRCS[i % SRCS.length]).toString().length();
+            }
+        });
+        run("id", iterations, new Case() {
+            int decode(int i) {
+                return ValueParser.isValidId(IDS[i % IDS.length]) ? 1 : 0;
+            }
+        });
+        run("id(regex)", iterations, new Case() {
+            int decode(int i) {
+                Pattern pattern = Pattern.compile("[_:A-Za-z][-._:A-Za-z0-9]*");
+                return pattern.matcher(IDS[i % IDS.length]).matches() ? 1 : 0;
+            }
+        });
+    }
+
+
+    private static void run(String name, int iterations, Case c) throws Exception {
+        for(int i = 0; i < iterations; i++)
+            sink += c.decode(i);
+        
+        long best = Long.MAX_VALUE;
+        for(int r = 0; r < ROUNDS; r++){
+            long start = System.nanoTime();
+            int acc = 0;
+            for(int i = 0; i < iterations; i++)
+                acc += c.decode(i);
+            best = Math.min(best, System.nanoTime() - start);
+            sink += acc;
+        }
+        
+        System.out.println(name + "\t" + String.format("%.1f", (double) best / iterations));
+    }
+
+
+    private static abstract class Case {
+        
+        abstract int decode(int i) throws Exception;
+    }
+}
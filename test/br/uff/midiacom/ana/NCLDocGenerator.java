@@ -0,0 +1,128 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana;
+
+
+/**
+ * Generates synthetic NCL documents of increasing size. The documents have a
+ * head with regions, descriptors and connectors and a body with contexts, each
+ * one holding media nodes with areas and properties and links between them.
+ */
+public class NCLDocGenerator {
+
+    /**
+     * Returns the XML code of a document with a given number of contexts, each
+     * one with a given number of media nodes.
+     */
+    public static String generate(int contexts, int medias) {
+        StringBuilder xml = new StringBuilder();
+        int regions = 10;
+
+        xml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n");
+        xml.append("<ncl id='generated' xmlns='http://www.ncl.org.br/NCL3.0/EDTVProfile'>\n");
+        xml.append("\t<head>\n");
+
+        xml.append("\t\t<regionBase>\n");
+        xml.append("\t\t\t<region id='rgTV' left='0' top='0' height='100.0%' width='100.0%' zIndex='1'>\n");
+        for(int r = 0; r < regions; r++)
+            xml.append("\t\t\t\t<region id='rg").append(r).append("' left='").append(r * 10)
+                    .append("' top='10.0%' height='20.0%' width='30.0%' zIndex='").append(r + 2).append("'/>\n");
+        xml.append("\t\t\t</region>\n");
+        xml.append("\t\t</regionBase>\n");
+
+        xml.append("\t\t<descriptorBase>\n");
+        for(int r = 0; r < regions; r++)
+            xml.append("\t\t\t<descriptor id='dp").append(r).append("' region='rg").append(r)
+                    .append("' explicitDur='").append(r + 1).append("s'/>\n");
+        xml.append("\t\t</descriptorBase>\n");
+
+        xml.append("\t\t<connectorBase>\n");
+        xml.append("\t\t\t<causalConnector id='onBeginStart'>\n");
+        xml.append("\t\t\t\t<simpleCondition role='onBegin'/>\n");
+        xml.append("\t\t\t\t<simpleAction role='start' max='unbounded' qualifier='par'/>\n");
+        xml.append("\t\t\t</causalConnector>\n");
+        xml.append("\t\t\t<causalConnector id='onEndSet'>\n");
+        xml.append("\t\t\t\t<connectorParam name='var'/>\n");
+        xml.append("\t\t\t\t<simpleCondition role='onEnd'/>\n");
+        xml.append("\t\t\t\t<simpleAction role='set' value='$var'/>\n");
+        xml.append("\t\t\t</causalConnector>\n");
+        xml.append("\t\t</connectorBase>\n");
+        xml.append("\t</head>\n");
+
+        xml.append("\t<body>\n");
+        xml.append("\t\t<port id='pStart' component='ctx0'/>\n");
+        for(int c = 0; c < contexts; c++){
+            String ctx = "ctx" + c;
+            xml.append("\t\t<context id='").append(ctx).append("'>\n");
+            xml.append("\t\t\t<port id='p").append(ctx).append("' component='").append(ctx).append("m0'/>\n");
+            for(int m = 0; m < medias; m++){
+                String media = ctx + "m" + m;
+                xml.append("\t\t\t<media id='").append(media).append("' src='media/").append(media)
+                        .append(".png' descriptor='dp").append(m % regions).append("'>\n");
+                xml.append("\t\t\t\t<area id='").append(media).append("a' begin='1s' end='5s'/>\n");
+                xml.append("\t\t\t\t<property name='top' value='").append(m).append("'/>\n");
+                xml.append("\t\t\t</media>\n");
+            }
+            for(int m = 0; m + 1 < medias; m++){
+                String media = ctx + "m" + m;
+                xml.append("\t\t\t<link id='").append(ctx).append("l").append(m).append("' xconnector='onBeginStart'>\n");
+                xml.append("\t\t\t\t<bind role='onBegin' component='").append(media)
+                        .append("' interface='").append(media).append("a'/>\n");
+                xml.append("\t\t\t\t<bind role='start' component='").append(ctx).append("m").append(m + 1).append("'/>\n");
+                xml.append("\t\t\t</link>\n");
+            }
+            xml.append("\t\t</context>\n");
+        }
+        xml.append("\t</body>\n");
+        xml.append("</ncl>\n");
+
+        return xml.toString();
+    }
+
+
+    /**
+     * Returns a document with a given number of contexts, each one with a given
+     * number of media nodes.
+     */
+    public static NCLDoc create(int contexts, int medias) throws Exception {
+        XMLLoader loader = new XMLLoader(generate(contexts, medias));
+        NCLDoc doc = new NCLDoc();
+        doc.load(loader.getElement());
+        return doc;
+    }
+}
@@ -38,11 +38,25 @@
 package br.uff.midiacom.ana;
 
 import java.net.URI;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.reuse.NCLImport;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import br.uff.midiacom.ana.util.enums.NCLNamespace;
+import br.uff.midiacom.ana.util.ncl.NCLSymbolTable;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -89,4 +103,358 @@ public class NCLDocTest {
         assertTrue(true);
         System.out.println(instance.parse(0));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testWrite() throws XMLException, IOException {
+        String xml = NCLDocGenerator.generate(2, 3);
+        XMLLoader loader = new XMLLoader(xml);
+        NCLDoc instance = new NCLDoc();
+        instance.load(loader.getElement());
+        
+        StringWriter out = new StringWriter();
+        instance.write(out, 0);
+        
+        assertEquals(instance.parse(0), out.toString());
+        assertTrue(out.toString().contains("\t\t\t<media id='ctx1m2' src='media/ctx1m2.png' descriptor='dp2'>\n"));
+    }
+    
+    @Test
+    public void testLoadStream() throws XMLException, URISyntaxException {
+        URI path = getClass().getResource("../../../../doc.ncl").toURI();
+        File f = new File(path);
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        NCLDoc instance = new NCLDoc();
+        instance.loadXMLStream(f);
+        
+        assertTrue(instance.compare(expected));
+        assertEquals(expected.parse(0), instance.parse(0));
+    }
+    
+    @Test
+    public void testLoadStreamBase() throws XMLException, URISyntaxException {
+        URI path = getClass().getResource("../../../../base.ncl").toURI();
+        File f = new File(path);
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        NCLDoc instance = new NCLDoc();
+        instance.loadXMLStream(f);
+        
+        assertTrue(instance.compare(expected));
+        assertEquals(expected.parse(0), instance.parse(0));
+    }
+    
+    @Test
+    public void testLoadStreamBody() throws XMLException, IOException {
+        File f = File.createTempFile("generated", ".ncl");
+        f.deleteOnExit();
+        Writer out = new OutputStreamWriter(new FileOutputStream(f), "ISO-8859-1");
+        out.write(NCLDocGenerator.generate(3, 5));
+        out.close();
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        NCLDoc instance = new NCLDoc();
+        instance.loadXMLStream(f);
+        
+        assertTrue(instance.compare(expected));
+        assertEquals(expected.parse(0), instance.parse(0));
+    }
+    
+    @Test
+    public void testLoadBytes() throws XMLException, URISyntaxException, IOException {
+        URI path = getClass().getResource("../../../../doc.ncl").toURI();
+        File f = new File(path);
+        byte[] content = Files.readAllBytes(f.toPath());
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        NCLDoc instance = new NCLDoc();
+        instance.loadXML(content, path);
+        
+        assertEquals(path, instance.getBaseURI());
+        assertTrue(instance.compare(expected));
+        assertEquals(expected.parse(0), instance.parse(0));
+    }
+    
+    @Test
+    public void testLoadByteBuffer() throws XMLException, URISyntaxException, IOException {
+        URI path = getClass().getResource("../../../../doc.ncl").toURI();
+        File f = new File(path);
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(f.toPath()));
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        NCLDoc instance = new NCLDoc();
+        instance.loadXML(content, path);
+        
+        assertEquals(0, content.position());
+        assertTrue(instance.compare(expected));
+        
+        instance = new NCLDoc();
+        instance.loadXMLMapped(f);
+        
+        assertEquals(f.getName(), instance.getFileName());
+        assertTrue(instance.compare(expected));
+    }
+    
+    @Test
+    public void testReferences() throws XMLException {
+        String content = "<ncl id='refs'><head></head><body>"+
+                "<media id='m1'/><media id='m2' refer='m1'/>"+
+                "<context id='c1'/><context id='c2' refer='c1'/>"+
+                "</body></ncl>";
+
+        XMLLoader loader = new XMLLoader(content);
+        NCLDoc instance = new NCLDoc();
+        instance.load(loader.getElement());
+
+        NCLBody body = (NCLBody) instance.getBody();
+        assertSame(body.findNode("m1"), ((NCLMedia) body.findNode("m2")).getRefer());
+        assertSame(body.findNode("c1"), ((NCLContext) body.findNode("c2")).getRefer());
+    }
+    
+    @Test
+    public void testUnresolvedReferences() throws XMLException {
+        String content = "<ncl id='refs'><head></head><body>"+
+                "<media id='m1'/><media id='m2' refer='m1'/>"+
+                "<media id='m3' refer='missing1'/><context id='c1' refer='missing2'/>"+
+                "</body></ncl>";
+
+        XMLLoader loader = new XMLLoader(content);
+        NCLDoc instance = new NCLDoc();
+        try{
+            instance.load(loader.getElement());
+            fail("unresolved references were not reported");
+        }
+        catch(NCLParsingException ex){
+            assertTrue(ex.getMessage().contains("missing1"));
+            assertTrue(ex.getMessage().contains("missing2"));
+        }
+    }
+    
+    @Test
+    public void testParallelLoad() throws Exception {
+        String content = NCLDocGenerator.generate(16, 50);
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(content.getBytes("ISO-8859-1"), null);
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        NCLDoc instance = new NCLDoc();
+        instance.setLoadPool(pool);
+        instance.loadXML(content.getBytes("ISO-8859-1"), null);
+        pool.shutdown();
+        
+        assertTrue(instance.compare(expected));
+        assertEquals(expected.parse(0), instance.parse(0));
+    }
+    
+    @Test
+    public void testCompareLoads() throws XMLException, URISyntaxException, IOException {
+        String content = "<ncl id='cmp'><head>"+
+                "<regionBase><region id='rgTV' width='100%' height='100%'>"+
+                "<region id='rgVideo' left='10%' top='10%' width='50%' height='50%' zIndex='2'/>"+
+                "</region></regionBase>"+
+                "<descriptorBase>"+
+                "<descriptor id='dVideo' region='rgVideo' explicitDur='10s'><descriptorParam name='soundLevel' value='0.5'/></descriptor>"+
+                "<descriptor id='dImage' region='rgTV' focusIndex='1'/>"+
+                "</descriptorBase>"+
+                "<ruleBase><rule id='rEn' var='system.language' comparator='eq' value='en'/></ruleBase>"+
+                "<connectorBase><importBase alias='conn' documentURI='base.ncl'/>"+
+                "<causalConnector id='onEndStop'><simpleCondition role='onEnd'/><simpleAction role='stop'/></causalConnector>"+
+                "</connectorBase>"+
+                "</head><body>"+
+                "<port id='pVideo' component='video'/>"+
+                "<media id='settings' type='application/x-ginga-settings'>"+
+                "<property name='system.language'/><property name='service.currentFocus' value='1'/>"+
+                "</media>"+
+                "<media id='video' src='video.mp4' descriptor='dVideo'><area id='a1' begin='2s'/><property name='soundLevel'/></media>"+
+                "<switch id='sw'><bindRule constituent='image' rule='rEn'/>"+
+                "<media id='image' src='image.png' descriptor='dImage'/></switch>"+
+                "<link xconnector='conn#onBeginStart'><bind role='onBegin' component='video'/><bind role='start' component='sw'/></link>"+
+                "<link xconnector='onEndStop'><bind role='onEnd' component='video'/><bind role='stop' component='sw'/></link>"+
+                "</body></ncl>";
+        URI path = getClass().getResource("../../../../doc.ncl").toURI();
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(content.getBytes("ISO-8859-1"), path);
+        NCLDoc instance = new NCLDoc();
+        instance.loadXML(content.getBytes("ISO-8859-1"), path);
+        
+        assertEquals(expected.getStructuralHash(), instance.getStructuralHash());
+        assertTrue(instance.compare(expected));
+        assertTrue(expected.compare(instance));
+    }
+    
+    @Test
+    public void testFragmentCaching() throws XMLException {
+        String content = "<ncl id='frag'><head><connectorBase>"+
+                "<causalConnector id='onBeginStart'><simpleCondition role='onBegin'/><simpleAction role='start'/></causalConnector>"+
+                "</connectorBase></head><body>"+
+                "<media id='m1' src='a.png'/><media id='m2' src='b.png'/>"+
+                "<link xconnector='onBeginStart'><bind role='onBegin' component='m1'/><bind role='start' component='m2'/></link>"+
+                "</body></ncl>";
+
+        XMLLoader loader = new XMLLoader(content);
+        NCLDoc instance = new NCLDoc();
+        instance.load(loader.getElement());
+        instance.setFragmentCaching(true);
+        
+        NCLBody body = (NCLBody) instance.getBody();
+        NCLMedia m1 = (NCLMedia) body.findNode("m1");
+        NCLMedia m2 = (NCLMedia) body.findNode("m2");
+        
+        String first = instance.parse(0);
+        String sibling = m2.parse(2);
+        assertSame(sibling, m2.parse(2));
+        
+        m1.setSrc(new SrcType("c.png"));
+        m1.setId("m3");
+        String second = instance.parse(0);
+        
+        assertFalse(first.equals(second));
+        assertTrue(second.contains("c.png"));
+        assertTrue(second.contains("component='m3'"));
+        assertSame(sibling, m2.parse(2));
+        
+        instance.setFragmentCaching(false);
+        assertEquals(instance.parse(0), second);
+    }
+    
+    @Test
+    public void testStructuralHash() throws XMLException {
+        NCLDoc expected = new NCLDoc();
+        expected.load(new XMLLoader("<ncl id='hash'><head></head><body>"+
+                "<media id='m1' src='a.png'/><media id='m2' src='b.png'/>"+
+                "</body></ncl>").getElement());
+        NCLDoc instance = new NCLDoc();
+        instance.load(new XMLLoader("<ncl id='hash'><head></head><body>"+
+                "<media id='m2' src='b.png'/><media id='m1' src='a.png'/>"+
+                "</body></ncl>").getElement());
+        
+        long hash = expected.getStructuralHash();
+        assertEquals(hash, instance.getStructuralHash());
+        assertTrue(instance.compare(expected));
+        
+        NCLMedia m1 = (NCLMedia) ((NCLBody) instance.getBody()).findNode("m1");
+        m1.setSrc(new SrcType("c.png"));
+        assertFalse(hash == instance.getStructuralHash());
+        assertFalse(instance.compare(expected));
+        
+        m1.setSrc(new SrcType("a.png"));
+        assertEquals(hash, instance.getStructuralHash());
+    }
+    
+    @Test
+    public void testAttach() throws XMLException {
+        NCLDoc doc1 = new NCLDoc();
+        doc1.setBody(new NCLBody());
+        NCLDoc doc2 = new NCLDoc();
+        doc2.setBody(new NCLBody());
+        
+        // built bottom-up, then attached
+        NCLContext inner = new NCLContext("inner");
+        NCLMedia media = new NCLMedia("m1");
+        inner.addNode(media);
+        NCLContext outer = new NCLContext("outer");
+        outer.addNode(inner);
+        assertNull(media.getDoc());
+        
+        doc1.getBody().addNode(outer);
+        assertSame(doc1, media.getDoc());
+        assertSame(media, doc1.getElementById("m1"));
+        assertSame(inner, doc1.getElementById("inner"));
+        
+        doc1.getBody().removeNode(outer);
+        assertNull(media.getDoc());
+        assertNull(doc1.getElementById("m1"));
+        
+        doc2.getBody().addNode(outer);
+        assertSame(doc2, media.getDoc());
+        assertSame(media, doc2.getElementById("m1"));
+        assertNull(doc1.getElementById("inner"));
+        
+        media.setId("m2");
+        assertNull(doc2.getElementById("m1"));
+        assertSame(media, doc2.getElementById("m2"));
+        
+        // ids changed and subtrees moved outside a document
+        doc2.getBody().removeNode(outer);
+        NCLContext other = new NCLContext("other");
+        outer.removeNode(inner);
+        other.addNode(inner);
+        media.setId("m3");
+        NCLMedia added = new NCLMedia();
+        inner.addNode(added);
+        added.setId("m4");
+        doc1.getBody().addNode(other);
+        assertSame(media, doc1.getElementById("m3"));
+        assertSame(added, doc1.getElementById("m4"));
+        assertSame(inner, doc1.getElementById("inner"));
+        assertNull(doc1.getElementById("m2"));
+        assertNull(doc1.getElementById("outer"));
+    }
+    
+    @Test
+    public void testCachedDoc() throws XMLException {
+        NCLDoc doc1 = new NCLDoc();
+        NCLDoc doc2 = new NCLDoc();
+        NCLContext outer = new NCLContext("outer");
+        NCLContext inner = new NCLContext("inner");
+        NCLMedia media = new NCLMedia("m1");
+        outer.addNode(inner);
+        inner.addNode(media);
+        assertNull(media.getDoc());
+        
+        outer.setDoc(doc1);
+        assertSame(doc1, media.getDoc());
+        assertSame(doc1, media.getDoc());
+        
+        // inner was only visited to find the document of the media
+        outer.removeNode(inner);
+        assertNull(media.getDoc());
+        NCLContext other = new NCLContext("other");
+        other.setDoc(doc2);
+        other.addNode(inner);
+        assertSame(doc2, media.getDoc());
+        assertSame(doc2, inner.getDoc());
+    }
+    
+    @Test
+    public void testSymbolTable() throws XMLException {
+        String content = "<ncl id='sym'><head></head><body>"+
+                "<media id='m1' src='a.png'><area id='a1' label='l1'/></media>"+
+                "</body></ncl>";
+        NCLSymbolTable table = new NCLSymbolTable();
+        
+        NCLDoc doc1 = new NCLDoc();
+        doc1.setSymbolTable(table);
+        doc1.load(new XMLLoader(content).getElement());
+        NCLDoc doc2 = new NCLDoc();
+        doc2.setSymbolTable(table);
+        doc2.load(new XMLLoader(content).getElement());
+        NCLDoc doc3 = new NCLDoc();
+        doc3.load(new XMLLoader(content).getElement());
+        
+        NCLMedia m1 = (NCLMedia) ((NCLBody) doc1.getBody()).findNode("m1");
+        NCLMedia m2 = (NCLMedia) ((NCLBody) doc2.getBody()).findNode("m1");
+        NCLMedia m3 = (NCLMedia) ((NCLBody) doc3.getBody()).findNode("m1");
+        assertSame(m1.getId(), m2.getId());
+        assertNotSame(m1.getId(), m3.getId());
+        assertSame(m1.getSrc().toString(), m2.getSrc().toString());
+        assertSame(((NCLArea) m1.getArea("a1")).getLabel(), ((NCLArea) m2.getArea("a1")).getLabel());
+        assertTrue(doc1.compare(doc3));
+        
+        int symbol = table.find("m1");
+        assertTrue(symbol >= 0);
+        assertSame(m1.getId(), table.name(symbol));
+        assertEquals(symbol, table.symbol(new String("m1")));
+        assertEquals(-1, table.find("m4"));
+        
+        m1.setId(new String("m4"));
+        assertSame(table.intern("m4"), m1.getId());
+    }
+}
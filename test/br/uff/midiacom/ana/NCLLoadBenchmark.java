@@ -0,0 +1,135 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Compares the time and the peak heap usage of loading generated documents of
+ * increasing size from a file building the whole DOM tree first
+ * (<i>loadXML</i>) and streaming the body elements (<i>loadXMLStream</i>).
+ * 
+ * <br/>
+ * 
+ * The peak heap is taken from the memory pools and is only an approximation.
+ * Run it with <i>java br.uff.midiacom.ana.NCLLoadBenchmark [maxContexts]</i>.
+ */
+public class NCLLoadBenchmark {
+
+    private static final int MEDIAS = 100;
+    private static final int ROUNDS = 3;
+
+
+    public static void main(String[] args) throws Exception {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+
+        System.out.println("contexts\tbytes\tdom(ms)\tstream(ms)\tparallel(ms)\tdom(KB)\tstream(KB)");
+        for(int contexts = 1; contexts <= max; contexts *= 2){
+            File f = File.createTempFile("benchmark", ".ncl");
+            f.deleteOnExit();
+            Writer out = new OutputStreamWriter(new FileOutputStream(f), "ISO-8859-1");
+            out.write(NCLDocGenerator.generate(contexts, MEDIAS));
+            out.close();
+
+            long dom = Long.MAX_VALUE, stream = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+            long domHeap = Long.MAX_VALUE, streamHeap = Long.MAX_VALUE;
+
+            for(int r = 0; r < ROUNDS; r++){
+                long base = resetPeak();
+                long start = System.nanoTime();
+                NCLDoc doc = new NCLDoc();
+                doc.loadXML(f);
+                dom = Math.min(dom, System.nanoTime() - start);
+                domHeap = Math.min(domHeap, peak() - base);
+
+                doc = null;
+                base = resetPeak();
+                start = System.nanoTime();
+                doc = new NCLDoc();
+                doc.loadXMLStream(f);
+                stream = Math.min(stream, System.nanoTime() - start);
+                streamHeap = Math.min(streamHeap, peak() - base);
+
+                doc = null;
+                resetPeak();
+                start = System.nanoTime();
+                doc = new NCLDoc();
+                doc.setLoadPool(ForkJoinPool.commonPool());
+                doc.loadXML(f);
+                parallel = Math.min(parallel, System.nanoTime() - start);
+            }
+
+            System.out.println(contexts + "\t" + f.length() + "\t"
+                    + (dom / 1000000) + "\t" + (stream / 1000000) + "\t"
+                    + (parallel / 1000000) + "\t"
+                    + (domHeap / 1024) + "\t" + (streamHeap / 1024));
+            f.delete();
+        }
+    }
+
+
+    private static long resetPeak() {
+        System.gc();
+        long used = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP){
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+
+    private static long peak() {
+        long used = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP)
+                used += pool.getPeakUsage().getUsed();
+        }
+        return used;
+    }
+}
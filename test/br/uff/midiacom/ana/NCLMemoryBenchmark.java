@@ -0,0 +1,125 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana;
+
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.ncl.NCLElementSink;
+import br.uff.midiacom.ana.util.ncl.NCLSymbolTable;
+import java.io.IOException;
+import java.util.ArrayList;
+
+
+/**
+ * Measures the heap retained by documents loaded in memory, in bytes per
+ * element. Generated documents are loaded until the number of elements given
+ * is reached and the heap used is compared with the heap used before loading
+ * them.
+ * 
+ * <br/>
+ * 
+ * The heap used is taken after a garbage collection and is only an
+ * approximation. Run it with
+ * <i>java br.uff.midiacom.ana.NCLMemoryBenchmark [elements] [symbols]</i>,
+ * where <i>symbols</i> makes the documents share a symbol table.
+ */
+public class NCLMemoryBenchmark {
+
+    private static final int CONTEXTS = 10;
+    private static final int MEDIAS = 100;
+
+
+    public static void main(String[] args) throws Exception {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        NCLSymbolTable table = args.length > 1 && args[1].equals("symbols") ? new NCLSymbolTable() : null;
+        byte[] content = NCLDocGenerator.generate(CONTEXTS, MEDIAS).getBytes("ISO-8859-1");
+        
+        NCLDoc first = new NCLDoc();
+        first.loadXML(content, null);
+        int perDoc = count(first);
+        first = null;
+        
+        ArrayList<NCLDoc> docs = new ArrayList<NCLDoc>();
+        long base = used();
+        for(int elements = 0; elements < max; elements += perDoc){
+            NCLDoc doc = new NCLDoc();
+            doc.setSymbolTable(table);
+            doc.loadXML(content, null);
+            docs.add(doc);
+        }
+        long heap = used() - base;
+        long elements = (long) docs.size() * perDoc;
+        
+        System.out.println("documents\telements\theap(KB)\tbytes/element");
+        System.out.println(docs.size() + "\t" + elements + "\t" + (heap / 1024)
+                + "\t" + (heap / elements));
+    }
+
+
+    private static int count(NCLElement element) throws IOException {
+        final ArrayList<NCLElement> children = new ArrayList<NCLElement>();
+        element.write(new NCLElementSink() {
+            public void addChild(NCLElement child) {
+                children.add(child);
+            }
+            public void addAttribute(NCLElementAttributes name, String value) {
+            }
+            public Appendable append(CharSequence csq) {
+                return this;
+            }
+            public Appendable append(CharSequence csq, int start, int end) {
+                return this;
+            }
+            public Appendable append(char c) {
+                return this;
+            }
+        }, 0);
+        
+        int result = 1;
+        for(NCLElement child : children)
+            result += count(child);
+        return result;
+    }
+
+
+    private static long used() {
+        Runtime rt = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,124 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana;
+
+import br.uff.midiacom.ana.util.modification.NCLModificationListener;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+
+/**
+ * Compares the throughput of loading a generated document with no modification
+ * listener registered and with a listener that only counts the notifications
+ * received.
+ * 
+ * <br/>
+ * 
+ * Run it with <i>java br.uff.midiacom.ana.NCLNotificationBenchmark [contexts]</i>.
+ */
+public class NCLNotificationBenchmark {
+
+    private static final int MEDIAS = 100;
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+
+    public static void main(String[] args) throws Exception {
+        int contexts = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+
+        File f = File.createTempFile("benchmark", ".ncl");
+        f.deleteOnExit();
+        Writer out = new OutputStreamWriter(new FileOutputStream(f), "ISO-8859-1");
+        out.write(NCLDocGenerator.generate(contexts, MEDIAS));
+        out.close();
+
+        NCLModificationNotifier notifier = NCLModificationNotifier.getInstance();
+        Counter counter = new Counter();
+        notifier.clearListeners();
+
+        long none = measure(f);
+        notifier.addListener(counter);
+        long listening = measure(f);
+        notifier.flush();
+        notifier.removeListener(counter);
+
+        System.out.println("listeners\tdocs/s\tms/doc");
+        print("0", none);
+        print("1", listening);
+        System.out.println("notifications: " + counter.received
+                + ", max queue depth: " + notifier.getMaxPendingCount()
+                + ", average latency(ms): " + (notifier.getAverageLatency() / 1000000.0));
+
+        f.delete();
+    }
+
+
+    private static long measure(File f) throws Exception {
+        for(int r = 0; r < WARMUP; r++)
+            new NCLDoc().loadXML(f);
+
+        long best = Long.MAX_VALUE;
+        for(int r = 0; r < ROUNDS; r++){
+            long start = System.nanoTime();
+            new NCLDoc().loadXML(f);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+
+    private static void print(String listeners, long nanos) {
+        System.out.println(listeners + "\t" + (1000000000L / nanos) + "\t"
+                + (nanos / 1000000.0));
+    }
+
+
+    private static class Counter implements NCLModificationListener {
+
+        private volatile long received = 0;
+
+        @Override
+        public void modifiedElement(NCLNotification notification) {
+            received++;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+
+/**
+ * Compares the time taken to serialize generated documents of increasing size
+ * building the whole content as a string (<i>parse</i>) and streaming it to a
+ * writer (<i>write</i>).
+ * 
+ * <br/>
+ * 
+ * Run it with <i>java br.uff.midiacom.ana.NCLWriteBenchmark [maxContexts]</i>.
+ */
+public class NCLWriteBenchmark {
+
+    private static final int MEDIAS = 100;
+    private static final int ROUNDS = 5;
+
+
+    public static void main(String[] args) throws Exception {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+
+        System.out.println("contexts\tnodes\tchars\tparse(ms)\twrite(ms)");
+        for(int contexts = 1; contexts <= max; contexts *= 2){
+            NCLDoc doc = NCLDocGenerator.create(contexts, MEDIAS);
+            long chars = 0, parse = Long.MAX_VALUE, write = Long.MAX_VALUE;
+
+            for(int r = 0; r < ROUNDS; r++){
+                long start = System.nanoTime();
+                chars = doc.parse(0).length();
+                parse = Math.min(parse, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                Writer out = new BufferedWriter(new NullWriter());
+                doc.write(out, 0);
+                out.flush();
+                write = Math.min(write, System.nanoTime() - start);
+            }
+
+            System.out.println(contexts + "\t" + (contexts * MEDIAS) + "\t" + chars + "\t"
+                    + (parse / 1000000) + "\t" + (write / 1000000));
+        }
+    }
+
+
+    private static class NullWriter extends Writer {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {}
+
+        @Override
+        public void flush() throws IOException {}
+
+        @Override
+        public void close() throws IOException {}
+    }
+}
@@ -91,7 +91,7 @@ public class NCLDescriptorTest {
 
         String expResult = "<descriptor id='dTV' region='rgTV' explicitDur='20.0s' freeze='true' player='teste' moveLeft='1' moveRight='2' moveDown='3' moveUp='4'"+
                 " focusIndex='10' focusBorderColor='black' focusBorderWidth='5' focusBorderTransparency='1.0%' focusSrc='foco.jpg'"+
-                " focusSelSrc='sel.jpg' SelBorderColor='aqua' transIn='tin' transOut='tout'/>\n";
+                " focusSelSrc='sel.jpg' selBorderColor='aqua' transIn='tin' transOut='tout'/>\n";
         String result = descriptor.parse(0);
         assertEquals(expResult, result);
     }
@@ -109,6 +109,32 @@ public class NCLDescriptorTest {
         assertEquals(expResult, result);
     }
 
+    @Test
+    public void testSparseAttributes() throws XMLException {
+        NCLDescriptor descriptor = new NCLDescriptor("dTV");
+        assertNull(descriptor.getPlayer());
+        assertNull(descriptor.getFocusIndex());
+
+        descriptor.setPlayer("teste");
+        descriptor.setFocusIndex("3");
+        descriptor.setFreeze(true);
+        descriptor.setPlayer("outro");
+        descriptor.setFocusIndex(null);
+        assertEquals("outro", descriptor.getPlayer());
+        assertNull(descriptor.getFocusIndex());
+        assertEquals(Boolean.TRUE, descriptor.getFreeze());
+
+        descriptor.setPlayer(null);
+        descriptor.setFreeze(null);
+        descriptor.setFocusIndex(7);
+        assertNull(descriptor.getPlayer());
+        assertNull(descriptor.getFreeze());
+
+        String expResult = "<descriptor id='dTV' focusIndex='7'/>\n";
+        String result = descriptor.parse(0);
+        assertEquals(expResult, result);
+    }
+
 //    @Test
 //    public void test3() {
 //        try{
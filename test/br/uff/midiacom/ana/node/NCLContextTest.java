@@ -94,4 +94,43 @@ public class NCLContextTest {
         String result = aux3.getId();
         assertEquals(expResult, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindIndexed() throws XMLException {
+        String xml = "<ncl><body>"+
+                "<context id='ca'><media id='m1'><area id='a1'/></media></context>"+
+                "<context id='cb'><context id='cc'><media id='m2'/></context></context>"+
+                "<context id='cd' refer='cb'/>"+
+                "</body></ncl>";
+        
+        XMLLoader loader = new XMLLoader(xml);
+        NCLDoc instance = new NCLDoc();
+        instance.load(loader.getElement());
+        
+        NCLContext ca = (NCLContext) instance.getBody().getNodes().get("ca");
+        NCLContext cb = (NCLContext) instance.getBody().getNodes().get("cb");
+        NCLContext cd = (NCLContext) instance.getBody().getNodes().get("cd");
+        NCLMedia m1 = (NCLMedia) ca.getNodes().get("m1");
+        
+        assertSame(m1, instance.getElementById("m1"));
+        assertSame(m1, instance.getBody().findNode("m1"));
+        assertSame(m1, ca.findNode("m1"));
+        assertNull(cb.findNode("m1"));
+        assertSame(instance.getElementById("m2"), cd.findNode("m2"));
+        assertSame(m1.getAreas().get("a1"), ca.findInterface("a1"));
+        assertNull(cb.findInterface("a1"));
+        
+        m1.setId("m3");
+        assertNull(instance.getElementById("m1"));
+        assertSame(m1, ca.findNode("m3"));
+        
+        ca.removeNode(m1);
+        assertNull(instance.getElementById("m3"));
+        assertNull(instance.getElementById("a1"));
+        assertNull(ca.findNode("m3"));
+        
+        cb.addNode(m1);
+        assertSame(m1, instance.getElementById("m3"));
+        assertSame(m1, cb.findNode("m3"));
+    }
+}
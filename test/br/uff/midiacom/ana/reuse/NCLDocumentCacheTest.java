@@ -0,0 +1,205 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.reuse;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocGenerator;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLDocumentCacheTest {
+
+    private static final String XML = "<ncl><head><regionBase>"+
+                "<importBase alias='base' documentURI='base.ncl' region='rgTV'/>"+
+                "<region id='rgTV' title='teste'/>"+
+                "</regionBase></head></ncl>";
+    
+    
+    private NCLImportBase load(NCLDocumentCache cache) throws XMLException, URISyntaxException {
+        URI base = getClass().getResource("../../../../../doc.ncl").toURI();
+        NCLDoc instance = new NCLDoc();
+        instance.setDocumentCache(cache);
+        instance.loadXML(XML.getBytes(), base);
+        
+        NCLRegionBase reg = (NCLRegionBase) instance.getHead().getRegionBases().get(0);
+        return (NCLImportBase) reg.getImportBases().get(0);
+    }
+    
+    
+    private File write(File f, int contexts) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(f), "ISO-8859-1");
+        out.write(NCLDocGenerator.generate(contexts, 1));
+        out.close();
+        return f;
+    }
+    
+    
+    @Test
+    public void testNotShared() throws XMLException, URISyntaxException {
+        NCLDocumentCache cache = new NCLDocumentCache(8, false);
+        NCLImportBase imp1 = load(cache);
+        NCLImportBase imp2 = load(cache);
+        
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertNotSame(imp1.getImportedDoc(), imp2.getImportedDoc());
+        assertTrue(((NCLDoc) imp1.getImportedDoc()).compare((NCLDoc) imp2.getImportedDoc()));
+        assertSame(imp1.getDoc(), ((NCLDoc) imp1.getImportedDoc()).getParent());
+    }
+    
+    @Test
+    public void testShared() throws XMLException, URISyntaxException {
+        NCLDocumentCache cache = new NCLDocumentCache(8, true);
+        NCLImportBase imp1 = load(cache);
+        NCLImportBase imp2 = load(cache);
+        
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertSame(imp1.getImportedDoc(), imp2.getImportedDoc());
+        assertNull(((NCLDoc) imp1.getImportedDoc()).getParent());
+    }
+    
+    @Test
+    public void testSharedReferences() throws XMLException, URISyntaxException {
+        String xml = "<ncl><head><connectorBase>"+
+                "<importBase alias='conn' documentURI='base.ncl'/>"+
+                "</connectorBase></head><body>"+
+                "<media id='m1' src='a.png'/><media id='m2' src='b.png'/>"+
+                "<link xconnector='conn#onBeginStart'><bind role='onBegin' component='m1'/><bind role='start' component='m2'/></link>"+
+                "</body></ncl>";
+        URI base = getClass().getResource("../../../../../doc.ncl").toURI();
+        NCLDocumentCache cache = new NCLDocumentCache(10, true);
+        
+        NCLDoc shared = null;
+        for(int i = 0; i < 3; i++){
+            NCLDoc host = new NCLDoc();
+            host.setDocumentCache(cache);
+            host.loadXML(xml.getBytes(), base);
+            
+            NCLConnectorBase conn = host.getHead().getConnectorBase();
+            NCLImportBase imp = (NCLImportBase) conn.getImportBases().get(0);
+            shared = (NCLDoc) imp.getImportedDoc();
+            assertEquals(1, imp.getReferences().size());
+        }
+        
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertTrue(shared.isReadOnly());
+        NCLCausalConnector target = (NCLCausalConnector) shared.getElementById("onBeginStart");
+        assertTrue(target.getReferences().isEmpty());
+        
+        try{
+            new NCLDoc().mergeGlobalVariables(shared);
+            fail("read-only document merged");
+        }catch(XMLException ex){}
+    }
+    
+    @Test
+    public void testConcurrent() throws Exception {
+        final File a = write(File.createTempFile("cache", ".ncl"), 50);
+        a.deleteOnExit();
+        
+        final NCLDocumentCache cache = new NCLDocumentCache(8, true);
+        final NCLDoc[] docs = new NCLDoc[8];
+        Thread[] threads = new Thread[docs.length];
+        for(int i = 0; i < threads.length; i++){
+            final int index = i;
+            threads[i] = new Thread(){
+                @Override
+                public void run() {
+                    try{
+                        docs[index] = cache.load(a.toURI(), new NCLDoc());
+                    }catch(XMLException ex){}
+                }
+            };
+            threads[i].start();
+        }
+        for(Thread t : threads)
+            t.join();
+        
+        assertEquals(1, cache.getMisses());
+        assertEquals(docs.length - 1, cache.getHits());
+        for(NCLDoc doc : docs)
+            assertSame(docs[0], doc);
+    }
+    
+    @Test
+    public void testEviction() throws XMLException, IOException {
+        File a = write(File.createTempFile("cache", ".ncl"), 1);
+        File b = write(File.createTempFile("cache", ".ncl"), 1);
+        a.deleteOnExit();
+        b.deleteOnExit();
+        
+        NCLDocumentCache cache = new NCLDocumentCache(1, true);
+        cache.load(a.toURI(), new NCLDoc());
+        cache.load(b.toURI(), new NCLDoc());
+        cache.load(a.toURI(), new NCLDoc());
+        
+        assertEquals(3, cache.getMisses());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+    
+    @Test
+    public void testModified() throws XMLException, IOException {
+        File a = write(File.createTempFile("cache", ".ncl"), 1);
+        a.deleteOnExit();
+        
+        NCLDocumentCache cache = new NCLDocumentCache(8, false);
+        cache.load(a.toURI(), new NCLDoc());
+        cache.load(a.toURI(), new NCLDoc());
+        write(a, 2);
+        NCLDoc doc = cache.load(a.toURI(), new NCLDoc());
+        
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, doc.getBody().getNodes().size());
+    }
+}
@@ -42,6 +42,8 @@ import br.uff.midiacom.ana.region.NCLRegion;
 import br.uff.midiacom.ana.XMLLoader;
 import br.uff.midiacom.ana.region.NCLRegionBase;
 import br.uff.midiacom.ana.NCLDoc;
+import java.net.URI;
+import java.net.URISyntaxException;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -66,4 +68,21 @@ public class NCLImportTest {
         String result = ((NCLRegion) imp.getRegion()).getTitle();
         assertEquals(expResult, result);
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void test2() throws XMLException, URISyntaxException {
+        String xml = "<ncl><head><regionBase>"+
+                "<importBase alias='base' documentURI='base.ncl' region='rgTV'/>"+
+                "<region id='rgTV' title='teste'/>"+
+                "</regionBase></head></ncl>";
+        
+        URI base = getClass().getResource("../../../../../doc.ncl").toURI();
+        NCLDoc instance = new NCLDoc();
+        instance.loadXML(xml.getBytes(), base);
+        
+        NCLRegionBase reg = (NCLRegionBase) instance.getHead().getRegionBases().get(0);
+        NCLImportBase imp = (NCLImportBase) reg.getImportBases().get(0);
+        assertEquals("teste", ((NCLRegion) imp.getRegion()).getTitle());
+        assertEquals(base.resolve("base.ncl"), ((NCLDoc) imp.getImportedDoc()).getBaseURI());
+    }
+}
@@ -0,0 +1,206 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.Iterator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class ElementListTest {
+
+    private ElementList<NCLMedia> create(int size) throws XMLException {
+        ElementList<NCLMedia> list = new ElementList<NCLMedia>();
+        for(int i = 0; i < size; i++)
+            list.add(new NCLMedia("m" + i));
+        return list;
+    }
+    
+    
+    @Test
+    public void testGet() throws XMLException {
+        ElementList<NCLMedia> list = create(100);
+        
+        assertEquals(100, list.size());
+        assertEquals("m42", list.get("m42").getId());
+        assertNull(list.get("m100"));
+        assertEquals(42, list.getPosition(list.get("m42")));
+        assertTrue(list.contains(list.get(10)));
+        assertFalse(list.contains(new NCLMedia("m10")));
+    }
+    
+    @Test
+    public void testAddEqual() throws XMLException {
+        ElementList<NCLMedia> list = create(100);
+        NCLMedia m = new NCLMedia("m42");
+        list.add(m);
+        
+        assertEquals(100, list.size());
+        assertSame(m, list.get("m42"));
+        assertEquals(99, list.getPosition(m));
+    }
+    
+    @Test
+    public void testAddWithoutId() throws XMLException {
+        ElementList<NCLMedia> list = create(100);
+        NCLMedia m = new NCLMedia();
+        list.add(m);
+        m.setId("other");
+        
+        assertSame(m, list.get("other"));
+        assertEquals(101, list.size());
+    }
+    
+    @Test
+    public void testRename() throws XMLException {
+        ElementList<NCLMedia> list = create(100);
+        NCLMedia m = list.get("m42");
+        m.setId("renamed");
+        
+        assertNull(list.get("m42"));
+        assertSame(m, list.get("renamed"));
+        assertTrue(list.remove("renamed"));
+        assertFalse(list.contains(m));
+        assertEquals(99, list.size());
+    }
+    
+    @Test
+    public void testRenameShared() throws XMLException {
+        ElementList<NCLMedia> list = create(100);
+        ElementList<NCLMedia> other = create(20);
+        NCLMedia m = list.get("m42");
+        other.add(m);
+        m.setId("m5");
+        
+        assertSame(other.get(5), other.get("m5"));
+        assertSame(list.get(5), list.get("m5"));
+        assertNull(list.get("m42"));
+        other.remove(other.get(5));
+        assertSame(m, other.get("m5"));
+        
+        other.clear();
+        m.setId("m42");
+        assertSame(m, list.get("m42"));
+        assertNull(other.get("m42"));
+    }
+    
+    @Test
+    public void testRemove() throws XMLException {
+        ElementList<NCLMedia> list = create(100);
+        NCLMedia m = list.get("m10");
+        
+        assertTrue(list.remove(m));
+        assertFalse(list.remove(m));
+        assertNull(list.get("m10"));
+        assertEquals(10, list.getPosition(list.get("m11")));
+        
+        for(int i = 11; i < 100; i++)
+            assertTrue(list.remove("m" + i));
+        assertEquals(10, list.size());
+        assertEquals("m9", list.get("m9").getId());
+    }
+    
+    @Test
+    public void testIteratorRemove() throws XMLException {
+        ElementList<NCLMedia> list = create(20);
+        assertNotNull(list.get("m3"));
+        
+        Iterator<NCLMedia> it = list.iterator();
+        while(it.hasNext()){
+            String id = it.next().getId();
+            if(id.equals("m3") || id.equals("m4") || id.equals("m19"))
+                it.remove();
+        }
+        
+        assertEquals(17, list.size());
+        assertNull(list.get("m3"));
+        assertTrue(list.contains(list.get("m5")));
+        assertEquals(3, list.getPosition(list.get("m5")));
+        
+        // the iterator keeps going when the list drops its index
+        it = list.iterator();
+        int count = 0;
+        while(it.hasNext()){
+            it.next();
+            it.remove();
+            count++;
+        }
+        assertEquals(17, count);
+        assertTrue(list.isEmpty());
+    }
+    
+    @Test
+    public void testRemoveOrder() throws XMLException {
+        ElementList<NCLMedia> list = create(100);
+        for(int i = 0; i < 100; i += 3)
+            assertTrue(list.remove("m" + i));
+        
+        int expected = 1;
+        int position = 0;
+        for(NCLMedia m : list){
+            assertEquals("m" + expected, m.getId());
+            assertSame(m, list.get(position));
+            assertEquals(position, list.getPosition(m));
+            expected += expected % 3 == 2 ? 2 : 1;
+            position++;
+        }
+        assertEquals(66, list.size());
+    }
+    
+    @Test
+    public void testAreaIds() throws XMLException {
+        ElementList<NCLArea> list = new ElementList<NCLArea>();
+        for(int i = 0; i < 20; i++)
+            list.add(new NCLArea("a" + i));
+        
+        assertEquals(20, list.size());
+    }
+    
+    @Test
+    public void testUnkeyed() throws XMLException {
+        ElementList<NCLLink> list = new ElementList<NCLLink>();
+        for(int i = 0; i < 20; i++)
+            list.add(new NCLLink());
+        
+        assertEquals(1, list.size());
+    }
+}
@@ -0,0 +1,124 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class ValueParserTest {
+
+    @Test
+    public void testParseDouble() {
+        String[] values = {"0", "5", "12.5", "-3.25", "+7", "5.", ".5", " 2.5 ",
+                "0.1", "123456789012345", "1234567890.12345678", "1e3", "2.5E-2"};
+        for(String v : values)
+            assertEquals(v, (Double) Double.parseDouble(v), (Double) ValueParser.parseDouble(v));
+        
+        Random r = new Random(42);
+        for(int i = 0; i < 100000; i++){
+            String v = r.nextInt(100000) + "." + r.nextInt(1000000);
+            assertEquals(v, (Double) Double.parseDouble(v), (Double) ValueParser.parseDouble(v));
+        }
+        
+        assertEquals(2.5, ValueParser.parseDouble("x2.5y", 1, 4), 0.0);
+        
+        String[] invalid = {"", "-", ".", "1.2.3", "1,5"};
+        for(String v : invalid){
+            try{
+                ValueParser.parseDouble(v);
+                fail(v);
+            }
+            catch(NumberFormatException ex){}
+        }
+    }
+    
+    @Test
+    public void testParseInt() {
+        assertEquals(42, ValueParser.parseInt("42"));
+        assertEquals(-7, ValueParser.parseInt("-7"));
+        assertEquals(Integer.MAX_VALUE, ValueParser.parseInt("2147483647"));
+        assertEquals(Integer.MIN_VALUE, ValueParser.parseInt("-2147483648"));
+        assertEquals(30, ValueParser.parseInt("1:30:20", 2, 4));
+        
+        String[] invalid = {"", "-", "4a", " 4", "2147483648", "-2147483649"};
+        for(String v : invalid){
+            try{
+                ValueParser.parseInt(v);
+                fail(v);
+            }
+            catch(NumberFormatException ex){}
+        }
+    }
+    
+    @Test
+    public void testValidId() {
+        assertTrue(ValueParser.isValidId("m1"));
+        assertTrue(ValueParser.isValidId("_a-b.c:d"));
+        assertTrue(ValueParser.isValidId(":x"));
+        assertFalse(ValueParser.isValidId(""));
+        assertFalse(ValueParser.isValidId("1m"));
+        assertFalse(ValueParser.isValidId("-m"));
+        assertFalse(ValueParser.isValidId("m 1"));
+        assertFalse(ValueParser.isValidId("m#1"));
+    }
+    
+    @Test
+    public void testTypedValues() throws Exception {
+        TimeType t = new TimeType("2012:10:1:12:30:10.25");
+        assertEquals(2012, (int) t.getYear());
+        assertEquals(10, (int) t.getMonth());
+        assertEquals(1, (int) t.getDay());
+        assertEquals(12, (int) t.getHour());
+        assertEquals(30, (int) t.getMinute());
+        assertEquals(10.25, t.getSecond(), 0.0);
+        
+        t = new TimeType("1:30:20.5");
+        assertNull(t.getDay());
+        assertEquals(1, (int) t.getHour());
+        assertEquals("12.5s", new TimeType("12.5s").toString());
+        
+        assertEquals(50.0, new PercentageType("50%").getValue(), 0.0);
+        assertEquals("0.75", new PercentageType("0.75").parse());
+        assertEquals("25f", new SampleType("25f").toString());
+        assertEquals("3npt", new SampleType("3npt").toString());
+        assertEquals("10.0,20.5,30.0", new ArrayType("10,20.5,30").toString());
+        assertEquals(1, new ArrayType("7").getSize());
+    }
+}
@@ -0,0 +1,203 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.loader;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.exception.NCLBatchException;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLBatchLoaderTest {
+    
+    private File getFile() throws URISyntaxException {
+        return new File(getClass().getResource("../../../../../../doc.ncl").toURI());
+    }
+    
+    
+    @Test
+    public void test1() throws XMLException, URISyntaxException, InterruptedException {
+        File f = getFile();
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        
+        List<File> files = new ArrayList<File>();
+        for(int i = 0; i < 16; i++)
+            files.add(f);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        NCLBatchLoader loader = new NCLBatchLoader(executor);
+        List<NCLDoc> docs = loader.loadAndWait(files);
+        executor.shutdown();
+        
+        assertEquals(16, docs.size());
+        for(NCLDoc doc : docs)
+            assertTrue(doc.compare(expected));
+        assertEquals(16, loader.getCompletedCount());
+        assertEquals(0, loader.getFailedCount());
+    }
+    
+    
+    @Test
+    public void test2() throws URISyntaxException, InterruptedException {
+        final AtomicInteger loaded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        
+        List<File> files = new ArrayList<File>();
+        files.add(getFile());
+        files.add(new File("missing1.ncl"));
+        files.add(getFile());
+        files.add(new File("missing2.ncl"));
+        
+        NCLBatchLoader loader = new NCLBatchLoader();
+        loader.setStreamLoading(true);
+        loader.setListener(new NCLBatchListener() {
+            public void loaded(Object input, NCLDoc doc, int completed, int submitted) {
+                loaded.incrementAndGet();
+            }
+            public void failed(Object input, Throwable error, int completed, int submitted) {
+                failed.incrementAndGet();
+            }
+        });
+        
+        try{
+            loader.loadAndWait(files);
+            fail("failures were not reported");
+        }
+        catch(NCLBatchException ex){
+            assertEquals(2, ex.getFailures().size());
+            assertTrue(ex.getFailures().containsKey(files.get(1)));
+            assertTrue(ex.getFailures().containsKey(files.get(3)));
+            assertNotNull(ex.getDocuments().get(0));
+            assertNull(ex.getDocuments().get(1));
+        }
+        
+        assertEquals(2, loaded.get());
+        assertEquals(2, failed.get());
+    }
+    
+    
+    @Test
+    public void test3() throws URISyntaxException, InterruptedException {
+        // an executor that never runs the tasks
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        NCLBatchLoader loader = new NCLBatchLoader(new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        
+        CompletableFuture<NCLDoc> future = loader.load(getFile());
+        loader.cancel();
+        for(Runnable task : tasks)
+            task.run();
+        
+        assertTrue(future.isCancelled());
+        assertEquals(1, loader.getCompletedCount());
+        assertEquals(1, loader.getFailedCount());
+        
+        future = loader.load(getFile());
+        tasks.get(1).run();
+        try{
+            assertNotNull(future.get());
+        }
+        catch(ExecutionException ex){
+            fail(ex.getMessage());
+        }
+    }
+    
+    
+    @Test
+    public void test4() throws URISyntaxException, InterruptedException {
+        final AtomicInteger loaded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        
+        List<File> files = new ArrayList<File>();
+        files.add(getFile());
+        files.add(getFile());
+        
+        NCLBatchLoader loader = new NCLBatchLoader() {
+            @Override
+            protected void read(NCLDoc doc, Object input, URI baseURI) throws XMLException {
+                if(loaded.get() > 0)
+                    throw new StackOverflowError();
+                super.read(doc, input, baseURI);
+            }
+        };
+        // a listener that throws does not turn a loaded document into a failure
+        loader.setListener(new NCLBatchListener() {
+            public void loaded(Object input, NCLDoc doc, int completed, int submitted) {
+                loaded.incrementAndGet();
+                throw new IllegalStateException();
+            }
+            public void failed(Object input, Throwable error, int completed, int submitted) {
+                failed.incrementAndGet();
+            }
+        });
+        
+        List<CompletableFuture<NCLDoc>> futures = new ArrayList<CompletableFuture<NCLDoc>>();
+        for(File f : files){
+            futures.add(loader.load(f));
+            try{
+                futures.get(futures.size() - 1).get();
+            }
+            catch(ExecutionException ex){
+                assertTrue(ex.getCause() instanceof StackOverflowError);
+            }
+        }
+        
+        assertFalse(futures.get(0).isCompletedExceptionally());
+        assertTrue(futures.get(1).isCompletedExceptionally());
+        assertEquals(1, loaded.get());
+        assertEquals(1, failed.get());
+        assertEquals(2, loader.getCompletedCount());
+        assertEquals(1, loader.getFailedCount());
+    }
+}
@@ -0,0 +1,197 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.modification;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLEdit.NCLEditType;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLDiffTest {
+    
+    private static final String OLD = "<ncl id='diff'><head></head><body>"+
+            "<port id='p1' component='m1'/>"+
+            "<media id='m1' src='a.png'><property name='top' value='10'/></media>"+
+            "<media id='m2' src='b.png'/>"+
+            "<media id='m3' src='c.png'/>"+
+            "<context id='c1'><media id='m4'/></context>"+
+            "</body></ncl>";
+    
+    
+    private NCLDoc load(String content) throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(content).getElement());
+        return doc;
+    }
+    
+    
+    @Test
+    public void testEqual() throws XMLException {
+        NCLDiff diff = new NCLDiff(load(OLD), load(OLD));
+        
+        assertTrue(diff.isEmpty());
+    }
+    
+    @Test
+    public void testEdits() throws XMLException {
+        NCLDoc oldDoc = load(OLD);
+        NCLDoc newDoc = load("<ncl id='diff'><head></head><body>"+
+            "<port id='p1' component='m1'/>"+
+            "<media id='m1' src='a.png'><property name='top' value='20'/></media>"+
+            "<media id='m2' src='d.png'/>"+
+            "<context id='c1'><media id='m4'/><media id='m3' src='c.png'/></context>"+
+            "<media id='m5'/>"+
+            "</body></ncl>");
+        
+        NCLDiff diff = new NCLDiff(oldDoc, newDoc);
+        NCLBody oldBody = (NCLBody) oldDoc.getBody();
+        NCLBody newBody = (NCLBody) newDoc.getBody();
+        
+        assertEquals(1, diff.getMoved().size());
+        NCLEdit edit = diff.getMoved().get(0);
+        assertSame(oldBody.findNode("m3"), edit.getOldElement());
+        assertSame(newBody.findNode("m3"), edit.getElement());
+        assertSame(oldBody, edit.getOldParent());
+        assertSame(newBody.findNode("c1"), edit.getParent());
+        
+        assertEquals(0, diff.getRemoved().size());
+        
+        assertEquals(1, diff.getInserted().size());
+        edit = diff.getInserted().get(0);
+        assertSame(newBody.findNode("m5"), edit.getElement());
+        assertSame(newBody, edit.getParent());
+        
+        assertEquals(2, diff.getAltered().size());
+        for(NCLEdit alt : diff.getAltered()){
+            if(alt.getAttribute() == NCLElementAttributes.SRC){
+                assertSame(newBody.findNode("m2"), alt.getElement());
+                assertEquals("b.png", alt.getOldValue());
+                assertEquals("d.png", alt.getNewValue());
+            }
+            else{
+                assertEquals(NCLElementAttributes.VALUE, alt.getAttribute());
+                assertSame(((NCLMedia) newBody.findNode("m1")).getProperties().get(0), alt.getElement());
+            }
+        }
+        
+        assertEquals(4, diff.size());
+        assertEquals(NCLEditType.MOVED, diff.getEdits().get(0).getType());
+        assertEquals(NCLEditType.INSERTED, diff.getEdits().get(3).getType());
+    }
+    
+    @Test
+    public void testRemoved() throws XMLException {
+        NCLDoc oldDoc = load(OLD);
+        NCLDoc newDoc = load(OLD);
+        NCLBody body = (NCLBody) newDoc.getBody();
+        body.removeNode("m2");
+        ((NCLMedia) body.findNode("m1")).setId("m6");
+        
+        NCLDiff diff = new NCLDiff(oldDoc, newDoc);
+        
+        // the port refers to the renamed media
+        assertEquals(1, diff.getAltered().size());
+        assertEquals(NCLElementAttributes.COMPONENT, diff.getAltered().get(0).getAttribute());
+        assertEquals(2, diff.getRemoved().size());
+        assertEquals(1, diff.getInserted().size());
+        assertSame(body.findNode("m6"), diff.getInserted().get(0).getElement());
+    }
+    
+    @Test
+    public void testReorder() throws XMLException {
+        NCLDoc oldDoc = load(OLD);
+        NCLDoc newDoc = load("<ncl id='diff'><head></head><body>"+
+            "<port id='p1' component='m1'/>"+
+            "<media id='m1' src='a.png'><property name='top' value='10'/></media>"+
+            "<media id='m3' src='c.png'/>"+
+            "<media id='m2' src='b.png'/>"+
+            "<context id='c1'><media id='m4'/></context>"+
+            "</body></ncl>");
+        
+        // the structural hash does not see the order
+        assertEquals(oldDoc.getStructuralHash(), newDoc.getStructuralHash());
+        
+        NCLDiff diff = new NCLDiff(oldDoc, newDoc);
+        NCLBody oldBody = (NCLBody) oldDoc.getBody();
+        NCLBody newBody = (NCLBody) newDoc.getBody();
+        
+        assertEquals(1, diff.size());
+        NCLEdit edit = diff.getMoved().get(0);
+        assertSame(oldBody, edit.getOldParent());
+        assertSame(newBody, edit.getParent());
+        assertSame(newBody.findNode("m3"), edit.getElement());
+        assertSame(oldBody.findNode("m3"), edit.getOldElement());
+        // the port is written first
+        assertEquals(2, edit.getPosition());
+    }
+    
+    @Test
+    public void testAttributeValues() throws XMLException {
+        NCLDoc oldDoc = load("<ncl id='diff'><head><descriptorBase>"+
+            "<descriptor id='d1' selBorderColor='red'/>"+
+            "</descriptorBase></head><body>"+
+            "<media id='m1' src='a.png?x=1&amp;y=2'/>"+
+            "</body></ncl>");
+        NCLDoc newDoc = load("<ncl id='diff'><head><descriptorBase>"+
+            "<descriptor id='d1' selBorderColor='blue'/>"+
+            "</descriptorBase></head><body>"+
+            "<media id='m1' src='a.png?x=1&amp;y=3'/>"+
+            "</body></ncl>");
+        
+        NCLDiff diff = new NCLDiff(oldDoc, newDoc);
+        
+        assertEquals(2, diff.size());
+        for(NCLEdit alt : diff.getAltered()){
+            if(alt.getAttribute() == NCLElementAttributes.SRC){
+                assertEquals("a.png?x=1&y=2", alt.getOldValue());
+                assertEquals("a.png?x=1&y=3", alt.getNewValue());
+            }
+            else{
+                assertEquals(NCLElementAttributes.SELBORDERCOLOR, alt.getAttribute());
+                assertEquals("red", alt.getOldValue());
+                assertEquals("blue", alt.getNewValue());
+            }
+        }
+    }
+}
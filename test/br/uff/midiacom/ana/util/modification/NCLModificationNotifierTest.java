@@ -1,8 +1,15 @@
 package br.uff.midiacom.ana.util.modification;
 
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.node.NCLMedia;
 import br.uff.midiacom.ana.util.exception.NCLModificationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -61,6 +68,298 @@ public class NCLModificationNotifierTest {
     }
     
     
+    @Test
+    public void test3() throws XMLException, InterruptedException {
+        NCLModificationNotifier notifier = NCLModificationNotifier.getInstance();
+        Foo foo = new Foo();
+        
+        notifier.clearListeners();
+        assertFalse(notifier.hasListeners());
+        
+        element.setId("noListener");
+        notifier.addListener(foo);
+        assertTrue(notifier.hasListeners());
+        
+        element.setId("listener");
+        Thread.sleep(1000);
+        notifier.removeListener(foo);
+        assertFalse(notifier.hasListeners());
+        
+        element.setId("removed");
+        notifier.finish();
+        
+        assertEquals(1, foo.received);
+    }
+    
+    
+    @Test
+    public void test4() throws NCLModificationException {
+        long before = System.currentTimeMillis();
+        NCLNotification notification = new NCLNotification(element);
+        long after = System.currentTimeMillis();
+        
+        assertTrue(notification.getTime() >= before && notification.getTime() <= after);
+        assertNotNull(notification.getTimeStamp());
+        assertSame(notification.getTimeStamp(), notification.getTimeStamp());
+    }
+    
+    
+    @Test
+    public void test5() throws XMLException, InterruptedException {
+        NCLModificationNotifier global = NCLModificationNotifier.getInstance();
+        Foo foo1 = new Foo();
+        Foo foo2 = new Foo();
+        NCLDoc other = new NCLDoc();
+        
+        global.clearListeners();
+        global.addListener(foo1);
+        NCLModificationNotifier notifier = element.getModificationNotifier();
+        notifier.addListener(foo2);
+        
+        element.setId("doc");
+        other.setId("other");
+        notifier.flush();
+        global.finish();
+        
+        assertEquals(1, foo1.received);
+        assertEquals(1, foo2.received);
+        assertEquals(1, notifier.getDeliveredCount());
+        assertEquals(0, notifier.getPendingCount());
+    }
+    
+    
+    @Test
+    public void test6() throws XMLException, InterruptedException {
+        NCLModificationNotifier notifier = new NCLModificationNotifier(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, 2);
+        Foo foo = new Foo();
+        
+        notifier.addListener(foo);
+        element.setModificationNotifier(notifier);
+        for(int i = 0; i < 5; i++)
+            element.setId("doc" + i);
+        
+        assertEquals(5, foo.received);
+        assertEquals(5, notifier.getDeliveredCount());
+        assertEquals(1, notifier.getMaxPendingCount());
+    }
+    
+    
+    @Test
+    public void test7() throws XMLException {
+        NCLModificationNotifier notifier = new NCLModificationNotifier(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        Foo foo = new Foo();
+        Bar bar = new Bar();
+        NCLBody body = new NCLBody();
+        NCLMedia media = new NCLMedia("m1");
+        
+        notifier.addListener(foo);
+        notifier.addListener(bar);
+        element.setModificationNotifier(notifier);
+        element.setBody(body);
+        int received = foo.received;
+        
+        element.beginTransaction();
+        element.beginTransaction();
+        body.addNode(media);
+        media.setId("m2");
+        media.setId("m3");
+        assertNull(element.commitTransaction());
+        assertEquals(received, foo.received);
+        
+        NCLChangeSet changes = element.commitTransaction();
+        assertFalse(element.inTransaction());
+        assertEquals(1, bar.received);
+        assertSame(changes, bar.changes);
+        assertEquals(received + changes.size(), foo.received);
+        
+        assertEquals(1, changes.getInserted().size());
+        assertSame(media, changes.getInserted().get(0).getElement());
+        assertEquals(1, changes.getNotifications(body).size());
+        
+        NCLNotification altered = null;
+        for(NCLNotification n : changes.getNotifications(media)){
+            if(n.getAttribute() == NCLElementAttributes.ID)
+                altered = n;
+        }
+        assertEquals("m1", altered.getOldValue());
+        assertEquals("m3", altered.getNewValue());
+        assertEquals(2, changes.getElements().size());
+    }
+    
+    
+    @Test
+    public void test8() throws XMLException, InterruptedException {
+        NCLModificationNotifier notifier = new NCLModificationNotifier(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException("shut down");
+            }
+        });
+        Foo foo = new Foo();
+        
+        notifier.addListener(foo);
+        element.setModificationNotifier(notifier);
+        element.setId("doc1");
+        element.setId("doc2");
+        notifier.flush();
+        
+        assertEquals("doc2", element.getId());
+        assertEquals(2, foo.received);
+        assertEquals(0, notifier.getPendingCount());
+    }
+    
+    
+    @Test
+    public void test9() throws InterruptedException {
+        NCLModificationNotifier global = NCLModificationNotifier.getInstance();
+        global.addListener(new Foo());
+        global.finish();
+        
+        assertFalse(global.hasListeners());
+        assertNotSame(global, NCLModificationNotifier.getInstance());
+    }
+    
+    
+    @Test
+    public void test10() throws InterruptedException {
+        final NCLModificationNotifier notifier = new NCLModificationNotifier();
+        final List<Integer> numbers = new ArrayList<Integer>();
+        notifier.addListener(new NCLModificationListener() {
+            @Override
+            public void modifiedElement(NCLNotification notification) {
+                numbers.add(notification.getOrderNumber());
+            }
+        });
+        
+        Thread[] producers = new Thread[4];
+        for(int i = 0; i < producers.length; i++){
+            producers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try{
+                        for(int j = 0; j < 1000; j++)
+                            notifier.addNotification(new NCLNotification(element));
+                    }catch(NCLModificationException ex){}
+                }
+            };
+            producers[i].start();
+        }
+        for(Thread producer : producers)
+            producer.join();
+        notifier.flush();
+        
+        assertEquals(4000, numbers.size());
+        for(int i = 1; i < numbers.size(); i++)
+            assertTrue(numbers.get(i - 1) < numbers.get(i));
+    }
+    
+    
+    @Test
+    public void test11() throws XMLException {
+        NCLModificationNotifier notifier = new NCLModificationNotifier(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        Foo foo = new Foo();
+        NCLDoc other = new NCLDoc();
+        NCLBody body = new NCLBody();
+        
+        notifier.addListener(foo);
+        element.setModificationNotifier(notifier);
+        other.setModificationNotifier(notifier);
+        element.setBody(body);
+        int received = foo.received;
+        
+        // the transaction of a document does not hold the other documents
+        element.beginTransaction();
+        body.addNode(new NCLMedia("m1"));
+        other.setId("other");
+        assertEquals(received + 1, foo.received);
+        assertFalse(other.inTransaction());
+        
+        // the insertion in the body and the parent of the media
+        NCLChangeSet changes = element.commitTransaction();
+        assertEquals(2, changes.size());
+        assertEquals(received + 3, foo.received);
+    }
+    
+    
+    @Test
+    public void test12() throws XMLException {
+        NCLBody body = new NCLBody();
+        element.setBody(body);
+        
+        // the modifications are collected even without listeners
+        element.beginTransaction();
+        body.addNode(new NCLMedia("m1"));
+        element.setId("doc");
+        NCLChangeSet changes = element.commitTransaction();
+        
+        assertEquals(3, changes.size());
+        assertEquals(1, changes.getInserted().size());
+        assertEquals(2, changes.getAltered().size());
+        assertFalse(NCLDoc.hasTransactions());
+    }
+    
+    
+    @Test
+    public void test13() throws XMLException {
+        NCLModificationNotifier notifier = new NCLModificationNotifier(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        final List<Integer> numbers = new ArrayList<Integer>();
+        notifier.addListener(new NCLModificationListener() {
+            @Override
+            public void modifiedElement(NCLNotification notification) {
+                numbers.add(notification.getOrderNumber());
+            }
+        });
+        NCLDoc other = new NCLDoc();
+        element.setModificationNotifier(notifier);
+        other.setModificationNotifier(notifier);
+        
+        // the change set is delivered after a modification made later
+        element.beginTransaction();
+        element.setId("doc");
+        other.setId("other");
+        element.commitTransaction();
+        
+        assertEquals(2, numbers.size());
+        assertTrue(numbers.get(0) < numbers.get(1));
+    }
+    
+    
+    private class Bar implements NCLChangeSetListener {
+        
+        public int received = 0;
+        public NCLChangeSet changes;
+
+        @Override
+        public void modifiedElement(NCLNotification notification) {}
+
+        @Override
+        public void modifiedElements(NCLChangeSet changes) {
+            received++;
+            this.changes = changes;
+        }
+    }
+    
+    
     private class Foo implements NCLModificationListener {
         
         public int received = 0;
@@ -0,0 +1,149 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.presentation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.util.enums.NCLColor;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLPresentationResolverTest {
+    
+    private static final String CONTENT = "<ncl id='pres'><head>"+
+            "<regionBase>"+
+            "<region id='screen' left='10%' top='20' width='50%' height='400'>"+
+            "<region id='r1' left='10' top='10%' right='20' height='50%' zIndex='2'/>"+
+            "</region>"+
+            "</regionBase>"+
+            "<descriptorBase>"+
+            "<descriptor id='d1' region='r1' explicitDur='5s' focusIndex='1' focusBorderColor='red'>"+
+            "<descriptorParam name='transparency' value='40%'/>"+
+            "</descriptor>"+
+            "<descriptor id='d2' region='screen'/>"+
+            "</descriptorBase>"+
+            "</head><body>"+
+            "<media id='m1' src='a.png' descriptor='d1'/>"+
+            "<media id='m2' src='b.png' descriptor='d1'>"+
+            "<property name='left' value='25%'/><property name='zIndex' value='5'/>"+
+            "</media>"+
+            "<media id='m3' src='c.png' descriptor='d2'/>"+
+            "</body></ncl>";
+    
+    
+    private static NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(CONTENT).getElement());
+        return doc;
+    }
+    
+    @Test
+    public void testResolve() throws XMLException {
+        NCLDoc doc = load();
+        NCLPresentationResolver instance = new NCLPresentationResolver(1000, 800);
+        
+        NCLPresentation m1 = instance.resolve((NCLMedia) doc.getElementById("m1"));
+        assertSame(doc.getElementById("r1"), m1.getRegion());
+        assertEquals(110, m1.getLeft());
+        assertEquals(60, m1.getTop());
+        assertEquals(470, m1.getWidth());
+        assertEquals(200, m1.getHeight());
+        assertEquals(Integer.valueOf(2), m1.getzIndex());
+        assertEquals(0.4, m1.getTransparency(), 0.0001);
+        assertEquals(5.0, m1.getExplicitDur().getTimeInSeconds(), 0.0001);
+        assertEquals(Integer.valueOf(1), m1.getFocusIndex());
+        assertEquals(NCLColor.RED, m1.getFocusBorderColor());
+        
+        NCLPresentation m2 = instance.resolve((NCLMedia) doc.getElementById("m2"));
+        assertEquals(225, m2.getLeft());
+        assertEquals(355, m2.getWidth());
+        assertEquals(Integer.valueOf(5), m2.getzIndex());
+        
+        NCLPresentation m3 = instance.resolve((NCLMedia) doc.getElementById("m3"));
+        assertEquals(100, m3.getLeft());
+        assertEquals(20, m3.getTop());
+        assertEquals(500, m3.getWidth());
+        assertEquals(400, m3.getHeight());
+        assertNull(m3.getTransparency());
+        
+        assertSame(m1, instance.resolve((NCLMedia) doc.getElementById("m1")));
+        instance.close();
+    }
+    
+    @Test
+    public void testInvalidation() throws XMLException {
+        NCLDoc doc = load();
+        NCLPresentationResolver instance = new NCLPresentationResolver(1000, 800);
+        NCLMedia m1 = (NCLMedia) doc.getElementById("m1");
+        NCLMedia m2 = (NCLMedia) doc.getElementById("m2");
+        NCLMedia m3 = (NCLMedia) doc.getElementById("m3");
+        
+        NCLPresentation p1 = instance.resolve(m1);
+        NCLPresentation p2 = instance.resolve(m2);
+        NCLPresentation p3 = instance.resolve(m3);
+        
+        // a property of m2 only changes m2
+        ((NCLProperty) m2.getProperties().iterator().next()).setValue("0");
+        assertSame(p1, instance.resolve(m1));
+        assertSame(p3, instance.resolve(m3));
+        NCLPresentation aux = instance.resolve(m2);
+        assertNotSame(p2, aux);
+        assertEquals(100, aux.getLeft());
+        
+        // the inner region changes m1 and m2, the outer region all of them
+        ((NCLRegion) doc.getElementById("r1")).setzIndex(3);
+        assertSame(p3, instance.resolve(m3));
+        assertEquals(Integer.valueOf(3), instance.resolve(m1).getzIndex());
+        
+        ((NCLRegion) doc.getElementById("screen")).setLeft(0);
+        assertEquals(0, instance.resolve(m3).getLeft());
+        assertEquals(10, instance.resolve(m1).getLeft());
+        
+        // the descriptor of the media
+        m3.setDescriptor(doc.getElementById("d1"));
+        assertEquals(0.4, instance.resolve(m3).getTransparency(), 0.0001);
+        
+        instance.close();
+        assertEquals(0, instance.size());
+    }
+}
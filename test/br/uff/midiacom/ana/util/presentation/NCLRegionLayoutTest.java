@@ -0,0 +1,178 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.presentation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.enums.NCLDevice;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLRegionLayoutTest {
+    
+    private static final String CONTENT = "<ncl id='layout'><head>"+
+            "<regionBase>"+
+            "<region id='screen' left='10%' top='20' width='50%' height='400'>"+
+            "<region id='r1' left='10' top='10%' right='20' height='50%' zIndex='2'/>"+
+            "<region id='r2' width='100' height='100'/>"+
+            "</region>"+
+            "<region id='top' left='0' top='0' width='50' height='50' zIndex='1'/>"+
+            "</regionBase>"+
+            "<regionBase device='systemScreen(1)'>"+
+            "<region id='other' width='100%' height='100%'/>"+
+            "</regionBase>"+
+            "</head><body></body></ncl>";
+    
+    
+    private static NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(CONTENT).getElement());
+        return doc;
+    }
+    
+    private static List<String> ids(List<NCLRegion> regions) {
+        List<String> result = new ArrayList<String>();
+        for(NCLRegion region : regions)
+            result.add(region.getId());
+        return result;
+    }
+    
+    @Test
+    public void testLayout() throws XMLException {
+        NCLDoc doc = load();
+        NCLRegionLayout instance = new NCLRegionLayout(doc, 1000, 800);
+        NCLDevice device = new NCLDevice("systemScreen(1)");
+        instance.setScreenSize(device, 320, 240);
+        
+        int[] r1 = instance.getBounds((NCLRegion) doc.getElementById("r1"));
+        assertEquals(110, r1[0]);
+        assertEquals(60, r1[1]);
+        assertEquals(470, r1[2]);
+        assertEquals(200, r1[3]);
+        assertEquals(320, instance.getBounds((NCLRegion) doc.getElementById("other"))[2]);
+        
+        assertEquals("[screen, r2, top, r1]", ids(instance.getPaintOrder(null)).toString());
+        assertEquals("[other]", ids(instance.getPaintOrder(device)).toString());
+        
+        assertEquals("[r1, r2, screen]", ids(instance.getRegionsAt(null, 150, 70)).toString());
+        assertEquals("[top]", ids(instance.getRegionsAt(null, 5, 5)).toString());
+        assertEquals("[]", ids(instance.getRegionsAt(null, 900, 700)).toString());
+        assertEquals("[other]", ids(instance.getRegionsAt(device, 5, 5)).toString());
+        assertEquals("[top, r2, screen]", ids(instance.getRegionsOverlapping(null, 40, 10, 100, 30)).toString());
+        instance.close();
+    }
+    
+    @Test
+    public void testInvalidation() throws XMLException {
+        NCLDoc doc = load();
+        NCLRegionLayout instance = new NCLRegionLayout(doc, 1000, 800);
+        NCLRegion screen = (NCLRegion) doc.getElementById("screen");
+        NCLRegion r1 = (NCLRegion) doc.getElementById("r1");
+        assertEquals(110, instance.getBounds(r1)[0]);
+        
+        screen.setLeft(500);
+        assertEquals(510, instance.getBounds(r1)[0]);
+        assertEquals(470, instance.getBounds(r1)[2]);
+        assertEquals("[]", ids(instance.getRegionsAt(null, 150, 70)).toString());
+        assertEquals("[r1, r2, screen]", ids(instance.getRegionsAt(null, 550, 70)).toString());
+        
+        r1.setzIndex(null);
+        assertEquals("[screen, r1, r2, top]", ids(instance.getPaintOrder(null)).toString());
+        
+        NCLRegion r3 = new NCLRegion("r3");
+        r3.setWidth(10);
+        r3.setHeight(10);
+        r1.addRegion(r3);
+        assertEquals(510, instance.getBounds(r3)[0]);
+        assertEquals("[r3, r2, r1, screen]", ids(instance.getRegionsAt(null, 512, 62)).toString());
+        
+        screen.removeRegion(r1);
+        assertNull(instance.getBounds(r1));
+        assertNull(instance.getBounds(r3));
+        assertEquals("[r2, screen]", ids(instance.getRegionsAt(null, 512, 62)).toString());
+        
+        NCLRegionBase base = (NCLRegionBase) ((NCLHead) doc.getHead()).getRegionBases().iterator().next();
+        base.removeRegion("top");
+        assertEquals("[]", ids(instance.getRegionsAt(null, 5, 5)).toString());
+        instance.close();
+    }
+    
+    @Test
+    public void testQueries() throws XMLException {
+        Random random = new Random(3);
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader("<ncl id='many'><head><regionBase/></head><body></body></ncl>").getElement());
+        NCLRegionBase base = (NCLRegionBase) ((NCLHead) doc.getHead()).getRegionBases().iterator().next();
+        
+        NCLRegionLayout instance = new NCLRegionLayout(doc, 1920, 1080);
+        ArrayList<NCLRegion> regions = new ArrayList<NCLRegion>();
+        for(int i = 0; i < 2000; i++){
+            NCLRegion region = new NCLRegion("r" + i);
+            region.setLeft(random.nextInt(2000) - 40);
+            region.setTop(random.nextInt(1200) - 40);
+            region.setWidth(random.nextInt(300));
+            region.setHeight(random.nextInt(300));
+            base.addRegion(region);
+            regions.add(region);
+        }
+        
+        for(int i = 0; i < 200; i++){
+            int x = random.nextInt(2100) - 80;
+            int y = random.nextInt(1300) - 80;
+            int w = random.nextInt(100) + 1;
+            int h = random.nextInt(100) + 1;
+            
+            int expected = 0;
+            for(NCLRegion region : regions){
+                int[] b = instance.getBounds(region);
+                if(b[2] > 0 && b[3] > 0 && b[0] < x + w && x < b[0] + b[2] && b[1] < y + h && y < b[1] + b[3])
+                    expected++;
+            }
+            assertEquals(expected, instance.getRegionsOverlapping(null, x, y, w, h).size());
+        }
+        instance.close();
+    }
+}
@@ -0,0 +1,141 @@
+/********************************************************************************
+ * This file is part of the api for NCL authoring - aNa.
+ *
+ * Copyright (c) 2011, MídiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgement:
+ *        This product includes the Api for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MÍDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.reference;
+
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class ReferenceListTest {
+
+    @Test
+    public void testAddRemove() {
+        Random random = new Random(7);
+        Object[] values = new Object[40];
+        for(int i = 0; i < values.length; i++)
+            values[i] = new Object();
+        
+        ReferenceList<Object> instance = new ReferenceList<Object>();
+        IdentityHashMap<Object, Integer> expected = new IdentityHashMap<Object, Integer>();
+        for(int i = 0; i < 5000; i++){
+            Object value = values[random.nextInt(values.length)];
+            Integer count = expected.get(value);
+            if(random.nextInt(3) > 0){
+                instance.add(value);
+                expected.put(value, count == null ? 1 : count + 1);
+            }
+            else{
+                assertEquals(count != null, instance.remove(value));
+                if(count != null){
+                    if(count == 1)
+                        expected.remove(value);
+                    else
+                        expected.put(value, count - 1);
+                }
+            }
+            
+            if(i % 100 == 0){
+                int size = 0;
+                for(Object v : values){
+                    Integer c = expected.get(v);
+                    assertEquals(c != null, instance.contains(v));
+                    int found = 0;
+                    for(Object o : instance){
+                        if(o == v)
+                            found++;
+                    }
+                    assertEquals(c == null ? 0 : c, found);
+                    size += found;
+                }
+                assertEquals(size, instance.size());
+            }
+        }
+    }
+    
+    @Test
+    public void testChangedByOtherMethods() {
+        ReferenceList<Object> instance = new ReferenceList<Object>();
+        Object first = new Object();
+        instance.add(first);
+        for(int i = 0; i < 30; i++)
+            instance.add(new Object());
+        assertTrue(instance.contains(first));
+        
+        instance.remove(0);
+        assertFalse(instance.contains(first));
+        assertFalse(instance.remove(first));
+        
+        Object other = instance.get(10);
+        instance.set(10, first);
+        assertTrue(instance.remove(first));
+        assertFalse(instance.contains(other));
+        assertEquals(29, instance.size());
+    }
+    
+    @Test
+    public void testReferencesByType() throws XMLException {
+        NCLDescriptor descriptor = new NCLDescriptor("d1");
+        assertFalse(ReferenceList.hasReferences(descriptor, NCLMedia.class));
+        
+        ArrayList<NCLMedia> medias = new ArrayList<NCLMedia>();
+        for(int i = 0; i < 50; i++){
+            NCLMedia media = new NCLMedia("m" + i);
+            media.setDescriptor(descriptor);
+            medias.add(media);
+        }
+        NCLContext context = new NCLContext("c1");
+        descriptor.addReference(context);
+        
+        assertTrue(ReferenceList.hasReferences(descriptor, NCLMedia.class));
+        assertEquals(50, ReferenceList.getReferences(descriptor, NCLMedia.class).size());
+        assertEquals(1, ReferenceList.getReferences(descriptor, NCLContext.class).size());
+        
+        for(NCLMedia media : medias)
+            media.setDescriptor(null);
+        assertFalse(ReferenceList.hasReferences(descriptor, NCLMedia.class));
+        assertEquals(1, descriptor.getReferences().size());
+        assertSame(context, descriptor.getReferences().get(0));
+    }
+}